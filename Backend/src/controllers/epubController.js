@@ -49,13 +49,13 @@ const epubController = {
   },
 
   /**
-   * Lấy danh sách chương EPUB từ URL
-   * @param {Object} req - HTTP request (body: { epub_url })
+   * Lấy danh sách chương EPUB từ URL (theo trang nếu có limit)
+   * @param {Object} req - HTTP request (body: { epub_url, offset?, limit? })
    * @param {Object} res - HTTP response
    */
   getChapters: async (req, res) => {
     try {
-      const { epub_url } = req.body
+      const { epub_url, offset, limit } = req.body
 
       if (!epub_url) {
         return res.status(400).json({
@@ -64,7 +64,7 @@ const epubController = {
         })
       }
 
-      const result = await getEpubChapters({ url: epub_url })
+      const result = await getEpubChapters({ url: epub_url, offset, limit })
 
       if (result.success) {
         res.status(200).json(result)
@@ -203,6 +203,33 @@ const epubController = {
     }
   },
 
+  /**
+   * Lấy ảnh từ EPUB dưới dạng byte gốc (cho WebView/HTTP cache của app, không bọc base64 JSON)
+   * @param {Object} req - HTTP request (query: { epub_url, image_id })
+   * @param {Object} res - HTTP response
+   */
+  getImageRaw: async (req, res) => {
+    try {
+      const { epub_url, image_id } = req.query
+
+      const result = await getEpubImage({ url: epub_url, imageId: image_id })
+
+      if (result.success) {
+        // Ảnh trong một file EPUB không đổi theo (epub_url, image_id)
+        res.set('Content-Type', result.data.mimeType || 'application/octet-stream')
+        res.set('Cache-Control', 'public, max-age=2592000, immutable')
+        res.status(200).send(result.data.image)
+      } else {
+        res.status(404).json(result)
+      }
+    } catch (error) {
+      res.status(500).json({
+        success: false,
+        message: `Lỗi server: ${error.message}`
+      })
+    }
+  },
+
   /**
    * Lấy file từ EPUB
    * @param {Object} req - HTTP request (body: { epub_url, file_id })
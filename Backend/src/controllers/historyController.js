@@ -10,7 +10,7 @@ const historyController = {
    * @returns {void}
    */
   saveBookmark: catchAsync(async (req, res) => {
-    const { userId, bookId, chapterId } = req.body
+    const { userId, bookId, chapterId, progress } = req.body
 
     if (!userId || !bookId || chapterId === 'null') {
       throw new ApiError(
@@ -22,7 +22,8 @@ const historyController = {
     const result = await historyService.saveBookmark({
       userId,
       bookId,
-      chapterId
+      chapterId,
+      progress
     })
 
     res.status(httpStatus.status.OK).json(result)
@@ -37,7 +38,7 @@ const historyController = {
   getReadingHistory: catchAsync(async (req, res) => {
     const { userId } = req.params
     const tokenUserId = req.userId
-    const { page, limit, sortBy, sortOrder } = req.query
+    const { page, limit, sortBy, sortOrder, since } = req.query
 
     // Kiểm tra user chỉ có thể xem lịch sử của chính mình
     if (parseInt(userId) !== parseInt(tokenUserId)) {
@@ -51,7 +52,8 @@ const historyController = {
       page: parseInt(page) || 1,
       limit: parseInt(limit) || 10,
       sortBy: sortBy || 'lastReadAt',
-      sortOrder: sortOrder || 'desc'
+      sortOrder: sortOrder || 'desc',
+      since: parseInt(since) || 0
     }
 
     const result = await historyService.getReadingHistory(userId, options)
@@ -140,6 +142,29 @@ const historyController = {
 
     const result = await historyService.getHistoryByBook(bookId)
 
+    res.status(httpStatus.status.OK).json(result)
+  }),
+
+  /**
+   * Đồng bộ batch thời gian đọc (delta theo sách + ngày)
+   * @param {Object} req - HTTP request
+   * @param {Object} res - HTTP response
+   * @returns {void}
+   */
+  syncReadingTime: catchAsync(async (req, res) => {
+    const { userId } = req.params
+    const tokenUserId = req.userId
+    const { streamId, seq, entries } = req.body
+
+    if (parseInt(userId) !== parseInt(tokenUserId)) {
+      throw new ApiError(
+        httpStatus.status.FORBIDDEN,
+        'Bạn chỉ có thể cập nhật thời gian đọc của chính mình'
+      )
+    }
+
+    const result = await historyService.syncReadingTime(userId, streamId, parseInt(seq), entries)
+
     res.status(httpStatus.status.OK).json(result)
   })
 }
@@ -162,6 +162,23 @@ const getFavoriteBooks = catchAsync(async (req, res) => {
   })
 })
 
+/**
+ * Lấy một trang ID sách yêu thích (không kèm chi tiết sách)
+ * @param {Object} req - HTTP request (params: userId, query: page, limit)
+ * @param {Object} res - HTTP response
+ * @returns {void}
+ */
+const getFavoriteBookIds = catchAsync(async (req, res) => {
+  const { userId } = pick(req.params, ['userId'])
+  const { page, limit } = pick(req.query, ['page', 'limit'])
+  const result = await userService.getFavoriteBookIds({ userId, page, limit })
+  res.json({
+    success: result.success,
+    data: result.data,
+    message: 'Favorite book IDs retrieved successfully'
+  })
+})
+
 module.exports = {
   verifyUserOTP,
   login,
@@ -172,5 +189,6 @@ module.exports = {
   updateUser,
   addFavoriteBook,
   removeFavoriteBook,
-  getFavoriteBooks
+  getFavoriteBooks,
+  getFavoriteBookIds
 }
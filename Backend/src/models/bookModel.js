@@ -241,6 +241,7 @@ const bookModel = {
    * @param {string} options.author - Tìm theo tác giả
    * @param {string} options.keyword - Tìm theo từ khóa
    * @param {string} options.category - Lọc theo thể loại
+   * @param {string} options.ids - Danh sách ID cách nhau bởi dấu phẩy (giữ nguyên thứ tự)
    * @param {string} options.status - Lọc theo trạng thái (mặc định: 'active')
    * @param {string} options.sortBy - Sắp xếp theo trường (mặc định: 'createdAt')
    * @param {string} options.sortOrder - Thứ tự sắp xếp 'asc'/'desc' (mặc định: 'desc')
@@ -258,11 +259,16 @@ const bookModel = {
         author = '',
         keyword = '',
         category = '',
+        ids = '',
         status = 'active',
         sortBy = 'createdAt',
         sortOrder = 'desc'
       } = options
 
+      if (ids) {
+        return await bookModel.searchByIds({ ids, page, limit, status })
+      }
+
       let allBooks = await bookModel.getAll()
 
       const normalize = (str = '') =>
@@ -348,6 +354,43 @@ const bookModel = {
     } catch (error) {
       throw new Error(`Lỗi khi tìm kiếm sách: ${error.message}`)
     }
+  },
+
+  /**
+   * Lấy sách theo danh sách ID, chỉ đọc đúng các node cần thiết thay vì toàn bộ books
+   * @param {Object} options
+   * @param {string} options.ids - Danh sách ID cách nhau bởi dấu phẩy
+   * @param {number} options.page - Số trang (mặc định: 1)
+   * @param {number} options.limit - Số sách mỗi trang (mặc định: 10)
+   * @param {string} options.status - Lọc theo trạng thái
+   * @returns {Promise<Object>} Sách theo đúng thứ tự ID truyền vào, kèm phân trang
+   */
+  searchByIds: async (options = {}) => {
+    try {
+      const { ids = '', status = '' } = options
+      const page = parseInt(options.page) || 1
+      const limit = parseInt(options.limit) || 10
+
+      const idList = [...new Set(String(ids).split(',').map(id => id.trim()).filter(Boolean))]
+      const total = idList.length
+      const pageIds = idList.slice((page - 1) * limit, page * limit)
+
+      const books = (await Promise.all(
+        pageIds.map(id => bookModel.getById(id).catch(() => null))
+      )).filter(book => book && (!status || book.status === status))
+
+      return {
+        books,
+        pagination: {
+          page,
+          limit,
+          total,
+          totalPages: Math.ceil(total / limit)
+        }
+      }
+    } catch (error) {
+      throw new Error(`Lỗi khi lấy sách theo danh sách ID: ${error.message}`)
+    }
   }
 }
 
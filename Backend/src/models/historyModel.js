@@ -36,6 +36,9 @@ const historyModel = {
         createdAt: Date.now(),
         updatedAt: Date.now()
       }
+      if (historyData.progress !== undefined) {
+        sanitizedData.progress = parseFloat(historyData.progress)
+      }
 
       const historyRef = db.getRef(`reading_history/${historyId}`)
       await historyRef.set(sanitizedData)
@@ -78,6 +81,9 @@ const historyModel = {
       if (updateData.lastReadAt !== undefined) {
         sanitizedUpdateData.lastReadAt = updateData.lastReadAt
       }
+      if (updateData.progress !== undefined) {
+        sanitizedUpdateData.progress = parseFloat(updateData.progress)
+      }
 
       await db.getRef(`reading_history/${historyId}`).update(sanitizedUpdateData)
       return await historyModel.findById(historyId)
@@ -180,7 +186,8 @@ const historyModel = {
         page = 1,
         limit = 10,
         sortBy = 'lastReadAt',
-        sortOrder = 'desc'
+        sortOrder = 'desc',
+        since = 0
       } = options
 
       const snapshot = await db
@@ -196,6 +203,11 @@ const historyModel = {
         ...histories[key]
       }))
 
+      // Đồng bộ tăng dần: chỉ lấy các bản ghi được đọc sau mốc since
+      if (since > 0) {
+        historiesArray = historiesArray.filter(history => (history.lastReadAt || 0) > since)
+      }
+
       historiesArray.sort((a, b) => {
         const aValue = a[sortBy] || 0
         const bValue = b[sortBy] || 0
@@ -298,6 +310,56 @@ const historyModel = {
           `Xóa lịch sử đọc sách thất bại: ${error.message}`
         )
     }
+  },
+
+  /**
+   * Cộng dồn thời gian đọc (đơn vị giây) theo ngày và theo sách.
+   * seq tăng dần trong một luồng (streamId: mỗi lần cài app / mỗi thiết bị / mỗi lần đổi tài khoản một luồng mới).
+   * Batch có seq <= lastSeq của luồng đã được áp dụng trước đó sẽ bị bỏ qua (client gửi lại khi retry).
+   * Không có streamId (client cũ): dùng lastSeq chung của user như trước.
+   * @param {number} userId - User ID
+   * @param {string|undefined} streamId - ID luồng batch phía client
+   * @param {number} seq - Số thứ tự batch tăng dần trong luồng
+   * @param {Array} entries - [{ bookId, day: 'YYYYMMDD', seconds }]
+   * @return {Object} Tổng thời gian đọc sau khi cộng
+   */
+  addReadingTime: async (userId, streamId, seq, entries) => {
+    try {
+      const result = await db.getRef(`reading_time/${parseInt(userId)}`).transaction((current) => {
+        const data = current || { totalSeconds: 0, lastSeq: 0, days: {}, books: {} }
+        const streams = data.streams || {}
+        const lastSeq = streamId ? (streams[streamId] || 0) : (data.lastSeq || 0)
+        if (seq <= lastSeq) return data
+
+        data.days = data.days || {}
+        data.books = data.books || {}
+        for (const entry of entries) {
+          const seconds = Math.max(0, parseInt(entry.seconds) || 0)
+          data.totalSeconds = (data.totalSeconds || 0) + seconds
+          data.days[entry.day] = (data.days[entry.day] || 0) + seconds
+          data.books[entry.bookId] = (data.books[entry.bookId] || 0) + seconds
+        }
+        if (streamId) {
+          streams[streamId] = seq
+          data.streams = streams
+        } else {
+          data.lastSeq = seq
+        }
+        data.updatedAt = Date.now()
+        return data
+      })
+
+      const value = result.snapshot.val() || {}
+      return {
+        totalSeconds: value.totalSeconds || 0,
+        lastSeq: streamId ? ((value.streams || {})[streamId] || 0) : (value.lastSeq || 0)
+      }
+    } catch (error) {
+      throw new ApiError(
+        httpStatus.status.INTERNAL_SERVER_ERROR,
+        `Cập nhật thời gian đọc thất bại: ${error.message}`
+      )
+    }
   }
 }
 
@@ -308,5 +370,6 @@ module.exports = {
   findByUserAndBook: historyModel.findByUserAndBook,
   getByUserId: historyModel.getByUserId,
   findByBook: historyModel.findByBook,
-  delete: historyModel.delete
+  delete: historyModel.delete,
+  addReadingTime: historyModel.addReadingTime
 }
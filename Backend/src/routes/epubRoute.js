@@ -41,6 +41,12 @@ router.post(
   epubController.getImage
 )
 
+router.get(
+  '/image/raw',
+  validate(epubValidation.getImageRaw),
+  epubController.getImageRaw
+)
+
 router.post(
   '/file',
   validate(epubValidation.getFile),
@@ -20,6 +20,13 @@ router.get(
   historyController.getReadingHistory
 )
 
+router.post(
+  '/:userId/reading-time',
+  authenticate,
+  validate(historyValidation.syncReadingTime),
+  historyController.syncReadingTime
+)
+
 router.get(
   '/:userId/bookmark/:bookId',
   authenticate,
@@ -19,6 +19,10 @@ router
   .route('/:userId/favorites')
   .get(auth, validate(userValidation.getFavoriteBooks), userController.getFavoriteBooks)
 
+router
+  .route('/:userId/favorites/ids')
+  .get(auth, validate(userValidation.getFavoriteBookIds), userController.getFavoriteBookIds)
+
 router
   .route('/:userId/favorites/:bookId')
   .post(auth, validate(userValidation.addFavoriteBook), userController.addFavoriteBook)
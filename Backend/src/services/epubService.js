@@ -42,17 +42,42 @@ const cleanupTempFile = (filePath) => {
   }
 }
 
+// EPUB đã tải + parse, giữ lại để các request liên tiếp (ảnh của cùng một chương...) không tải lại cả file
+const EPUB_CACHE_TTL_MS = 10 * 60 * 1000
+const EPUB_CACHE_MAX = 5
+const epubCache = new Map() // url -> { promise, tempPath, expiresAt }
+
 /**
- * Phân tích file EPUB từ URL
- * @param {Object} data - Dữ liệu yêu cầu
- * @param {string} data.url - URL của file EPUB
- * @returns {Promise<Object>} - Dữ liệu EPUB đã phân tích
+ * Bỏ một EPUB khỏi cache và xóa file tạm của nó
+ * @param {string} url - URL của file EPUB
+ * @returns {void}
  */
-const parseEpubFromUrl = async (data) => {
-  const { url } = data
-  const tempPath = path.join(tempDir, generateTempFileName())
+const evictEpub = (url) => {
+  const entry = epubCache.get(url)
+  if (!entry) return
+  epubCache.delete(url)
+  cleanupTempFile(entry.tempPath)
+}
 
-  try {
+/**
+ * Tải và parse file EPUB (đối tượng EPub đã sẵn sàng đọc chương/ảnh), dùng lại bản trong cache nếu còn hạn.
+ * Các request đồng thời cho cùng URL dùng chung một lần tải.
+ * @param {string} url - URL của file EPUB
+ * @returns {Promise<EPub>}
+ */
+const openEpub = (url) => {
+  const now = Date.now()
+  const cached = epubCache.get(url)
+  if (cached && cached.expiresAt > now) {
+    // Map giữ thứ tự chèn: đưa xuống cuối để bỏ bản ít dùng nhất trước
+    epubCache.delete(url)
+    epubCache.set(url, cached)
+    return cached.promise
+  }
+  if (cached) evictEpub(url)
+
+  const tempPath = path.join(tempDir, generateTempFileName())
+  const promise = (async () => {
     const response = await axios({
       method: 'GET',
       url: url,
@@ -71,14 +96,88 @@ const parseEpubFromUrl = async (data) => {
       throw new Error('Downloaded file is empty')
     }
 
-    const epubData = await parseEpubFile({ filePath: tempPath })
+    return new Promise((resolve, reject) => {
+      const epub = new EPub(tempPath)
+      epub.on('end', () => resolve(epub))
+      epub.on('error', (err) => {
+        reject(new Error(`Failed to parse EPUB: ${err.message}. This might be due to corrupted file, invalid EPUB format, or empty archive.`))
+      })
+      epub.parse()
+    })
+  })()
 
-    return epubData
+  epubCache.set(url, { promise, tempPath, expiresAt: now + EPUB_CACHE_TTL_MS })
+  while (epubCache.size > EPUB_CACHE_MAX) {
+    evictEpub(epubCache.keys().next().value)
+  }
+  // Lỗi không được cache: lần sau tải lại
+  promise.catch(() => {
+    if (epubCache.get(url)?.promise === promise) evictEpub(url)
+  })
+  return promise
+}
+
+// EPub -> dữ liệu đã phân tích (metadata, danh sách chương...), tính một lần cho mỗi EPUB trong cache
+const epubDataCache = new WeakMap()
+
+/**
+ * Phân tích file EPUB từ URL. Dùng EPUB đã tải trong cache (openEpub) nên các trang danh sách chương
+ * (offset/limit) và metadata của cùng một sách không tải + parse lại cả file.
+ * @param {Object} data - Dữ liệu yêu cầu
+ * @param {string} data.url - URL của file EPUB
+ * @returns {Promise<Object>} - Dữ liệu EPUB đã phân tích
+ */
+const parseEpubFromUrl = async (data) => {
+  const { url } = data
 
+  try {
+    const epub = await openEpub(url)
+    let epubData = epubDataCache.get(epub)
+    if (!epubData) {
+      epubData = toEpubData(epub)
+      epubDataCache.set(epub, epubData)
+    }
+    return epubData
   } catch (error) {
     throw new Error(`Failed to process EPUB from URL: ${error.message}`)
-  } finally {
-    cleanupTempFile(tempPath)
+  }
+}
+
+/**
+ * @param {EPub} epub - EPUB đã parse xong
+ * @return {Object}
+ */
+const toEpubData = (epub) => {
+  return {
+    metadata: {
+      title: epub.metadata.title || '',
+      creator: epub.metadata.creator || '',
+      publisher: epub.metadata.publisher || '',
+      language: epub.metadata.language || 'en',
+      description: epub.metadata.description || '',
+      subject: epub.metadata.subject || '',
+      date: epub.metadata.date || '',
+      rights: epub.metadata.rights || ''
+    },
+    chapters: epub.flow.map(chapter => ({
+      id: chapter.id,
+      title: chapter.title,
+      href: chapter.href,
+      level: chapter.level || 1
+    })),
+    toc: epub.toc.map(item => ({
+      id: item.id,
+      title: item.title,
+      href: item.href,
+      level: item.level || 1
+    })),
+    manifest: Object.keys(epub.manifest).map(key => ({
+      id: key,
+      href: epub.manifest[key].href,
+      mediaType: epub.manifest[key].mediaType
+    })),
+    spine: epub.spine,
+    totalChapters: epub.flow.length
   }
 }
 
@@ -93,39 +192,7 @@ const parseEpubFile = async (data) => {
     const epub = new EPub(filePath)
 
     epub.on('end', () => {
-      const result = {
-        metadata: {
-          title: epub.metadata.title || '',
-          creator: epub.metadata.creator || '',
-          publisher: epub.metadata.publisher || '',
-          language: epub.metadata.language || 'en',
-          description: epub.metadata.description || '',
-          subject: epub.metadata.subject || '',
-          date: epub.metadata.date || '',
-          rights: epub.metadata.rights || ''
-        },
-        chapters: epub.flow.map(chapter => ({
-          id: chapter.id,
-          title: chapter.title,
-          href: chapter.href,
-          level: chapter.level || 1
-        })),
-        toc: epub.toc.map(item => ({
-          id: item.id,
-          title: item.title,
-          href: item.href,
-          level: item.level || 1
-        })),
-        manifest: Object.keys(epub.manifest).map(key => ({
-          id: key,
-          href: epub.manifest[key].href,
-          mediaType: epub.manifest[key].mediaType
-        })),
-        spine: epub.spine,
-        totalChapters: epub.flow.length
-      }
-
-      resolve(result)
+      resolve(toEpubData(epub))
     })
 
     epub.on('error', (err) => {
@@ -162,19 +229,26 @@ const getEpubMetadata = async (data) => {
 }
 
 /**
+ * Danh sách chương, có thể lấy theo trang (offset/limit) cho sách có hàng nghìn chương
  * @param {Object} data
  * @param {string} data.url
+ * @param {number} [data.offset=0]
+ * @param {number} [data.limit] - Không truyền thì trả về toàn bộ từ offset
  * @return {Promise<Object>}
  */
 const getEpubChapters = async (data) => {
-  const { url } = data
+  const { url, offset = 0, limit } = data
   try {
     const epubData = await parseEpubFromUrl({ url })
+    const end = limit ? offset + limit : epubData.chapters.length
+    const chapters = epubData.chapters.slice(offset, end)
     return {
       success: true,
       data: {
-        chapters: epubData.chapters,
-        totalChapters: epubData.totalChapters
+        chapters,
+        totalChapters: epubData.totalChapters,
+        offset,
+        hasMore: end < epubData.chapters.length
       }
     }
   } catch (error) {
@@ -430,50 +504,26 @@ const getEpubChapterRaw = async (data) => {
  */
 const getEpubImage = async (data) => {
   const { url, imageId } = data
-  const tempPath = path.join(tempDir, generateTempFileName())
 
   try {
-    const response = await axios({
-      method: 'GET',
-      url: url,
-      responseType: 'arraybuffer',
-      timeout: 30000,
-      maxRedirects: 5
-    })
-
-    fs.writeFileSync(tempPath, response.data)
-
-    const stats = fs.statSync(tempPath)
-    if (stats.size === 0) {
-      throw new Error('Downloaded file is empty')
-    }
-
-    const epub = new EPub(tempPath)
-
-    return new Promise((resolve, reject) => {
-      epub.on('end', () => {
-        epub.getImage(imageId, (error, img, mimeType) => {
-          if (error) {
-            reject(new Error(`Failed to get image: ${error.message}`))
-          } else {
-            resolve({
-              success: true,
-              data: {
-                imageId,
-                image: img,
-                mimeType: mimeType,
-                base64: `data:${mimeType};base64,${img.toString('base64')}`
-              }
-            })
-          }
-        })
-      })
-
-      epub.on('error', (err) => {
-        reject(new Error(`Failed to parse EPUB: ${err.message}. This might be due to corrupted file, invalid EPUB format, or empty archive.`))
+    const epub = await openEpub(url)
+
+    return await new Promise((resolve, reject) => {
+      epub.getImage(imageId, (error, img, mimeType) => {
+        if (error) {
+          reject(new Error(`Failed to get image: ${error.message}`))
+        } else {
+          resolve({
+            success: true,
+            data: {
+              imageId,
+              image: img,
+              mimeType: mimeType,
+              base64: `data:${mimeType};base64,${img.toString('base64')}`
+            }
+          })
+        }
       })
-
-      epub.parse()
     })
 
   } catch (error) {
@@ -481,8 +531,6 @@ const getEpubImage = async (data) => {
       success: false,
       message: error.message
     }
-  } finally {
-    cleanupTempFile(tempPath)
   }
 }
 
@@ -14,7 +14,7 @@ const historyService = {
    */
   saveBookmark: async (bookmarkData) => {
     try {
-      const { userId, bookId, chapterId } = bookmarkData
+      const { userId, bookId, chapterId, progress } = bookmarkData
 
       await userModel.findById(userId)
 
@@ -35,6 +35,10 @@ const historyService = {
         chapterId,
         lastReadAt: Date.now()
       }
+      // % đã đọc trên cả cuốn sách (tùy chọn, app tính từ độ dài các chương)
+      if (progress !== undefined) {
+        updateData.progress = progress
+      }
 
 
       if (existingHistory) {
@@ -273,6 +277,36 @@ const historyService = {
           `Lấy lịch sử đọc theo book thất bại: ${error.message}`
         )
     }
+  },
+
+  /**
+   * Đồng bộ batch thời gian đọc từ client
+   * @param {number} userId - ID người dùng
+   * @param {string|undefined} streamId - ID luồng batch phía client
+   * @param {number} seq - Số thứ tự batch trong luồng
+   * @param {Array} entries - Danh sách delta { bookId, day, seconds }
+   * @returns {Promise<Object>} - Tổng thời gian đọc hiện tại
+   * @throws {ApiError} - Nếu đồng bộ thất bại
+   */
+  syncReadingTime: async (userId, streamId, seq, entries) => {
+    try {
+      await userModel.findById(userId)
+
+      const result = await historyModel.addReadingTime(userId, streamId, seq, entries || [])
+
+      return {
+        success: true,
+        message: 'Đồng bộ thời gian đọc thành công',
+        data: result
+      }
+    } catch (error) {
+      throw error instanceof ApiError
+        ? error
+        : new ApiError(
+          httpStatus.status.INTERNAL_SERVER_ERROR,
+          `Đồng bộ thời gian đọc thất bại: ${error.message}`
+        )
+    }
   }
 }
 
@@ -282,5 +316,6 @@ module.exports = {
   getBookmark: historyService.getBookmark,
   deleteBookmark: historyService.deleteBookmark,
   getHistoryByUser: historyService.getHistoryByUser,
-  getHistoryByBook: historyService.getHistoryByBook
+  getHistoryByBook: historyService.getHistoryByBook,
+  syncReadingTime: historyService.syncReadingTime
 }
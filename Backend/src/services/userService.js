@@ -218,11 +218,55 @@ const getFavoriteBooks = async (data) => {
   }
 }
 
+/**
+ * Get one page of user's favorite book IDs (no book details)
+ * @param {string} userId - User ID
+ * @param {number} page - Page number
+ * @param {number} limit - IDs per page
+ * @returns {Promise<Object>} - Favorite book IDs of the page and pagination
+ * @throws {ApiError} 404 - User not found
+ */
+const getFavoriteBookIds = async (data) => {
+  const { userId } = data
+  const page = parseInt(data.page) || 1
+  const limit = parseInt(data.limit) || 12
+  try {
+    if (!userId) {
+      throw new ApiError(
+        httpStatus.BAD_REQUEST,
+        'User ID is required'
+      )
+    }
+
+    const favoriteBookIds = (await userModel.getFavoriteBooks(userId)).map(String)
+    const total = favoriteBookIds.length
+    return {
+      success: true,
+      data: {
+        favoriteBookIds: favoriteBookIds.slice((page - 1) * limit, page * limit),
+        pagination: {
+          page,
+          limit,
+          total,
+          totalPages: Math.ceil(total / limit)
+        }
+      }
+    }
+  } catch (error) {
+    if (error instanceof ApiError) throw error
+    throw new ApiError(
+      httpStatus.INTERNAL_SERVER_ERROR,
+      `Failed to get favorite book IDs: ${error.message}`
+    )
+  }
+}
+
 module.exports = {
   getUserById,
   getUserByEmail,
   updateUserById,
   addFavoriteBook,
   removeFavoriteBook,
-  getFavoriteBooks
+  getFavoriteBooks,
+  getFavoriteBookIds
 }
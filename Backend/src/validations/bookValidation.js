@@ -18,6 +18,10 @@ const Joi = require('joi')
  */
 const getList = {
   query: Joi.object().keys({
+    ids: Joi.string().trim().pattern(/^\d+(,\d+)*$/).messages({
+      'string.base': 'Danh sách ID phải là chuỗi',
+      'string.pattern.base': 'Danh sách ID phải là các số nguyên cách nhau bởi dấu phẩy'
+    }),
     page: Joi.number().integer().min(1).default(1).messages({
       'number.base': 'Số trang phải là số nguyên',
       'number.integer': 'Số trang phải là số nguyên',
@@ -22,6 +22,8 @@ const epubValidation = {
   /**
    * @param {Object} body - Request body
    * @param {string} body.epub_url - EPUB file URL (valid URI)
+   * @param {number} [body.offset] - Vị trí chương đầu tiên của trang (mặc định 0)
+   * @param {number} [body.limit] - Số chương mỗi trang (không có thì lấy hết)
    * @return {Object} Joi validation schema
    */
   getChapters: {
@@ -29,6 +31,13 @@ const epubValidation = {
       epub_url: Joi.string().required().uri().messages({
         'string.uri': 'URL EPUB không hợp lệ',
         'any.required': 'URL EPUB là bắt buộc'
+      }),
+      offset: Joi.number().integer().min(0).default(0).messages({
+        'number.min': 'offset không được âm'
+      }),
+      limit: Joi.number().integer().min(1).max(1000).messages({
+        'number.min': 'limit phải lớn hơn 0',
+        'number.max': 'limit tối đa 1000'
       })
     })
   },
@@ -107,6 +116,26 @@ const epubValidation = {
     })
   },
 
+  /**
+   * @param {Object} query - Query string
+   * @param {string} query.epub_url - EPUB file URL (valid URI)
+   * @param {string} query.image_id - Image ID (non-empty string)
+   * @return {Object} Joi validation schema
+   */
+  getImageRaw: {
+    query: Joi.object().keys({
+      epub_url: Joi.string().required().uri().messages({
+        'string.uri': 'URL EPUB không hợp lệ',
+        'any.required': 'URL EPUB là bắt buộc'
+      }),
+      image_id: Joi.string().required().trim().min(1).messages({
+        'string.empty': 'ID ảnh không được để trống',
+        'any.required': 'ID ảnh là bắt buộc',
+        'string.min': 'ID ảnh phải có ít nhất 1 ký tự'
+      })
+    })
+  },
+
   /**
    * @param {Object} body - Request body
    * @param {string} body.epub_url - EPUB file URL (valid URI)
@@ -22,6 +22,11 @@ const historyValidation = {
       chapterId: Joi.string().required().messages({
         'string.base': 'ID chương phải là chuỗi',
         'any.required': 'ID chương là bắt buộc'
+      }),
+      progress: Joi.number().min(0).max(100).optional().messages({
+        'number.base': 'Tiến độ đọc phải là số',
+        'number.min': 'Tiến độ đọc phải từ 0 đến 100',
+        'number.max': 'Tiến độ đọc phải từ 0 đến 100'
       })
     })
   },
@@ -57,6 +62,11 @@ const historyValidation = {
       }),
       sortOrder: Joi.string().valid('asc', 'desc').optional().messages({
         'any.only': 'Thứ tự sắp xếp phải là asc hoặc desc'
+      }),
+      since: Joi.number().integer().min(0).optional().messages({
+        'number.base': 'Mốc thời gian phải là số',
+        'number.integer': 'Mốc thời gian phải là số nguyên',
+        'number.min': 'Mốc thời gian phải lớn hơn hoặc bằng 0'
       })
     })
   },
@@ -132,6 +142,49 @@ const historyValidation = {
         'any.required': 'ID sách là bắt buộc'
       })
     })
+  },
+
+  /**
+   * @param {Object} params - URL parameters
+   * @param {Object} body - Request body (streamId + seq + danh sách delta thời gian đọc)
+   * @return {Object} Joi validation schema
+   */
+  syncReadingTime: {
+    params: Joi.object().keys({
+      userId: Joi.number().integer().positive().required().messages({
+        'number.base': 'ID người dùng phải là số',
+        'number.integer': 'ID người dùng phải là số nguyên',
+        'number.positive': 'ID người dùng phải là số dương',
+        'any.required': 'ID người dùng là bắt buộc'
+      })
+    }),
+    body: Joi.object().keys({
+      streamId: Joi.string().pattern(/^[A-Za-z0-9-]{8,64}$/).messages({
+        'string.pattern.base': 'streamId không hợp lệ'
+      }),
+      seq: Joi.number().integer().positive().required().messages({
+        'number.base': 'seq phải là số',
+        'any.required': 'seq là bắt buộc'
+      }),
+      entries: Joi.array().max(100).items(Joi.object().keys({
+        bookId: Joi.number().integer().positive().required().messages({
+          'number.base': 'ID sách phải là số',
+          'any.required': 'ID sách là bắt buộc'
+        }),
+        day: Joi.string().pattern(/^\d{8}$/).required().messages({
+          'string.pattern.base': 'Ngày phải có dạng YYYYMMDD',
+          'any.required': 'Ngày là bắt buộc'
+        }),
+        seconds: Joi.number().integer().min(0).max(86400).required().messages({
+          'number.base': 'Số giây phải là số',
+          'number.max': 'Số giây không được vượt quá 86400',
+          'any.required': 'Số giây là bắt buộc'
+        })
+      })).required().messages({
+        'array.max': 'Tối đa 100 bản ghi mỗi lần đồng bộ',
+        'any.required': 'Danh sách thời gian đọc là bắt buộc'
+      })
+    })
   }
 }
 
@@ -84,6 +84,39 @@ const getFavoriteBooks = {
   })
 }
 
+/**
+ * Validation cho lấy danh sách ID sách yêu thích có phân trang
+ * @param {Object} params - Route parameters
+ * @param {string} params.userId - User ID (positive integer)
+ * @param {Object} query - Query parameters
+ * @param {number} query.page - Trang hiện tại
+ * @param {number} query.limit - Số ID mỗi trang
+ * @return {Object} Joi validation schema
+ */
+const getFavoriteBookIds = {
+  params: Joi.object().keys({
+    userId: Joi.number().integer().positive().required().messages({
+      'number.base': 'ID user phải là số nguyên',
+      'number.integer': 'ID user phải là số nguyên',
+      'number.positive': 'ID user phải là số dương',
+      'any.required': 'ID user là bắt buộc'
+    })
+  }),
+  query: Joi.object().keys({
+    page: Joi.number().integer().min(1).default(1).messages({
+      'number.base': 'Số trang phải là số nguyên',
+      'number.integer': 'Số trang phải là số nguyên',
+      'number.min': 'Số trang phải lớn hơn 0'
+    }),
+    limit: Joi.number().integer().min(1).max(100).default(12).messages({
+      'number.base': 'Số lượng mỗi trang phải là số nguyên',
+      'number.integer': 'Số lượng mỗi trang phải là số nguyên',
+      'number.min': 'Số lượng mỗi trang phải lớn hơn 0',
+      'number.max': 'Số lượng mỗi trang không được vượt quá 100'
+    })
+  })
+}
+
 /**
  * Validation cho thêm sách vào danh sách yêu thích
  * @param {Object} params - Route parameters
@@ -137,6 +170,7 @@ module.exports = {
   getUserById,
   updateUser,
   getFavoriteBooks,
+  getFavoriteBookIds,
   addFavoriteBook,
   removeFavoriteBook
 }
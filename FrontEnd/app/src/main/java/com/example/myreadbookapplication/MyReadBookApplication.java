@@ -0,0 +1,43 @@
+package com.example.myreadbookapplication;
+
+import android.app.Application;
+import android.content.Intent;
+import android.util.Log;
+
+import com.example.myreadbookapplication.activity.User.SignInActivity;
+import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.utils.AuthManager;
+import com.example.myreadbookapplication.utils.MainThreadWatchdog;
+import com.example.myreadbookapplication.utils.StartupOrchestrator;
+import com.example.myreadbookapplication.utils.WebViewPool;
+
+public class MyReadBookApplication extends Application {
+    private static final String TAG = "MyReadBookApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Gắn sớm nhất có thể để bắt cả các lần treo lúc khởi động (chỉ bản debug / khi bật cờ)
+        MainThreadWatchdog.install(this);
+        RetrofitClient.init(this);
+        // Kết quả validate đến sau khi IntroActivity đã vào Home (mạng chậm): token hết hạn thì vẫn phải đăng xuất
+        StartupOrchestrator.getInstance().setLateTokenListener(state -> {
+            if (state == StartupOrchestrator.TokenState.INVALID) onLateInvalidToken();
+        });
+        // Bắt đầu validate token, warm-up kết nối và prefetch Home ngay khi process khởi động
+        StartupOrchestrator.getInstance().start(this);
+        // Tạo sẵn WebView cho màn hình đọc khi main thread rảnh
+        WebViewPool.getInstance().prewarmWhenIdle(this);
+    }
+
+    /**
+     * Đăng xuất và đưa về SignInActivity, xóa các màn hình đang mở (đang dùng phiên đã chết)
+     */
+    private void onLateInvalidToken() {
+        Log.w(TAG, "Token rejected after startup deadline, signing out");
+        AuthManager.getInstance(this).logout();
+        Intent intent = new Intent(this, SignInActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        startActivity(intent);
+    }
+}
@@ -25,7 +25,7 @@ import com.example.myreadbookapplication.model.Book;
 import com.example.myreadbookapplication.model.CreateBookRequest;
 import com.example.myreadbookapplication.model.Category;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.utils.AuthManager;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.google.gson.Gson;
@@ -75,7 +75,7 @@ public class AdminAddBookActivity extends AppCompatActivity {
         initViews();
         setupListeners();
 
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         authManager = AuthManager.getInstance(this);
 
         // Add-only screen
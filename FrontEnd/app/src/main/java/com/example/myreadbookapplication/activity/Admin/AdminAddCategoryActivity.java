@@ -20,7 +20,7 @@ import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.Category;
 import com.example.myreadbookapplication.model.CreateCategoryRequest;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.utils.AuthManager;
 
 import retrofit2.Call;
@@ -47,7 +47,7 @@ public class AdminAddCategoryActivity extends AppCompatActivity {
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_admin_add_category);
 
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         authManager = AuthManager.getInstance(this);
 
         initViews();
@@ -22,7 +22,7 @@ import com.example.myreadbookapplication.model.Book;
 import com.example.myreadbookapplication.model.UpdateBookRequest;
 import com.example.myreadbookapplication.model.Category;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.utils.AuthManager;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -64,7 +64,7 @@ public class AdminEditBookActivity extends AppCompatActivity {
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_admin_add_book);
 
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         authManager = AuthManager.getInstance(this);
 
         initViews();
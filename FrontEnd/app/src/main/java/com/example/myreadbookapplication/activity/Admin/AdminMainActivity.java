@@ -31,6 +31,7 @@ import java.util.List;
 public class AdminMainActivity extends AppCompatActivity {
 
     private static final String TAG = "AdminMainActivity";
+    private static final String KEY_CURRENT_POSITION = "current_position";
     
     private ViewPager2 viewPager;
     private AdminFragmentPagerAdapter pagerAdapter;
@@ -43,6 +44,8 @@ public class AdminMainActivity extends AppCompatActivity {
     
     private AuthManager authManager;
     private int currentPosition = 0;
+    // Tab đang mở trước khi Activity bị tạo lại: không reload lần chọn tab đầu tiên (dữ liệu còn trong ViewModel)
+    private int restoredPosition = -1;
     
     // Fragment references để có thể gọi reload
     private CategoryFragment categoryFragment;
@@ -70,6 +73,10 @@ public class AdminMainActivity extends AppCompatActivity {
 
         Log.d(TAG, "Admin user logged in, opening admin dashboard");
         
+        if (savedInstanceState != null) {
+            restoredPosition = savedInstanceState.getInt(KEY_CURRENT_POSITION, 0);
+        }
+
         initViews();
         setupViewPager();
         setupBottomNavigation();
@@ -97,11 +104,15 @@ public class AdminMainActivity extends AppCompatActivity {
     }
 
     private void setupViewPager() {
-        // Tạo các Fragment
-        categoryFragment = new CategoryFragment();
-        bookFragment = new BookFragment();
-        feedbackFragment = new FeedbackFragment();
-        accountFragment = new AccountFragment();
+        // Tạo các Fragment (dùng lại Fragment mà FragmentManager đã khôi phục nếu Activity bị tạo lại)
+        categoryFragment = findRestoredFragment(0, CategoryFragment.class);
+        if (categoryFragment == null) categoryFragment = new CategoryFragment();
+        bookFragment = findRestoredFragment(1, BookFragment.class);
+        if (bookFragment == null) bookFragment = new BookFragment();
+        feedbackFragment = findRestoredFragment(2, FeedbackFragment.class);
+        if (feedbackFragment == null) feedbackFragment = new FeedbackFragment();
+        accountFragment = findRestoredFragment(3, AccountFragment.class);
+        if (accountFragment == null) accountFragment = new AccountFragment();
         
         // Tạo adapter
         pagerAdapter = new AdminFragmentPagerAdapter(this);
@@ -124,11 +135,29 @@ public class AdminMainActivity extends AppCompatActivity {
                 currentPosition = position;
                 updateHeaderTitle(position);
                 updateBottomNavigation(position);
+                if (position == restoredPosition) {
+                    restoredPosition = -1;
+                    return;
+                }
                 reloadFragmentData(position);
             }
         });
     }
 
+    /**
+     * Fragment của ViewPager2 được FragmentManager khôi phục với tag "f" + itemId
+     */
+    private <T extends Fragment> T findRestoredFragment(int position, Class<T> type) {
+        Fragment fragment = getSupportFragmentManager().findFragmentByTag("f" + position);
+        return type.isInstance(fragment) ? type.cast(fragment) : null;
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(KEY_CURRENT_POSITION, currentPosition);
+    }
+
     private void setupBottomNavigation() {
         navCategory.setOnClickListener(v -> {
             if (currentPosition != 0) {
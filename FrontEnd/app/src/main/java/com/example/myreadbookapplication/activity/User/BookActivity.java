@@ -10,6 +10,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -19,6 +20,7 @@ import com.example.myreadbookapplication.model.Book;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.BooksResponse;
 import com.example.myreadbookapplication.network.ApiService;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.network.RetrofitClient;
 
 import java.util.List;
@@ -27,7 +29,11 @@ import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
+import com.example.myreadbookapplication.utils.BookCache;
+import com.example.myreadbookapplication.utils.InfiniteScrollPager;
+import com.example.myreadbookapplication.utils.PagePrefetcher;
 import com.example.myreadbookapplication.utils.PaginationManager;
+import com.example.myreadbookapplication.viewmodel.BookListViewModel;
 
 public class BookActivity extends AppCompatActivity {
 
@@ -39,8 +45,8 @@ public class BookActivity extends AppCompatActivity {
     private ProgressBar progressBar;
     private ApiService apiService;
     private ImageView backAllBookIcon;
-    private java.util.Map<Integer, String> categoryIdToName = new java.util.HashMap<>();
-    private java.util.List<Book> allBooks = new java.util.ArrayList<>();
+    private java.util.Map<Integer, String> categoryIdToName;
+    private java.util.List<Book> allBooks;
     private int currentPage = 1;
     private int totalPages = Integer.MAX_VALUE;
     private int pageSize = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
@@ -50,8 +56,16 @@ public class BookActivity extends AppCompatActivity {
     
     // Pagination
     private PaginationManager paginationManager;
+    private PagePrefetcher<BooksResponse> pagePrefetcher;
     private android.widget.FrameLayout paginationContainer;
 
+    // Chế độ cuộn liên tục (thay cho footer số trang)
+    private boolean continuousPaging;
+    private InfiniteScrollPager<BooksResponse, Book> scrollPager;
+
+    // Trang đã tải, category và vị trí trang giữ lại qua xoay màn hình
+    private BookListViewModel viewModel;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -63,7 +77,7 @@ public class BookActivity extends AppCompatActivity {
         rvBooks = findViewById(R.id.rv_books);
         progressBar = findViewById(R.id.progressBar_books);
         paginationContainer = findViewById(R.id.pagination_container);
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         backAllBookIcon = findViewById(R.id.back_all_book_icon);
 
         // No Toolbar in layout, title is handled by TextView
@@ -71,6 +85,11 @@ public class BookActivity extends AppCompatActivity {
         backAllBookIcon.setOnClickListener(v -> finish());
 
         // Initialize pagination
+        continuousPaging = InfiniteScrollPager.isEnabled(this);
+        viewModel = new ViewModelProvider(this).get(BookListViewModel.class);
+        categoryIdToName = viewModel.getCategoryNames();
+        allBooks = continuousPaging ? viewModel.getScrollState().getItems() : new java.util.ArrayList<>();
+        currentPage = viewModel.getCurrentPage();
         initPagination();
 
         // Nhận extra từ Home (nếu có)
@@ -87,12 +106,19 @@ public class BookActivity extends AppCompatActivity {
 
     private void initPagination() {
         paginationManager = new PaginationManager(this, paginationContainer);
+        // Prefetcher nằm trong ViewModel nên dùng ApiService không gắn với Activity
+        ApiService retainedApi = RetrofitClient.getApiService();
+        pagePrefetcher = viewModel.getPagePrefetcher("all", page ->
+                retainedApi.getBooks(null, "active", PaginationManager.DEFAULT_ITEMS_PER_PAGE, page));
+        paginationManager.setPagePrefetcher(pagePrefetcher);
         paginationManager.setOnPageChangeListener(page -> {
             currentPage = page;
+            viewModel.setCurrentPage(page);
             loadAllBooks();
         });
         paginationManager.setOnPageJumpListener(page -> {
             currentPage = page;
+            viewModel.setCurrentPage(page);
             loadAllBooks();
         });
     }
@@ -109,105 +135,166 @@ public class BookActivity extends AppCompatActivity {
 
     // Cập nhật loadAllBooks() để sử dụng pagination
     private void loadAllBooks() {
-        if (isLoading) return;
-        isLoading = true;
-        progressBar.setVisibility(View.VISIBLE);
-        Log.d(TAG, "Loading books page=" + currentPage + ", size=" + pageSize);
-
+        if (continuousPaging) {
+            startContinuousPaging();
+            return;
+        }
         pageSize = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
-        Call<ApiResponse<BooksResponse>> call = apiService.getBooks(null, "active", pageSize, currentPage);
-        call.enqueue(new Callback<ApiResponse<BooksResponse>>() {
+        final int requestedPage = currentPage;
+        // Chỉ hiện loading nếu trang chưa có trong cache
+        if (!pagePrefetcher.isCached(requestedPage)) {
+            isLoading = true;
+            progressBar.setVisibility(View.VISIBLE);
+        }
+        Log.d(TAG, "Loading books page=" + requestedPage + ", size=" + pageSize);
+
+        pagePrefetcher.loadPage(requestedPage, new PagePrefetcher.PageCallback<BooksResponse>() {
             @Override
-            public void onResponse(Call<ApiResponse<BooksResponse>> call, Response<ApiResponse<BooksResponse>> response) {
+            public void onPageLoaded(int page, BooksResponse bookResp) {
                 progressBar.setVisibility(View.GONE);
                 isLoading = false;
-                Log.d(TAG, "Books response code: " + response.code());
-                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    BooksResponse bookResp = response.body().getData();
-                    List<Book> booksList = (bookResp != null) ? bookResp.getBooks() : null;
-                    int totalItems = booksList != null ? booksList.size() : 0;
-
-                    // Cập nhật pagination từ response
-                    if (bookResp != null && bookResp.getPagination() != null) {
-                        try {
-                            pageSize = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
-                            totalPages = bookResp.getPagination().getTotalPages();
-                            totalItems = bookResp.getPagination().getTotal();
-                            
-                            // Update pagination UI
-                            paginationManager.setPaginationData(currentPage, totalPages, totalItems, pageSize);
-                            paginationManager.setVisible(totalPages > 1);
-                            paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
-                        } catch (Exception ignored) {}
-                    } else {
-                        totalPages = Math.max(1, (int) Math.ceil((double) totalItems / PaginationManager.DEFAULT_ITEMS_PER_PAGE));
-                        paginationManager.setPaginationData(currentPage, totalPages, totalItems, PaginationManager.DEFAULT_ITEMS_PER_PAGE);
-                        paginationManager.setVisible(totalPages > 1);
-                        paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
-                    }
-
-                    Log.d(TAG, "Loaded page=" + currentPage + ", count=" + (booksList != null ? booksList.size() : 0) + "/ totalPages=" + totalPages);
-                    if (booksList != null && !booksList.isEmpty()) {
-                        int totalAvailable = booksList.size();
-                        int perPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
-                        int startIndex = Math.max(0, (currentPage - 1) * perPage);
-                        if (totalAvailable <= perPage) {
-                            startIndex = 0;
-                        } else if (startIndex > totalAvailable - 1) {
-                            startIndex = Math.max(0, totalAvailable - perPage);
-                        }
-                        int endIndex = Math.min(startIndex + perPage, totalAvailable);
-                        if (endIndex <= startIndex) {
-                            startIndex = Math.max(0, totalAvailable - perPage);
-                            endIndex = Math.min(startIndex + perPage, totalAvailable);
-                        }
-                        List<Book> pageBooks = booksList.subList(startIndex, endIndex);
-
-                        allBooks.clear();
-                        allBooks.addAll(pageBooks);
-                        
-                        if (bookAdapter == null) {
-                            bookAdapter = new AllBooksAdapter(allBooks, BookActivity.this, categoryIdToName);
-                            gridLayoutManager = new GridLayoutManager(BookActivity.this, 2);
-                            rvBooks.setLayoutManager(gridLayoutManager);
-                            rvBooks.setAdapter(bookAdapter);
-                            rvBooks.scrollToPosition(0);
-                        } else {
-                            bookAdapter.notifyDataSetChanged();
-                            rvBooks.scrollToPosition(0);
-                        }
-                        rvBooks.invalidate();
-                    } else {
-                        if (allBooks.isEmpty()) {
-                            Toast.makeText(BookActivity.this, "No books found", Toast.LENGTH_SHORT).show();
-                        }
-                        paginationManager.setVisible(false);
-                        paginationContainer.setVisibility(View.GONE);
-                    }
-                } else {
-                    Toast.makeText(BookActivity.this, "Load books failed: " + response.message(), Toast.LENGTH_SHORT).show();
-                    paginationManager.setVisible(false);
-                    paginationContainer.setVisibility(View.GONE);
-                }
+                if (page != currentPage) return;
+                renderBooksPage(bookResp);
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<BooksResponse>> call, Throwable t) {
+            public void onPageFailed(int page, int code, String message) {
                 progressBar.setVisibility(View.GONE);
                 isLoading = false;
-                Log.e(TAG, "Books failure: " + t.getMessage());
-                Toast.makeText(BookActivity.this, "Network error. Tap to retry.", Toast.LENGTH_SHORT).show();
+                Log.e(TAG, "Books failure: " + code + " " + message);
+                if (code > 0) {
+                    Toast.makeText(BookActivity.this, "Load books failed: " + message, Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(BookActivity.this, "Network error. Tap to retry.", Toast.LENGTH_SHORT).show();
+                }
                 paginationManager.setVisible(false);
+                paginationContainer.setVisibility(View.GONE);
             }
         });
     }
 
+    /**
+     * Cuộn liên tục: tải trang kế tiếp khi gần cuối lưới, giữ tối đa vài trang trong bộ nhớ
+     */
+    private void startContinuousPaging() {
+        paginationManager.setVisible(false);
+        paginationContainer.setVisibility(View.GONE);
+        if (scrollPager == null) {
+            bookAdapter = new AllBooksAdapter(allBooks, BookActivity.this, categoryIdToName);
+            gridLayoutManager = new GridLayoutManager(BookActivity.this, 2);
+            rvBooks.setLayoutManager(gridLayoutManager);
+            rvBooks.setAdapter(bookAdapter);
+            scrollPager = new InfiniteScrollPager<>(rvBooks, viewModel.getScrollState(), PaginationManager.DEFAULT_ITEMS_PER_PAGE,
+                    page -> apiService.getBooks(null, "active", PaginationManager.DEFAULT_ITEMS_PER_PAGE, page),
+                    new InfiniteScrollPager.PageParser<BooksResponse, Book>() {
+                        @Override
+                        public List<Book> getItems(BooksResponse response) {
+                            return response.getBooks();
+                        }
+
+                        @Override
+                        public int getTotalPages(BooksResponse response) {
+                            return response.getPagination() != null ? response.getPagination().getTotalPages() : 0;
+                        }
+                    });
+            scrollPager.setListener(new InfiniteScrollPager.Listener<BooksResponse>() {
+                @Override
+                public void onPageLoaded(int page, BooksResponse response) {
+                    progressBar.setVisibility(View.GONE);
+                    BookCache.getInstance(BookActivity.this).putAll(response.getBooks());
+                    if (page == 1 && (response.getBooks() == null || response.getBooks().isEmpty())) {
+                        Toast.makeText(BookActivity.this, "No books found", Toast.LENGTH_SHORT).show();
+                    }
+                }
+
+                @Override
+                public void onPageFailed(int page, int code, String message) {
+                    progressBar.setVisibility(View.GONE);
+                    Log.e(TAG, "Books failure: " + code + " " + message);
+                    Toast.makeText(BookActivity.this, code > 0 ? "Load books failed: " + message
+                            : "Network error. Scroll to retry.", Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
+        if (viewModel.getScrollState().hasPages()) {
+            // Activity tạo lại sau khi xoay màn hình: dùng lại các trang đã tải
+            progressBar.setVisibility(View.GONE);
+            scrollPager.resume();
+        } else {
+            progressBar.setVisibility(View.VISIBLE);
+            scrollPager.reset();
+        }
+    }
+
+    private void renderBooksPage(BooksResponse bookResp) {
+        List<Book> booksList = (bookResp != null) ? bookResp.getBooks() : null;
+        BookCache.getInstance(BookActivity.this).putAll(booksList);
+        int totalItems = booksList != null ? booksList.size() : 0;
+
+        // Cập nhật pagination từ response
+        if (bookResp != null && bookResp.getPagination() != null) {
+            try {
+                pageSize = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
+                totalPages = bookResp.getPagination().getTotalPages();
+                totalItems = bookResp.getPagination().getTotal();
+
+                // Update pagination UI
+                paginationManager.setPaginationData(currentPage, totalPages, totalItems, pageSize);
+                paginationManager.setVisible(totalPages > 1);
+                paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
+            } catch (Exception ignored) {}
+        } else {
+            totalPages = Math.max(1, (int) Math.ceil((double) totalItems / PaginationManager.DEFAULT_ITEMS_PER_PAGE));
+            paginationManager.setPaginationData(currentPage, totalPages, totalItems, PaginationManager.DEFAULT_ITEMS_PER_PAGE);
+            paginationManager.setVisible(totalPages > 1);
+            paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
+        }
+
+        Log.d(TAG, "Loaded page=" + currentPage + ", count=" + (booksList != null ? booksList.size() : 0) + "/ totalPages=" + totalPages);
+        if (booksList != null && !booksList.isEmpty()) {
+            int totalAvailable = booksList.size();
+            int perPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
+            int startIndex = Math.max(0, (currentPage - 1) * perPage);
+            if (totalAvailable <= perPage) {
+                startIndex = 0;
+            } else if (startIndex > totalAvailable - 1) {
+                startIndex = Math.max(0, totalAvailable - perPage);
+            }
+            int endIndex = Math.min(startIndex + perPage, totalAvailable);
+            if (endIndex <= startIndex) {
+                startIndex = Math.max(0, totalAvailable - perPage);
+                endIndex = Math.min(startIndex + perPage, totalAvailable);
+            }
+            List<Book> pageBooks = booksList.subList(startIndex, endIndex);
+
+            allBooks.clear();
+            allBooks.addAll(pageBooks);
+
+            if (bookAdapter == null) {
+                bookAdapter = new AllBooksAdapter(allBooks, BookActivity.this, categoryIdToName);
+                gridLayoutManager = new GridLayoutManager(BookActivity.this, 2);
+                rvBooks.setLayoutManager(gridLayoutManager);
+                rvBooks.setAdapter(bookAdapter);
+                rvBooks.scrollToPosition(0);
+            } else {
+                bookAdapter.notifyDataSetChanged();
+                rvBooks.scrollToPosition(0);
+            }
+            rvBooks.invalidate();
+        } else {
+            if (allBooks.isEmpty()) {
+                Toast.makeText(BookActivity.this, "No books found", Toast.LENGTH_SHORT).show();
+            }
+            paginationManager.setVisible(false);
+            paginationContainer.setVisibility(View.GONE);
+        }
+    }
+
     // Reset pagination khi quay lại activity
     @Override
     protected void onResume() {
         super.onResume();
         if (allBooks.isEmpty()) { // Chỉ reset nếu list rỗng (tránh load lại hết)
-            currentPage = 1;
             allBooks.clear();
             if (bookAdapter != null) {
                 bookAdapter.notifyDataSetChanged();
@@ -216,7 +303,19 @@ public class BookActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (scrollPager != null) scrollPager.release();
+        // Cache trang thuộc ViewModel (bị hủy ở onCleared khi đóng hẳn), chỉ bỏ callback của Activity này
+        if (pagePrefetcher != null) pagePrefetcher.detachCallbacks();
+    }
+
     private void loadCategoriesThenBooks() {
+        if (viewModel.isCategoriesLoaded()) {
+            loadAllBooks();
+            return;
+        }
         progressBar.setVisibility(View.VISIBLE);
         retrofit2.Call<com.example.myreadbookapplication.model.ApiResponse<com.example.myreadbookapplication.model.CategoriesResponse>> call =
                 apiService.getCategories("active");
@@ -230,6 +329,7 @@ public class BookActivity extends AppCompatActivity {
                         for (com.example.myreadbookapplication.model.Category c : data.getCategories()) {
                             if (c != null) categoryIdToName.put(c.getId(), c.getName());
                         }
+                        viewModel.setCategoriesLoaded(true);
                     }
                 }
                 // Regardless of success, continue to load books
@@ -11,6 +11,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -24,8 +25,13 @@ import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.BooksResponse;
 import com.example.myreadbookapplication.model.CategoriesResponse;
 import com.example.myreadbookapplication.network.ApiService;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.utils.BookCache;
+import com.example.myreadbookapplication.utils.InfiniteScrollPager;
+import com.example.myreadbookapplication.utils.PagePrefetcher;
 import com.example.myreadbookapplication.utils.PaginationManager;
+import com.example.myreadbookapplication.viewmodel.BookListViewModel;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -48,6 +54,8 @@ public class CategoryActivity extends AppCompatActivity {
     private ApiService apiService;
     private FrameLayout paginationContainer;
     private PaginationManager paginationManager;
+    private PagePrefetcher<BooksResponse> pagePrefetcher;
+    private InfiniteScrollPager<BooksResponse, Book> scrollPager;
 
     // Pagination state for books
     private int currentPage = 1;
@@ -56,7 +64,10 @@ public class CategoryActivity extends AppCompatActivity {
     private int itemsPerPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
     private int currentCategoryId = -1;
     private String currentCategoryName = "";
-    private final List<Book> categoryBooks = new ArrayList<>();
+    private List<Book> categoryBooks = new ArrayList<>();
+
+    // Category, trang đã tải và vị trí trang giữ lại qua xoay màn hình
+    private BookListViewModel viewModel;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,7 +79,7 @@ public class CategoryActivity extends AppCompatActivity {
         rvCategoriesContent = findViewById(R.id.rv_category_books);
         tvCategoryTitle = findViewById(R.id.tv_category_title);
         progressBar = findViewById(R.id.progressBar_category);
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         paginationContainer = findViewById(R.id.pagination_container);
         int edgeSpacing = dpToPx(12);
         int innerSpacing = dpToPx(12);
@@ -79,6 +90,7 @@ public class CategoryActivity extends AppCompatActivity {
             rvCategoriesContent.addItemDecoration(new GridSpacingItemDecoration(2, innerSpacing, edgeSpacing, verticalSpacing));
         }
 
+        viewModel = new ViewModelProvider(this).get(BookListViewModel.class);
         initPagination();
 
         // Nhận extra từ Intent
@@ -110,10 +122,12 @@ public class CategoryActivity extends AppCompatActivity {
         paginationManager.setVisible(false);
         paginationManager.setOnPageChangeListener(page -> {
             currentPage = page;
+            viewModel.setCurrentPage(page);
             fetchBooksForCategoryPage();
         });
         paginationManager.setOnPageJumpListener(page -> {
             currentPage = page;
+            viewModel.setCurrentPage(page);
             fetchBooksForCategoryPage();
         });
     }
@@ -123,11 +137,16 @@ public class CategoryActivity extends AppCompatActivity {
     }
 
     private void loadFullCategories() {
-        progressBar.setVisibility(View.VISIBLE);
-        Log.d(TAG, "Loading full categories...");
         tvCategoryTitle.setVisibility(View.VISIBLE);
         paginationManager.setVisible(false);
         paginationContainer.setVisibility(View.GONE);
+        if (viewModel.getCategories() != null) {
+            // Đã tải trước khi Activity bị tạo lại
+            showFullCategories(viewModel.getCategories());
+            return;
+        }
+        progressBar.setVisibility(View.VISIBLE);
+        Log.d(TAG, "Loading full categories...");
 
         Call<ApiResponse<CategoriesResponse>> call = apiService.getCategories("active");
         call.enqueue(new Callback<ApiResponse<CategoriesResponse>>() {
@@ -145,20 +164,8 @@ public class CategoryActivity extends AppCompatActivity {
                         Log.d(TAG, "Filtered full categories size: " + allCategories.size());
                     }
                     if (allCategories != null && !allCategories.isEmpty()) {
-                        categoryAdapter = new CategoryAdapter(allCategories, CategoryActivity.this, new CategoryAdapter.OnCategoryClickListener() {
-                            @Override
-                            public void onCategoryClick(Category category) {
-                                Log.d(TAG, "Clicked category in full list: " + category.getName());
-                                Intent intent = new Intent(CategoryActivity.this, CategoryActivity.class);
-                                intent.putExtra("selected_category_id", String.valueOf(category.getId()));
-                                intent.putExtra("selected_category_name", category.getName());
-                                startActivity(intent);
-                            }
-                        });
-                        rvCategoriesContent.setLayoutManager(new GridLayoutManager(CategoryActivity.this, 2));
-                        rvCategoriesContent.setAdapter(categoryAdapter);
-                        rvCategoriesContent.invalidate();  // Force refresh UI
-                        Log.d(TAG, "Full categories adapter set");
+                        viewModel.setCategories(allCategories);
+                        showFullCategories(allCategories);
                     } else {
                         Log.w(TAG, "No full categories data");
                         Toast.makeText(CategoryActivity.this, "No categories found", Toast.LENGTH_SHORT).show();
@@ -178,6 +185,23 @@ public class CategoryActivity extends AppCompatActivity {
         });
     }
 
+    private void showFullCategories(List<Category> allCategories) {
+        categoryAdapter = new CategoryAdapter(allCategories, CategoryActivity.this, new CategoryAdapter.OnCategoryClickListener() {
+            @Override
+            public void onCategoryClick(Category category) {
+                Log.d(TAG, "Clicked category in full list: " + category.getName());
+                Intent intent = new Intent(CategoryActivity.this, CategoryActivity.class);
+                intent.putExtra("selected_category_id", String.valueOf(category.getId()));
+                intent.putExtra("selected_category_name", category.getName());
+                startActivity(intent);
+            }
+        });
+        rvCategoriesContent.setLayoutManager(new GridLayoutManager(CategoryActivity.this, 2));
+        rvCategoriesContent.setAdapter(categoryAdapter);
+        rvCategoriesContent.invalidate();  // Force refresh UI
+        Log.d(TAG, "Full categories adapter set");
+    }
+
     private void loadBooksForCategory(String categoryIdStr, String categoryName) {
         currentCategoryId = -1;
         currentCategoryName = categoryName != null ? categoryName : "";
@@ -195,122 +219,197 @@ public class CategoryActivity extends AppCompatActivity {
             return;
         }
 
-        currentPage = 1;
+        currentPage = viewModel.getCurrentPage();
         totalPages = 1;
         totalItems = 0;
         itemsPerPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
-        categoryBooks.clear();
         paginationManager.setVisible(false);
 
+        final String categoryIdParam = String.valueOf(currentCategoryId);
+        // Prefetcher nằm trong ViewModel nên dùng ApiService không gắn với Activity
+        ApiService retainedApi = RetrofitClient.getApiService();
+        pagePrefetcher = viewModel.getPagePrefetcher(categoryIdParam, page ->
+                retainedApi.getBooks(categoryIdParam, "active", PaginationManager.DEFAULT_ITEMS_PER_PAGE, page));
+        paginationManager.setPagePrefetcher(pagePrefetcher);
+
         if (tvCategoryTitle.getVisibility() != View.VISIBLE) {
             tvCategoryTitle.setVisibility(View.VISIBLE);
         }
         tvCategoryTitle.setText(currentCategoryName);
 
+        if (InfiniteScrollPager.isEnabled(this)) {
+            startContinuousPaging(categoryIdParam);
+            return;
+        }
         fetchBooksForCategoryPage();
     }
 
+    /**
+     * Cuộn liên tục thay cho footer số trang: tải dần theo trang khi gần cuối lưới
+     */
+    private void startContinuousPaging(String categoryIdParam) {
+        paginationManager.setVisible(false);
+        paginationContainer.setVisibility(View.GONE);
+        if (scrollPager != null) scrollPager.release();
+
+        InfiniteScrollPager.State<Book> scrollState = viewModel.getScrollState();
+        categoryBooks = scrollState.getItems();
+        categoryBookAdapter = new CategoryBookAdapter(categoryBooks, CategoryActivity.this, currentCategoryName);
+        rvCategoriesContent.setLayoutManager(new GridLayoutManager(CategoryActivity.this, 2));
+        rvCategoriesContent.setAdapter(categoryBookAdapter);
+        scrollPager = new InfiniteScrollPager<>(rvCategoriesContent, scrollState, PaginationManager.DEFAULT_ITEMS_PER_PAGE,
+                page -> apiService.getBooks(categoryIdParam, "active", PaginationManager.DEFAULT_ITEMS_PER_PAGE, page),
+                new InfiniteScrollPager.PageParser<BooksResponse, Book>() {
+                    @Override
+                    public List<Book> getItems(BooksResponse response) {
+                        return response.getBooks();
+                    }
+
+                    @Override
+                    public int getTotalPages(BooksResponse response) {
+                        return response.getPagination() != null ? response.getPagination().getTotalPages() : 0;
+                    }
+                });
+        scrollPager.setListener(new InfiniteScrollPager.Listener<BooksResponse>() {
+            @Override
+            public void onPageLoaded(int page, BooksResponse response) {
+                progressBar.setVisibility(View.GONE);
+                BookCache.getInstance(CategoryActivity.this).putAll(response.getBooks());
+                if (page == 1 && (response.getBooks() == null || response.getBooks().isEmpty())) {
+                    Toast.makeText(CategoryActivity.this, "No books in " + currentCategoryName + " yet", Toast.LENGTH_SHORT).show();
+                }
+            }
+
+            @Override
+            public void onPageFailed(int page, int code, String message) {
+                progressBar.setVisibility(View.GONE);
+                Log.e(TAG, "Books failure for " + currentCategoryName + " page " + page + ": " + code + " " + message);
+                Toast.makeText(CategoryActivity.this, code > 0 ? "Failed to load books for " + currentCategoryName
+                        : "Network error loading " + currentCategoryName, Toast.LENGTH_SHORT).show();
+            }
+        });
+        if (scrollState.hasPages()) {
+            // Activity tạo lại sau khi xoay màn hình: dùng lại các trang đã tải
+            progressBar.setVisibility(View.GONE);
+            scrollPager.resume();
+        } else {
+            progressBar.setVisibility(View.VISIBLE);
+            scrollPager.reset();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (scrollPager != null) scrollPager.release();
+        // Cache trang thuộc ViewModel (bị hủy ở onCleared khi đóng hẳn), chỉ bỏ callback của Activity này
+        if (pagePrefetcher != null) pagePrefetcher.detachCallbacks();
+    }
+
     private void fetchBooksForCategoryPage() {
-        if (currentCategoryId == -1) {
+        if (currentCategoryId == -1 || pagePrefetcher == null) {
             return;
         }
 
-        progressBar.setVisibility(View.VISIBLE);
+        if (!pagePrefetcher.isCached(currentPage)) {
+            progressBar.setVisibility(View.VISIBLE);
+        }
         Log.d(TAG, "Loading books for category ID: " + currentCategoryId + " page " + currentPage);
-        Call<ApiResponse<BooksResponse>> call = apiService.getBooks(String.valueOf(currentCategoryId), "active", PaginationManager.DEFAULT_ITEMS_PER_PAGE, currentPage);
-        call.enqueue(new Callback<ApiResponse<BooksResponse>>() {
+        pagePrefetcher.loadPage(currentPage, new PagePrefetcher.PageCallback<BooksResponse>() {
             @Override
-            public void onResponse(Call<ApiResponse<BooksResponse>> call, Response<ApiResponse<BooksResponse>> response) {
+            public void onPageLoaded(int page, BooksResponse bookResp) {
                 progressBar.setVisibility(View.GONE);
-                Log.d(TAG, "Books response code: " + response.code() + " for category " + currentCategoryName);
-                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    BooksResponse bookResp = response.body().getData();
-                    List<Book> booksList = (bookResp != null) ? bookResp.getBooks() : null;
-                    Log.d(TAG, "Books data size: " + (booksList != null ? booksList.size() : 0));
-
-                    int backendTotalPages = 1;
-                    int backendTotalItems = booksList != null ? booksList.size() : 0;
-
-                    if (bookResp != null && bookResp.getPagination() != null) {
-                        try {
-                            backendTotalPages = bookResp.getPagination().getTotalPages() > 0 ? bookResp.getPagination().getTotalPages() : 1;
-                            backendTotalItems = bookResp.getPagination().getTotal();
-                            itemsPerPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
-                            totalPages = backendTotalPages;
-                            totalItems = backendTotalItems;
-                            paginationManager.setPaginationData(currentPage, totalPages, totalItems, PaginationManager.DEFAULT_ITEMS_PER_PAGE);
-                            paginationManager.setVisible(totalPages > 1);
-                            paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
-                        } catch (Exception e) {
-                            Log.w(TAG, "Error parsing pagination: " + e.getMessage());
-                            paginationManager.setVisible(false);
-                            paginationContainer.setVisibility(View.GONE);
-                        }
-                    } else {
-                        itemsPerPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
-                        totalItems = backendTotalItems;
-                        totalPages = (int) Math.ceil((double) totalItems / PaginationManager.DEFAULT_ITEMS_PER_PAGE);
-                        paginationManager.setPaginationData(currentPage, totalPages, totalItems, PaginationManager.DEFAULT_ITEMS_PER_PAGE);
-                        paginationManager.setVisible(totalPages > 1);
-                        paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
-                    }
-
-                    if (booksList != null && !booksList.isEmpty()) {
-                        // Filter active nếu cần (từ BE đã filter, nhưng an toàn)
-                        booksList = booksList.stream()
-                                .filter(book -> book != null && "active".equals(book.getStatus()))
-                                .collect(Collectors.toList());
-
-                        int totalAvailable = booksList.size();
-                        int perPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
-                        int startIndex = Math.max(0, (currentPage - 1) * perPage);
-                        if (totalAvailable <= perPage) {
-                            startIndex = 0;
-                        } else if (startIndex > totalAvailable - 1) {
-                            startIndex = Math.max(0, totalAvailable - perPage);
-                        }
-                        int endIndex = Math.min(startIndex + perPage, totalAvailable);
-                        if (endIndex <= startIndex) {
-                            startIndex = Math.max(0, totalAvailable - perPage);
-                            endIndex = Math.min(startIndex + perPage, totalAvailable);
-                        }
-                        List<Book> pageBooks = new ArrayList<>(booksList.subList(startIndex, endIndex));
-
-                        categoryBooks.clear();
-                        categoryBooks.addAll(pageBooks);
-
-                        rvCategoriesContent.setLayoutManager(new GridLayoutManager(CategoryActivity.this, 2));
-                        categoryBookAdapter = new CategoryBookAdapter(new ArrayList<>(categoryBooks), CategoryActivity.this, currentCategoryName);
-                        rvCategoriesContent.setAdapter(categoryBookAdapter);
-                        rvCategoriesContent.scrollToPosition(0);
-                        rvCategoriesContent.invalidate();  // Force refresh
-                        Log.d(TAG, "Books adapter set: " + categoryBooks.size() + " items (page " + currentPage + ")");
-                    } else {
-                        Log.w(TAG, "No books data for " + currentCategoryName);
-                        categoryBooks.clear();
-                        categoryBookAdapter = new CategoryBookAdapter(new ArrayList<>(), CategoryActivity.this, currentCategoryName);
-                        rvCategoriesContent.setLayoutManager(new GridLayoutManager(CategoryActivity.this, 2));
-                        rvCategoriesContent.setAdapter(categoryBookAdapter);
-                        paginationManager.setVisible(false);
-                        paginationContainer.setVisibility(View.GONE);
-                        Toast.makeText(CategoryActivity.this, "No books in " + currentCategoryName + " yet", Toast.LENGTH_SHORT).show();
-                    }
-                } else {
-                    Log.e(TAG, "Books API fail for " + currentCategoryName + ": " + response.code());
-                    paginationManager.setVisible(false);
-                    paginationContainer.setVisibility(View.GONE);
-                    Toast.makeText(CategoryActivity.this, "Failed to load books for " + currentCategoryName, Toast.LENGTH_SHORT).show();
-                }
+                if (page != currentPage) return;
+                renderCategoryBooksPage(bookResp);
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<BooksResponse>> call, Throwable t) {
+            public void onPageFailed(int page, int code, String message) {
                 progressBar.setVisibility(View.GONE);
-                Log.e(TAG, "Books failure for " + currentCategoryName + ": " + t.getMessage());
                 paginationManager.setVisible(false);
                 paginationContainer.setVisibility(View.GONE);
-                Toast.makeText(CategoryActivity.this, "Network error loading " + currentCategoryName, Toast.LENGTH_SHORT).show();
+                if (code > 0) {
+                    Log.e(TAG, "Books API fail for " + currentCategoryName + ": " + code);
+                    Toast.makeText(CategoryActivity.this, "Failed to load books for " + currentCategoryName, Toast.LENGTH_SHORT).show();
+                } else {
+                    Log.e(TAG, "Books failure for " + currentCategoryName + ": " + message);
+                    Toast.makeText(CategoryActivity.this, "Network error loading " + currentCategoryName, Toast.LENGTH_SHORT).show();
+                }
             }
         });
     }
+
+    private void renderCategoryBooksPage(BooksResponse bookResp) {
+        List<Book> booksList = (bookResp != null) ? bookResp.getBooks() : null;
+        BookCache.getInstance(CategoryActivity.this).putAll(booksList);
+        Log.d(TAG, "Books data size: " + (booksList != null ? booksList.size() : 0));
+
+        int backendTotalPages = 1;
+        int backendTotalItems = booksList != null ? booksList.size() : 0;
+
+        if (bookResp != null && bookResp.getPagination() != null) {
+            try {
+                backendTotalPages = bookResp.getPagination().getTotalPages() > 0 ? bookResp.getPagination().getTotalPages() : 1;
+                backendTotalItems = bookResp.getPagination().getTotal();
+                itemsPerPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
+                totalPages = backendTotalPages;
+                totalItems = backendTotalItems;
+                paginationManager.setPaginationData(currentPage, totalPages, totalItems, PaginationManager.DEFAULT_ITEMS_PER_PAGE);
+                paginationManager.setVisible(totalPages > 1);
+                paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
+            } catch (Exception e) {
+                Log.w(TAG, "Error parsing pagination: " + e.getMessage());
+                paginationManager.setVisible(false);
+                paginationContainer.setVisibility(View.GONE);
+            }
+        } else {
+            itemsPerPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
+            totalItems = backendTotalItems;
+            totalPages = (int) Math.ceil((double) totalItems / PaginationManager.DEFAULT_ITEMS_PER_PAGE);
+            paginationManager.setPaginationData(currentPage, totalPages, totalItems, PaginationManager.DEFAULT_ITEMS_PER_PAGE);
+            paginationManager.setVisible(totalPages > 1);
+            paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
+        }
+
+        if (booksList != null && !booksList.isEmpty()) {
+            // Filter active nếu cần (từ BE đã filter, nhưng an toàn)
+            booksList = booksList.stream()
+                    .filter(book -> book != null && "active".equals(book.getStatus()))
+                    .collect(Collectors.toList());
+
+            int totalAvailable = booksList.size();
+            int perPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
+            int startIndex = Math.max(0, (currentPage - 1) * perPage);
+            if (totalAvailable <= perPage) {
+                startIndex = 0;
+            } else if (startIndex > totalAvailable - 1) {
+                startIndex = Math.max(0, totalAvailable - perPage);
+            }
+            int endIndex = Math.min(startIndex + perPage, totalAvailable);
+            if (endIndex <= startIndex) {
+                startIndex = Math.max(0, totalAvailable - perPage);
+                endIndex = Math.min(startIndex + perPage, totalAvailable);
+            }
+            List<Book> pageBooks = new ArrayList<>(booksList.subList(startIndex, endIndex));
+
+            categoryBooks.clear();
+            categoryBooks.addAll(pageBooks);
+
+            rvCategoriesContent.setLayoutManager(new GridLayoutManager(CategoryActivity.this, 2));
+            categoryBookAdapter = new CategoryBookAdapter(new ArrayList<>(categoryBooks), CategoryActivity.this, currentCategoryName);
+            rvCategoriesContent.setAdapter(categoryBookAdapter);
+            rvCategoriesContent.scrollToPosition(0);
+            rvCategoriesContent.invalidate();  // Force refresh
+            Log.d(TAG, "Books adapter set: " + categoryBooks.size() + " items (page " + currentPage + ")");
+        } else {
+            Log.w(TAG, "No books data for " + currentCategoryName);
+            categoryBooks.clear();
+            categoryBookAdapter = new CategoryBookAdapter(new ArrayList<>(), CategoryActivity.this, currentCategoryName);
+            rvCategoriesContent.setLayoutManager(new GridLayoutManager(CategoryActivity.this, 2));
+            rvCategoriesContent.setAdapter(categoryBookAdapter);
+            paginationManager.setVisible(false);
+            paginationContainer.setVisibility(View.GONE);
+            Toast.makeText(CategoryActivity.this, "No books in " + currentCategoryName + " yet", Toast.LENGTH_SHORT).show();
+        }
+    }
 }
\ No newline at end of file
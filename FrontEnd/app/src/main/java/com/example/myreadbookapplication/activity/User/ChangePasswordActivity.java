@@ -16,7 +16,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.myreadbookapplication.R;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.utils.AuthManager;
 
 import retrofit2.Call;
@@ -78,7 +78,7 @@ public class ChangePasswordActivity extends AppCompatActivity {
         ivConfirmPasswordEye = findViewById(R.id.iv_confirm_password_eye);
         
         // Initialize API service and AuthManager
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         authManager = AuthManager.getInstance(this);
     }
 
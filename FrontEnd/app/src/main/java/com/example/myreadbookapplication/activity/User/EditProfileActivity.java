@@ -17,7 +17,7 @@ import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.UpdateUserRequest;
 import com.example.myreadbookapplication.model.User;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.utils.AuthManager;
 
 import retrofit2.Call;
@@ -56,7 +56,7 @@ public class EditProfileActivity extends AppCompatActivity {
         progressBar = findViewById(R.id.progress_bar);
 
         // Initialize API service
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         authManager = AuthManager.getInstance(this);
 
         // Make email field non-editable (backend doesn't allow email updates)
@@ -14,7 +14,6 @@ import com.example.myreadbookapplication.R;
 import com.example.myreadbookapplication.adapter.CategoryBookAdapter;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.Book;
-import com.example.myreadbookapplication.model.BooksResponse;
 import com.example.myreadbookapplication.model.FavoritesResponse;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -27,9 +26,11 @@ import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.utils.AuthManager;
+import com.example.myreadbookapplication.utils.BookCache;
 import com.example.myreadbookapplication.utils.PaginationManager;
+import com.example.myreadbookapplication.utils.UserStatsManager;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -52,8 +53,9 @@ public class FavoriteActivity extends AppCompatActivity {
     private int totalItems = 0;
     private int itemsPerPage = PaginationManager.DEFAULT_ITEMS_PER_PAGE;
     
-    // Frontend pagination data
-    private List<Book> allFavorites = new ArrayList<>();
+    // Favorites được phân trang từ server, chi tiết sách lấy qua BookCache
+    private BookCache bookCache;
+    private int pageRequestSeq = 0;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -65,7 +67,8 @@ public class FavoriteActivity extends AppCompatActivity {
         rvFavoriteBooks = findViewById(R.id.rv_favorite_books);
         progressBarFavoriteBooks = findViewById(R.id.progressBar_favorite_books);
         paginationContainer = findViewById(R.id.pagination_container);
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
+        bookCache = BookCache.getInstance(this);
 
         // Back click
         backIconFavoriteBook.setOnClickListener(v -> finish());
@@ -81,157 +84,146 @@ public class FavoriteActivity extends AppCompatActivity {
         paginationManager = new PaginationManager(this, paginationContainer);
         paginationManager.setOnPageChangeListener(page -> {
             currentPage = page;
-            // Chỉ cần update UI với data đã có
-            if (!allFavorites.isEmpty()) {
-                setupFrontendPagination(allFavorites);
-            }
+            loadFavoritesPage();
         });
         paginationManager.setOnPageJumpListener(page -> {
             currentPage = page;
-            // Chỉ cần update UI với data đã có
-            if (!allFavorites.isEmpty()) {
-                setupFrontendPagination(allFavorites);
-            }
+            loadFavoritesPage();
         });
     }
 
     private void setupFavoriteBooks() {
+        currentPage = 1;
+        loadFavoritesPage();
+    }
+
+    /**
+     * Lấy 1 trang ID yêu thích từ server (kèm tổng số), rồi hydrate chi tiết sách qua BookCache
+     */
+    private void loadFavoritesPage() {
         progressBarFavoriteBooks.setVisibility(View.VISIBLE);
-        
+        final int requestSeq = ++pageRequestSeq;
+
         AuthManager authManager = AuthManager.getInstance(this);
         String userId = authManager.getUserId();
         String token = authManager.getAccessToken();
 
         if (userId != null && token != null && !token.isEmpty()) {
-            Log.d(TAG, "Fetching favorites from backend for user: " + userId);
-            Call<ApiResponse<FavoritesResponse>> call = apiService.getFavorites(userId, "Bearer " + token);
-            call.enqueue(new Callback<ApiResponse<com.example.myreadbookapplication.model.FavoritesResponse>>() {
+            Log.d(TAG, "Fetching favorite ids page " + currentPage + " for user: " + userId);
+            Call<ApiResponse<FavoritesResponse>> call = apiService.getFavoriteIds(userId, currentPage, itemsPerPage, "Bearer " + token);
+            call.enqueue(new Callback<ApiResponse<FavoritesResponse>>() {
                 @Override
                 public void onResponse(Call<ApiResponse<FavoritesResponse>> call, Response<ApiResponse<FavoritesResponse>> response) {
-                    progressBarFavoriteBooks.setVisibility(View.GONE);
-                    
-                    if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                    if (requestSeq != pageRequestSeq) return;
+                    if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                            && response.body().getData() != null) {
                         FavoritesResponse data = response.body().getData();
-                        List<Book> allFavorites = (data != null) ? data.getFavoriteBooks() : null;
-                        
-                        if (allFavorites != null && !allFavorites.isEmpty()) {
-                            // Lưu trữ tất cả favorites để dùng cho pagination
-                            FavoriteActivity.this.allFavorites.clear();
-                            FavoriteActivity.this.allFavorites.addAll(allFavorites);
-                            
-                            // Frontend pagination - chia nhỏ danh sách favorites
-                            setupFrontendPagination(FavoriteActivity.this.allFavorites);
-                        } else {
-                            Toast.makeText(FavoriteActivity.this, "No favorite books", Toast.LENGTH_SHORT).show();
-                            paginationManager.setVisible(false);
-                            paginationContainer.setVisibility(View.GONE);
-                        }
-                        // Sync local cache of ids
-                        if (data != null && data.getFavoriteBookIds() != null) {
-                            Gson gson = new Gson();
-                            SharedPreferences prefs = getSharedPreferences("app_prefs", MODE_PRIVATE);
-                            prefs.edit().putString("favorite_books", gson.toJson(data.getFavoriteBookIds())).apply();
-                        }
+                        List<String> pageIds = data.getFavoriteBookIds() != null ? data.getFavoriteBookIds() : new ArrayList<>();
+                        int total = data.getPagination() != null ? data.getPagination().getTotal() : pageIds.size();
+                        syncLocalFavoriteIds(pageIds, total);
+                        UserStatsManager.getInstance(FavoriteActivity.this).onFavoritesTotal(total);
+                        showFavoritesPage(pageIds, total, requestSeq);
                     } else {
-                        Toast.makeText(FavoriteActivity.this, "Load favorites failed", Toast.LENGTH_SHORT).show();
-                        paginationManager.setVisible(false);
-                        paginationContainer.setVisibility(View.GONE);
-                        loadFavoritesFromLocal();
+                        Log.e(TAG, "Favorite ids API fail: " + response.code());
+                        loadFavoritesFromLocal(requestSeq);
                     }
                 }
 
                 @Override
-                public void onFailure(Call<ApiResponse<com.example.myreadbookapplication.model.FavoritesResponse>> call, Throwable t) {
-                    progressBarFavoriteBooks.setVisibility(View.GONE);
+                public void onFailure(Call<ApiResponse<FavoritesResponse>> call, Throwable t) {
+                    if (requestSeq != pageRequestSeq) return;
                     Log.e(TAG, "Favorites failure: " + t.getMessage());
-                    paginationManager.setVisible(false);
-                    paginationContainer.setVisibility(View.GONE);
-                    loadFavoritesFromLocal();
+                    loadFavoritesFromLocal(requestSeq);
                 }
             });
         } else {
             Log.d(TAG, "No token/userId, fallback to local cache");
-            paginationManager.setVisible(false);
-            paginationContainer.setVisibility(View.GONE);
-            loadFavoritesFromLocal();
+            loadFavoritesFromLocal(requestSeq);
         }
     }
 
-    //Pagination
-    private void setupFrontendPagination(List<Book> allFavorites) {
-        // Tính toán pagination cho frontend
-        totalItems = allFavorites.size();
+    /**
+     * Hiển thị trang hiện tại: chỉ hydrate các ID của trang này (cache trước, thiếu mới gọi API)
+     */
+    private void showFavoritesPage(List<String> pageIds, int total, int requestSeq) {
+        totalItems = total;
         totalPages = (int) Math.ceil((double) totalItems / itemsPerPage);
-        
-        // Update pagination UI
+        if (totalItems == 0) {
+            progressBarFavoriteBooks.setVisibility(View.GONE);
+            Toast.makeText(FavoriteActivity.this, "No favorite books", Toast.LENGTH_SHORT).show();
+            paginationManager.setVisible(false);
+            paginationContainer.setVisibility(View.GONE);
+            setAdapterBooks(new ArrayList<>());
+            return;
+        }
+        if (pageIds.isEmpty() && currentPage > Math.max(1, totalPages)) {
+            // Trang hiện tại không còn (vd: vừa bỏ yêu thích) -> về trang cuối
+            currentPage = Math.max(1, totalPages);
+            loadFavoritesPage();
+            return;
+        }
+
         paginationManager.setPaginationData(currentPage, totalPages, totalItems, itemsPerPage);
         paginationManager.setVisible(totalPages > 1);
         paginationContainer.setVisibility(totalPages > 1 ? View.VISIBLE : View.GONE);
-        
-        // Lấy items cho trang hiện tại
-        int startIndex = (currentPage - 1) * itemsPerPage;
-        if (startIndex >= totalItems) {
-            currentPage = 1;
-            startIndex = 0;
-            paginationManager.setPaginationData(currentPage, totalPages, totalItems, itemsPerPage);
-        }
-        int endIndex = Math.min(startIndex + itemsPerPage, totalItems);
-        
-        List<Book> pageFavorites = new ArrayList<>(allFavorites.subList(startIndex, endIndex));
-        
-        // Hiển thị favorites cho trang hiện tại
-        favoriteBookAdapter = new CategoryBookAdapter(pageFavorites, FavoriteActivity.this, "Favorites");
+
+        bookCache.hydrate(pageIds, (books, complete) -> {
+            if (requestSeq != pageRequestSeq) return;
+            progressBarFavoriteBooks.setVisibility(View.GONE);
+            if (!complete && books.isEmpty()) {
+                Toast.makeText(FavoriteActivity.this, "Network error", Toast.LENGTH_SHORT).show();
+            }
+            setAdapterBooks(books);
+        });
+    }
+
+    private void setAdapterBooks(List<Book> pageFavorites) {
+        favoriteBookAdapter = new CategoryBookAdapter(new ArrayList<>(pageFavorites), FavoriteActivity.this, "Favorites");
         rvFavoriteBooks.setLayoutManager(new GridLayoutManager(FavoriteActivity.this, 2));
         rvFavoriteBooks.setAdapter(favoriteBookAdapter);
     }
 
-    private void loadFavoritesFromLocal() {
+    /**
+     * Server chỉ trả 1 trang ID: nếu đó là toàn bộ danh sách thì ghi đè, ngược lại chỉ bổ sung ID còn thiếu
+     */
+    private void syncLocalFavoriteIds(List<String> pageIds, int total) {
+        SharedPreferences prefs = getSharedPreferences("app_prefs", MODE_PRIVATE);
+        Gson gson = new Gson();
+        List<String> localIds;
+        if (currentPage == 1 && total <= pageIds.size()) {
+            localIds = new ArrayList<>(pageIds);
+        } else {
+            Type type = new TypeToken<List<String>>() {}.getType();
+            localIds = gson.fromJson(prefs.getString("favorite_books", "[]"), type);
+            if (localIds == null) localIds = new ArrayList<>();
+            for (String id : pageIds) {
+                if (!localIds.contains(id)) localIds.add(id);
+            }
+        }
+        prefs.edit().putString("favorite_books", gson.toJson(localIds)).apply();
+    }
+
+    private void loadFavoritesFromLocal(int requestSeq) {
         SharedPreferences prefs = getSharedPreferences("app_prefs", MODE_PRIVATE);
         String favoriteBooksJson = prefs.getString("favorite_books", "[]");
         Gson gson = new Gson();
         Type type = new TypeToken<List<String>>() {}.getType();
         List<String> favoriteBookIds = gson.fromJson(favoriteBooksJson, type);
         if (favoriteBookIds == null || favoriteBookIds.isEmpty()) {
+            progressBarFavoriteBooks.setVisibility(View.GONE);
             Toast.makeText(this, "No favorite books yet", Toast.LENGTH_SHORT).show();
             paginationManager.setVisible(false);
             paginationContainer.setVisibility(View.GONE);
             return;
         }
-        String idsQuery = String.join(",", favoriteBookIds);
-        Call<ApiResponse<BooksResponse>> call = apiService.getBooksByIds(idsQuery, "active", null, 1);
-        call.enqueue(new Callback<ApiResponse<BooksResponse>>() {
-            @Override
-            public void onResponse(Call<ApiResponse<BooksResponse>> call, Response<ApiResponse<BooksResponse>> response) {
-                progressBarFavoriteBooks.setVisibility(View.GONE);
-                
-                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    BooksResponse bookResp = response.body().getData();
-                    List<Book> favoritesList = (bookResp != null) ? bookResp.getBooks() : null;
-                    if (favoritesList != null && !favoritesList.isEmpty()) {
-                        // Lưu trữ tất cả favorites để dùng cho pagination
-                        FavoriteActivity.this.allFavorites.clear();
-                        FavoriteActivity.this.allFavorites.addAll(favoritesList);
-                        
-                        // Frontend pagination
-                        setupFrontendPagination(FavoriteActivity.this.allFavorites);
-                    } else {
-                        Toast.makeText(FavoriteActivity.this, "No favorite books found", Toast.LENGTH_SHORT).show();
-                        paginationManager.setVisible(false);
-                    }
-                } else {
-                    Toast.makeText(FavoriteActivity.this, "Load favorites failed", Toast.LENGTH_SHORT).show();
-                    paginationManager.setVisible(false);
-                    paginationContainer.setVisibility(View.GONE);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<ApiResponse<BooksResponse>> call, Throwable t) {
-                progressBarFavoriteBooks.setVisibility(View.GONE);
-                Toast.makeText(FavoriteActivity.this, "Network error", Toast.LENGTH_SHORT).show();
-                paginationManager.setVisible(false);
-                paginationContainer.setVisibility(View.GONE);
-            }
-        });
+        // Phân trang trên danh sách ID cục bộ, chỉ hydrate ID của trang hiện tại
+        int total = favoriteBookIds.size();
+        int startIndex = (currentPage - 1) * itemsPerPage;
+        if (startIndex >= total) {
+            currentPage = 1;
+            startIndex = 0;
+        }
+        int endIndex = Math.min(startIndex + itemsPerPage, total);
+        showFavoritesPage(new ArrayList<>(favoriteBookIds.subList(startIndex, endIndex)), total, requestSeq);
     }
-}
\ No newline at end of file
+}
@@ -14,42 +14,35 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myreadbookapplication.R;
 import com.example.myreadbookapplication.adapter.CategoryBookAdapter;
-import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.Book;
-import com.example.myreadbookapplication.model.BooksResponse;
 import com.example.myreadbookapplication.model.HistoryItem;
-import com.example.myreadbookapplication.model.ReadingHistoryResponse;
-import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
 import com.example.myreadbookapplication.utils.AuthManager;
+import com.example.myreadbookapplication.utils.HistoryStore;
 import com.example.myreadbookapplication.utils.PaginationManager;
-import com.google.android.material.tabs.TabLayout;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 public class HistoryActivity extends AppCompatActivity {
 
     private ImageView backIconHistory;
     private ProgressBar progressBarHistoryBooks;
     private RecyclerView rvHistoryBook;
     private AuthManager authManager;
-    private ApiService apiService;
     private FrameLayout paginationContainer;
 
     //Pagination state
     private PaginationManager paginationManager; //Quản lý phân trang
+    private HistoryStore historyStore;
     private CategoryBookAdapter historyBookAdapter;
     private int currentPage = 1;
     private int totalPages = 1;
     private final int pageSize = 10;
     private final List<Book> historyBooks = new ArrayList<>();
+    // Store thay đổi (đọc file xong / sync xong / reader vừa lưu bookmark) thì render lại trang hiện tại
+    private final HistoryStore.OnHistoryChangedListener historyListener = this::onHistoryChanged;
 
 
     @Override
@@ -58,14 +51,28 @@ public class HistoryActivity extends AppCompatActivity {
         setContentView(R.layout.activity_history);
 
         initViews();
-        loadHistoryBooks(); //Load ra trang đầu
         setupPagination();
         setupClickListeners();
+        loadHistoryBooks(); //Load ra trang đầu
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        historyStore.addListener(historyListener);
+        // Quay lại từ màn đọc: bookmark mới đã nằm trong store
+        renderPage();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        historyStore.removeListener(historyListener);
     }
 
     private void initViews(){
         authManager = AuthManager.getInstance(this);
-        apiService = RetrofitClient.getApiService();
+        historyStore = HistoryStore.getInstance(this);
         backIconHistory = findViewById(R.id.back_history_book_icon);
         progressBarHistoryBooks = findViewById(R.id.progressBar_history_books);
         paginationContainer = findViewById(R.id.pagination_container);
@@ -85,10 +92,10 @@ public class HistoryActivity extends AppCompatActivity {
 
         //Create paginationManager and add to container
         paginationManager = new PaginationManager(this, paginationContainer);
-        //set click
+        //set click: trang lấy từ store cục bộ, không gọi API
         paginationManager.setOnPageChangeListener(page -> {
             currentPage = page;
-            loadHistoryBooks();
+            renderPage();
         });
 
         paginationManager.setVisible(false);
@@ -106,115 +113,69 @@ public class HistoryActivity extends AppCompatActivity {
             return;
         }
 
-        showLoading(true);
-        //Call get all history book
-        apiService.getReadingHistory(userId, authHeader, currentPage, pageSize, "lastReadAt", "desc")
-                .enqueue(new Callback<ApiResponse<ReadingHistoryResponse>>() {
-
-                    @Override
-                    public void onResponse(Call<ApiResponse<ReadingHistoryResponse>> call, Response<ApiResponse<ReadingHistoryResponse>> response) {
-                        showLoading(false);
-                        ApiResponse<ReadingHistoryResponse> body = response.body();
-                        if(!response.isSuccessful() || body == null || !body.isSuccess()){
-                            handlError(response.code(), body != null ? body.getMessage() : null);
-                            return;
-                        }
-
-                        ReadingHistoryResponse data = body.getData();
-                        List<HistoryItem> historyItems = (data != null) ? data.getHistories() : null;
-
-                        // Nếu rỗng thì clear và thoát
-                        if (historyItems == null || historyItems.isEmpty()) {
-                            historyBooks.clear();
-                            historyBookAdapter.notifyDataSetChanged();
-                            updatePagination(data);
-                            return;
-                        }
-
-                        historyBooks.clear();
-                        for ( HistoryItem hi : historyItems){
-                            if(hi == null || hi.getBook() == null) continue;
-                            Book book = hi.getBook();
-                            String chapter = (hi.getChapterId() != null && !hi.getChapterId().isEmpty()) ? hi.getChapterId() : "?";
-                            book.setTitle(book.getTitle() + " - chapter " +chapter);
-                            historyBooks.add(book); ///chi co metadata chua co epuburl
-                        }
-                        historyBookAdapter.notifyDataSetChanged();
-                        updatePagination(data);
-                    }
-
-                    @Override
-                    public void onFailure(Call<ApiResponse<ReadingHistoryResponse>> call, Throwable t) {
-                        showLoading(false);
-                        Log.e("HistoryActivity", "API failure: " + t.getMessage());
-                        Toast.makeText(HistoryActivity.this, "Network error", Toast.LENGTH_SHORT).show();
-                        // Ẩn pagination khi failure
-                        if (paginationManager != null) {
-                            paginationManager.setVisible(false);
-                        }
-                    }
-                });
+        // Render ngay dữ liệu local (store đọc file trên lane io, xong thì historyListener render),
+        // chỉ hiện loading khi chưa có gì để hiển thị
+        renderPage();
+        if (!historyStore.hasSynced() && historyStore.getTotal() == 0) {
+            showLoading(true);
+        }
+        //Đồng bộ tăng dần với server, có thay đổi thì historyListener render lại
+        historyStore.sync(success -> {
+            if (isFinishing() || isDestroyed()) return;
+            showLoading(false);
+            if (!success && historyStore.getTotal() == 0) {
+                Log.e("HistoryActivity", "History sync failed");
+                Toast.makeText(HistoryActivity.this, "Network error", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
-    private void updatePagination(ReadingHistoryResponse data) {
-        if(data == null || data.getPagination() == null ){
-            // An progressbar nếu không có dữ liệu
-            if(paginationContainer != null ){
-                paginationContainer.setVisibility(View.GONE);
-            }
-            return;
-        }
+    private void onHistoryChanged() {
+        // Dữ liệu local vừa đọc xong thì không cần chờ sync mới hiện danh sách
+        if (historyStore.getTotal() > 0) showLoading(false);
+        renderPage();
+    }
 
-        ReadingHistoryResponse.Pagination pagination = data.getPagination();
+    private void renderPage() {
+        int totalItems = historyStore.getTotal();
+        totalPages = Math.max(1, (totalItems + pageSize - 1) / pageSize);
+        if (currentPage > totalPages) currentPage = totalPages;
 
-        int newCurrentPage = pagination.getPage();
-        int totalPagesFromApi = pagination.getTotalPages();
-        int totalItems = pagination.getTotal();
+        List<HistoryItem> historyItems = historyStore.getPage(currentPage, pageSize);
+        historyBooks.clear();
+        Map<String, String> displayTitles = new HashMap<>();
+        for (HistoryItem hi : historyItems) {
+            if (hi == null || hi.getBook() == null) continue;
+            Book book = hi.getBook(); ///chi co metadata chua co epuburl
+            String chapter = (hi.getChapterId() != null && !hi.getChapterId().isEmpty()) ? hi.getChapterId() : "?";
+            // Chuỗi hiển thị để riêng, không sửa title của Book
+            displayTitles.put(book.getId(), book.getTitle() + " - chapter " + chapter);
+            historyBooks.add(book);
+        }
+        historyBookAdapter.setTitleOverrides(displayTitles);
+        historyBookAdapter.notifyDataSetChanged();
+        updatePagination(totalItems);
+    }
+
+    private void updatePagination(int totalItems) {
+        if (paginationManager == null) return;
 
         //update state và UI
-        currentPage = newCurrentPage;
         paginationManager.setPaginationData(
                 currentPage,
-                totalPagesFromApi,
+                totalPages,
                 totalItems,
                 pageSize
         );
 
         // Hiển thị nếu >1 trang
-        boolean visible = totalPagesFromApi > 1;
+        boolean visible = totalPages > 1;
         paginationManager.setVisible(visible);
         if (paginationContainer != null) {
             paginationContainer.setVisibility(visible ? View.VISIBLE : View.GONE);
         }
     }
 
-
-    private void updateBooks(List<HistoryItem> historyItems) {
-        historyBooks.clear();
-        if (historyItems != null){
-            for (HistoryItem historyItem : historyItems) {
-                if(historyItem == null || historyItem.getBook() == null) continue;
-                Book book = historyItem.getBook();
-                String chapter = historyItem.getChapterId() != null ? historyItem.getChapterId() : "?";
-                book.setTitle(book.getTitle() + " - chapter " + chapter);
-                historyBooks.add(book);
-            }
-        }
-        historyBookAdapter.notifyDataSetChanged();
-    }
-
-    private void handlError(int code, String message) {
-        String userMessage;
-        if(code == 401){
-            userMessage = "You are not logged in";
-        }else if(code == 403){
-            userMessage = "You are not allowed to access this resource";
-        }else{
-            userMessage = message != null ? message : "Something went wrong";
-        }
-        Toast.makeText(this, userMessage, Toast.LENGTH_SHORT).show();
-    }
-
     private void showLoading(boolean show) {
         progressBarHistoryBooks.setVisibility(show? View.VISIBLE : View.GONE);
         rvHistoryBook.setVisibility(show? View.GONE : View.VISIBLE);
@@ -30,12 +30,14 @@ import com.example.myreadbookapplication.model.Book;
 import com.example.myreadbookapplication.model.BooksResponse;
 import com.example.myreadbookapplication.model.CategoriesResponse;
 import com.example.myreadbookapplication.model.Category;
-import com.example.myreadbookapplication.model.ReadingHistoryResponse;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.google.android.material.navigation.NavigationView;
 import com.example.myreadbookapplication.adapter.BannerAdapter;
 import com.example.myreadbookapplication.utils.AuthManager;
+import com.example.myreadbookapplication.utils.HomeSnapshotStore;
+import com.example.myreadbookapplication.utils.StartupOrchestrator;
+import com.example.myreadbookapplication.utils.UserStatsManager;
 import com.example.myreadbookapplication.utils.LogoutManager;
 
 import java.util.ArrayList;
@@ -57,6 +59,8 @@ public class HomeActivity extends AppCompatActivity {
     private ProgressBar progressBar;
     private CategoryAdapter categoryAdapter;
     private NewBookAdapter newBookAdapter;
+    private NewBookAdapter newBooksRow1Adapter;
+    private NewBookAdapter newBooksRow2Adapter;
     private ApiService apiService;
     private List<Category> categoriesList; // Lưu danh sách categories để map
     private AuthManager authManager;
@@ -73,6 +77,8 @@ public class HomeActivity extends AppCompatActivity {
     private Handler autoScrollHandler;
     private Runnable autoScrollRunnable;
     private int currentBannerPosition = 0;
+    // Thống kê thay đổi (đối soát server / đồng bộ thời gian đọc xong) thì render lại header
+    private final UserStatsManager.OnStatsChangedListener statsListener = stats -> renderUserStats();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -92,7 +98,7 @@ public class HomeActivity extends AppCompatActivity {
         bannerViewPager = findViewById(R.id.bannerViewPager);
         indicatorLayout = findViewById(R.id.indicatorLayout);
 
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         authManager = AuthManager.getInstance(this);
         logoutManager = new LogoutManager(this);
 
@@ -204,6 +210,7 @@ public class HomeActivity extends AppCompatActivity {
 
         //setup recycleview voi loading
         setupBannerSlider();
+        renderHomeSnapshot();
         setupCategories();
         // setupNewBooks() sẽ được gọi sau khi setupCategories() hoàn thành
 
@@ -238,6 +245,18 @@ public class HomeActivity extends AppCompatActivity {
             super.onBackPressed();
         }
     }
+    @Override
+    protected void onStart() {
+        super.onStart();
+        UserStatsManager.getInstance(this).addListener(statsListener);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        UserStatsManager.getInstance(this).removeListener(statsListener);
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -351,11 +370,28 @@ public class HomeActivity extends AppCompatActivity {
             autoScrollHandler.removeCallbacks(autoScrollRunnable);
         }
     }
+    /**
+     * Render ngay snapshot Home lần trước (nếu có) để không phải chờ mạng; dữ liệu server về sau sẽ đối soát lại
+     */
+    private void renderHomeSnapshot() {
+        HomeSnapshotStore.Snapshot snapshot = HomeSnapshotStore.getInstance(this).load(authManager.getUserId());
+        if (snapshot == null) return;
+        Log.d("HomeActivity", "Rendering home snapshot: " + snapshot.categories.size() + " categories, "
+                + snapshot.latestBooks.size() + " books");
+        if (!snapshot.categories.isEmpty()) {
+            bindCategories(snapshot.categories);
+        }
+        if (!snapshot.latestBooks.isEmpty()) {
+            bindNewBooks(snapshot.latestBooks);
+        }
+    }
+
     private void setupCategories() {
-        progressBar.setVisibility(View.VISIBLE);
-        Log.d("HomeActivity", "Calling Categories API...");
-        Call<ApiResponse<CategoriesResponse>> call = apiService.getCategories("active");
-        call.enqueue(new Callback<ApiResponse<CategoriesResponse>>() {
+        // Đã có snapshot trên màn hình thì không hiện loading, chỉ đối soát ngầm
+        if (categoryAdapter == null) {
+            progressBar.setVisibility(View.VISIBLE);
+        }
+        Callback<ApiResponse<CategoriesResponse>> callback = new Callback<ApiResponse<CategoriesResponse>>() {
             @Override
             public void onResponse(Call<ApiResponse<CategoriesResponse>> call, Response<ApiResponse<CategoriesResponse>> response) {
                 progressBar.setVisibility(View.GONE);
@@ -370,21 +406,7 @@ public class HomeActivity extends AppCompatActivity {
                         Log.d("HomeActivity", "Filtered categories size: " + categoriesList.size());  // Nên =11
                     }
                     if (categoriesList != null && !categoriesList.isEmpty()) {
-                        // Lưu categoriesList để sử dụng trong setupNewBooks
-                        HomeActivity.this.categoriesList = categoriesList;
-                        
-                        categoryAdapter = new CategoryAdapter(categoriesList, HomeActivity.this, new CategoryAdapter.OnCategoryClickListener() {
-                            @Override
-                            public void onCategoryClick(Category category) {
-                                Intent intent = new Intent(HomeActivity.this, CategoryActivity.class);
-                                intent.putExtra("selected_category_id", String.valueOf(category.getId()));  // Id dạng INT
-                                intent.putExtra("selected_category_name", category.getName());
-                                startActivity(intent);
-                            }
-                        });
-                        rvCategories.setLayoutManager(new LinearLayoutManager(HomeActivity.this, LinearLayoutManager.HORIZONTAL, false));
-                        rvCategories.setAdapter(categoryAdapter);
-                        Log.d("HomeActivity", "Categories adapter set");
+                        bindCategories(categoriesList);
                         
                         // Sau khi categories load xong, gọi setupNewBooks
                         setupNewBooks();
@@ -396,7 +418,9 @@ public class HomeActivity extends AppCompatActivity {
                     }
                 } else {
                     Log.e("HomeActivity", "Categories API fail: " + response.code());
-                    Toast.makeText(HomeActivity.this, "Load categories failed", Toast.LENGTH_SHORT).show();
+                    if (categoryAdapter == null) {
+                        Toast.makeText(HomeActivity.this, "Load categories failed", Toast.LENGTH_SHORT).show();
+                    }
                     // Vẫn gọi setupNewBooks ngay cả khi categories API fail
                     setupNewBooks();
                 }
@@ -406,61 +430,113 @@ public class HomeActivity extends AppCompatActivity {
             public void onFailure(Call<ApiResponse<CategoriesResponse>> call, Throwable t) {
                 progressBar.setVisibility(View.GONE);
                 Log.e("HomeActivity", "Categories failure: " + t.getMessage());
-                Toast.makeText(HomeActivity.this, "Network error", Toast.LENGTH_SHORT).show();
+                // Đang hiện snapshot thì giữ nguyên, không báo lỗi
+                if (categoryAdapter == null) {
+                    Toast.makeText(HomeActivity.this, "Network error", Toast.LENGTH_SHORT).show();
+                }
                 // Vẫn gọi setupNewBooks ngay cả khi categories API failure
                 setupNewBooks();
             }
+        };
+        // Dùng kết quả đã prefetch lúc khởi động nếu có, không thì tự gọi API
+        if (!StartupOrchestrator.getInstance().takeCategories(this, callback)) {
+            Log.d("HomeActivity", "Calling Categories API...");
+            apiService.getCategories("active").enqueue(callback);
+        }
+    }
+
+    /**
+     * Lần đầu tạo adapter, các lần sau (snapshot -> server) chỉ cập nhật item thay đổi
+     */
+    private void bindCategories(List<Category> categoriesList) {
+        // Lưu categoriesList để sử dụng trong setupNewBooks
+        this.categoriesList = categoriesList;
+        if (categoryAdapter != null) {
+            categoryAdapter.updateCategories(categoriesList);
+            return;
+        }
+        categoryAdapter = new CategoryAdapter(categoriesList, HomeActivity.this, new CategoryAdapter.OnCategoryClickListener() {
+            @Override
+            public void onCategoryClick(Category category) {
+                Intent intent = new Intent(HomeActivity.this, CategoryActivity.class);
+                intent.putExtra("selected_category_id", String.valueOf(category.getId()));  // Id dạng INT
+                intent.putExtra("selected_category_name", category.getName());
+                startActivity(intent);
+            }
         });
+        rvCategories.setLayoutManager(new LinearLayoutManager(HomeActivity.this, LinearLayoutManager.HORIZONTAL, false));
+        rvCategories.setAdapter(categoryAdapter);
+        Log.d("HomeActivity", "Categories adapter set");
     }
 
     private void setupNewBooks() {
-        Call<ApiResponse<BooksResponse>> call = apiService.getBooks(null, "active", 10, 1);  // Giữ nguyên API
-        call.enqueue(new Callback<ApiResponse<BooksResponse>>() {
+        Callback<ApiResponse<BooksResponse>> callback = new Callback<ApiResponse<BooksResponse>>() {
             @Override
             public void onResponse(Call<ApiResponse<BooksResponse>> call, Response<ApiResponse<BooksResponse>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
                     BooksResponse bookResp = response.body().getData();
                     List<Book> newBooksList = (bookResp != null) ? bookResp.getBooks() : null;
                     if (newBooksList != null && !newBooksList.isEmpty()) {
-                        // NEW: Chia data thành 2 list cho 2 hàng
-                        List<Book> row1Books = new ArrayList<>();  // Hàng 1: sách 0,2,4...
-                        List<Book> row2Books = new ArrayList<>();  // Hàng 2: sách 1,3,5...
-                        for (int i = 0; i < newBooksList.size(); i++) {
-                            if (i % 2 == 0) {
-                                row1Books.add(newBooksList.get(i));
-                            } else {
-                                row2Books.add(newBooksList.get(i));
-                            }
+                        bindNewBooks(newBooksList);
+                        // Lưu lại trạng thái Home vừa render thành công cho lần mở app sau
+                        if (categoriesList != null && !categoriesList.isEmpty()) {
+                            HomeSnapshotStore.getInstance(HomeActivity.this)
+                                    .save(authManager.getUserId(), categoriesList, newBooksList);
                         }
-                        Log.d("HomeActivity", "Row1 size: " + row1Books.size() + ", Row2 size: " + row2Books.size());
-
-                        // Hàng 1
-                        NewBookAdapter row1Adapter = new NewBookAdapter(row1Books, HomeActivity.this, categoriesList);
-                        RecyclerView rvRow1 = findViewById(R.id.rv_new_books_row1);  // ID mới trong XML
-                        rvRow1.setLayoutManager(new LinearLayoutManager(HomeActivity.this, LinearLayoutManager.HORIZONTAL, false));
-                        //rvRow1.setLayoutManager(new GridLayoutManager(HomeActivity.this, 5));
-                        rvRow1.setAdapter(row1Adapter);
-
-                        // Hàng 2
-                        NewBookAdapter row2Adapter = new NewBookAdapter(row2Books, HomeActivity.this, categoriesList);
-                        RecyclerView rvRow2 = findViewById(R.id.rv_new_books_row2);  // ID mới trong XML
-                        rvRow2.setLayoutManager(new LinearLayoutManager(HomeActivity.this, LinearLayoutManager.HORIZONTAL, false));
-                        rvRow2.setAdapter(row2Adapter);
-
-                        Log.d("HomeActivity", "2-row horizontal adapters set");
                     } else {
                         Toast.makeText(HomeActivity.this, "No new books", Toast.LENGTH_SHORT).show();
                     }
-                } else {
+                } else if (newBooksRow1Adapter == null) {
                     Toast.makeText(HomeActivity.this, "Load new books failed", Toast.LENGTH_SHORT).show();
                 }
             }
 
             @Override
             public void onFailure(Call<ApiResponse<BooksResponse>> call, Throwable t) {
-                Toast.makeText(HomeActivity.this, "Network error", Toast.LENGTH_SHORT).show();
+                if (newBooksRow1Adapter == null) {
+                    Toast.makeText(HomeActivity.this, "Network error", Toast.LENGTH_SHORT).show();
+                }
             }
-        });
+        };
+        if (!StartupOrchestrator.getInstance().takeLatestBooks(this, callback)) {
+            apiService.getBooks(null, "active", StartupOrchestrator.LATEST_BOOKS_LIMIT, 1).enqueue(callback);  // Giữ nguyên API
+        }
+    }
+
+    private void bindNewBooks(List<Book> newBooksList) {
+        // NEW: Chia data thành 2 list cho 2 hàng
+        List<Book> row1Books = new ArrayList<>();  // Hàng 1: sách 0,2,4...
+        List<Book> row2Books = new ArrayList<>();  // Hàng 2: sách 1,3,5...
+        for (int i = 0; i < newBooksList.size(); i++) {
+            if (i % 2 == 0) {
+                row1Books.add(newBooksList.get(i));
+            } else {
+                row2Books.add(newBooksList.get(i));
+            }
+        }
+        Log.d("HomeActivity", "Row1 size: " + row1Books.size() + ", Row2 size: " + row2Books.size());
+
+        if (newBooksRow1Adapter != null && newBooksRow2Adapter != null) {
+            // Đối soát snapshot với dữ liệu mới, không tạo lại adapter
+            newBooksRow1Adapter.updateBooks(row1Books, categoriesList);
+            newBooksRow2Adapter.updateBooks(row2Books, categoriesList);
+            return;
+        }
+
+        // Hàng 1
+        newBooksRow1Adapter = new NewBookAdapter(row1Books, HomeActivity.this, categoriesList);
+        RecyclerView rvRow1 = findViewById(R.id.rv_new_books_row1);  // ID mới trong XML
+        rvRow1.setLayoutManager(new LinearLayoutManager(HomeActivity.this, LinearLayoutManager.HORIZONTAL, false));
+        //rvRow1.setLayoutManager(new GridLayoutManager(HomeActivity.this, 5));
+        rvRow1.setAdapter(newBooksRow1Adapter);
+
+        // Hàng 2
+        newBooksRow2Adapter = new NewBookAdapter(row2Books, HomeActivity.this, categoriesList);
+        RecyclerView rvRow2 = findViewById(R.id.rv_new_books_row2);  // ID mới trong XML
+        rvRow2.setLayoutManager(new LinearLayoutManager(HomeActivity.this, LinearLayoutManager.HORIZONTAL, false));
+        rvRow2.setAdapter(newBooksRow2Adapter);
+
+        Log.d("HomeActivity", "2-row horizontal adapters set");
     }
 
     /**
@@ -491,116 +567,21 @@ public class HomeActivity extends AppCompatActivity {
      * Load và cập nhật thống kê user (sách đã đọc, sách yêu thích, thời gian đọc)
      */
     private void loadUserStats() {
-        String userId = authManager.getUserId();
-        String accessToken = authManager.getAccessToken();
-        
-        if (userId == null || userId.isEmpty() || accessToken == null || accessToken.isEmpty()) {
-            Log.w("HomeActivity", "Cannot load stats: userId or accessToken is null");
-            return;
-        }
-
-        String authHeader = "Bearer " + accessToken;
-        
-        // Load số sách đã đọc từ reading history
-        loadBooksReadCount(userId, authHeader);
-        
-        // Load số sách yêu thích
-        loadFavoritesCount(userId, authHeader);
-        
-        // Load thời gian đọc sách (ước tính từ số sách đã đọc)
-        loadReadingTime(userId, authHeader);
+        // Hiển thị ngay từ số liệu đã lưu, không phụ thuộc mạng
+        renderUserStats();
+        // Kết quả trả về qua statsListener (chỉ đăng ký từ onStart đến onStop)
+        UserStatsManager stats = UserStatsManager.getInstance(this);
+        // Đối soát lười với server (1 request nhẹ, chỉ khi cũ hoặc lịch sử vừa thay đổi)
+        stats.refreshIfNeeded();
+        // Đẩy thời gian đọc chưa đồng bộ (nếu có) và lấy lại tổng từ server
+        stats.syncReadingTime();
     }
 
-    /**
-     * Load số sách đã đọc từ reading history
-     */
-    private void loadBooksReadCount(String userId, String authHeader) {
-        // Chỉ cần lấy page 1 với limit 1 để lấy pagination.total
-        apiService.getReadingHistory(userId, authHeader, 1, 1, "lastReadAt", "desc")
-                .enqueue(new Callback<ApiResponse<ReadingHistoryResponse>>() {
-                    @Override
-                    public void onResponse(Call<ApiResponse<ReadingHistoryResponse>> call, 
-                                         Response<ApiResponse<ReadingHistoryResponse>> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                            ReadingHistoryResponse data = response.body().getData();
-                            if (data != null && data.getPagination() != null) {
-                                int totalBooks = data.getPagination().getTotal();
-                                updateBooksReadCount(totalBooks);
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<ApiResponse<ReadingHistoryResponse>> call, Throwable t) {
-                        Log.e("HomeActivity", "Failed to load books read count", t);
-                    }
-                });
-    }
-
-    /**
-     * Load số sách yêu thích
-     */
-    private void loadFavoritesCount(String userId, String authHeader) {
-        apiService.getFavorites(userId, authHeader)
-                .enqueue(new Callback<ApiResponse<com.example.myreadbookapplication.model.FavoritesResponse>>() {
-                    @Override
-                    public void onResponse(Call<ApiResponse<com.example.myreadbookapplication.model.FavoritesResponse>> call, 
-                                         Response<ApiResponse<com.example.myreadbookapplication.model.FavoritesResponse>> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                            com.example.myreadbookapplication.model.FavoritesResponse data = response.body().getData();
-                            if (data != null && data.getPagination() != null) {
-                                int totalFavorites = data.getPagination().getTotal();
-                                updateFavoritesCount(totalFavorites);
-                            } else if (data != null && data.getFavoriteBooks() != null) {
-                                // Fallback: đếm từ list nếu không có pagination
-                                int totalFavorites = data.getFavoriteBooks().size();
-                                updateFavoritesCount(totalFavorites);
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<ApiResponse<com.example.myreadbookapplication.model.FavoritesResponse>> call, Throwable t) {
-                        Log.e("HomeActivity", "Failed to load favorites count", t);
-                    }
-                });
-    }
-
-    /**
-     * Load thời gian đọc sách (ước tính từ số sách đã đọc)
-     * Giả sử mỗi cuốn sách đọc trung bình 2 giờ
-     */
-    private void loadReadingTime(String userId, String authHeader) {
-        // Load reading history để tính thời gian đọc
-        apiService.getReadingHistory(userId, authHeader, 1, 100, "lastReadAt", "desc")
-                .enqueue(new Callback<ApiResponse<ReadingHistoryResponse>>() {
-                    @Override
-                    public void onResponse(Call<ApiResponse<ReadingHistoryResponse>> call, 
-                                         Response<ApiResponse<ReadingHistoryResponse>> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                            ReadingHistoryResponse data = response.body().getData();
-                            if (data != null && data.getHistories() != null) {
-                                // Tính tổng thời gian đọc (ước tính)
-                                // Giả sử mỗi cuốn sách đọc trung bình 2 giờ
-                                int totalBooks = data.getHistories().size();
-                                long totalHours = totalBooks * 2; // Ước tính 2 giờ/sách
-                                
-                                // Nếu có pagination, dùng total thay vì size
-                                if (data.getPagination() != null) {
-                                    totalBooks = data.getPagination().getTotal();
-                                    totalHours = totalBooks * 2;
-                                }
-                                
-                                updateReadingTime(totalHours);
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<ApiResponse<ReadingHistoryResponse>> call, Throwable t) {
-                        Log.e("HomeActivity", "Failed to load reading time", t);
-                    }
-                });
+    private void renderUserStats() {
+        UserStatsManager stats = UserStatsManager.getInstance(this);
+        updateBooksReadCount(stats.getBooksReadCount());
+        updateFavoritesCount(stats.getFavoritesCount());
+        updateReadingTime(stats.getReadingSeconds());
     }
 
     /**
@@ -640,18 +621,22 @@ public class HomeActivity extends AppCompatActivity {
     /**
      * Cập nhật thời gian đọc sách trong header
      */
-    private void updateReadingTime(long hours) {
+    private void updateReadingTime(long seconds) {
         try {
             View headerView = navigationView.getHeaderView(0);
             if (headerView != null) {
                 TextView tvReadingTime = headerView.findViewById(R.id.tv_reading_time);
                 if (tvReadingTime != null) {
+                    long minutes = seconds / 60;
+                    long hours = minutes / 60;
                     if (hours >= 24) {
                         // Hiển thị theo ngày nếu >= 24 giờ
                         long days = hours / 24;
                         tvReadingTime.setText(days + "d");
-                    } else {
+                    } else if (hours >= 1) {
                         tvReadingTime.setText(hours + "h");
+                    } else {
+                        tvReadingTime.setText(minutes + "m");
                     }
                 }
             }
@@ -2,8 +2,6 @@ package com.example.myreadbookapplication.activity.User;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 
 import androidx.activity.EdgeToEdge;
@@ -11,20 +9,15 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.myreadbookapplication.R;
 import com.example.myreadbookapplication.activity.Admin.AdminMainActivity;
-import com.example.myreadbookapplication.model.ApiResponse;
-import com.example.myreadbookapplication.model.User;
-import com.example.myreadbookapplication.network.ApiService;
 import com.example.myreadbookapplication.network.RetrofitClient;
 import com.example.myreadbookapplication.utils.AuthManager;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import com.example.myreadbookapplication.utils.StartupOrchestrator;
 
 public class IntroActivity extends AppCompatActivity {
 
     private static final String TAG = "IntroActivity";
-    private static final int SPLASH_TIME_OUT = 2000; // 2 giây
+    // Thời gian chờ tối đa kết quả validate token, quá hạn thì dùng token local như khi offline
+    private static final long TOKEN_CHECK_DEADLINE_MS = 1500;
     private AuthManager authManager;
 
     @Override
@@ -37,13 +30,9 @@ public class IntroActivity extends AppCompatActivity {
         RetrofitClient.init(this);
         authManager = AuthManager.getInstance(this);
 
-        // Kiểm tra auto-login sau khi delay
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                checkAutoLogin();
-            }
-        }, SPLASH_TIME_OUT);
+        // Công việc khởi động đã chạy từ Application.onCreate; gọi lại chỉ để chắc chắn (không chạy 2 lần)
+        StartupOrchestrator.getInstance().start(this);
+        checkAutoLogin();
     }
 
     /**
@@ -52,9 +41,9 @@ public class IntroActivity extends AppCompatActivity {
     private void checkAutoLogin() {
         // Kiểm tra xem user đã đăng nhập chưa
         if (authManager.isLoggedIn() && authManager.getAccessToken() != null) {
-            Log.d(TAG, "User is logged in, validating token...");
-            // Validate token với backend để đảm bảo token còn hợp lệ
-            validateTokenAndNavigate();
+            Log.d(TAG, "User is logged in, waiting for token validation...");
+            // Kết quả validate token đến từ StartupOrchestrator, không gọi lại API
+            StartupOrchestrator.getInstance().awaitTokenState(TOKEN_CHECK_DEADLINE_MS, this::onTokenState);
         } else {
             Log.d(TAG, "User is not logged in, redirecting to SignInActivity");
             // Chưa đăng nhập, chuyển đến SignInActivity
@@ -62,56 +51,27 @@ public class IntroActivity extends AppCompatActivity {
         }
     }
 
-    /**
-     * Validate token với backend và navigate đến màn hình phù hợp
-     */
-    private void validateTokenAndNavigate() {
-        String userId = authManager.getUserId();
-        String accessToken = authManager.getAccessToken();
-        
-        if (userId == null || userId.isEmpty() || accessToken == null || accessToken.isEmpty()) {
-            Log.w(TAG, "Missing userId or accessToken, redirecting to SignInActivity");
-            navigateToSignIn();
-            return;
+    private void onTokenState(StartupOrchestrator.TokenState state) {
+        if (isFinishing() || isDestroyed()) return;
+        switch (state) {
+            case INVALID:
+                // Token không hợp lệ hoặc đã hết hạn
+                Log.w(TAG, "Token validation failed, redirecting to SignInActivity");
+                authManager.logout();
+                navigateToSignIn();
+                break;
+            case UNKNOWN:
+                // Network error / quá deadline - vẫn cho phép auto-login với token local (offline support).
+                // INVALID đến sau deadline do MyReadBookApplication xử lý (logout + về SignInActivity)
+                Log.w(TAG, "Token not confirmed, continuing with local token");
+                navigateToMainScreen(authManager.getUserRole());
+                break;
+            default:
+                // VALID, hoặc NOT_LOGGED_IN nếu user đăng nhập sau khi process đã khởi động (token mới)
+                Log.d(TAG, "Token is valid, auto-login successful");
+                navigateToMainScreen(authManager.getUserRole());
+                break;
         }
-
-        // Gọi API để validate token (sử dụng getUserProfile)
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ApiResponse<User>> call = apiService.getUserProfile(userId, "Bearer " + accessToken);
-        
-        call.enqueue(new Callback<ApiResponse<User>>() {
-            @Override
-            public void onResponse(Call<ApiResponse<User>> call, Response<ApiResponse<User>> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    // Token hợp lệ, tự động đăng nhập
-                    Log.d(TAG, "Token is valid, auto-login successful");
-                    User user = response.body().getData();
-                    if (user != null) {
-                        // Cập nhật thông tin user nếu cần
-                        String role = authManager.getUserRole();
-                        navigateToMainScreen(role);
-                    } else {
-                        navigateToSignIn();
-                    }
-                } else {
-                    // Token không hợp lệ hoặc đã hết hạn
-                    Log.w(TAG, "Token validation failed, redirecting to SignInActivity");
-                    // Clear invalid token
-                    authManager.logout();
-                    navigateToSignIn();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<ApiResponse<User>> call, Throwable t) {
-                // Network error - vẫn cho phép auto-login với token local
-                // Hoặc có thể navigate đến SignInActivity nếu muốn chắc chắn
-                Log.w(TAG, "Token validation network error: " + t.getMessage());
-                // Vẫn cho phép auto-login với token local (offline support)
-                String role = authManager.getUserRole();
-                navigateToMainScreen(role);
-            }
-        });
     }
 
     /**
@@ -16,7 +16,7 @@ import com.example.myreadbookapplication.R;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.User;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.utils.AuthManager;
 
 import java.text.SimpleDateFormat;
@@ -59,7 +59,7 @@ public class ProfileActivity extends AppCompatActivity {
         progressBar = findViewById(R.id.progress_bar);
 
         // Initialize API service
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
         authManager = AuthManager.getInstance(this);
 
         // Load thông tin user từ API
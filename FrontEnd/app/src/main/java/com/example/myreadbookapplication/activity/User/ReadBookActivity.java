@@ -5,11 +5,15 @@ import android.os.Bundle;
 import android.view.View;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
 import android.widget.PopupWindow;
 import android.webkit.WebResourceRequest;
-import android.webkit.WebSettings;
+import android.widget.FrameLayout;
 import android.webkit.WebView;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebViewClient;
+import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -17,29 +21,48 @@ import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.content.SharedPreferences;
 import android.graphics.drawable.ColorDrawable;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 
 import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.google.android.material.button.MaterialButton;
+import com.google.gson.Gson;
 import com.bumptech.glide.Glide;
 import com.example.myreadbookapplication.BuildConfig;
 import com.example.myreadbookapplication.R;
 import com.example.myreadbookapplication.adapter.ChapterListAdapter;
+import com.example.myreadbookapplication.adapter.SearchHitAdapter;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.epub.EpubModels;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubUrlRequest;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubMetadataData;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubChaptersData;
+import com.example.myreadbookapplication.model.epub.EpubModels.EpubChaptersRequest;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubChapterContentData;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubChapterContentRequest;
 import com.example.myreadbookapplication.network.ApiService;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.utils.AppExecutors;
 import com.example.myreadbookapplication.utils.AuthManager;
+import com.example.myreadbookapplication.utils.BookLengthIndex;
+import com.example.myreadbookapplication.utils.BookmarkSyncManager;
+import com.example.myreadbookapplication.utils.ChapterHtmlProcessor;
+import com.example.myreadbookapplication.utils.ChapterPreRenderer;
+import com.example.myreadbookapplication.utils.InBookSearchIndex;
+import com.example.myreadbookapplication.utils.PageMapCache;
+import com.example.myreadbookapplication.utils.ChapterResourceLoader;
+import com.example.myreadbookapplication.utils.ReadingTimeTracker;
+import com.example.myreadbookapplication.utils.HotBookCache;
+import com.example.myreadbookapplication.utils.WebViewPool;
+import com.example.myreadbookapplication.viewmodel.ReaderViewModel;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -50,18 +73,31 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
 public class ReadBookActivity extends AppCompatActivity {
+    private static final String PREF_PAGED_MODE = "reader_paged_mode";
+    // Số anchor tối đa đo trang khi dựng page map
+    private static final int MAX_MEASURED_ANCHORS = 500;
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    // Số chương mỗi lần gọi getEpubChapters
+    private static final int CHAPTER_PAGE_SIZE = 200;
+    // Trong lúc index ở nền, tìm lại sau mỗi chừng này chương mới
+    private static final int SEARCH_REFRESH_CHAPTERS = 5;
 
     private WebView webViewRef;
     private ApiService apiRef;
-    private String currentEpubUrl;
-    private final Map<String, String> hrefToId = new HashMap<>();
+    // Đọc cả từ thread của WebView (shouldInterceptRequest)
+    private volatile String currentEpubUrl;
+    private Map<String, String> hrefToId;
     private String currentBookId;
+    private String currentBookTitle;
+    private String currentBookAuthor;
+    private String currentCoverUrl;
     private int currentPage = 1; // logical page index for non-epub
     private String currentChapterId; // for epub bookmarking
     private int currentScrollPosition = 0; // for tracking scroll position within chapter
@@ -72,6 +108,21 @@ public class ReadBookActivity extends AppCompatActivity {
     private PopupWindow menuPopup;
     private boolean isNightMode = false;
     private boolean isFavorite = false;
+    private TextView menuPageModeLabel;
+
+    // Chế độ đọc theo trang (CSS columns): trang hiện tại + page map của chương đang hiển thị
+    private boolean isPagedMode = false;
+    private int currentPageIndex = 0;
+    private int currentPageCount = 0;
+    private PageMapCache.PageMap currentPageMap;
+    // Lùi từ trang đầu của chương sang chương trước thì mở ở trang cuối
+    private boolean openLastPageOnLoad = false;
+    // Đổi cỡ chữ: giữ vị trí theo tỉ lệ trong chương (-1 = không dùng)
+    private float pendingPageFraction = -1f;
+    private TextView tvPageIndicator;
+    // Tiến độ trên cả cuốn sách (BookLengthIndex), gửi kèm bookmark
+    private TextView tvBookProgress;
+    private BookLengthIndex.Progress lastBookProgress;
     
     // New UI elements
     private TextView tvBookTitle;
@@ -87,9 +138,19 @@ public class ReadBookActivity extends AppCompatActivity {
     
     // Font size management
     private int currentFontSize = 30; // Default font size
-    private final List<com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem> chapterItems = new ArrayList<>();
-    private final Map<String, Integer> chapterIndexMap = new HashMap<>();
-    private final Map<String, String> chapterTitleHints = new HashMap<>();
+    // Danh sách chương và các map tra cứu thuộc ReaderViewModel (giữ lại khi xoay màn hình)
+    private ReaderViewModel readerViewModel;
+    private ChapterResourceLoader resourceLoader;
+    private WebViewClient readerClient;
+    // Document đang hiển thị / đang render sẵn (ChapterHtmlProcessor)
+    private ChapterHtmlProcessor.ProcessedChapter currentProcessed;
+    private ChapterHtmlProcessor.ProcessedChapter preRenderedChapter;
+    private String preRenderedChapterId;
+    // WebView ẩn render sẵn chương sau (null trên máy ít RAM / khi tắt cờ)
+    private ChapterPreRenderer preRenderer;
+    private List<com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem> chapterItems;
+    private Map<String, Integer> chapterIndexMap;
+    private Map<String, String> chapterTitleHints;
     private String defaultChapterKey;
     private String pendingChapterId;
     private BottomSheetDialog chapterSheetDialog;
@@ -98,6 +159,26 @@ public class ReadBookActivity extends AppCompatActivity {
     private TextView sheetTitleView;
     private TextView sheetCountView;
     private View sheetEmptyView;
+    // Tải danh sách chương theo trang: các trang được xử lý lần lượt trên chapterListExecutor
+    private final Executor chapterListExecutor = AppExecutors.getInstance().newSerialComputeExecutor();
+    private Set<String> seenChapterKeys = new HashSet<>();
+    private int builtChapterCount = 0;
+    private int totalChapterCount = 0;
+    private boolean chaptersComplete = false;
+    private boolean initialChapterOpened = false;
+    // Tìm trong sách
+    private BottomSheetDialog searchSheetDialog;
+    private SearchHitAdapter searchHitAdapter;
+    private EditText searchInput;
+    private TextView searchStatusView;
+    private View searchEmptyView;
+    private InBookSearchIndex.Crawl searchCrawl;
+    private String searchQuery = "";
+    private int searchIndexedChapters = 0;
+    private int searchTotalChapters = 0;
+    // Kết quả tìm kiếm đang chờ chương của nó load xong để nhảy tới
+    private InBookSearchIndex.Hit pendingSearchHit;
+    private final Runnable searchRunnable = this::runBookSearch;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -105,10 +186,20 @@ public class ReadBookActivity extends AppCompatActivity {
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_read_book);
 
+        readerViewModel = new ViewModelProvider(this).get(ReaderViewModel.class);
+        chapterItems = readerViewModel.getChapterItems();
+        chapterIndexMap = readerViewModel.getChapterIndexMap();
+        chapterTitleHints = readerViewModel.getChapterTitleHints();
+        hrefToId = readerViewModel.getHrefToId();
+
         ImageView backIcon = findViewById(R.id.back_icon);
         TextView tvTitle = findViewById(R.id.tv_title);
         ImageView ivCover = findViewById(R.id.iv_cover);
-        WebView webView = findViewById(R.id.web_view);
+        // WebView tạo sẵn trong WebViewPool, trả lại pool ở onDestroy
+        FrameLayout webViewContainer = findViewById(R.id.web_view_container);
+        WebView webView = WebViewPool.getInstance().acquire(this);
+        webViewContainer.addView(webView, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
         ImageView menuInBook = findViewById(R.id.menu_in_book);
         
         // Initialize new UI elements
@@ -120,6 +211,8 @@ public class ReadBookActivity extends AppCompatActivity {
         btnPrevChapter = findViewById(R.id.btn_prev_chapter);
         btnNextChapter = findViewById(R.id.btn_next_chapter);
         btnShowChapters = findViewById(R.id.btn_show_chapters);
+        tvPageIndicator = findViewById(R.id.tv_page_indicator);
+        tvBookProgress = findViewById(R.id.tv_book_progress);
         chapterNavigationContainer = findViewById(R.id.chapter_navigation_container);
         if (chapterNavigationContainer != null) {
             chapterNavigationContainer.setVisibility(View.GONE);
@@ -159,6 +252,9 @@ public class ReadBookActivity extends AppCompatActivity {
         String epubUrl = getIntent().getStringExtra("epub_url");
         String author = getIntent().getStringExtra("author");
         this.currentBookId = getIntent().getStringExtra("book_id");
+        this.currentBookTitle = title;
+        this.currentBookAuthor = author;
+        this.currentCoverUrl = coverUrl;
 
         // Setup header title
         tvTitle.setText(title != null ? title : "");
@@ -170,17 +266,18 @@ public class ReadBookActivity extends AppCompatActivity {
         // Setup font controls
         setupFontControls();
 
-        WebSettings settings = webView.getSettings();
-        settings.setJavaScriptEnabled(true);
-        settings.setDomStorageEnabled(true);
-        settings.setBuiltInZoomControls(false);
-        settings.setDisplayZoomControls(false);
-        settings.setSupportZoom(true);
-        settings.setLoadWithOverviewMode(true);
-        settings.setUseWideViewPort(true);
-        webView.setBackgroundColor(Color.TRANSPARENT);
-        webView.setScrollBarStyle(View.SCROLLBARS_OUTSIDE_OVERLAY);
-        webView.setWebViewClient(new WebViewClient() {
+        // WebSettings đã được WebViewPool cấu hình sẵn
+        resourceLoader = ChapterResourceLoader.getInstance(this);
+        webView.post(() -> resourceLoader.setViewportWidth(webView.getWidth()));
+        if (ChapterPreRenderer.isSupported(this)) {
+            preRenderer = new ChapterPreRenderer(this, webViewContainer, new ChapterPreRenderer.Host() {
+                @Override
+                public WebResourceResponse interceptRequest(WebResourceRequest request) {
+                    return resourceLoader.intercept(request, currentEpubUrl);
+                }
+            });
+        }
+        readerClient = new WebViewClient() {
             @Override
             public boolean shouldOverrideUrlLoading(WebView view, String url) {
                 return handleWebLink(url, view, tvTitle);
@@ -191,6 +288,13 @@ public class ReadBookActivity extends AppCompatActivity {
                 return handleWebLink(request.getUrl().toString(), view, tvTitle);
             }
 
+            @Override
+            public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                // Ảnh/CSS của chương đi qua OkHttp + cache đĩa của app (chạy trên thread của WebView)
+                WebResourceResponse cached = resourceLoader.intercept(request, currentEpubUrl);
+                return cached != null ? cached : super.shouldInterceptRequest(view, request);
+            }
+
             @Override
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
@@ -198,37 +302,44 @@ public class ReadBookActivity extends AppCompatActivity {
                 restoreScrollPosition();
                 // Start auto-save scroll position
                 startAutoSaveScrollPosition();
-                // Apply initial font size
-                updateWebViewFontSize();
+                // Document của chương đã có sẵn cỡ chữ + dark mode; chỉ áp lại nếu đã đổi trong lúc xử lý
+                // (hoặc trang không đi qua ChapterHtmlProcessor)
+                if (currentProcessed == null || !currentProcessed.matchesStyle(currentFontSize, isNightMode)) {
+                    applyReaderStyle(view);
+                }
+                if (isPagedMode && currentProcessed != null && currentProcessed.paged) {
+                    loadPageMap(view);
+                } else {
+                    consumePendingSearchHit(view);
+                }
                 if (currentEpubUrl != null && !currentEpubUrl.isEmpty()) {
                     view.clearHistory();
+                    prerenderNextChapter();
                 }
             }
-        });
+        };
+        attachReaderView(webView);
 
         //CORE
         if (epubUrl != null && !epubUrl.isEmpty()) {
             // New flow: use backend EPUB APIs
-            ApiService api = RetrofitClient.getApiService();
+            // Các request EPUB bị hủy khi thoát màn hình đọc
+            ApiService api = CallRegistry.apiFor(this);
             this.apiRef = api;
             this.currentEpubUrl = epubUrl;
-            // 1) Validate URL
-            api.validateEpubUrl(new EpubUrlRequest(epubUrl)).enqueue(new Callback<ApiResponse>() {
-                @Override
-                public void onResponse(Call<ApiResponse> call, Response<ApiResponse> response) {
-                    if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                        // 2) Fetch metadata and chapters in parallel, then load first chapter
-                        fetchChaptersAndOpenFirst(api, epubUrl, webView, tvTitle);
-                        // Try resuming from bookmark if available
-                        resumeFromBookmarkIfAny();
-                    } else {
-                        // Fallback to direct URL flow if validation fails
-                        fallbackDirectLoad(webView, bookUrl, txtUrl, epubUrl);
-                    }
-                }
-                @Override
-                public void onFailure(Call<ApiResponse> call, Throwable t) {
-                    fallbackDirectLoad(webView, bookUrl, txtUrl, epubUrl);
+            if (readerViewModel.isChaptersLoaded(epubUrl)) {
+                // Activity tạo lại sau khi xoay màn hình: không gọi lại API nào
+                restoreChapters(webView, tvTitle);
+                backIcon.setOnClickListener(v -> handleBack());
+                return;
+            }
+            // Sách vừa đọc gần đây: dựng lại từ HotBookCache (bộ nhớ hoặc file), không gọi API nào
+            HotBookCache.getInstance(this).get(epubUrl, hot -> {
+                if (isFinishing() || isDestroyed()) return;
+                if (hot != null) {
+                    restoreHotBook(hot, webView, tvTitle);
+                } else {
+                    startEpubBootstrap(api, epubUrl, bookUrl, txtUrl, webView, tvTitle);
                 }
             });
         } else {
@@ -238,6 +349,148 @@ public class ReadBookActivity extends AppCompatActivity {
         backIcon.setOnClickListener(v -> handleBack());
     }
 
+    /**
+     * Luồng mở sách EPUB đầy đủ: validate URL -> metadata + danh sách chương -> chương đầu tiên / bookmark
+     */
+    private void startEpubBootstrap(ApiService api, String epubUrl, String bookUrl, String txtUrl,
+                                    WebView webView, TextView tvTitle) {
+        // Process bị kill khi đang đọc: mở lại đúng chương đang đọc thay vì bookmark trên server
+        String restoredChapterId = readerViewModel.getCurrentChapterId();
+        if (!TextUtils.isEmpty(restoredChapterId)) {
+            pendingChapterId = restoredChapterId;
+        }
+        // 1) Validate URL
+        api.validateEpubUrl(new EpubUrlRequest(epubUrl)).enqueue(new Callback<ApiResponse>() {
+            @Override
+            public void onResponse(Call<ApiResponse> call, Response<ApiResponse> response) {
+                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                    // 2) Fetch metadata and chapters in parallel, then load first chapter
+                    fetchChaptersAndOpenFirst(api, epubUrl, webView, tvTitle);
+                    // Try resuming from bookmark if available
+                    if (TextUtils.isEmpty(restoredChapterId)) {
+                        resumeFromBookmarkIfAny();
+                    }
+                } else {
+                    // Fallback to direct URL flow if validation fails
+                    fallbackDirectLoad(webView, bookUrl, txtUrl, epubUrl);
+                }
+            }
+            @Override
+            public void onFailure(Call<ApiResponse> call, Throwable t) {
+                fallbackDirectLoad(webView, bookUrl, txtUrl, epubUrl);
+            }
+        });
+    }
+
+    /**
+     * Dựng lại màn hình đọc từ trạng thái đã lưu trong HotBookCache: danh sách chương, title hint, HTML chương
+     * đang đọc + chương liền kề và vị trí cuộn, rồi mở chương như khi xoay màn hình
+     */
+    private void restoreHotBook(HotBookCache.Entry hot, WebView webView, TextView tvTitle) {
+        hrefToId.clear();
+        hrefToId.putAll(hot.hrefToId);
+        chapterItems.clear();
+        chapterItems.addAll(hot.chapters);
+        chapterIndexMap.clear();
+        chapterIndexMap.putAll(hot.chapterIndex);
+        chapterTitleHints.clear();
+        chapterTitleHints.putAll(hot.titleHints);
+        defaultChapterKey = hot.defaultChapterKey;
+        for (Map.Entry<String, EpubChapterContentData> e : hot.contents.entrySet()) {
+            if (!e.getKey().equals(hot.currentChapterId)) readerViewModel.putChapterContent(e.getKey(), e.getValue());
+        }
+        // Chương đang đọc đưa vào cache sau cùng để là mục mới nhất của LRU
+        readerViewModel.putChapterContent(hot.currentChapterId, hot.contents.get(hot.currentChapterId));
+        readerViewModel.setChaptersLoaded(hot.epubUrl);
+        // Process bị kill khi đang đọc thì chương trong SavedStateHandle mới hơn
+        boolean fromSavedState = !TextUtils.isEmpty(readerViewModel.getCurrentChapterId());
+        if (!fromSavedState && !TextUtils.isEmpty(hot.currentChapterId)) {
+            readerViewModel.setCurrentChapterId(hot.currentChapterId);
+            if (hot.scrollY > 0) readerViewModel.saveScrollY(hot.currentChapterId, hot.scrollY);
+        }
+        android.util.Log.d("ReadBookActivity", "Resumed " + hot.epubUrl + " from hot book cache (" + hot.chapters.size() + " chapters)");
+        restoreChapters(webView, tvTitle);
+        if (!fromSavedState) reconcileHotBookmark(hot, tvTitle);
+    }
+
+    /**
+     * Bản chụp trong HotBookCache có thể cũ hơn bookmark (đọc tiếp trên máy khác): mở ngay từ bản chụp,
+     * rồi hỏi bookmark ở nền, nếu bookmark mới hơn lúc chụp thì chuyển sang chương của bookmark
+     */
+    private void reconcileHotBookmark(HotBookCache.Entry hot, TextView tvTitle) {
+        if (TextUtils.isEmpty(currentBookId)) return;
+        final String expected = currentChapterId;
+        BookmarkSyncManager.Pending local = BookmarkSyncManager.getInstance(this).getPending(currentBookId);
+        if (local != null) {
+            if (local.updatedAt > hot.savedAt) jumpToNewerBookmark(expected, local.chapterId, tvTitle);
+            return;
+        }
+        AuthManager authManager = AuthManager.getInstance(this);
+        String userId = authManager.getUserId();
+        String token = authManager.getAccessToken();
+        if (userId == null || token == null || token.isEmpty()) return;
+        if (apiRef == null) apiRef = CallRegistry.apiFor(this);
+        apiRef.getBookmark(userId, currentBookId, "Bearer " + token).enqueue(new Callback<ApiResponse<com.example.myreadbookapplication.model.HistoryItem>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<com.example.myreadbookapplication.model.HistoryItem>> call, Response<ApiResponse<com.example.myreadbookapplication.model.HistoryItem>> response) {
+                if (isFinishing() || isDestroyed()) return;
+                if (response.isSuccessful() && response.body() != null && response.body().isSuccess() && response.body().getData() != null) {
+                    com.example.myreadbookapplication.model.HistoryItem item = response.body().getData();
+                    if (item.getLastReadAt() > hot.savedAt) jumpToNewerBookmark(expected, item.getChapterId(), tvTitle);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ApiResponse<com.example.myreadbookapplication.model.HistoryItem>> call, Throwable t) {
+                // Không có mạng: giữ vị trí từ bản chụp
+            }
+        });
+    }
+
+    private void jumpToNewerBookmark(String expected, String chapterId, TextView tvTitle) {
+        // Người dùng đã tự chuyển chương trong lúc chờ thì không kéo họ đi
+        if (TextUtils.isEmpty(chapterId) || chapterId.equals(currentChapterId)
+                || !TextUtils.equals(expected, currentChapterId) || getChapterIndex(chapterId) == null
+                || currentEpubUrl == null || webViewRef == null) return;
+        android.util.Log.d("ReadBookActivity", "Bookmark newer than hot book snapshot, opening " + chapterId);
+        if (apiRef == null) apiRef = CallRegistry.apiFor(this);
+        openChapter(apiRef, currentEpubUrl, chapterId, webViewRef, tvTitle);
+    }
+
+    /**
+     * Chụp trạng thái sách đang đọc vào HotBookCache (khi rời màn hình đọc) để lần mở lại không phải bootstrap
+     */
+    private void saveHotBook() {
+        if (TextUtils.isEmpty(currentEpubUrl) || !chaptersComplete || chapterItems.isEmpty()
+                || TextUtils.isEmpty(currentChapterId)) return;
+        EpubChapterContentData current = readerViewModel.getChapterContent(currentChapterId);
+        if (current == null) return;
+        Map<String, EpubChapterContentData> contents = new HashMap<>();
+        contents.put(currentChapterId, current);
+        Integer index = getChapterIndex(currentChapterId);
+        if (index != null) {
+            for (int direction : new int[]{-1, 1}) {
+                Integer adjacent = findNavigableIndex(index, direction);
+                if (adjacent == null) continue;
+                String adjacentId = toChapterId(chapterItems.get(adjacent));
+                EpubChapterContentData data = readerViewModel.getChapterContent(adjacentId);
+                if (data != null) contents.put(adjacentId, data);
+            }
+        }
+        HotBookCache.Entry entry = new HotBookCache.Entry();
+        entry.epubUrl = currentEpubUrl;
+        entry.bookId = currentBookId;
+        entry.chapters = new ArrayList<>(chapterItems);
+        entry.chapterIndex = new HashMap<>(chapterIndexMap);
+        entry.titleHints = new HashMap<>(chapterTitleHints);
+        entry.hrefToId = new HashMap<>(hrefToId);
+        entry.defaultChapterKey = defaultChapterKey;
+        entry.currentChapterId = currentChapterId;
+        entry.scrollY = webViewRef != null && !isPagedMode ? webViewRef.getScrollY() : 0;
+        entry.contents = contents;
+        HotBookCache.getInstance(this).put(entry);
+    }
+
     private void fetchChaptersAndOpenFirst(ApiService api, String epubUrl, WebView webView, TextView tvTitle) {
         chapterTitleHints.clear();
         defaultChapterKey = null;
@@ -270,83 +523,241 @@ public class ReadBookActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Tải danh sách chương theo từng trang CHAPTER_PAGE_SIZE chương: trang sau được gọi ngay khi trang trước về,
+     * trang nào về thì xử lý (lane compute, lần lượt) và gắn vào danh sách luôn. Chương đầu tiên mở được ngay khi
+     * trang chứa nó đã có, sheet danh sách chương tự dài thêm theo từng trang.
+     */
     private void requestChapters(ApiService api, String epubUrl, WebView webView, TextView tvTitle) {
-        api.getEpubChapters(new EpubUrlRequest(epubUrl)).enqueue(new Callback<ApiResponse<EpubChaptersData>>() {
+        hrefToId.clear();
+        chapterItems.clear();
+        chapterIndexMap.clear();
+        seenChapterKeys = new HashSet<>();
+        builtChapterCount = 0;
+        chaptersComplete = false;
+        initialChapterOpened = false;
+        if (chapterNavigationContainer != null) {
+            chapterNavigationContainer.setVisibility(View.GONE);
+        }
+        requestChapterPage(api, epubUrl, 0, webView, tvTitle);
+    }
+
+    private void requestChapterPage(ApiService api, String epubUrl, int offset, WebView webView, TextView tvTitle) {
+        api.getEpubChapters(new EpubChaptersRequest(epubUrl, offset, CHAPTER_PAGE_SIZE)).enqueue(new Callback<ApiResponse<EpubChaptersData>>() {
             @Override
             public void onResponse(Call<ApiResponse<EpubChaptersData>> call, Response<ApiResponse<EpubChaptersData>> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().isSuccess() &&
-                        response.body().getData() != null && response.body().getData().chapters != null && !response.body().getData().chapters.isEmpty()) {
-                    hrefToId.clear();
-                    chapterItems.clear();
-                    chapterIndexMap.clear();
-                    if (chapterNavigationContainer != null) {
-                        chapterNavigationContainer.setVisibility(View.GONE);
-                    }
-
-                    List<com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem> chapters = response.body().getData().chapters;
-                    Set<String> seenChapterKeys = new HashSet<>();
-                    for (int i = 0; i < chapters.size(); i++) {
-                        com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem c = chapters.get(i);
-                        if (c == null) continue;
-                        if (c.href != null && c.id != null) {
-                            hrefToId.put(c.href, c.id);
-                        }
-                        applyTitleHint(c);
-                        if (!shouldDisplayChapter(c)) {
-                            continue;
-                        }
-                        String uniqueKey = getChapterUniqueKey(c);
-                        if (!TextUtils.isEmpty(uniqueKey) && !seenChapterKeys.add(uniqueKey)) {
-                            continue;
-                        }
-                        int positionIndex = chapterItems.size();
-                        chapterItems.add(c);
-                        indexChapter(c.id, positionIndex);
-                        indexChapter(c.href, positionIndex);
-                    }
-                    updateChapterSheet();
-                    if (btnShowChapters != null) {
-                        boolean hasChapters = !chapterItems.isEmpty();
-                        btnShowChapters.setVisibility(hasChapters ? View.VISIBLE : View.GONE);
-                        btnShowChapters.setEnabled(hasChapters);
-                        btnShowChapters.setAlpha(hasChapters ? 1f : 0.5f);
-                    }
-
-                    boolean hasReadable = false;
-                    for (com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem c : chapterItems) {
-                        if (isNavigableChapter(c)) {
-                            hasReadable = true;
-                            break;
-                        }
-                    }
-                    if (chapterNavigationContainer != null) {
-                        chapterNavigationContainer.setVisibility(hasReadable ? View.VISIBLE : View.GONE);
-                    }
-
-                    String chosenId = selectInitialChapterId();
-                    if (!TextUtils.isEmpty(chosenId)) {
-                        openChapter(api, epubUrl, chosenId, webView, tvTitle);
-                        if (!TextUtils.isEmpty(pendingChapterId) && pendingChapterId.equals(chosenId)) {
-                            pendingChapterId = null;
-                        }
-                    }
-                } else {
-                    Toast.makeText(ReadBookActivity.this, "No chapters found", Toast.LENGTH_SHORT).show();
-                    if (btnShowChapters != null) {
-                        btnShowChapters.setVisibility(View.GONE);
+                EpubChaptersData data = response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                        ? response.body().getData() : null;
+                if (data == null && offset > 0) {
+                    onChapterPageFailed(api, epubUrl, webView, tvTitle);
+                    return;
+                }
+                List<com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem> chapters =
+                        data != null ? data.chapters : null;
+                if (chapters == null || chapters.isEmpty()) {
+                    if (offset == 0) {
+                        showNoChapters("No chapters found");
+                    } else {
+                        // Server báo hết chương: danh sách đủ, nhưng chờ các trang trước xử lý xong mới chốt
+                        chapterListExecutor.execute(() -> AppExecutors.getInstance().main().execute(() -> {
+                            if (isFinishing() || isDestroyed()) return;
+                            finishChapterList(api, epubUrl, webView, tvTitle);
+                        }));
                     }
+                    return;
+                }
+                if (data.totalChapters != null) totalChapterCount = data.totalChapters;
+                boolean hasMore = Boolean.TRUE.equals(data.hasMore);
+                // Gọi trang sau trước rồi mới xử lý trang này, để mạng và xử lý chạy song song
+                if (hasMore) {
+                    requestChapterPage(api, epubUrl, offset + chapters.size(), webView, tvTitle);
                 }
+                // Làm sạch tiêu đề + lọc/đánh index chương trên lane compute (lần lượt theo trang), chỉ áp kết quả trên main
+                chapterListExecutor.execute(() -> {
+                    ChapterList built = buildChapterList(chapters);
+                    AppExecutors.getInstance().main().execute(() -> {
+                        if (isFinishing() || isDestroyed()) return;
+                        applyChapterPage(built, api, epubUrl, webView, tvTitle);
+                        if (!hasMore) finishChapterList(api, epubUrl, webView, tvTitle);
+                    });
+                });
             }
             @Override
             public void onFailure(Call<ApiResponse<EpubChaptersData>> call, Throwable t) {
-                Toast.makeText(ReadBookActivity.this, "Failed to load chapters", Toast.LENGTH_SHORT).show();
-                if (btnShowChapters != null) {
-                    btnShowChapters.setVisibility(View.GONE);
+                if (offset == 0) {
+                    showNoChapters("Failed to load chapters");
+                    return;
                 }
+                onChapterPageFailed(api, epubUrl, webView, tvTitle);
             }
         });
     }
 
+    /**
+     * Mất các trang sau: đọc tiếp với phần đã tải (chờ trang đang xử lý gắn xong). Danh sách thiếu nên không
+     * đánh dấu đã tải xong (ReaderViewModel) và không lưu vào HotBookCache (chaptersComplete vẫn false).
+     */
+    private void onChapterPageFailed(ApiService api, String epubUrl, WebView webView, TextView tvTitle) {
+        Toast.makeText(ReadBookActivity.this, "Failed to load chapters", Toast.LENGTH_SHORT).show();
+        chapterListExecutor.execute(() -> AppExecutors.getInstance().main().execute(() -> {
+            if (isFinishing() || isDestroyed()) return;
+            openInitialChapter(api, epubUrl, webView, tvTitle, true);
+        }));
+    }
+
+    private void showNoChapters(String message) {
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+        if (btnShowChapters != null) {
+            btnShowChapters.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * Gắn một trang chương đã xử lý vào danh sách; mở chương đầu tiên ngay khi đủ thông tin để chọn
+     */
+    private void applyChapterPage(ChapterList built, ApiService api, String epubUrl, WebView webView, TextView tvTitle) {
+        hrefToId.putAll(built.hrefToId);
+        chapterItems.addAll(built.items);
+        // Key trùng giữa các trang: giữ chương xuất hiện trước
+        for (Map.Entry<String, Integer> e : built.indexMap.entrySet()) {
+            chapterIndexMap.putIfAbsent(e.getKey(), e.getValue());
+        }
+        showChapterControls();
+        openInitialChapter(api, epubUrl, webView, tvTitle, false);
+    }
+
+    private void finishChapterList(ApiService api, String epubUrl, WebView webView, TextView tvTitle) {
+        chaptersComplete = true;
+        readerViewModel.setChaptersLoaded(epubUrl);
+        if (chapterItems.isEmpty()) {
+            showNoChapters("No chapters found");
+            return;
+        }
+        updateChapterSheet();
+        recordChapterOrder();
+        openInitialChapter(api, epubUrl, webView, tvTitle, true);
+        // Crawl tìm kiếm bắt đầu khi danh sách còn dở: chạy lại với đủ chương
+        if (searchCrawl != null) {
+            searchCrawl.cancel();
+            searchCrawl = null;
+            startSearchIndexing();
+        }
+    }
+
+    /**
+     * Mở chương đầu tiên (bookmark / chương đang đọc / chương nội dung đầu tiên). Khi danh sách chưa đủ thì chỉ mở
+     * nếu chương cần mở đã có trong phần đã tải. Bookmark về muộn (chương ở trang sau) thì nhảy tới khi trang đó về.
+     */
+    private void openInitialChapter(ApiService api, String epubUrl, WebView webView, TextView tvTitle, boolean complete) {
+        if (initialChapterOpened) {
+            if (!TextUtils.isEmpty(pendingChapterId) && getChapterIndex(pendingChapterId) != null) {
+                String chapterId = pendingChapterId;
+                pendingChapterId = null;
+                openChapter(api, epubUrl, chapterId, webViewRef != null ? webViewRef : webView, tvTitle);
+            }
+            return;
+        }
+        if (!complete) {
+            if (!TextUtils.isEmpty(pendingChapterId) && getChapterIndex(pendingChapterId) == null) return;
+            if (TextUtils.isEmpty(pendingChapterId) && !TextUtils.isEmpty(defaultChapterKey)
+                    && findChapterIdByKey(defaultChapterKey) == null) return;
+        }
+        String chosenId = selectInitialChapterId();
+        if (TextUtils.isEmpty(chosenId)) return;
+        initialChapterOpened = true;
+        openChapter(api, epubUrl, chosenId, webView, tvTitle);
+        if (!TextUtils.isEmpty(pendingChapterId) && pendingChapterId.equals(chosenId)) {
+            pendingChapterId = null;
+        }
+    }
+
+    /**
+     * Danh sách chương đã lọc/đánh index, dựng ngoài main thread rồi mới gán vào các field
+     */
+    private static final class ChapterList {
+        final List<com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem> items = new ArrayList<>();
+        final Map<String, Integer> indexMap = new HashMap<>();
+        final Map<String, String> hrefToId = new HashMap<>();
+    }
+
+    /**
+     * Chạy trên chapterListExecutor, lần lượt từng trang: chỉ đọc chapterTitleHints (đã ghi xong ở
+     * prepareChapterTitles); seenChapterKeys / builtChapterCount nối tiếp giữa các trang
+     */
+    private ChapterList buildChapterList(List<com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem> chapters) {
+        ChapterList built = new ChapterList();
+        for (int i = 0; i < chapters.size(); i++) {
+            com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem c = chapters.get(i);
+            if (c == null) continue;
+            if (c.href != null && c.id != null) {
+                built.hrefToId.put(c.href, c.id);
+            }
+            applyTitleHint(c);
+            if (!shouldDisplayChapter(c)) {
+                continue;
+            }
+            String uniqueKey = getChapterUniqueKey(c);
+            if (!TextUtils.isEmpty(uniqueKey) && !seenChapterKeys.add(uniqueKey)) {
+                continue;
+            }
+            int positionIndex = builtChapterCount + built.items.size();
+            built.items.add(c);
+            indexChapter(built.indexMap, c.id, positionIndex);
+            indexChapter(built.indexMap, c.href, positionIndex);
+        }
+        builtChapterCount += built.items.size();
+        return built;
+    }
+
+    /**
+     * Thứ tự chương cho tiến độ trên cả cuốn sách (độ dài từng chương được ghi dần khi mở); chỉ ghi khi đã đủ danh sách
+     */
+    private void recordChapterOrder() {
+        List<String> chapterIds = new ArrayList<>(chapterItems.size());
+        for (com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem c : chapterItems) {
+            if (c != null && c.id != null) chapterIds.add(c.id);
+        }
+        BookLengthIndex.getInstance(this).setChapterOrder(bookLengthKey(), chapterIds);
+    }
+
+    private void showChapterControls() {
+        updateChapterSheet();
+        if (btnShowChapters != null) {
+            boolean hasChapters = !chapterItems.isEmpty();
+            btnShowChapters.setVisibility(hasChapters ? View.VISIBLE : View.GONE);
+            btnShowChapters.setEnabled(hasChapters);
+            btnShowChapters.setAlpha(hasChapters ? 1f : 0.5f);
+        }
+
+        boolean hasReadable = false;
+        for (com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem c : chapterItems) {
+            if (isNavigableChapter(c)) {
+                hasReadable = true;
+                break;
+            }
+        }
+        if (chapterNavigationContainer != null) {
+            chapterNavigationContainer.setVisibility(hasReadable ? View.VISIBLE : View.GONE);
+        }
+    }
+
+    /**
+     * Dựng lại màn hình từ ReaderViewModel: danh sách chương + chương đang đọc (HTML đã cache)
+     */
+    private void restoreChapters(WebView webView, TextView tvTitle) {
+        chaptersComplete = true;
+        initialChapterOpened = true;
+        showChapterControls();
+        recordChapterOrder();
+        String chapterId = readerViewModel.getCurrentChapterId();
+        if (TextUtils.isEmpty(chapterId)) {
+            chapterId = selectInitialChapterId();
+        }
+        if (!TextUtils.isEmpty(chapterId)) {
+            openChapter(apiRef, currentEpubUrl, chapterId, webView, tvTitle);
+        }
+    }
+
     private void storeChapterTitleHint(String rawKey, String rawTitle) {
         String cleanTitle = sanitizeTitle(rawTitle);
         if (TextUtils.isEmpty(cleanTitle)) return;
@@ -491,6 +902,11 @@ public class ReadBookActivity extends AppCompatActivity {
         }
         
         this.currentChapterId = chapterId;
+        // Page map thuộc chương cũ; chương mới được đo / lấy từ cache khi render xong
+        currentPageIndex = 0;
+        currentPageCount = 0;
+        currentPageMap = null;
+        ReadingTimeTracker.getInstance(this).onChapterChanged(chapterId);
         Integer knownIndex = getChapterIndex(chapterId);
         if (chapterId != null && knownIndex == null && !chapterItems.isEmpty()) {
             for (int i = 0; i < chapterItems.size(); i++) {
@@ -506,28 +922,33 @@ public class ReadBookActivity extends AppCompatActivity {
             }
         }
         updateChapterNavigationButtons();
+        readerViewModel.setCurrentChapterId(chapterId);
         // Load saved scroll position for the new chapter
         loadSavedScrollPosition();
-        
+        int restoredScrollY = readerViewModel.consumeScrollY(chapterId);
+        if (restoredScrollY >= 0) {
+            currentScrollPosition = restoredScrollY;
+        }
+
+        if (preRenderer != null && preRenderer.isReady(chapterId)
+                && preRenderedChapter != null && preRenderedChapter.paged == isPagedMode) {
+            // Chương này đã render sẵn ở WebView ẩn: chỉ đổi chỗ 2 WebView
+            showPreRenderedChapter(chapterId);
+            return;
+        }
+        EpubChapterContentData cached = readerViewModel.getChapterContent(chapterId);
+        if (cached != null) {
+            renderChapterContent(cached, chapterId, webView);
+            return;
+        }
         api.getEpubChapterContent(new EpubChapterContentRequest(epubUrl, chapterId))
                 .enqueue(new Callback<ApiResponse<EpubChapterContentData>>() {
                     @Override
                     public void onResponse(Call<ApiResponse<EpubChapterContentData>> call, Response<ApiResponse<EpubChapterContentData>> response) {
                         if (response.isSuccessful() && response.body() != null && response.body().isSuccess() && response.body().getData() != null) {
                             EpubChapterContentData data = response.body().getData();
-                            if (data.title != null && !data.title.isEmpty()) {
-                                updateCurrentChapterLabel(data.title);
-                            } else {
-                                updateCurrentChapterLabel(chapterId);
-                            }
-                            // Render HTML string; no external URL loaded
-                            String html = data.content != null ? data.content : "";
-                            // Minimal readable defaults
-                            String style = "<style> body{padding:16px; line-height:1.6; font-size:16px;} img{max-width:100%; height:auto;} </style>";
-                            String doc = "<html><head>" + style + "</head><body>" + html + "</body></html>";
-                            webView.setVisibility(View.VISIBLE);
-                            // Use backend base URL so relative resources like /images resolve
-                            webView.loadDataWithBaseURL(BuildConfig.BASE_URL, doc, "text/html", "utf-8", null);
+                            readerViewModel.putChapterContent(chapterId, data);
+                            renderChapterContent(data, chapterId, webView);
                         } else {
                             Toast.makeText(ReadBookActivity.this, "Failed to load chapter", Toast.LENGTH_SHORT).show();
                         }
@@ -539,22 +960,347 @@ public class ReadBookActivity extends AppCompatActivity {
                 });
     }
 
-    private void openAdjacentChapter(int direction) {
-        if (direction == 0) return;
-        if (apiRef == null || currentEpubUrl == null || webViewRef == null || chapterItems.isEmpty()) return;
+    private void renderChapterContent(EpubChapterContentData data, String chapterId, WebView webView) {
+        if (data.title != null && !data.title.isEmpty()) {
+            updateCurrentChapterLabel(data.title);
+        } else {
+            updateCurrentChapterLabel(chapterId);
+        }
+        // Render HTML string; no external URL loaded
+        String html = data.content != null ? data.content : "";
+        String cacheKey = chapterCacheKey(chapterId);
+        int fontSize = currentFontSize;
+        boolean nightMode = isNightMode;
+        boolean paged = isPagedMode;
+        // Làm sạch + ghép style vào document (chương dài vài trăm KB) trên lane compute
+        AppExecutors.getInstance().runOnCompute(
+                () -> ChapterHtmlProcessor.getInstance().process(cacheKey, html, fontSize, nightMode, paged), processed -> {
+            if (isFinishing() || isDestroyed() || !chapterId.equals(currentChapterId)) return;
+            currentProcessed = processed;
+            BookLengthIndex.getInstance(this).recordChapterLength(bookLengthKey(), chapterId, processed.wordCount);
+            InBookSearchIndex.getInstance(this).indexChapter(bookLengthKey(), chapterId, data.title, html);
+            // WebView đang hiển thị có thể đã đổi (double buffer) trong lúc chờ
+            WebView target = webViewRef != null ? webViewRef : webView;
+            target.setVisibility(View.VISIBLE);
+            // Use backend base URL so relative resources like /images resolve
+            target.loadDataWithBaseURL(BuildConfig.BASE_URL, processed.document, "text/html", "utf-8", null);
+        });
+    }
+
+    private String chapterCacheKey(String chapterId) {
+        return currentEpubUrl + "#" + chapterId;
+    }
+
+    /**
+     * Gắn WebViewClient + listener của màn hình đọc cho WebView đang hiển thị
+     */
+    private void attachReaderView(WebView view) {
+        // Đo thời gian đọc: scroll chỉ ghi lại timestamp tương tác
+        view.setOnScrollChangeListener((v, scrollX, scrollY, oldScrollX, oldScrollY) ->
+                ReadingTimeTracker.getInstance(this).onUserActivity());
+        view.setWebViewClient(readerClient);
+        GestureDetector pageGestures = new GestureDetector(this, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onSingleTapUp(MotionEvent e) {
+                // Chạm 1/3 trái / phải màn hình để lật trang; giữa vẫn để WebView xử lý (link)
+                if (!isPagedMode) return false;
+                float third = view.getWidth() / 3f;
+                if (e.getX() < third) {
+                    turnPage(-1);
+                    return true;
+                }
+                if (e.getX() > view.getWidth() - third) {
+                    turnPage(1);
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+                if (!isPagedMode || Math.abs(velocityX) <= Math.abs(velocityY)) return false;
+                turnPage(velocityX < 0 ? 1 : -1);
+                return true;
+            }
+        });
+        view.setOnTouchListener((v, event) -> isPagedMode && pageGestures.onTouchEvent(event));
+    }
+
+    /**
+     * Chế độ đọc theo trang: lấy page map của chương đang hiển thị từ PageMapCache, chưa có thì đo
+     * trong WebView (số trang + trang của từng anchor) rồi lưu lại
+     */
+    private void loadPageMap(WebView view) {
+        String chapterId = currentChapterId;
+        String key = PageMapCache.key(currentEpubUrl, chapterId, currentFontSize, view.getWidth(), view.getHeight());
+        PageMapCache cache = PageMapCache.getInstance(this);
+        PageMapCache.PageMap cached = cache.get(key);
+        if (cached != null) {
+            applyPageMap(cached);
+            return;
+        }
+        List<String> anchorIds = currentProcessed != null ? currentProcessed.anchorIds : new ArrayList<>();
+        if (anchorIds.size() > MAX_MEASURED_ANCHORS) anchorIds = anchorIds.subList(0, MAX_MEASURED_ANCHORS);
+        String script = "(function(){var w=window.innerWidth;"
+                + "var s=document.scrollingElement||document.documentElement;"
+                + "var ids=" + new Gson().toJson(anchorIds) + ";var a={};"
+                + "for(var i=0;i<ids.length;i++){var e=document.getElementById(ids[i]);"
+                + "if(e)a[ids[i]]=Math.floor((e.getBoundingClientRect().left+window.scrollX)/w);}"
+                + "return {pageCount:Math.max(1,Math.round(s.scrollWidth/w)),anchorPages:a};})()";
+        view.evaluateJavascript(script, json ->
+                AppExecutors.getInstance().runOnCompute(() -> cache.parse(json), map -> {
+                    if (map == null || isFinishing() || isDestroyed() || chapterId == null
+                            || !chapterId.equals(currentChapterId)) return;
+                    cache.put(key, map);
+                    applyPageMap(map);
+                }));
+    }
+
+    private void applyPageMap(PageMapCache.PageMap map) {
+        currentPageMap = map;
+        currentPageCount = map.pageCount;
+        int target;
+        if (openLastPageOnLoad) {
+            target = map.pageCount - 1;
+            openLastPageOnLoad = false;
+        } else if (pendingPageFraction >= 0) {
+            target = Math.round(pendingPageFraction * map.pageCount);
+            pendingPageFraction = -1f;
+        } else {
+            target = loadSavedPage(map.pageCount);
+        }
+        goToPage(target);
+        if (webViewRef != null) consumePendingSearchHit(webViewRef);
+    }
+
+    private void turnPage(int delta) {
+        if (currentPageCount <= 0) return;
+        int next = currentPageIndex + delta;
+        if (next >= currentPageCount) {
+            openAdjacentChapter(1);
+        } else if (next < 0) {
+            openLastPageOnLoad = true;
+            if (!openAdjacentChapter(-1)) openLastPageOnLoad = false;
+        } else {
+            goToPage(next);
+        }
+    }
+
+    /**
+     * Lật tới trang index: chỉ cuộn ngang tới cột tương ứng, không layout lại
+     */
+    private void goToPage(int index) {
+        if (webViewRef == null || currentPageCount <= 0) return;
+        currentPageIndex = Math.max(0, Math.min(index, currentPageCount - 1));
+        webViewRef.evaluateJavascript("window.scrollTo(" + currentPageIndex + "*window.innerWidth,0)", null);
+        ReadingTimeTracker.getInstance(this).onUserActivity();
+        savePagePosition();
+        updatePageIndicator();
+        updateBookProgress();
+    }
+
+    private String bookLengthKey() {
+        return !TextUtils.isEmpty(currentBookId) ? currentBookId : currentEpubUrl;
+    }
+
+    /**
+     * Cập nhật "% đã đọc • còn lại" từ vị trí trong chương hiện tại (trang, hoặc tỉ lệ cuộn)
+     */
+    private void updateBookProgress() {
+        if (webViewRef == null || currentChapterId == null || chapterItems.isEmpty()) return;
+        if (isPagedMode) {
+            showBookProgress(currentPageCount > 0 ? (float) currentPageIndex / currentPageCount : 0f);
+            return;
+        }
+        String chapterId = currentChapterId;
+        webViewRef.evaluateJavascript("(function(){var h=document.documentElement.scrollHeight-window.innerHeight;"
+                + "return h>0?window.scrollY/h:0;})()", value -> {
+            if (!chapterId.equals(currentChapterId)) return;
+            float fraction = 0f;
+            try {
+                fraction = Float.parseFloat(value);
+            } catch (Exception ignored) {}
+            showBookProgress(fraction);
+        });
+    }
+
+    private void showBookProgress(float fractionInChapter) {
+        lastBookProgress = BookLengthIndex.getInstance(this)
+                .getProgress(bookLengthKey(), currentChapterId, fractionInChapter);
+        if (tvBookProgress == null) return;
+        if (lastBookProgress == null) {
+            tvBookProgress.setVisibility(View.GONE);
+            return;
+        }
+        int minutes = lastBookProgress.minutesRemaining;
+        String timeLeft = minutes >= 60
+                ? getString(R.string.reader_time_hours_minutes, minutes / 60, minutes % 60)
+                : getString(R.string.reader_time_minutes, minutes);
+        String text = getString(R.string.reader_book_progress, Math.round(lastBookProgress.percent), timeLeft);
+        // Còn chương chưa biết độ dài: số liệu là ước lượng
+        tvBookProgress.setText(lastBookProgress.estimated ? "~" + text : text);
+        tvBookProgress.setVisibility(View.VISIBLE);
+    }
+
+    private void jumpToAnchorPage(String anchorId) {
+        if (currentPageMap == null || currentPageMap.anchorPages == null) return;
+        Integer page = currentPageMap.anchorPages.get(anchorId);
+        if (page != null) goToPage(page);
+    }
+
+    private void updatePageIndicator() {
+        if (tvPageIndicator == null) return;
+        if (!isPagedMode || currentPageCount <= 0) {
+            tvPageIndicator.setVisibility(View.GONE);
+            return;
+        }
+        tvPageIndicator.setVisibility(View.VISIBLE);
+        tvPageIndicator.setText(getString(R.string.reader_page_indicator, currentPageIndex + 1, currentPageCount));
+    }
+
+    private void savePagePosition() {
+        if (currentBookId == null || currentChapterId == null || currentPageCount <= 0) return;
+        String key = currentBookId + "_" + currentChapterId;
+        getSharedPreferences("reading_progress", MODE_PRIVATE).edit()
+                .putInt(key + "_page", currentPageIndex)
+                .putInt(key + "_pages", currentPageCount)
+                .apply();
+    }
+
+    /**
+     * Trang đã lưu của chương đang đọc; nếu số trang đã khác (đổi cỡ chữ / màn hình) thì quy đổi theo tỉ lệ
+     */
+    private int loadSavedPage(int pageCount) {
+        if (currentBookId == null || currentChapterId == null) return 0;
+        SharedPreferences prefs = getSharedPreferences("reading_progress", MODE_PRIVATE);
+        String key = currentBookId + "_" + currentChapterId;
+        int savedPage = prefs.getInt(key + "_page", 0);
+        int savedCount = prefs.getInt(key + "_pages", 0);
+        if (savedCount > 0 && savedCount != pageCount) {
+            return Math.round((float) savedPage * pageCount / savedCount);
+        }
+        return savedPage;
+    }
+
+    private void togglePagedMode() {
+        isPagedMode = !isPagedMode;
+        getSharedPreferences("app_prefs", MODE_PRIVATE).edit().putBoolean(PREF_PAGED_MODE, isPagedMode).apply();
+        updatePageModeLabel();
+        currentPageCount = 0;
+        currentPageMap = null;
+        updatePageIndicator();
+        // Chương render sẵn đang ở layout cũ
+        if (preRenderer != null) preRenderer.invalidate();
+        if (apiRef == null || currentEpubUrl == null || currentChapterId == null || webViewRef == null) return;
+        // Render lại chương đang đọc theo layout mới (HTML thường vẫn trong cache của ReaderViewModel)
+        EpubChapterContentData data = readerViewModel.getChapterContent(currentChapterId);
+        if (data != null) {
+            renderChapterContent(data, currentChapterId, webViewRef);
+        } else {
+            openChapter(apiRef, currentEpubUrl, currentChapterId, webViewRef, (TextView) findViewById(R.id.tv_title));
+        }
+    }
+
+    private void updatePageModeLabel() {
+        if (menuPageModeLabel != null) {
+            menuPageModeLabel.setText(isPagedMode ? R.string.reader_mode_scroll : R.string.reader_mode_paged);
+        }
+    }
+
+    /**
+     * Đổi WebView đã render sẵn chapterId ra trước, làm phần việc của onPageFinished rồi render chương kế tiếp
+     */
+    private void showPreRenderedChapter(String chapterId) {
+        EpubChapterContentData data = readerViewModel.getChapterContent(chapterId);
+        updateCurrentChapterLabel(data != null && !TextUtils.isEmpty(data.title) ? data.title : chapterId);
+        WebView shown = preRenderer.swapIn(chapterId, webViewRef);
+        webViewRef = shown;
+        attachReaderView(shown);
+        currentProcessed = chapterId.equals(preRenderedChapterId) ? preRenderedChapter : null;
+        // Cỡ chữ / dark mode có thể đã đổi sau khi render sẵn
+        if (currentProcessed == null || !currentProcessed.matchesStyle(currentFontSize, isNightMode)) {
+            applyReaderStyle(shown);
+        }
+        restoreScrollPosition();
+        if (isPagedMode) {
+            loadPageMap(shown);
+        } else {
+            consumePendingSearchHit(shown);
+        }
+        startAutoSaveScrollPosition();
+        prerenderNextChapter();
+    }
+
+    /**
+     * Render sẵn chương sau chương đang đọc vào WebView ẩn (HTML lấy từ cache của ReaderViewModel nếu có)
+     */
+    private void prerenderNextChapter() {
+        if (preRenderer == null || apiRef == null || currentEpubUrl == null || chapterItems.isEmpty()) return;
+        Integer currentIndex = getChapterIndex(currentChapterId);
+        if (currentIndex == null) return;
+        Integer nextIndex = findNavigableIndex(currentIndex, 1);
+        if (nextIndex == null) return;
+        com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem next = chapterItems.get(nextIndex);
+        if (next == null || TextUtils.isEmpty(next.id)) return;
+        String nextId = next.id;
+        if (preRenderer.isReady(nextId)) return;
+
+        EpubChapterContentData cached = readerViewModel.getChapterContent(nextId);
+        if (cached != null) {
+            prerenderChapter(nextId, cached);
+            return;
+        }
+        apiRef.getEpubChapterContent(new EpubChapterContentRequest(currentEpubUrl, nextId))
+                .enqueue(new Callback<ApiResponse<EpubChapterContentData>>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse<EpubChapterContentData>> call, Response<ApiResponse<EpubChapterContentData>> response) {
+                        if (response.isSuccessful() && response.body() != null && response.body().isSuccess() && response.body().getData() != null) {
+                            EpubChapterContentData data = response.body().getData();
+                            readerViewModel.putChapterContent(nextId, data);
+                            prerenderChapter(nextId, data);
+                        }
+                    }
+                    @Override
+                    public void onFailure(Call<ApiResponse<EpubChapterContentData>> call, Throwable t) {
+                        // Không render sẵn được thì chương sau vẫn load bình thường khi mở
+                    }
+                });
+    }
+
+    private void prerenderChapter(String chapterId, EpubChapterContentData data) {
+        String html = data.content != null ? data.content : "";
+        String cacheKey = chapterCacheKey(chapterId);
+        int fontSize = currentFontSize;
+        boolean nightMode = isNightMode;
+        boolean paged = isPagedMode;
+        AppExecutors.getInstance().runOnCompute(
+                () -> ChapterHtmlProcessor.getInstance().process(cacheKey, html, fontSize, nightMode, paged), processed -> {
+            if (isFinishing() || isDestroyed() || preRenderer == null) return;
+            BookLengthIndex.getInstance(this).recordChapterLength(bookLengthKey(), chapterId, processed.wordCount);
+            InBookSearchIndex.getInstance(this).indexChapter(bookLengthKey(), chapterId, data.title, html);
+            preRenderedChapterId = chapterId;
+            preRenderedChapter = processed;
+            preRenderer.prerender(chapterId, processed.document);
+        });
+    }
+
+    private boolean openAdjacentChapter(int direction) {
+        if (direction == 0) return false;
+        if (apiRef == null || currentEpubUrl == null || webViewRef == null || chapterItems.isEmpty()) return false;
 
         Integer currentIndex = getChapterIndex(currentChapterId);
         int referenceIndex = currentIndex != null ? currentIndex : (direction > 0 ? -1 : chapterItems.size());
         Integer targetIndex = findNavigableIndex(referenceIndex, direction);
         if (targetIndex == null) {
-            return;
+            return false;
         }
         com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem target = chapterItems.get(targetIndex);
         if (target == null || target.id == null || target.id.isEmpty()) {
-            return;
+            return false;
         }
         TextView titleView = findViewById(R.id.tv_title);
         openChapter(apiRef, currentEpubUrl, target.id, webViewRef, titleView);
+        return true;
     }
 
     private Integer findNavigableIndex(int startIndex, int direction) {
@@ -694,19 +1440,28 @@ public class ReadBookActivity extends AppCompatActivity {
     private void updateChapterSheet() {
         ensureChapterSheet();
         if (chapterListAdapter != null) {
-            chapterListAdapter.submitList(new ArrayList<>(chapterItems));
+            // Danh sách chỉ dài thêm theo trang: thêm phần mới thay vì copy lại cả danh sách
+            int shown = chapterListAdapter.getItemCount();
+            if (shown > 0 && shown <= chapterItems.size()) {
+                chapterListAdapter.appendList(chapterItems.subList(shown, chapterItems.size()));
+            } else {
+                chapterListAdapter.submitList(chapterItems);
+            }
             chapterListAdapter.setCurrentChapterKey(currentChapterId);
         }
         if (sheetTitleView != null) {
             sheetTitleView.setText(tvBookTitle != null ? tvBookTitle.getText() : getString(R.string.chapter_sheet_title));
         }
         if (sheetCountView != null) {
-            sheetCountView.setText(getString(R.string.chapter_sheet_count, chapterItems.size()));
+            sheetCountView.setText(chaptersComplete || totalChapterCount <= 0
+                    ? getString(R.string.chapter_sheet_count, chapterItems.size())
+                    : getString(R.string.chapter_sheet_count_loading, chapterItems.size(), totalChapterCount));
         }
         if (sheetEmptyView != null) {
             sheetEmptyView.setVisibility(chapterItems.isEmpty() ? View.VISIBLE : View.GONE);
         }
-        if (chapterRecycler != null && chapterListAdapter != null) {
+        // Chỉ cuộn tới chương đang đọc lúc mở sheet, không cuộn lại mỗi lần có thêm trang chương
+        if (chapterRecycler != null && chapterListAdapter != null && !chapterSheetDialog.isShowing()) {
             int currentPos = chapterListAdapter.getCurrentPosition();
             if (currentPos >= 0) {
                 chapterRecycler.post(() -> chapterRecycler.smoothScrollToPosition(currentPos));
@@ -714,6 +1469,202 @@ public class ReadBookActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Tìm trong cả cuốn sách: mở sheet tìm kiếm và bắt đầu index ở nền các chương chưa có trong InBookSearchIndex
+     */
+    private void showSearchSheet() {
+        if (currentEpubUrl == null || chapterItems.isEmpty()) {
+            Toast.makeText(this, getString(R.string.chapter_sheet_empty), Toast.LENGTH_SHORT).show();
+            return;
+        }
+        ensureSearchSheet();
+        startSearchIndexing();
+        if (!searchSheetDialog.isShowing()) {
+            searchSheetDialog.show();
+        }
+        searchInput.requestFocus();
+    }
+
+    private void ensureSearchSheet() {
+        if (searchSheetDialog != null) return;
+        searchSheetDialog = new BottomSheetDialog(this);
+        View sheetView = LayoutInflater.from(this).inflate(R.layout.bottom_sheet_book_search, null);
+        searchSheetDialog.setContentView(sheetView);
+
+        searchInput = sheetView.findViewById(R.id.et_book_search);
+        searchStatusView = sheetView.findViewById(R.id.tv_search_status);
+        searchEmptyView = sheetView.findViewById(R.id.tv_empty_search);
+        View closeBtn = sheetView.findViewById(R.id.btn_close_search);
+        if (closeBtn != null) {
+            closeBtn.setOnClickListener(v -> searchSheetDialog.dismiss());
+        }
+
+        searchHitAdapter = new SearchHitAdapter(this, this::resolveChapterTitle, this::openSearchHit);
+        RecyclerView recycler = sheetView.findViewById(R.id.recycler_search_hits);
+        recycler.setLayoutManager(new LinearLayoutManager(this));
+        recycler.setAdapter(searchHitAdapter);
+
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // Chờ người dùng gõ xong một chút rồi mới tìm
+                searchQuery = s.toString().trim();
+                searchInput.removeCallbacks(searchRunnable);
+                searchInput.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+            }
+        });
+        updateSearchStatus(null);
+    }
+
+    private void startSearchIndexing() {
+        if (searchCrawl != null && searchCrawl.isActive()) return;
+        List<String> chapterIds = new ArrayList<>(chapterItems.size());
+        for (com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem c : chapterItems) {
+            if (c != null && !TextUtils.isEmpty(c.id) && isNavigableChapter(c)) chapterIds.add(c.id);
+        }
+        searchCrawl = InBookSearchIndex.getInstance(this).crawl(bookLengthKey(), chapterIds,
+                this::fetchChapterForSearch, (indexed, total) -> {
+                    int previous = searchIndexedChapters;
+                    searchIndexedChapters = indexed;
+                    searchTotalChapters = total;
+                    if (!TextUtils.isEmpty(searchQuery)
+                            && (indexed >= total || indexed - previous >= SEARCH_REFRESH_CHAPTERS || previous == 0)) {
+                        runBookSearch();
+                    } else if (TextUtils.isEmpty(searchQuery)) {
+                        updateSearchStatus(null);
+                    }
+                });
+    }
+
+    /**
+     * HTML của chương cho index tìm kiếm: lấy từ cache của ReaderViewModel nếu có, không thì gọi API
+     * (không đưa vào cache của ReaderViewModel để khỏi đẩy chương đang đọc ra ngoài)
+     */
+    private void fetchChapterForSearch(String chapterId, InBookSearchIndex.FetchCallback callback) {
+        EpubChapterContentData cached = readerViewModel.getChapterContent(chapterId);
+        if (cached != null) {
+            callback.onFetched(cached.title, cached.content != null ? cached.content : "");
+            return;
+        }
+        if (apiRef == null || currentEpubUrl == null) {
+            callback.onFailed();
+            return;
+        }
+        apiRef.getEpubChapterContent(new EpubChapterContentRequest(currentEpubUrl, chapterId))
+                .enqueue(new Callback<ApiResponse<EpubChapterContentData>>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse<EpubChapterContentData>> call, Response<ApiResponse<EpubChapterContentData>> response) {
+                        if (response.isSuccessful() && response.body() != null && response.body().isSuccess() && response.body().getData() != null) {
+                            EpubChapterContentData data = response.body().getData();
+                            callback.onFetched(data.title, data.content != null ? data.content : "");
+                        } else {
+                            callback.onFailed();
+                        }
+                    }
+                    @Override
+                    public void onFailure(Call<ApiResponse<EpubChapterContentData>> call, Throwable t) {
+                        callback.onFailed();
+                    }
+                });
+    }
+
+    private void runBookSearch() {
+        if (searchHitAdapter == null) return;
+        String query = searchQuery;
+        if (TextUtils.isEmpty(query)) {
+            searchHitAdapter.submitList(null);
+            searchEmptyView.setVisibility(View.GONE);
+            updateSearchStatus(null);
+            return;
+        }
+        InBookSearchIndex.getInstance(this).search(bookLengthKey(), query, result -> {
+            if (isFinishing() || isDestroyed() || !query.equals(searchQuery)) return;
+            searchHitAdapter.submitList(result.hits);
+            searchEmptyView.setVisibility(result.hits.isEmpty() ? View.VISIBLE : View.GONE);
+            updateSearchStatus(result);
+        });
+    }
+
+    private void updateSearchStatus(InBookSearchIndex.Result result) {
+        if (searchStatusView == null) return;
+        boolean indexing = searchIndexedChapters < searchTotalChapters;
+        String status;
+        if (result != null) {
+            status = indexing
+                    ? getString(R.string.book_search_results_partial, result.hits.size(), searchIndexedChapters, searchTotalChapters)
+                    : getString(R.string.book_search_results, result.hits.size());
+        } else if (indexing) {
+            status = getString(R.string.book_search_indexing, searchIndexedChapters, searchTotalChapters);
+        } else {
+            status = getString(R.string.book_search_indexed, searchTotalChapters);
+        }
+        searchStatusView.setText(status);
+    }
+
+    /**
+     * Nhảy tới một kết quả tìm kiếm: chương đang mở thì áp ngay, không thì mở chương rồi áp khi load xong
+     */
+    private void openSearchHit(InBookSearchIndex.Hit hit) {
+        if (searchSheetDialog != null && searchSheetDialog.isShowing()) {
+            searchSheetDialog.dismiss();
+        }
+        if (webViewRef == null || apiRef == null || currentEpubUrl == null) return;
+        if (hit.chapterId.equals(currentChapterId) && currentProcessed != null && (!isPagedMode || currentPageCount > 0)) {
+            applySearchHit(hit, webViewRef);
+            return;
+        }
+        pendingSearchHit = hit;
+        if (!hit.chapterId.equals(currentChapterId)) {
+            openChapter(apiRef, currentEpubUrl, hit.chapterId, webViewRef, (TextView) findViewById(R.id.tv_title));
+        }
+    }
+
+    private void consumePendingSearchHit(WebView view) {
+        InBookSearchIndex.Hit hit = pendingSearchHit;
+        if (hit == null) return;
+        pendingSearchHit = null;
+        // Đã chuyển sang chương khác trong lúc chờ thì bỏ
+        if (!hit.chapterId.equals(currentChapterId)) return;
+        // Sau lần khôi phục vị trí cuộn (cũng được post) của chương
+        view.post(() -> applySearchHit(hit, view));
+    }
+
+    /**
+     * Tìm lần xuất hiện thứ hit.occurrence của chữ khớp trong DOM, đánh dấu bằng <mark> rồi cuộn (hoặc lật trang)
+     * tới đó. Không thấy (chữ khớp vắt qua nhiều thẻ) thì nhảy tới anchor gần nhất.
+     */
+    private void applySearchHit(InBookSearchIndex.Hit hit, WebView view) {
+        String script = "(function(){var q=" + new Gson().toJson(hit.matchText.toLowerCase(Locale.ROOT))
+                + ",n=" + hit.occurrence + ",paged=" + isPagedMode + ";"
+                + "var w=document.createTreeWalker(document.body,NodeFilter.SHOW_TEXT,null,false),t;"
+                + "while((t=w.nextNode())){var s=t.nodeValue.replace(/\\s/g,' ').toLowerCase(),i=s.indexOf(q);"
+                + "while(i>=0){if(n--===0){var r=document.createRange();r.setStart(t,i);r.setEnd(t,i+q.length);"
+                + "var b=r.getBoundingClientRect();try{r.surroundContents(document.createElement('mark'));}catch(e){}"
+                + "if(paged)return Math.floor((b.left+window.scrollX)/window.innerWidth);"
+                + "window.scrollTo(0,Math.max(0,b.top+window.scrollY-window.innerHeight/3));return -1;}"
+                + "i=s.indexOf(q,i+1);}}return -2;})()";
+        String chapterId = currentChapterId;
+        view.evaluateJavascript(script, value -> {
+            if (isFinishing() || isDestroyed() || chapterId == null || !chapterId.equals(currentChapterId)) return;
+            int page = -2;
+            try {
+                page = Integer.parseInt(value);
+            } catch (Exception ignored) {}
+            if (page >= 0 && isPagedMode) {
+                goToPage(page);
+            } else if (page == -2) {
+                scrollToAnchor(hit.anchorId, view);
+            }
+            updateBookProgress();
+        });
+    }
+
     private void openChapterFromList(String chapterKey) {
         if (TextUtils.isEmpty(chapterKey)) {
             Toast.makeText(this, getString(R.string.chapter_current_unknown), Toast.LENGTH_SHORT).show();
@@ -749,17 +1700,21 @@ public class ReadBookActivity extends AppCompatActivity {
     }
 
     private void indexChapter(String key, int index) {
+        indexChapter(chapterIndexMap, key, index);
+    }
+
+    private void indexChapter(Map<String, Integer> indexMap, String key, int index) {
         if (index < 0) return;
         String normalized = normalizeChapterKey(key);
         if (normalized == null || normalized.isEmpty()) return;
-        chapterIndexMap.put(normalized, index);
+        indexMap.put(normalized, index);
 
         String fileName = extractFileName(normalized);
         if (fileName != null && !fileName.isEmpty()) {
-            chapterIndexMap.putIfAbsent(fileName, index);
+            indexMap.putIfAbsent(fileName, index);
             String baseName = stripExtension(fileName);
             if (baseName != null && !baseName.isEmpty()) {
-                chapterIndexMap.putIfAbsent(baseName, index);
+                indexMap.putIfAbsent(baseName, index);
             }
         }
     }
@@ -853,6 +1808,11 @@ public class ReadBookActivity extends AppCompatActivity {
             } catch (URISyntaxException ignored) {}
 
             if (path == null) path = url;
+            String fragment = null;
+            int hashIdx = url.indexOf('#');
+            if (hashIdx >= 0 && hashIdx < url.length() - 1) {
+                fragment = url.substring(hashIdx + 1);
+            }
 
             // Pattern 1: /links/{anchorOrId}/OEBPS/...  → prefer the OEBPS href if present
             if (path.startsWith("/links/")) {
@@ -863,6 +1823,7 @@ public class ReadBookActivity extends AppCompatActivity {
                     String href = remainder.substring(oebpsIdx);
                     String mappedId = hrefToId.get(href);
                     String target = mappedId != null ? mappedId : href; // fall back to href directly
+                    if (target.equals(currentChapterId) && scrollToAnchor(fragment, view)) return true;
                     if (apiRef != null && currentEpubUrl != null) {
                         openChapter(apiRef, currentEpubUrl, target, view, tvTitle);
                         return true;
@@ -884,12 +1845,16 @@ public class ReadBookActivity extends AppCompatActivity {
                 int idx = path.indexOf("OEBPS/");
                 String href = path.substring(idx);
                 String targetId = hrefToId.get(href);
+                if (targetId != null && targetId.equals(currentChapterId) && scrollToAnchor(fragment, view)) return true;
                 if (targetId != null && apiRef != null && currentEpubUrl != null) {
                     openChapter(apiRef, currentEpubUrl, targetId, view, tvTitle);
                     return true;
                 }
             }
 
+            // Link tới anchor trong chính chương đang đọc (chú thích, mục lục trong chương)
+            if (scrollToAnchor(fragment, view)) return true;
+
             // Otherwise, let WebView handle normally within the same view
             view.loadUrl(url);
             return true;
@@ -900,6 +1865,24 @@ public class ReadBookActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Cuộn tới anchor nếu nó có trong chương đang hiển thị (danh sách id lấy từ ChapterHtmlProcessor)
+     */
+    private boolean scrollToAnchor(String anchorId, WebView view) {
+        if (anchorId == null || currentProcessed == null || !currentProcessed.anchorIds.contains(anchorId)) {
+            return false;
+        }
+        if (isPagedMode) {
+            // Theo trang: anchor nằm ở cột nào thì lật tới trang đó
+            jumpToAnchorPage(anchorId);
+            return true;
+        }
+        String escaped = anchorId.replace("\\", "\\\\").replace("'", "\\'");
+        view.evaluateJavascript("(function(){var e=document.getElementById('" + escaped + "')"
+                + "||document.getElementsByName('" + escaped + "')[0];if(e)e.scrollIntoView();})()", null);
+        return true;
+    }
+
     private void fallbackDirectLoad(WebView webView, String bookUrl, String txtUrl, String epubUrl) {
         String loadUrl = null;
         if (bookUrl != null && !bookUrl.isEmpty()) {
@@ -932,14 +1915,31 @@ public class ReadBookActivity extends AppCompatActivity {
         handleBack();
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        ReadingTimeTracker.getInstance(this).startSession(currentBookId, currentChapterId);
+    }
+
     @Override
     protected void onPause() {
         super.onPause();
+        ReadingTimeTracker.getInstance(this).pauseSession();
         // Stop auto-save when pausing
         stopAutoSaveScrollPosition();
-        // Persist bookmark also on pause to be robust
-        if (isFinishing()) return;
-        saveBookmarkAndFinish();
+        if (!isChangingConfigurations()) saveHotBook();
+        // Persist bookmark also on pause to be robust (chỉ ghi máy, không đóng Activity)
+        // (xoay màn hình: Activity được tạo lại ngay, state giữ trong ReaderViewModel)
+        if (isFinishing() || isChangingConfigurations()) return;
+        persistBookmark();
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        if (webViewRef != null && currentChapterId != null) {
+            readerViewModel.saveScrollY(currentChapterId, webViewRef.getScrollY());
+        }
+        super.onSaveInstanceState(outState);
     }
 
     @Override
@@ -950,6 +1950,26 @@ public class ReadBookActivity extends AppCompatActivity {
         if (scrollSaveHandler != null) {
             scrollSaveHandler.removeCallbacksAndMessages(null);
         }
+        if (resourceLoader != null) resourceLoader.logStats();
+        if (searchCrawl != null) {
+            searchCrawl.cancel();
+            searchCrawl = null;
+        }
+        if (searchInput != null) searchInput.removeCallbacks(searchRunnable);
+        if (preRenderer != null) {
+            preRenderer.release();
+            preRenderer = null;
+        }
+        if (webViewRef != null) {
+            WebViewPool.getInstance().release(webViewRef);
+            webViewRef = null;
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (preRenderer != null) preRenderer.onTrimMemory(level);
     }
 
     private void resumeFromBookmarkIfAny() {
@@ -961,7 +1981,14 @@ public class ReadBookActivity extends AppCompatActivity {
             String token = authManager.getAccessToken();
             
             if (userId == null || token == null || token.isEmpty()) return;
-            if (apiRef == null) apiRef = RetrofitClient.getApiService();
+
+            // Bookmark chưa gửi lên server mới hơn bản trên server
+            BookmarkSyncManager.Pending local = BookmarkSyncManager.getInstance(this).getPending(currentBookId);
+            if (local != null) {
+                resumeAtChapter(local.chapterId);
+                return;
+            }
+            if (apiRef == null) apiRef = CallRegistry.apiFor(this);
 
             apiRef.getBookmark(userId, currentBookId, "Bearer " + token).enqueue(new Callback<ApiResponse<com.example.myreadbookapplication.model.HistoryItem>>() {
                 @Override
@@ -969,14 +1996,7 @@ public class ReadBookActivity extends AppCompatActivity {
                     if (response.isSuccessful() && response.body() != null && response.body().isSuccess() && response.body().getData() != null) {
                         com.example.myreadbookapplication.model.HistoryItem item = response.body().getData();
                         currentPage = item.getPage();
-                        currentChapterId = item.getChapterId();
-                        
-                        pendingChapterId = currentChapterId;
-                        if (!TextUtils.isEmpty(pendingChapterId) && !chapterItems.isEmpty() && getChapterIndex(pendingChapterId) != null
-                                && apiRef != null && currentEpubUrl != null && webViewRef != null) {
-                            openChapter(apiRef, currentEpubUrl, pendingChapterId, webViewRef, (TextView) findViewById(R.id.tv_title));
-                            pendingChapterId = null;
-                        }
+                        resumeAtChapter(item.getChapterId());
                     }
                 }
 
@@ -987,16 +2007,30 @@ public class ReadBookActivity extends AppCompatActivity {
         } catch (Exception ignored) {}
     }
 
+    private void resumeAtChapter(String chapterId) {
+        currentChapterId = chapterId;
+        pendingChapterId = currentChapterId;
+        if (apiRef == null) apiRef = CallRegistry.apiFor(this);
+        if (!TextUtils.isEmpty(pendingChapterId) && !chapterItems.isEmpty() && getChapterIndex(pendingChapterId) != null
+                && currentEpubUrl != null && webViewRef != null) {
+            openChapter(apiRef, currentEpubUrl, pendingChapterId, webViewRef, (TextView) findViewById(R.id.tv_title));
+            pendingChapterId = null;
+        }
+    }
+
     private void saveBookmarkAndFinish() {
+        persistBookmark();
+        // Không chờ server: BookmarkSyncManager gửi bookmark sau khi Activity đã đóng
+        finish();
+    }
+
+    /**
+     * Ghi bookmark vào máy (BookmarkSyncManager gộp và gửi lên server ở nền)
+     */
+    private void persistBookmark() {
         try {
-            if (currentBookId == null || currentBookId.isEmpty()) { finish(); return; }
-            
-            AuthManager authManager = AuthManager.getInstance(this);
-            String userId = authManager.getUserId();
-            String token = authManager.getAccessToken();
-            
-            if (userId == null || token == null || token.isEmpty()) { finish(); return; }
-            if (apiRef == null) apiRef = RetrofitClient.getApiService();
+            if (currentBookId == null || currentBookId.isEmpty()) return;
+            if (AuthManager.getInstance(this).getUserId() == null) return;
 
             // Save current scroll position before saving bookmark
             saveCurrentScrollPosition();
@@ -1005,28 +2039,20 @@ public class ReadBookActivity extends AppCompatActivity {
             if (chapterIdToSave == null || chapterIdToSave.isEmpty()) {
                 chapterIdToSave = "chapter1"; // Default chapter
             }
-            
-            // Log để debug
-            android.util.Log.d("ReadBookActivity", "Saving bookmark - userId: " + userId + ", bookId: " + currentBookId + ", chapterId: " + chapterIdToSave);
-            
-            apiRef.saveBookmark(userId, currentBookId, chapterIdToSave, "Bearer " + token)
-                    .enqueue(new Callback<ApiResponse>() {
-                        @Override
-                        public void onResponse(Call<ApiResponse> call, Response<ApiResponse> response) {
-                            finish();
-                        }
 
-                        @Override
-                        public void onFailure(Call<ApiResponse> call, Throwable t) {
-                            finish();
-                        }
-                    });
+            // % đã đọc cả sách, làm tròn 1 chữ số (null nếu chưa tính được: bookmark như trước)
+            Float progress = lastBookProgress != null && chapterIdToSave.equals(currentChapterId)
+                    ? Math.round(lastBookProgress.percent * 10f) / 10f : null;
+            BookmarkSyncManager.getInstance(this).saveBookmark(currentBookId, chapterIdToSave, progress,
+                    currentBookTitle, currentBookAuthor, currentCoverUrl);
         } catch (Exception e) {
-            finish();
+            android.util.Log.w("ReadBookActivity", "Failed to persist bookmark: " + e.getMessage());
         }
     }
 
     private void saveCurrentScrollPosition() {
+        // Chế độ theo trang: vị trí là số trang, đã lưu mỗi lần lật (window.scrollY luôn là 0)
+        if (isPagedMode) return;
         try {
             if (webViewRef != null && currentBookId != null && currentChapterId != null) {
                 webViewRef.evaluateJavascript("window.scrollY", value -> {
@@ -1069,6 +2095,7 @@ public class ReadBookActivity extends AppCompatActivity {
             @Override
             public void run() {
                 saveCurrentScrollPosition();
+                updateBookProgress();
                 // Schedule next save in 2 seconds
                 scrollSaveHandler.postDelayed(this, 2000);
             }
@@ -1088,6 +2115,7 @@ public class ReadBookActivity extends AppCompatActivity {
         SharedPreferences prefs = getSharedPreferences("app_prefs", MODE_PRIVATE);
         isNightMode = prefs.getBoolean("night_mode_" + currentBookId, false);
         isFavorite = prefs.getBoolean("favorite_" + currentBookId, false);
+        isPagedMode = prefs.getBoolean(PREF_PAGED_MODE, false);
         
         // Apply night mode if enabled
         if (isNightMode) {
@@ -1106,6 +2134,10 @@ public class ReadBookActivity extends AppCompatActivity {
         // Setup menu items
         LinearLayout menuAddFavorite = menuView.findViewById(R.id.menu_add_favorite);
         LinearLayout menuNightMode = menuView.findViewById(R.id.menu_night_mode);
+        LinearLayout menuPageMode = menuView.findViewById(R.id.menu_page_mode);
+        LinearLayout menuSearchInBook = menuView.findViewById(R.id.menu_search_in_book);
+        menuPageModeLabel = menuView.findViewById(R.id.menu_page_mode_label);
+        updatePageModeLabel();
         
         menuAddFavorite.setOnClickListener(v -> {
             toggleFavorite();
@@ -1116,6 +2148,16 @@ public class ReadBookActivity extends AppCompatActivity {
             toggleNightMode();
             menuPopup.dismiss();
         });
+
+        menuPageMode.setOnClickListener(v -> {
+            togglePagedMode();
+            menuPopup.dismiss();
+        });
+
+        menuSearchInBook.setOnClickListener(v -> {
+            menuPopup.dismiss();
+            showSearchSheet();
+        });
     }
     
     private void showMenuDropdown(ImageView menuButton) {
@@ -1171,14 +2213,7 @@ public class ReadBookActivity extends AppCompatActivity {
         
         // Apply dark theme to WebView
         if (webViewRef != null) {
-            webViewRef.setBackgroundColor(Color.parseColor("#1E1E1E"));
-            // Inject CSS for dark mode
-            String darkModeCSS = "javascript:(function(){" +
-                "var style = document.createElement('style');" +
-                "style.innerHTML = 'body { background-color: #1E1E1E !important; color: #FFFFFF !important; }';" +
-                "document.head.appendChild(style);" +
-                "})()";
-            webViewRef.evaluateJavascript(darkModeCSS, null);
+            injectThemeCss(webViewRef, true);
         }
     }
     
@@ -1193,14 +2228,29 @@ public class ReadBookActivity extends AppCompatActivity {
         
         // Apply light theme to WebView
         if (webViewRef != null) {
-            webViewRef.setBackgroundColor(Color.WHITE);
+            injectThemeCss(webViewRef, false);
+        }
+    }
+
+    private void injectThemeCss(WebView view, boolean night) {
+        if (night) {
+            view.setBackgroundColor(Color.parseColor("#1E1E1E"));
+            // Inject CSS for dark mode
+            String darkModeCSS = "javascript:(function(){" +
+                "var style = document.createElement('style');" +
+                "style.innerHTML = 'body { background-color: #1E1E1E !important; color: #FFFFFF !important; }';" +
+                "document.head.appendChild(style);" +
+                "})()";
+            view.evaluateJavascript(darkModeCSS, null);
+        } else {
+            view.setBackgroundColor(Color.WHITE);
             // Inject CSS for light mode
             String lightModeCSS = "javascript:(function(){" +
                 "var style = document.createElement('style');" +
                 "style.innerHTML = 'body { background-color: #FFFFFF !important; color: #000000 !important; }';" +
                 "document.head.appendChild(style);" +
                 "})()";
-            webViewRef.evaluateJavascript(lightModeCSS, null);
+            view.evaluateJavascript(lightModeCSS, null);
         }
     }
     
@@ -1310,6 +2360,16 @@ public class ReadBookActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Áp cỡ chữ hiện tại và dark mode (nếu bật) cho một WebView vừa render xong chương
+     */
+    private void applyReaderStyle(WebView view) {
+        view.evaluateJavascript("document.body.style.fontSize='" + currentFontSize + "px'", null);
+        if (isNightMode) {
+            injectThemeCss(view, true);
+        }
+    }
+
     /**
      * Update WebView font size
      */
@@ -1318,6 +2378,11 @@ public class ReadBookActivity extends AppCompatActivity {
             webViewRef.post(() -> {
                 webViewRef.evaluateJavascript(
                     "document.body.style.fontSize='" + currentFontSize + "px'", null);
+                if (isPagedMode && currentPageCount > 0) {
+                    // Số trang đổi theo cỡ chữ: lấy page map mới, giữ vị trí theo tỉ lệ trong chương
+                    pendingPageFraction = (float) currentPageIndex / currentPageCount;
+                    loadPageMap(webViewRef);
+                }
             });
         }
     }
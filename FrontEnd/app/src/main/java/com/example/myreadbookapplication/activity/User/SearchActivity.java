@@ -1,5 +1,6 @@
 package com.example.myreadbookapplication.activity.User;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
@@ -15,21 +16,29 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myreadbookapplication.R;
 import com.example.myreadbookapplication.adapter.AllBooksAdapter;
+import com.example.myreadbookapplication.adapter.SuggestionAdapter;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.Book;
 import com.example.myreadbookapplication.model.BooksResponse;
 import com.example.myreadbookapplication.model.Category;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
+import com.example.myreadbookapplication.utils.BookCache;
+import com.example.myreadbookapplication.utils.CatalogSearchIndex;
+import com.example.myreadbookapplication.utils.PagePrefetcher;
 import com.example.myreadbookapplication.utils.PaginationManager;
+import com.example.myreadbookapplication.utils.SearchController;
+import com.example.myreadbookapplication.utils.SearchSuggestions;
+import com.example.myreadbookapplication.utils.SuggestionTrie;
+import com.example.myreadbookapplication.viewmodel.SearchViewModel;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -51,10 +60,22 @@ public class SearchActivity extends AppCompatActivity {
     private Map<Integer, String> categoryIdToName;
     private List<Book> searchResults;
     private String currentQuery = "";
+    private String displayedQuery = ""; // query của kết quả đang hiển thị
     private int currentPage = 1;
     private final int pageSize = 10;
     private PaginationManager paginationManager;
-
+    private SearchController searchController;
+    private CatalogSearchIndex catalogIndex;
+    private boolean showingLocalResults = false; // kết quả hiện tại lấy từ index trên máy
+    private static final int MAX_LOCAL_RESULTS = 50;
+    private static final int MAX_SUGGESTIONS = 6;
+    private RecyclerView rvSuggestions;
+    private SuggestionAdapter suggestionAdapter;
+    private SearchSuggestions searchSuggestions;
+    // Kết quả, cache trang và query giữ lại qua xoay màn hình
+    private SearchViewModel viewModel;
+    private BooksResponse lastResponse; // response của trang server đang hiển thị
+    private boolean restoringText = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -70,11 +91,15 @@ public class SearchActivity extends AppCompatActivity {
         initViews();
         
         // Khởi tạo API service
-        apiService = RetrofitClient.getApiService();
+        apiService = CallRegistry.apiFor(this);
+        viewModel = new ViewModelProvider(this).get(SearchViewModel.class);
+        searchController = viewModel.getSearchController(pageSize);
+        catalogIndex = CatalogSearchIndex.getInstance(this);
+        searchSuggestions = SearchSuggestions.getInstance(this);
         
-        // Khởi tạo dữ liệu
-        searchResults = new ArrayList<>();
-        categoryIdToName = new HashMap<>();
+        // Khởi tạo dữ liệu (giữ trong ViewModel)
+        searchResults = viewModel.getResults();
+        categoryIdToName = viewModel.getCategoryNames();
         
         // Setup RecyclerView
         setupRecyclerView();
@@ -87,6 +112,47 @@ public class SearchActivity extends AppCompatActivity {
 
         // Setup pagination
         setupPagination();
+
+        restoreSearchState();
+    }
+
+    /**
+     * Activity tạo lại (xoay màn hình / process bị kill): hiển thị lại kết quả đã có thay vì tìm lại
+     */
+    private void restoreSearchState() {
+        currentQuery = viewModel.getQuery();
+        currentPage = viewModel.getPage();
+        displayedQuery = viewModel.getDisplayedQuery();
+        showingLocalResults = viewModel.isShowingLocalResults();
+        lastResponse = viewModel.getLastResponse();
+        if (!displayedQuery.isEmpty()) {
+            updatePagination(showingLocalResults ? null : lastResponse);
+            if (searchResults.isEmpty()) {
+                showEmptyState();
+            } else {
+                hideEmptyState();
+            }
+        }
+        if (currentQuery.length() >= 2 && !currentQuery.equals(displayedQuery)) {
+            // Lần tìm còn dang dở khi Activity cũ bị hủy, hoặc process bị kill (chỉ còn query + trang)
+            if (currentPage > 1 || !showLocalResults(currentQuery)) {
+                searchBooks(currentQuery, currentPage);
+            }
+        }
+    }
+
+    @Override
+    protected void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
+        // EditText khôi phục text sẽ gọi TextWatcher; state đã được khôi phục từ ViewModel
+        restoringText = true;
+        super.onRestoreInstanceState(savedInstanceState);
+        restoringText = false;
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        viewModel.saveState(currentQuery, currentPage, displayedQuery, showingLocalResults, lastResponse);
+        super.onSaveInstanceState(outState);
     }
 
     private void initViews() {
@@ -97,6 +163,7 @@ public class SearchActivity extends AppCompatActivity {
         progressBar = findViewById(R.id.progress_bar);
         layoutEmpty = findViewById(R.id.layout_empty);
         paginationContainer = findViewById(R.id.pagination_container);
+        rvSuggestions = findViewById(R.id.rv_suggestions);
     }
     private void setupPagination() {
         if(paginationContainer == null ) return;
@@ -122,6 +189,10 @@ public class SearchActivity extends AppCompatActivity {
         
         searchAdapter = new AllBooksAdapter(searchResults, this, categoryIdToName);
         rvSearchResults.setAdapter(searchAdapter);
+
+        suggestionAdapter = new SuggestionAdapter(this, this::onSuggestionClick);
+        rvSuggestions.setLayoutManager(new LinearLayoutManager(this));
+        rvSuggestions.setAdapter(suggestionAdapter);
     }
 
     private void setupListeners() {
@@ -129,7 +200,7 @@ public class SearchActivity extends AppCompatActivity {
         btnBack.setOnClickListener(v -> finish());
 
         // Nút search
-        btnSearch.setOnClickListener(v -> performSearch());
+        btnSearch.setOnClickListener(v -> submitSearch());
 
         // Text change listener để search real-time
         etSearch.addTextChangedListener(new TextWatcher() {
@@ -141,15 +212,23 @@ public class SearchActivity extends AppCompatActivity {
 
             @Override
             public void afterTextChanged(Editable s) {
+                if (restoringText) return;
                 String query = s.toString().trim();
+                // Gợi ý từ trie trên máy, trả lời ngay ở mỗi lần gõ (kể cả 1 ký tự)
+                updateSuggestions(query);
                 if (!query.equals(currentQuery)) {
+                    // Query đổi: bỏ kết quả của lần tìm trước nếu còn đang chờ
+                    searchController.cancel();
                     currentQuery = query;
                     currentPage = 1;
                     if(paginationManager != null) paginationManager.setVisible(false);
+                    rvSearchResults.removeCallbacks(searchRunnable);
                     if (query.length() >= 2) {
-                        // Delay search để tránh gọi API quá nhiều
-                        rvSearchResults.removeCallbacks(searchRunnable);
-                        rvSearchResults.postDelayed(searchRunnable, 500);
+                        // Trả lời ngay từ index trên máy; chỉ gọi server (có delay) khi index không có kết quả
+                        if (!showLocalResults(query)) {
+                            // Delay search để tránh gọi API quá nhiều
+                            rvSearchResults.postDelayed(searchRunnable, 500);
+                        }
                     } else if (query.isEmpty()) {
                         clearResults();
                     }
@@ -159,11 +238,69 @@ public class SearchActivity extends AppCompatActivity {
 
         // Enter key listener
         etSearch.setOnEditorActionListener((v, actionId, event) -> {
-            performSearch();
+            submitSearch();
             return true;
         });
     }
 
+    /**
+     * User chủ động tìm (nút search/Enter): ghi nhận query cho gợi ý lần sau
+     */
+    private void submitSearch() {
+        hideSuggestions();
+        searchSuggestions.recordQuery(etSearch.getText().toString());
+        performSearch();
+    }
+
+    private void updateSuggestions(String query) {
+        if (query.isEmpty()) {
+            hideSuggestions();
+            return;
+        }
+        List<SuggestionTrie.Suggestion> suggestions = searchSuggestions.suggest(query, MAX_SUGGESTIONS);
+        suggestionAdapter.submitList(suggestions);
+        rvSuggestions.setVisibility(suggestions.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
+    private void hideSuggestions() {
+        rvSuggestions.setVisibility(View.GONE);
+    }
+
+    private void onSuggestionClick(SuggestionTrie.Suggestion suggestion) {
+        Book book = suggestion.type == SuggestionTrie.TYPE_BOOK
+                ? BookCache.getInstance(this).get(suggestion.bookId) : null;
+        if (book != null) {
+            // Chọn sách: mở thẳng sách, không gọi request tìm kiếm phân trang
+            rvSearchResults.removeCallbacks(searchRunnable);
+            searchController.cancel();
+            hideSuggestions();
+            searchSuggestions.recordQuery(book.getTitle());
+            openBook(book);
+            return;
+        }
+        // Tác giả / query cũ (hoặc sách đã hết hạn trong cache): điền vào ô tìm kiếm rồi tìm
+        etSearch.setText(suggestion.text);
+        etSearch.setSelection(etSearch.getText().length());
+        submitSearch();
+    }
+
+    private void openBook(Book book) {
+        String categoryName = book.getCategoryName();
+        if (categoryName == null || categoryName.isEmpty()) {
+            categoryName = categoryIdToName.get(book.getCategory());
+        }
+        Intent intent = new Intent(this, ReadBookActivity.class);
+        intent.putExtra("title", book.getTitle());
+        intent.putExtra("cover_url", book.getCoverUrl());
+        intent.putExtra("txt_url", book.getTxtUrl());
+        intent.putExtra("book_url", book.getBookUrl());
+        intent.putExtra("epub_url", book.getEpubUrl());
+        intent.putExtra("book_id", book.getId());
+        intent.putExtra("author", book.getAuthor());
+        intent.putExtra("category", categoryName);
+        startActivity(intent);
+    }
+
     private final Runnable searchRunnable = new Runnable() {
         @Override
         public void run() {
@@ -178,7 +315,8 @@ public class SearchActivity extends AppCompatActivity {
             return;
         }
 
-        if (query.equals(currentQuery) && !searchResults.isEmpty()) {
+        // Kết quả từ index local chưa đầy đủ: bấm search/Enter thì vẫn tìm trên server
+        if (query.equals(displayedQuery) && !searchResults.isEmpty() && !showingLocalResults) {
             return; // Đã search rồi, không cần search lại
         }
 
@@ -187,59 +325,83 @@ public class SearchActivity extends AppCompatActivity {
         searchBooks(query, currentPage);
     }
 
+    /**
+     * Hiển thị kết quả từ CatalogSearchIndex (không phân trang). Trả về false nếu không có kết quả.
+     */
+    private boolean showLocalResults(String query) {
+        List<Book> localResults = catalogIndex.search(query, MAX_LOCAL_RESULTS);
+        if (localResults.isEmpty()) return false;
+        Log.d("SearchActivity", "Local index: " + localResults.size() + " results for: " + query);
+        progressBar.setVisibility(View.GONE);
+        displayedQuery = query;
+        showingLocalResults = true;
+        searchResults.clear();
+        searchResults.addAll(localResults);
+        searchAdapter.notifyDataSetChanged();
+        updatePagination(null);
+        hideEmptyState();
+        return true;
+    }
+
     private void searchBooks(String query, int page) {
-        progressBar.setVisibility(View.VISIBLE);
-        layoutEmpty.setVisibility(View.GONE);
-        if(paginationManager != null) paginationManager.setVisible(false);
+        // Mỗi query có cache trang riêng, giữ lại trong SearchController khi đổi query
+        PagePrefetcher<BooksResponse> pagePrefetcher = searchController.activate(query);
+        if (paginationManager != null) paginationManager.setPagePrefetcher(pagePrefetcher);
+
+        if (!pagePrefetcher.isCached(page)) {
+            progressBar.setVisibility(View.VISIBLE);
+            layoutEmpty.setVisibility(View.GONE);
+            if(paginationManager != null) paginationManager.setVisible(false);
+        }
 
         Log.d("SearchActivity", "Searching for: " + query + "on page: " + page);
 
-        Call<ApiResponse<BooksResponse>> call = apiService.searchBooks(query, page, pageSize);
-        call.enqueue(new Callback<ApiResponse<BooksResponse>>() {
+        searchController.search(query, page, new PagePrefetcher.PageCallback<BooksResponse>() {
             @Override
-            public void onResponse(@NonNull Call<ApiResponse<BooksResponse>> call, 
-                                 @NonNull Response<ApiResponse<BooksResponse>> response) {
+            public void onPageLoaded(int loadedPage, BooksResponse booksResponse) {
                 progressBar.setVisibility(View.GONE);
-                
-                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    BooksResponse booksResponse = response.body().getData();
-                    if (booksResponse != null && booksResponse.getBooks() != null) {
-                        searchResults.clear();
-                        searchResults.addAll(booksResponse.getBooks());
-                        searchAdapter.notifyDataSetChanged();
-
-                        // Thêm log để check pagination data
-                        if (booksResponse.getPagination() != null) {
-                            Log.d("SearchActivity", "API returned: page=" + booksResponse.getPagination().getPage()
-                                    + ", totalPages=" + booksResponse.getPagination().getTotalPages());
-                        }
 
-                        updatePagination(booksResponse);
-                        
-                        if (searchResults.isEmpty()) {
-                            showEmptyState();
-                        } else {
-                            hideEmptyState();
-                        }
-                        
-                        Log.d("SearchActivity", "Found " + searchResults.size() + " books");
-                    } else {
+                if (booksResponse.getBooks() != null) {
+                    displayedQuery = query;
+                    showingLocalResults = false;
+                    lastResponse = booksResponse;
+                    // Đưa vào BookCache để index local học thêm sách từ kết quả server
+                    BookCache.getInstance(SearchActivity.this).putAll(booksResponse.getBooks());
+                    searchResults.clear();
+                    searchResults.addAll(booksResponse.getBooks());
+                    searchAdapter.notifyDataSetChanged();
+
+                    // Thêm log để check pagination data
+                    if (booksResponse.getPagination() != null) {
+                        Log.d("SearchActivity", "API returned: page=" + booksResponse.getPagination().getPage()
+                                + ", totalPages=" + booksResponse.getPagination().getTotalPages());
+                    }
+
+                    updatePagination(booksResponse);
+
+                    if (searchResults.isEmpty()) {
                         showEmptyState();
-                        updatePagination(null); //hiden pagination if no data
+                    } else {
+                        hideEmptyState();
                     }
+
+                    Log.d("SearchActivity", "Found " + searchResults.size() + " books");
                 } else {
-                    Log.e("SearchActivity", "Search API failed: " + response.code());
-                    Toast.makeText(SearchActivity.this, "Search failed", Toast.LENGTH_SHORT).show();
                     showEmptyState();
-                    if (paginationManager != null) paginationManager.setVisible(false);
+                    updatePagination(null); //hiden pagination if no data
                 }
             }
 
             @Override
-            public void onFailure(@NonNull Call<ApiResponse<BooksResponse>> call, @NonNull Throwable t) {
+            public void onPageFailed(int failedPage, int code, String message) {
                 progressBar.setVisibility(View.GONE);
-                Log.e("SearchActivity", "Search failure: " + t.getMessage());
-                Toast.makeText(SearchActivity.this, "Network error", Toast.LENGTH_SHORT).show();
+                if (code > 0) {
+                    Log.e("SearchActivity", "Search API failed: " + code);
+                    Toast.makeText(SearchActivity.this, "Search failed", Toast.LENGTH_SHORT).show();
+                } else {
+                    Log.e("SearchActivity", "Search failure: " + message);
+                    Toast.makeText(SearchActivity.this, "Network error", Toast.LENGTH_SHORT).show();
+                }
                 showEmptyState();
                 if(paginationManager != null) paginationManager.setVisible(false);
             }
@@ -272,6 +434,7 @@ public class SearchActivity extends AppCompatActivity {
     }
 
     private void loadCategories() {
+        if (viewModel.isCategoriesLoaded()) return;
         Call<ApiResponse<com.example.myreadbookapplication.model.CategoriesResponse>> call = 
             apiService.getCategories("active");
         call.enqueue(new Callback<ApiResponse<com.example.myreadbookapplication.model.CategoriesResponse>>() {
@@ -286,6 +449,7 @@ public class SearchActivity extends AppCompatActivity {
                                 categoryIdToName.put(category.getId(), category.getName());
                             }
                         }
+                        viewModel.setCategoriesLoaded(true);
                         Log.d("SearchActivity", "Loaded " + categoryIdToName.size() + " categories");
                     }
                 }
@@ -299,6 +463,9 @@ public class SearchActivity extends AppCompatActivity {
     }
 
     private void clearResults() {
+        displayedQuery = "";
+        showingLocalResults = false;
+        lastResponse = null;
         searchResults.clear();
         searchAdapter.notifyDataSetChanged();
         currentPage =1;
@@ -319,6 +486,19 @@ public class SearchActivity extends AppCompatActivity {
 
     @Override
     public void onBackPressed() {
+        // Đang mở gợi ý thì back chỉ đóng gợi ý
+        if (rvSuggestions.getVisibility() == View.VISIBLE) {
+            hideSuggestions();
+            return;
+        }
         super.onBackPressed();
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        rvSearchResults.removeCallbacks(searchRunnable);
+        // Bỏ callback của Activity này; cache trang vẫn giữ trong ViewModel
+        searchController.cancel();
+    }
 }
@@ -22,6 +22,7 @@ import com.example.myreadbookapplication.activity.Admin.AdminMainActivity;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.SignInRequest;
 import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.utils.AppExecutors;
 import com.example.myreadbookapplication.utils.AuthManager;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -150,116 +151,12 @@ public class SignInActivity extends AppCompatActivity {
                         ApiResponse apiResponse = response.body();
                         Toast.makeText(SignInActivity.this, apiResponse.getMessage(), Toast.LENGTH_SHORT).show();
                         if(apiResponse.isSuccess()){
-                            //lay va luu email vao sharedPreference
-                            String userEmail = "";
+                            // Parse data đăng nhập ngoài main thread, lưu + chuyển màn hình trên main
                             Object dataObj = apiResponse.getData();
-                            if(dataObj != null){
-                                try{
-                                    Gson gson = new Gson();
-                                    String dataJson = gson.toJson(dataObj); //convert data sang json string
-                                    JsonObject jsonData = JsonParser.parseString(dataJson).getAsJsonObject();
-                                    JsonObject userJson = jsonData.getAsJsonObject("user");
-                                    if(userJson != null){
-                                        userEmail = userJson.get("email").getAsString();
-                                    }
-                                }catch (Exception e){
-                                    Log.e(TAG, "Error parsing data", e);
-                                }
-                            }
-                            Log.d(TAG, "Login success, email: " + userEmail);
-                            
-                            // Lưu thông tin đăng nhập vào AuthManager
-                            String userId = "";
-                            String accessToken = "";
-                            String refreshToken = "";
-                            String fullName = "";
-                            String role = "user"; // Default role
-                            
-                            try{
-                                Gson gson = new Gson();
-                                String dataJson = gson.toJson(apiResponse.getData());
-                                JsonObject jsonData = JsonParser.parseString(dataJson).getAsJsonObject();
-                                JsonObject user = jsonData.getAsJsonObject("user");
-                                
-                                if (user != null && user.get("_id") != null) {
-                                    try {
-                                        if (user.get("_id").isJsonPrimitive() && user.get("_id").getAsJsonPrimitive().isNumber()) {
-                                            long idNum = user.get("_id").getAsLong();
-                                            userId = String.valueOf(idNum);
-                                        } else {
-                                            userId = user.get("_id").getAsString();
-                                        }
-                                    } catch (Exception ignore) {
-                                        userId = user.get("_id").getAsString();
-                                    }
-                                }
-                                
-                                if (user != null && user.get("fullName") != null) {
-                                    fullName = user.get("fullName").getAsString();
-                                }
-                                
-                                if (user != null && user.get("role") != null) {
-                                    role = user.get("role").getAsString();
-                                }
-                                
-                                if (jsonData.get("accessToken") != null) {
-                                    accessToken = jsonData.get("accessToken").getAsString();
-                                }
-                                
-                                if (jsonData.get("refreshToken") != null) {
-                                    refreshToken = jsonData.get("refreshToken").getAsString();
-                                }
-                            }catch (Exception e){
-                                Log.e(TAG, "Parse tokens failed", e);
-                            }
-                            
-                            // Sử dụng AuthManager để lưu thông tin với role
-                            authManager.saveLoginData(accessToken, refreshToken, userEmail, userId, fullName, role);
-                            
-                            // Debug log
-                            Log.d(TAG, "AuthManager saveLoginData called");
-                            Log.d(TAG, "Saved email: " + userEmail);
-                            Log.d(TAG, "Saved userId: " + userId);
-                            Log.d(TAG, "AuthManager isLoggedIn after save: " + authManager.isLoggedIn());
-
-                            // Seed local favorite ids from backend user.favoriteBooks for correct icon state
-                            try {
-                                Gson gson = new Gson();
-                                String dataJson = gson.toJson(apiResponse.getData());
-                                JsonObject jsonData = JsonParser.parseString(dataJson).getAsJsonObject();
-                                JsonObject userObj = jsonData.getAsJsonObject("user");
-                                SharedPreferences prefs = getSharedPreferences("app_prefs", MODE_PRIVATE);
-                                
-                                if (userObj != null && userObj.get("favoriteBooks") != null && userObj.get("favoriteBooks").isJsonArray()) {
-                                    String favoritesJson = userObj.get("favoriteBooks").toString();
-                                    // Luôn cập nhật favorite_books từ backend để đảm bảo đồng bộ
-                                    prefs.edit().putString("favorite_books", favoritesJson).apply();
-                                    Log.d(TAG, "Favorites synced from backend: " + favoritesJson);
-                                } else {
-                                    // Nếu không có favoriteBooks hoặc null, set về array rỗng để tránh hiển thị sai icon
-                                    prefs.edit().putString("favorite_books", "[]").apply();
-                                    Log.d(TAG, "No favorites from backend, set to empty array");
-                                }
-                            } catch (Exception e2) {
-                                Log.w(TAG, "Unable to seed favorites from login response", e2);
-                                // Nếu có lỗi, vẫn set về array rỗng để tránh hiển thị sai
-                                SharedPreferences prefs = getSharedPreferences("app_prefs", MODE_PRIVATE);
-                                prefs.edit().putString("favorite_books", "[]").apply();
-                            }
-
-                            // Kiểm tra role và redirect
-                            Intent intent;
-                            if ("admin".equalsIgnoreCase(role)) {
-                                // Chuyển đến AdminActivity nếu là admin
-                                intent = new Intent(SignInActivity.this, AdminMainActivity.class);
-                                Log.d(TAG, "Redirecting to AdminMainActivity for admin user");
-                            } else {
-                                // Chuyển đến HomeActivity nếu là user
-                                intent = new Intent(SignInActivity.this, HomeActivity.class);
-                                Log.d(TAG, "Redirecting to HomeActivity for regular user");
-                            }
-                            startActivity(intent);
-                            finish(); // ket thuc intent de khong quay lai man hinh splash
+                            AppExecutors.getInstance().runOnCompute(() -> parseLoginData(dataObj), loginData -> {
+                                if (isFinishing()) return;
+                                onLoginParsed(loginData);
+                            });
                         }
                     }
                     else {
@@ -369,4 +266,121 @@ public class SignInActivity extends AppCompatActivity {
             currentLoginCall = null;
         }
     }
+
+    /**
+     * Thông tin lấy từ data của response đăng nhập
+     */
+    private static final class LoginData {
+        String userEmail = "";
+        String userId = "";
+        String accessToken = "";
+        String refreshToken = "";
+        String fullName = "";
+        String role = "user"; // Default role
+        String favoritesJson = "[]";
+    }
+
+    private static LoginData parseLoginData(Object dataObj) {
+        LoginData loginData = new LoginData();
+        if (dataObj == null) return loginData;
+        JsonObject jsonData;
+        try {
+            Gson gson = new Gson();
+            String dataJson = gson.toJson(dataObj); //convert data sang json string
+            jsonData = JsonParser.parseString(dataJson).getAsJsonObject();
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing data", e);
+            return loginData;
+        }
+
+        //lay email
+        try {
+            JsonObject userJson = jsonData.getAsJsonObject("user");
+            if (userJson != null) {
+                loginData.userEmail = userJson.get("email").getAsString();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing data", e);
+        }
+
+        try {
+            JsonObject user = jsonData.getAsJsonObject("user");
+
+            if (user != null && user.get("_id") != null) {
+                try {
+                    if (user.get("_id").isJsonPrimitive() && user.get("_id").getAsJsonPrimitive().isNumber()) {
+                        long idNum = user.get("_id").getAsLong();
+                        loginData.userId = String.valueOf(idNum);
+                    } else {
+                        loginData.userId = user.get("_id").getAsString();
+                    }
+                } catch (Exception ignore) {
+                    loginData.userId = user.get("_id").getAsString();
+                }
+            }
+
+            if (user != null && user.get("fullName") != null) {
+                loginData.fullName = user.get("fullName").getAsString();
+            }
+
+            if (user != null && user.get("role") != null) {
+                loginData.role = user.get("role").getAsString();
+            }
+
+            if (jsonData.get("accessToken") != null) {
+                loginData.accessToken = jsonData.get("accessToken").getAsString();
+            }
+
+            if (jsonData.get("refreshToken") != null) {
+                loginData.refreshToken = jsonData.get("refreshToken").getAsString();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Parse tokens failed", e);
+        }
+
+        // favoriteBooks của user để icon yêu thích hiển thị đúng
+        try {
+            JsonObject userObj = jsonData.getAsJsonObject("user");
+            if (userObj != null && userObj.get("favoriteBooks") != null && userObj.get("favoriteBooks").isJsonArray()) {
+                loginData.favoritesJson = userObj.get("favoriteBooks").toString();
+            }
+        } catch (Exception e2) {
+            Log.w(TAG, "Unable to seed favorites from login response", e2);
+        }
+        return loginData;
+    }
+
+    private void onLoginParsed(LoginData loginData) {
+        Log.d(TAG, "Login success, email: " + loginData.userEmail);
+
+        // Sử dụng AuthManager để lưu thông tin với role
+        authManager.saveLoginData(loginData.accessToken, loginData.refreshToken, loginData.userEmail,
+                loginData.userId, loginData.fullName, loginData.role);
+
+        // Debug log
+        Log.d(TAG, "AuthManager saveLoginData called");
+        Log.d(TAG, "Saved email: " + loginData.userEmail);
+        Log.d(TAG, "Saved userId: " + loginData.userId);
+        Log.d(TAG, "AuthManager isLoggedIn after save: " + authManager.isLoggedIn());
+
+        // Luôn cập nhật favorite_books từ backend để đảm bảo đồng bộ
+        // (không có favoriteBooks thì set về array rỗng để tránh hiển thị sai icon)
+        SharedPreferences prefs = getSharedPreferences("app_prefs", MODE_PRIVATE);
+        prefs.edit().putString("favorite_books", loginData.favoritesJson).apply();
+        Log.d(TAG, "Favorites synced from backend: " + loginData.favoritesJson);
+
+        // Kiểm tra role và redirect
+        Intent intent;
+        if ("admin".equalsIgnoreCase(loginData.role)) {
+            // Chuyển đến AdminActivity nếu là admin
+            intent = new Intent(SignInActivity.this, AdminMainActivity.class);
+            Log.d(TAG, "Redirecting to AdminMainActivity for admin user");
+        } else {
+            // Chuyển đến HomeActivity nếu là user
+            intent = new Intent(SignInActivity.this, HomeActivity.class);
+            Log.d(TAG, "Redirecting to HomeActivity for regular user");
+        }
+        startActivity(intent);
+        finish(); // ket thuc intent de khong quay lai man hinh splash
+    }
 }
@@ -56,6 +56,11 @@ public class AllBooksAdapter extends RecyclerView.Adapter<AllBooksAdapter.ViewHo
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         Book book = books.get(position);
+        if (book == null) {
+            bindPlaceholder(holder);
+            return;
+        }
+        holder.ivFavorite.setVisibility(View.VISIBLE);
         holder.bookTitle.setText(book.getTitle());
         holder.bookTitle.setSelected(false);
         String catName = book.getCategoryName();
@@ -122,6 +127,21 @@ public class AllBooksAdapter extends RecyclerView.Adapter<AllBooksAdapter.ViewHo
         });
     }
 
+    /**
+     * Ô placeholder khi trang chưa tải xong (chế độ cuộn liên tục)
+     */
+    private void bindPlaceholder(@NonNull ViewHolder holder) {
+        Glide.with(context).clear(holder.bookCover);
+        holder.bookCover.setImageResource(R.drawable.default_book_cover);
+        holder.bookTitle.setText("");
+        holder.bookCategory.setText("");
+        holder.ivFavorite.setVisibility(View.INVISIBLE);
+        holder.ivFavorite.setOnClickListener(null);
+        holder.itemView.setOnClickListener(null);
+        holder.itemView.setOnTouchListener(null);
+        holder.itemView.setOnHoverListener(null);
+    }
+
     @Override
     public int getItemCount() {
         return books.size();
@@ -8,12 +8,15 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import com.bumptech.glide.Glide;  // Để load image từ URL
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myreadbookapplication.R;
 import com.example.myreadbookapplication.model.Category;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.ViewHolder> {
     private List<Category> categories;
@@ -61,6 +64,39 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.ViewHo
         return categories.size();
     }
 
+    /**
+     * Cập nhật danh sách (vd. từ snapshot sang dữ liệu server), chỉ bind lại item thực sự thay đổi
+     */
+    public void updateCategories(List<Category> newCategories) {
+        List<Category> oldCategories = categories;
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldCategories.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newCategories.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPos, int newPos) {
+                return oldCategories.get(oldPos).getId() == newCategories.get(newPos).getId();
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPos, int newPos) {
+                Category oldCategory = oldCategories.get(oldPos);
+                Category newCategory = newCategories.get(newPos);
+                return Objects.equals(oldCategory.getName(), newCategory.getName())
+                        && Objects.equals(oldCategory.getImageUrl(), newCategory.getImageUrl());
+            }
+        });
+        categories = new ArrayList<>(newCategories);
+        diff.dispatchUpdatesTo(this);
+    }
+
     public static class ViewHolder extends RecyclerView.ViewHolder {
         TextView categoryName;
         ImageView category_icon;
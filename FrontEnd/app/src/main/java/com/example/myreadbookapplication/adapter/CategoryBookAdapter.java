@@ -26,7 +26,9 @@ import com.google.gson.reflect.TypeToken;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.network.ApiService;
@@ -40,6 +42,8 @@ public class CategoryBookAdapter extends RecyclerView.Adapter<CategoryBookAdapte
     private List<Book> books;
     private Context context;
     private String categoryName;
+    // Tiêu đề hiển thị riêng theo bookId (vd. "Title - chapter 3" ở History), không sửa vào Book
+    private Map<String, String> titleOverrides = new HashMap<>();
 
     public CategoryBookAdapter(List<Book> books, Context context, String categoryName) {
         this.books = books;
@@ -57,7 +61,13 @@ public class CategoryBookAdapter extends RecyclerView.Adapter<CategoryBookAdapte
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         Book book = books.get(position);
-        holder.bookTitle.setText(book.getTitle() + " - " + book.getAuthor());
+        if (book == null) {
+            bindPlaceholder(holder);
+            return;
+        }
+        if (holder.ivFavorite != null) holder.ivFavorite.setVisibility(View.VISIBLE);
+        String displayTitle = titleOverrides.get(book.getId());
+        holder.bookTitle.setText((displayTitle != null ? displayTitle : book.getTitle()) + " - " + book.getAuthor());
         
         // Set category name - sử dụng categoryName từ constructor
         if (categoryName != null && !categoryName.isEmpty()) {
@@ -105,6 +115,21 @@ public class CategoryBookAdapter extends RecyclerView.Adapter<CategoryBookAdapte
 
     }
 
+    /**
+     * Ô placeholder khi trang chưa tải xong (chế độ cuộn liên tục)
+     */
+    private void bindPlaceholder(@NonNull ViewHolder holder) {
+        Glide.with(context).clear(holder.bookCover);
+        holder.bookCover.setImageResource(R.drawable.default_book_cover);
+        holder.bookTitle.setText("");
+        holder.bookCategory.setText("");
+        if (holder.ivFavorite != null) {
+            holder.ivFavorite.setVisibility(View.INVISIBLE);
+            holder.ivFavorite.setOnClickListener(null);
+        }
+        holder.itemView.setOnClickListener(null);
+    }
+
     private void fetchBookAndOpen(String bookId) {
         RetrofitClient.getApiService().getBookById(bookId).enqueue(new Callback<ApiResponse<BooksResponse>>() {
 
@@ -207,6 +232,10 @@ public class CategoryBookAdapter extends RecyclerView.Adapter<CategoryBookAdapte
         return books.size();
     }
 
+    public void setTitleOverrides(Map<String, String> titleOverrides) {
+        this.titleOverrides = titleOverrides != null ? titleOverrides : new HashMap<>();
+    }
+
     /**
      * Hiển thị dialog xác nhận xóa bookmark
      */
@@ -60,8 +60,20 @@ public class ChapterListAdapter extends RecyclerView.Adapter<ChapterListAdapter.
         notifyDataSetChanged();
     }
 
+    /**
+     * Thêm các chương của trang vừa tải vào cuối danh sách (chỉ bind các dòng mới)
+     */
+    public void appendList(List<EpubModels.ChapterItem> chapters) {
+        if (chapters == null || chapters.isEmpty()) return;
+        int start = items.size();
+        items.addAll(chapters);
+        notifyItemRangeInserted(start, chapters.size());
+    }
+
     public void setCurrentChapterKey(String chapterKey) {
-        currentChapterKey = normalizeKey(chapterKey);
+        String key = normalizeKey(chapterKey);
+        if (key.equals(currentChapterKey)) return;
+        currentChapterKey = key;
         notifyDataSetChanged();
     }
 
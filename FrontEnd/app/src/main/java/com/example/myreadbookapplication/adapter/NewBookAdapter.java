@@ -11,6 +11,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -28,6 +29,7 @@ import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class NewBookAdapter extends RecyclerView.Adapter<NewBookAdapter.ViewHolder> {
     private List<Book> newBooks;
@@ -195,6 +197,57 @@ public class NewBookAdapter extends RecyclerView.Adapter<NewBookAdapter.ViewHold
         return newBooks.size();
     }
 
+    /**
+     * Cập nhật danh sách (vd. từ snapshot sang dữ liệu server), chỉ bind lại item thực sự thay đổi
+     */
+    public void updateBooks(List<Book> books, List<Category> categoriesList) {
+        List<Book> oldBooks = newBooks;
+        boolean categoriesChanged = !Objects.equals(namesOf(this.categoriesList), namesOf(categoriesList));
+        this.categoriesList = categoriesList;
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldBooks.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return books.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPos, int newPos) {
+                return Objects.equals(oldBooks.get(oldPos).getId(), books.get(newPos).getId());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPos, int newPos) {
+                Book oldBook = oldBooks.get(oldPos);
+                Book newBook = books.get(newPos);
+                // Tên category có thể map từ categoriesList nên đổi danh sách category thì bind lại
+                return !categoriesChanged
+                        && Objects.equals(oldBook.getTitle(), newBook.getTitle())
+                        && Objects.equals(oldBook.getCoverUrl(), newBook.getCoverUrl())
+                        && Objects.equals(oldBook.getEpubUrl(), newBook.getEpubUrl())
+                        && Objects.equals(oldBook.getTxtUrl(), newBook.getTxtUrl())
+                        && Objects.equals(oldBook.getCategoryName(), newBook.getCategoryName())
+                        && oldBook.getCategory() == newBook.getCategory();
+            }
+        });
+        newBooks = new ArrayList<>(books);
+        diff.dispatchUpdatesTo(this);
+    }
+
+    private static List<String> namesOf(List<Category> categories) {
+        List<String> names = new ArrayList<>();
+        if (categories != null) {
+            for (Category category : categories) {
+                names.add(category.getId() + ":" + category.getName());
+            }
+        }
+        return names;
+    }
+
     public static class ViewHolder extends RecyclerView.ViewHolder {
         ImageView bookCover;
         TextView bookTitle;
@@ -0,0 +1,96 @@
+package com.example.myreadbookapplication.adapter;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.text.style.StyleSpan;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.myreadbookapplication.R;
+import com.example.myreadbookapplication.utils.InBookSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchHitAdapter extends RecyclerView.Adapter<SearchHitAdapter.ViewHolder> {
+
+    public interface OnHitClickListener {
+        void onHitClick(InBookSearchIndex.Hit hit);
+    }
+
+    /**
+     * Tên chương hiển thị cho một chapterId (màn hình đọc đã có sẵn tiêu đề chương)
+     */
+    public interface ChapterTitleResolver {
+        String resolve(String chapterId);
+    }
+
+    private final LayoutInflater inflater;
+    private final OnHitClickListener listener;
+    private final ChapterTitleResolver titleResolver;
+    private final List<InBookSearchIndex.Hit> items = new ArrayList<>();
+
+    public SearchHitAdapter(Context context, ChapterTitleResolver titleResolver, OnHitClickListener listener) {
+        this.inflater = LayoutInflater.from(context);
+        this.titleResolver = titleResolver;
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = inflater.inflate(R.layout.item_search_hit, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        InBookSearchIndex.Hit hit = items.get(position);
+        String chapter = titleResolver != null ? titleResolver.resolve(hit.chapterId) : null;
+        if (TextUtils.isEmpty(chapter)) chapter = !TextUtils.isEmpty(hit.chapterTitle) ? hit.chapterTitle : hit.chapterId;
+        holder.chapter.setText(chapter);
+
+        // In đậm đoạn khớp trong snippet
+        SpannableString snippet = new SpannableString(hit.snippet);
+        if (hit.snippetMatchStart >= 0 && hit.snippetMatchEnd <= snippet.length()
+                && hit.snippetMatchStart < hit.snippetMatchEnd) {
+            snippet.setSpan(new StyleSpan(Typeface.BOLD), hit.snippetMatchStart, hit.snippetMatchEnd,
+                    Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+        holder.snippet.setText(snippet);
+
+        holder.itemView.setOnClickListener(v -> listener.onHitClick(hit));
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    public void submitList(List<InBookSearchIndex.Hit> hits) {
+        items.clear();
+        if (hits != null) {
+            items.addAll(hits);
+        }
+        notifyDataSetChanged();
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView chapter;
+        TextView snippet;
+
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            chapter = itemView.findViewById(R.id.tv_hit_chapter);
+            snippet = itemView.findViewById(R.id.tv_hit_snippet);
+        }
+    }
+}
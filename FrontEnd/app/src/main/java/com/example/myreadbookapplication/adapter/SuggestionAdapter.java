@@ -0,0 +1,90 @@
+package com.example.myreadbookapplication.adapter;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.myreadbookapplication.R;
+import com.example.myreadbookapplication.utils.SuggestionTrie;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SuggestionAdapter extends RecyclerView.Adapter<SuggestionAdapter.ViewHolder> {
+
+    public interface OnSuggestionClickListener {
+        void onSuggestionClick(SuggestionTrie.Suggestion suggestion);
+    }
+
+    private final LayoutInflater inflater;
+    private final OnSuggestionClickListener listener;
+    private final List<SuggestionTrie.Suggestion> items = new ArrayList<>();
+
+    public SuggestionAdapter(Context context, OnSuggestionClickListener listener) {
+        this.inflater = LayoutInflater.from(context);
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = inflater.inflate(R.layout.item_search_suggestion, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        SuggestionTrie.Suggestion suggestion = items.get(position);
+        holder.text.setText(suggestion.text);
+
+        // Icon theo loại gợi ý: sách / tác giả / query đã tìm
+        if (suggestion.type == SuggestionTrie.TYPE_BOOK) {
+            holder.icon.setImageResource(R.drawable.ic_book);
+        } else if (suggestion.type == SuggestionTrie.TYPE_AUTHOR) {
+            holder.icon.setImageResource(R.drawable.ic_account);
+        } else {
+            holder.icon.setImageResource(R.drawable.ic_history);
+        }
+
+        if (suggestion.subtitle != null && !suggestion.subtitle.isEmpty()) {
+            holder.subtitle.setText(suggestion.subtitle);
+            holder.subtitle.setVisibility(View.VISIBLE);
+        } else {
+            holder.subtitle.setVisibility(View.GONE);
+        }
+
+        holder.itemView.setOnClickListener(v -> listener.onSuggestionClick(suggestion));
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    public void submitList(List<SuggestionTrie.Suggestion> suggestions) {
+        items.clear();
+        if (suggestions != null) {
+            items.addAll(suggestions);
+        }
+        notifyDataSetChanged();
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        ImageView icon;
+        TextView text;
+        TextView subtitle;
+
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            icon = itemView.findViewById(R.id.iv_suggestion_icon);
+            text = itemView.findViewById(R.id.tv_suggestion_text);
+            subtitle = itemView.findViewById(R.id.tv_suggestion_subtitle);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -36,16 +37,18 @@ import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.Book;
 import com.example.myreadbookapplication.model.BooksResponse;
 import com.example.myreadbookapplication.network.ApiService;
+import com.example.myreadbookapplication.network.CallRegistry;
 import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.utils.AppExecutors;
 import com.example.myreadbookapplication.utils.AuthManager;
+import com.example.myreadbookapplication.utils.PagePrefetcher;
 import com.example.myreadbookapplication.utils.PaginationManager;
+import com.example.myreadbookapplication.viewmodel.BookListViewModel;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -75,10 +78,13 @@ public class BookFragment extends Fragment {
     private AdminBookAdapter bookAdapter;
     private Handler searchHandler = new Handler(Looper.getMainLooper());
     private Runnable searchRunnable;
-    private Map<Integer, String> categoryMap = new HashMap<>();
+    // Map category, cache trang và trang/query hiện tại nằm trong ViewModel (giữ lại khi xoay màn hình)
+    private BookListViewModel viewModel;
+    private Map<Integer, String> categoryMap;
     private boolean categoriesLoaded = false;
     private boolean isDataLoaded = false;
     private PaginationManager paginationManager;
+    private PagePrefetcher<BooksResponse> pagePrefetcher;
     private FrameLayout paginationContainer;
     private int currentPage = 1;
     private int totalPages = 1;
@@ -90,8 +96,13 @@ public class BookFragment extends Fragment {
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        apiService = RetrofitClient.getApiService();
         authManager = AuthManager.getInstance(requireContext());
+        viewModel = new ViewModelProvider(this).get(BookListViewModel.class);
+        categoryMap = viewModel.getCategoryNames();
+        categoriesLoaded = viewModel.isCategoriesLoaded();
+        currentPage = viewModel.getCurrentPage();
+        currentQuery = viewModel.getQuery();
+        isSearching = !currentQuery.isEmpty();
     }
 
     @Nullable
@@ -111,11 +122,28 @@ public class BookFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        // Request đang chạy bị hủy ở onDestroyView
+        apiService = CallRegistry.apiFor(getViewLifecycleOwner());
         if (!isDataLoaded) {
-            loadCategories();
+            if (categoriesLoaded) {
+                // Fragment tạo lại: trang hiện tại lấy từ cache trong ViewModel
+                fetchBooks();
+            } else {
+                loadCategories();
+            }
         }
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        searchHandler.removeCallbacksAndMessages(null);
+        // Giữ request của PagePrefetcher chạy tiếp cho Fragment tạo lại
+        if (pagePrefetcher != null) pagePrefetcher.detachCallbacks();
+        pagePrefetcher = null;
+        isDataLoaded = false;
+    }
+
     private void initViews(View view) {
         rvBook = view.findViewById(R.id.rv_book);
         layoutEmpty = view.findViewById(R.id.layout_empty);
@@ -165,9 +193,11 @@ public class BookFragment extends Fragment {
         
         if (requestCode == REQUEST_ADD_BOOK && resultCode == AdminAddBookActivity.RESULT_BOOK_ADDED) {
             Toast.makeText(requireContext(), "Book added!", Toast.LENGTH_SHORT).show();
+            invalidatePageCache();
             loadBooks();
         } else if (requestCode == REQUEST_EDIT_BOOK && resultCode == AdminEditBookActivity.RESULT_BOOK_UPDATED) {
             Toast.makeText(requireContext(), "Book updated!", Toast.LENGTH_SHORT).show();
+            invalidatePageCache();
             loadBooks();
         }
     }
@@ -217,6 +247,7 @@ public class BookFragment extends Fragment {
                 }
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
                     Toast.makeText(requireContext(), "Book deleted successfully!", Toast.LENGTH_SHORT).show();
+                    invalidatePageCache();
 
                     bookList.remove(book);
                     bookAdapter.updateBookList(bookList);
@@ -255,6 +286,8 @@ public class BookFragment extends Fragment {
                 if (searchRunnable != null) {
                     searchHandler.removeCallbacks(searchRunnable);
                 }
+                // Text được khôi phục sau khi xoay màn hình: không tìm lại query đang hiển thị
+                if (s.toString().trim().equals(currentQuery)) return;
 
                 searchRunnable = () -> performSearch();
                 searchHandler.postDelayed(searchRunnable, 500);
@@ -296,6 +329,7 @@ public class BookFragment extends Fragment {
             isSearching = true;
             currentQuery = query;
         }
+        invalidatePageCache();
         fetchBooks();
     }
 
@@ -318,6 +352,7 @@ public class BookFragment extends Fragment {
         totalItems = 0;
         currentQuery = "";
         isSearching = false;
+        invalidatePageCache();
         if (paginationManager != null) {
             paginationManager.setVisible(false);
         }
@@ -329,87 +364,25 @@ public class BookFragment extends Fragment {
             @Override
             public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        String responseString = response.body().string();
-                        Gson gson = new Gson();
-                        JsonObject jsonResponse = JsonParser.parseString(responseString).getAsJsonObject();
-                        
-                        if (!jsonResponse.has("success") || !jsonResponse.get("success").getAsBoolean()) {
-                            Log.e(TAG, "Categories API returned success=false");
+                    ResponseBody body = response.body();
+                    // Đọc + parse JSON ngoài main thread, chỉ cập nhật map và tải sách trên main
+                    AppExecutors.getInstance().runOnCompute(() -> parseCategoryNames(body.string()), names -> {
+                        if (!isAdded()) return;
+                        if (names == null) {
                             loadBooks();
                             return;
                         }
-                        
-                        JsonElement dataElement = jsonResponse.get("data");
-                        if (dataElement == null || !dataElement.isJsonObject()) {
-                            Log.w(TAG, "Data element is null or not an object");
-                            loadBooks();
-                            return;
-                        }
-                        
-                        JsonObject dataObj = dataElement.getAsJsonObject();
-                        JsonElement categoriesElement = dataObj.get("categories");
-                        
-                        if (categoriesElement != null && categoriesElement.isJsonObject()) {
-                            JsonObject categoriesObj = categoriesElement.getAsJsonObject();
-                            categoryMap.clear();
-                            
-                            for (String key : categoriesObj.keySet()) {
-                                try {
-                                    JsonObject catJson = categoriesObj.get(key).getAsJsonObject();
-                                    int categoryId;
-                                    
-                                    if (catJson.has("_id")) {
-                                        try {
-                                            JsonElement idElement = catJson.get("_id");
-                                            if (idElement.isJsonPrimitive()) {
-                                                if (idElement.getAsJsonPrimitive().isNumber()) {
-                                                    categoryId = idElement.getAsInt();
-                                                } else {
-                                                    categoryId = Integer.parseInt(idElement.getAsString());
-                                                }
-                                            } else {
-                                                categoryId = Integer.parseInt(key);
-                                            }
-                                        } catch (Exception e) {
-                                            Log.w(TAG, "Failed to parse _id for key " + key + ", using key as ID: " + e.getMessage());
-                                            categoryId = Integer.parseInt(key);
-                                        }
-                                    } else {
-                                        categoryId = Integer.parseInt(key);
-                                    }
-                                    
-                                    String categoryName = null;
-                                    if (catJson.has("name")) {
-                                        JsonElement nameElement = catJson.get("name");
-                                        if (!nameElement.isJsonNull()) {
-                                            categoryName = nameElement.getAsString();
-                                        }
-                                    }
-                                    
-                                    if (categoryName != null && !categoryName.isEmpty()) {
-                                        categoryMap.put(categoryId, categoryName);
-                                    }
-                                } catch (Exception e) {
-                                    Log.w(TAG, "Failed to parse category " + key + ": " + e.getMessage());
-                                }
-                            }
-                            
-                            Log.d(TAG, "Loaded " + categoryMap.size() + " categories for mapping");
-                            categoriesLoaded = true;
-                        } else {
-                            Log.w(TAG, "Categories element is not an object or is null");
-                            categoriesLoaded = true;
-                        }
-                        
-                        fetchBooks();
-                    } catch (IOException e) {
-                        Log.e(TAG, "Error reading response body: " + e.getMessage());
+                        categoryMap.clear();
+                        categoryMap.putAll(names);
+                        Log.d(TAG, "Loaded " + categoryMap.size() + " categories for mapping");
+                        categoriesLoaded = true;
+                        viewModel.setCategoriesLoaded(true);
                         fetchBooks();
-                    } catch (Exception e) {
+                    }, e -> {
+                        if (!isAdded()) return;
                         Log.e(TAG, "Error parsing categories: " + e.getMessage());
                         fetchBooks();
-                    }
+                    });
                 } else {
                     Log.e(TAG, "Failed to load categories - HTTP " + response.code());
                     fetchBooks();
@@ -424,7 +397,77 @@ public class BookFragment extends Fragment {
         });
     }
 
-    private void mapCategoryNamesToBooks(List<Book> books) {
+    /**
+     * Parse JSON categories thành map id -> tên (chạy trên lane compute).
+     * Trả về null nếu API báo lỗi hoặc thiếu data.
+     */
+    private static Map<Integer, String> parseCategoryNames(String responseString) {
+        JsonObject jsonResponse = JsonParser.parseString(responseString).getAsJsonObject();
+
+        if (!jsonResponse.has("success") || !jsonResponse.get("success").getAsBoolean()) {
+            Log.e(TAG, "Categories API returned success=false");
+            return null;
+        }
+
+        JsonElement dataElement = jsonResponse.get("data");
+        if (dataElement == null || !dataElement.isJsonObject()) {
+            Log.w(TAG, "Data element is null or not an object");
+            return null;
+        }
+
+        Map<Integer, String> names = new HashMap<>();
+        JsonObject dataObj = dataElement.getAsJsonObject();
+        JsonElement categoriesElement = dataObj.get("categories");
+        if (categoriesElement == null || !categoriesElement.isJsonObject()) {
+            Log.w(TAG, "Categories element is not an object or is null");
+            return names;
+        }
+
+        JsonObject categoriesObj = categoriesElement.getAsJsonObject();
+        for (String key : categoriesObj.keySet()) {
+            try {
+                JsonObject catJson = categoriesObj.get(key).getAsJsonObject();
+                int categoryId;
+
+                if (catJson.has("_id")) {
+                    try {
+                        JsonElement idElement = catJson.get("_id");
+                        if (idElement.isJsonPrimitive()) {
+                            if (idElement.getAsJsonPrimitive().isNumber()) {
+                                categoryId = idElement.getAsInt();
+                            } else {
+                                categoryId = Integer.parseInt(idElement.getAsString());
+                            }
+                        } else {
+                            categoryId = Integer.parseInt(key);
+                        }
+                    } catch (Exception e) {
+                        Log.w(TAG, "Failed to parse _id for key " + key + ", using key as ID: " + e.getMessage());
+                        categoryId = Integer.parseInt(key);
+                    }
+                } else {
+                    categoryId = Integer.parseInt(key);
+                }
+
+                String categoryName = null;
+                if (catJson.has("name")) {
+                    JsonElement nameElement = catJson.get("name");
+                    if (!nameElement.isJsonNull()) {
+                        categoryName = nameElement.getAsString();
+                    }
+                }
+
+                if (categoryName != null && !categoryName.isEmpty()) {
+                    names.put(categoryId, categoryName);
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to parse category " + key + ": " + e.getMessage());
+            }
+        }
+        return names;
+    }
+
+    private static void mapCategoryNamesToBooks(List<Book> books, Map<Integer, String> categoryMap) {
         for (Book book : books) {
             if (book != null) {
                 int categoryId = book.getCategory();
@@ -483,74 +526,63 @@ public class BookFragment extends Fragment {
             layoutEmpty.setVisibility(View.GONE);
         }
 
-        Call<ApiResponse<BooksResponse>> call;
-        if (isSearching && !TextUtils.isEmpty(currentQuery)) {
-            call = apiService.searchBooks(currentQuery, currentPage, itemsPerPage);
-        } else {
-            call = apiService.getAllBooks("Bearer " + accessToken, currentPage, itemsPerPage);
+        viewModel.setCurrentPage(currentPage);
+        viewModel.setQuery(isSearching ? currentQuery : "");
+        if (pagePrefetcher == null) {
+            final boolean searching = isSearching && !TextUtils.isEmpty(currentQuery);
+            final String query = currentQuery;
+            // PagePrefetcher sống trong ViewModel nên không dùng ApiService gắn với view của Fragment
+            final ApiService api = RetrofitClient.getApiService();
+            pagePrefetcher = viewModel.getPagePrefetcher(searching ? "search:" + query : "all", page -> searching
+                    ? api.searchBooks(query, page, ADMIN_ITEMS_PER_PAGE)
+                    : api.getAllBooks("Bearer " + accessToken, page, ADMIN_ITEMS_PER_PAGE));
+            if (paginationManager != null) paginationManager.setPagePrefetcher(pagePrefetcher);
         }
 
-        call.enqueue(new Callback<ApiResponse<BooksResponse>>() {
+        if (pagePrefetcher.isCached(currentPage) && progressBar != null) {
+            progressBar.setVisibility(View.GONE);
+        }
+
+        final PagePrefetcher<BooksResponse> requestPrefetcher = pagePrefetcher;
+        pagePrefetcher.loadPage(currentPage, new PagePrefetcher.PageCallback<BooksResponse>() {
             @Override
-            public void onResponse(Call<ApiResponse<BooksResponse>> call, Response<ApiResponse<BooksResponse>> response) {
+            public void onPageLoaded(int page, BooksResponse booksResponse) {
+                if (requestPrefetcher != pagePrefetcher || !isAdded()) return;
                 if (progressBar != null) {
                     progressBar.setVisibility(View.GONE);
                 }
-
-                if (!response.isSuccessful() || response.body() == null || !response.body().isSuccess()) {
-                    Log.e(TAG, "Failed to load books. Code: " + response.code());
-                    if (bookList.isEmpty()) {
-                        showEmptyState();
+                if (page != currentPage) return;
+
+                final Map<Integer, String> names = categoriesLoaded ? new HashMap<>(categoryMap) : null;
+                // Cắt trang + gán tên category ngoài main thread, chỉ cập nhật list trên main
+                AppExecutors.getInstance().runOnCompute(() -> {
+                    List<Book> books = booksResponse.getBooks() != null
+                            ? booksResponse.getBooks()
+                            : new ArrayList<>();
+                    if (books.size() > ADMIN_ITEMS_PER_PAGE) {
+                        books = new ArrayList<>(books.subList(0, ADMIN_ITEMS_PER_PAGE));
                     }
-                    return;
-                }
-
-                BooksResponse booksResponse = response.body().getData();
-                List<Book> books = booksResponse != null && booksResponse.getBooks() != null
-                        ? booksResponse.getBooks()
-                        : new ArrayList<>();
-                if (books.size() > ADMIN_ITEMS_PER_PAGE) {
-                    books = new ArrayList<>(books.subList(0, ADMIN_ITEMS_PER_PAGE));
-                }
-
-                if (categoriesLoaded) {
-                    mapCategoryNamesToBooks(books);
-                }
-
-                bookList = new ArrayList<>(books);
-                bookAdapter.updateBookList(bookList);
-                updateListView();
-
-                BooksResponse.Pagination pagination = booksResponse != null ? booksResponse.getPagination() : null;
-                if (pagination != null) {
-                    currentPage = pagination.getPage();
-                    totalPages = Math.max(pagination.getTotalPages(), 1);
-                    totalItems = pagination.getTotal();
-                    itemsPerPage = ADMIN_ITEMS_PER_PAGE;
-                } else {
-                    totalPages = (int) Math.ceil((double) totalItems / ADMIN_ITEMS_PER_PAGE);
-                    totalItems = Math.max(totalItems, bookList.size());
-                    itemsPerPage = ADMIN_ITEMS_PER_PAGE;
-                }
-
-                if (paginationManager != null) {
-                    paginationManager.setPaginationData(currentPage, totalPages, totalItems, ADMIN_ITEMS_PER_PAGE);
-                    boolean showPager = totalPages > 1;
-                    paginationManager.setVisible(showPager);
-                    if (paginationContainer != null) {
-                        paginationContainer.setVisibility(showPager ? View.VISIBLE : View.GONE);
+                    if (names != null) {
+                        mapCategoryNamesToBooks(books, names);
                     }
-                }
-
-                isDataLoaded = true;
+                    return books;
+                }, books -> {
+                    if (requestPrefetcher != pagePrefetcher || !isAdded() || page != currentPage) return;
+                    showBooksPage(books, booksResponse.getPagination());
+                });
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<BooksResponse>> call, Throwable t) {
+            public void onPageFailed(int page, int code, String message) {
+                if (requestPrefetcher != pagePrefetcher || !isAdded()) return;
                 if (progressBar != null) {
                     progressBar.setVisibility(View.GONE);
                 }
-                Log.e(TAG, "Error loading books: " + t.getMessage());
+                if (code > 0) {
+                    Log.e(TAG, "Failed to load books. Code: " + code);
+                } else {
+                    Log.e(TAG, "Error loading books: " + message);
+                }
                 if (bookList.isEmpty()) {
                     showEmptyState();
                 }
@@ -558,6 +590,45 @@ public class BookFragment extends Fragment {
         });
     }
 
+    private void showBooksPage(List<Book> books, BooksResponse.Pagination pagination) {
+        bookList = new ArrayList<>(books);
+        bookAdapter.updateBookList(bookList);
+        updateListView();
+
+        if (pagination != null) {
+            currentPage = pagination.getPage();
+            totalPages = Math.max(pagination.getTotalPages(), 1);
+            totalItems = pagination.getTotal();
+            itemsPerPage = ADMIN_ITEMS_PER_PAGE;
+        } else {
+            totalPages = (int) Math.ceil((double) totalItems / ADMIN_ITEMS_PER_PAGE);
+            totalItems = Math.max(totalItems, bookList.size());
+            itemsPerPage = ADMIN_ITEMS_PER_PAGE;
+        }
+
+        if (paginationManager != null) {
+            paginationManager.setPaginationData(currentPage, totalPages, totalItems, ADMIN_ITEMS_PER_PAGE);
+            boolean showPager = totalPages > 1;
+            paginationManager.setVisible(showPager);
+            if (paginationContainer != null) {
+                paginationContainer.setVisibility(showPager ? View.VISIBLE : View.GONE);
+            }
+        }
+
+        isDataLoaded = true;
+    }
+
+    /**
+     * Bỏ cache trang khi query thay đổi hoặc dữ liệu sách bị sửa
+     */
+    private void invalidatePageCache() {
+        viewModel.invalidatePages();
+        pagePrefetcher = null;
+        if (paginationManager != null) {
+            paginationManager.setPagePrefetcher(null);
+        }
+    }
+
     private void showEmptyState() {
         if (layoutEmpty != null) {
             layoutEmpty.setVisibility(View.VISIBLE);
@@ -23,6 +23,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -33,8 +34,10 @@ import com.example.myreadbookapplication.adapter.AdminCategoryAdapter;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.Category;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
+import com.example.myreadbookapplication.utils.AppExecutors;
 import com.example.myreadbookapplication.utils.AuthManager;
+import com.example.myreadbookapplication.viewmodel.ListViewModel;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
@@ -74,12 +77,14 @@ public class CategoryFragment extends Fragment {
     private Runnable searchRunnable;
     
     private boolean isDataLoaded = false; // Flag để track data đã load chưa
+    private ListViewModel<Category> viewModel;
 
     @Override
+    @SuppressWarnings("unchecked")
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        apiService = RetrofitClient.getApiService();
         authManager = AuthManager.getInstance(requireContext());
+        viewModel = new ViewModelProvider(this).get(ListViewModel.class);
     }
 
     @Nullable
@@ -98,6 +103,14 @@ public class CategoryFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        // Request đang chạy bị hủy ở onDestroyView
+        apiService = CallRegistry.apiFor(getViewLifecycleOwner());
+        // Fragment tạo lại sau khi xoay màn hình: hiển thị lại danh sách đã giữ trong ViewModel
+        if (!isDataLoaded && viewModel.getItems() != null) {
+            allCategoriesList = viewModel.getItems();
+            performSearch();
+            isDataLoaded = true;
+        }
         // Load data lần đầu
         if (!isDataLoaded) {
             loadCategories();
@@ -368,85 +381,16 @@ public class CategoryFragment extends Fragment {
                 }
 
                 if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        String responseString = response.body().string();
-                        Log.d(TAG, "Response string length: " + responseString.length());
-
-                        Gson gson = new Gson();
-                        JsonObject jsonResponse = JsonParser.parseString(responseString).getAsJsonObject();
-
-                        // Check success
-                        if (!jsonResponse.has("success") || !jsonResponse.get("success").getAsBoolean()) {
-                            String errorMsg = jsonResponse.has("message") ?
-                                jsonResponse.get("message").getAsString() : "Failed to load categories";
-                            Log.e(TAG, errorMsg);
-                            Toast.makeText(requireContext(), errorMsg, Toast.LENGTH_SHORT).show();
+                    ResponseBody body = response.body();
+                    // Đọc + parse JSON ngoài main thread, chỉ cập nhật list/adapter trên main
+                    AppExecutors.getInstance().runOnCompute(() -> parseCategories(body.string()), result -> {
+                        if (!isAdded()) return;
+                        if (result.errorMessage != null) {
+                            Toast.makeText(requireContext(), result.errorMessage, Toast.LENGTH_SHORT).show();
                             showEmptyState();
-                            return;
-                        }
-
-                        // Get data object
-                        JsonElement dataElement = jsonResponse.get("data");
-                        if (dataElement == null || !dataElement.isJsonObject()) {
-                            Log.w(TAG, "Data element is null or not an object");
-                            showEmptyState();
-                            return;
-                        }
-
-                        JsonObject dataObj = dataElement.getAsJsonObject();
-                        JsonElement categoriesElement = dataObj.get("categories");
-
-                        List<Category> parsedCategories = new ArrayList<>();
-
-                        if (categoriesElement != null && categoriesElement.isJsonObject()) {
-                            // Parse Firebase object format: {"2": {...}, "3": {...}}
-                            Log.d(TAG, "Parsing categories as object format");
-                            JsonObject categoriesObj = categoriesElement.getAsJsonObject();
-                            for (String key : categoriesObj.keySet()) {
-                                try {
-                                    JsonObject catJson = categoriesObj.get(key).getAsJsonObject();
-                                    Category category = gson.fromJson(catJson, Category.class);
-                                    if (category != null) {
-                                        // Set ID từ key nếu chưa có hoặc là 0
-                                        if (category.getId() == 0) {
-                                            try {
-                                                category.setId(Integer.parseInt(key));
-                                            } catch (NumberFormatException e) {
-                                                Log.w(TAG, "Cannot parse key as ID: " + key);
-                                                continue;
-                                            }
-                                        }
-                                        parsedCategories.add(category);
-                                    }
-                                } catch (Exception e) {
-                                    Log.w(TAG, "Failed to parse category " + key + ": " + e.getMessage());
-                                }
-                            }
-                            Log.d(TAG, "Parsed " + parsedCategories.size() + " categories from object format");
-                        } else if (categoriesElement != null && categoriesElement.isJsonArray()) {
-                            // Parse as array
-                            parsedCategories = gson.fromJson(categoriesElement, new TypeToken<List<Category>>(){}.getType());
-                            Log.d(TAG, "Parsed " + parsedCategories.size() + " categories as array");
-                        } else {
-                            Log.w(TAG, "Categories element is null or invalid format");
-                        }
-
-                        if (!parsedCategories.isEmpty()) {
-                            LinkedHashMap<Integer, Category> uniqueMap = new LinkedHashMap<>();
-                            for (Category category : parsedCategories) {
-                                if (category != null) {
-                                    uniqueMap.put(category.getId(), category);
-                                }
-                            }
-                            parsedCategories = new ArrayList<>(uniqueMap.values());
-
-                            Collections.sort(parsedCategories, (c1, c2) -> {
-                                if (c1 == null || c2 == null) return 0;
-                                return c1.getName().compareToIgnoreCase(c2.getName());
-                            });
-
+                        } else if (!result.categories.isEmpty()) {
                             allCategoriesList.clear();
-                            allCategoriesList.addAll(parsedCategories);
+                            allCategoriesList.addAll(result.categories);
 
                             categoryList.clear();
                             categoryList.addAll(allCategoriesList);
@@ -454,21 +398,22 @@ public class CategoryFragment extends Fragment {
                             categoryAdapter.updateCategoryList(categoryList);
                             updateListView();
 
+                            viewModel.setItems(allCategoriesList);
                             isDataLoaded = true;
                             Log.d(TAG, "Loaded " + categoryList.size() + " categories successfully");
                         } else {
                             Log.w(TAG, "No categories found after parsing");
                             showEmptyState();
                         }
-                    } catch (IOException e) {
-                        Log.e(TAG, "Error reading response body: " + e.getMessage(), e);
-                        Toast.makeText(requireContext(), "Error reading response", Toast.LENGTH_SHORT).show();
-                        showEmptyState();
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing response: " + e.getMessage(), e);
-                        Toast.makeText(requireContext(), "Error parsing response: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }, e -> {
+                        if (!isAdded()) return;
+                        if (e instanceof IOException) {
+                            Toast.makeText(requireContext(), "Error reading response", Toast.LENGTH_SHORT).show();
+                        } else {
+                            Toast.makeText(requireContext(), "Error parsing response: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        }
                         showEmptyState();
-                    }
+                    });
                 } else {
                     Log.e(TAG, "Load categories failed - HTTP " + response.code());
                     String errorMsg = "Failed to load categories (HTTP " + response.code() + ")";
@@ -512,6 +457,95 @@ public class CategoryFragment extends Fragment {
         });
     }
 
+    /**
+     * Kết quả parse danh sách category (chạy trên lane compute)
+     */
+    private static final class ParsedCategories {
+        final List<Category> categories;
+        final String errorMessage;
+
+        ParsedCategories(List<Category> categories, String errorMessage) {
+            this.categories = categories;
+            this.errorMessage = errorMessage;
+        }
+    }
+
+    private static ParsedCategories parseCategories(String responseString) {
+        Log.d(TAG, "Response string length: " + responseString.length());
+
+        Gson gson = new Gson();
+        JsonObject jsonResponse = JsonParser.parseString(responseString).getAsJsonObject();
+
+        // Check success
+        if (!jsonResponse.has("success") || !jsonResponse.get("success").getAsBoolean()) {
+            String errorMsg = jsonResponse.has("message") ?
+                jsonResponse.get("message").getAsString() : "Failed to load categories";
+            Log.e(TAG, errorMsg);
+            return new ParsedCategories(new ArrayList<>(), errorMsg);
+        }
+
+        // Get data object
+        JsonElement dataElement = jsonResponse.get("data");
+        if (dataElement == null || !dataElement.isJsonObject()) {
+            Log.w(TAG, "Data element is null or not an object");
+            return new ParsedCategories(new ArrayList<>(), null);
+        }
+
+        JsonObject dataObj = dataElement.getAsJsonObject();
+        JsonElement categoriesElement = dataObj.get("categories");
+
+        List<Category> parsedCategories = new ArrayList<>();
+
+        if (categoriesElement != null && categoriesElement.isJsonObject()) {
+            // Parse Firebase object format: {"2": {...}, "3": {...}}
+            Log.d(TAG, "Parsing categories as object format");
+            JsonObject categoriesObj = categoriesElement.getAsJsonObject();
+            for (String key : categoriesObj.keySet()) {
+                try {
+                    JsonObject catJson = categoriesObj.get(key).getAsJsonObject();
+                    Category category = gson.fromJson(catJson, Category.class);
+                    if (category != null) {
+                        // Set ID từ key nếu chưa có hoặc là 0
+                        if (category.getId() == 0) {
+                            try {
+                                category.setId(Integer.parseInt(key));
+                            } catch (NumberFormatException e) {
+                                Log.w(TAG, "Cannot parse key as ID: " + key);
+                                continue;
+                            }
+                        }
+                        parsedCategories.add(category);
+                    }
+                } catch (Exception e) {
+                    Log.w(TAG, "Failed to parse category " + key + ": " + e.getMessage());
+                }
+            }
+            Log.d(TAG, "Parsed " + parsedCategories.size() + " categories from object format");
+        } else if (categoriesElement != null && categoriesElement.isJsonArray()) {
+            // Parse as array
+            parsedCategories = gson.fromJson(categoriesElement, new TypeToken<List<Category>>(){}.getType());
+            Log.d(TAG, "Parsed " + parsedCategories.size() + " categories as array");
+        } else {
+            Log.w(TAG, "Categories element is null or invalid format");
+        }
+
+        if (!parsedCategories.isEmpty()) {
+            LinkedHashMap<Integer, Category> uniqueMap = new LinkedHashMap<>();
+            for (Category category : parsedCategories) {
+                if (category != null) {
+                    uniqueMap.put(category.getId(), category);
+                }
+            }
+            parsedCategories = new ArrayList<>(uniqueMap.values());
+
+            Collections.sort(parsedCategories, (c1, c2) -> {
+                if (c1 == null || c2 == null) return 0;
+                return c1.getName().compareToIgnoreCase(c2.getName());
+            });
+        }
+        return new ParsedCategories(parsedCategories, null);
+    }
+
     private void showEmptyState() {
         if (layoutEmpty != null) {
             layoutEmpty.setVisibility(View.VISIBLE);
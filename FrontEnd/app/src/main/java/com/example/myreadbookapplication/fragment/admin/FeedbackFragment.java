@@ -14,6 +14,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -22,8 +23,10 @@ import com.example.myreadbookapplication.adapter.AdminFeedbackAdapter;
 import com.example.myreadbookapplication.model.ApiResponse;
 import com.example.myreadbookapplication.model.Feedback;
 import com.example.myreadbookapplication.network.ApiService;
-import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.network.CallRegistry;
+import com.example.myreadbookapplication.utils.AppExecutors;
 import com.example.myreadbookapplication.utils.AuthManager;
+import com.example.myreadbookapplication.viewmodel.ListViewModel;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -51,12 +54,14 @@ public class FeedbackFragment extends Fragment {
     private List<Feedback> feedbackList = new ArrayList<>();
     
     private boolean isDataLoaded = false;
+    private ListViewModel<Feedback> viewModel;
 
     @Override
+    @SuppressWarnings("unchecked")
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        apiService = RetrofitClient.getApiService();
         authManager = AuthManager.getInstance(requireContext());
+        viewModel = new ViewModelProvider(this).get(ListViewModel.class);
     }
 
     @Nullable
@@ -73,6 +78,15 @@ public class FeedbackFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        // Request đang chạy bị hủy ở onDestroyView
+        apiService = CallRegistry.apiFor(getViewLifecycleOwner());
+        // Fragment tạo lại sau khi xoay màn hình: dùng lại danh sách trong ViewModel
+        if (!isDataLoaded && viewModel.getItems() != null) {
+            feedbackList = viewModel.getItems();
+            adapter.setFeedbackList(feedbackList);
+            hideEmptyState();
+            isDataLoaded = true;
+        }
         if (!isDataLoaded) {
             loadFeedbacks();
         }
@@ -138,32 +152,22 @@ public class FeedbackFragment extends Fragment {
                         Object dataObj = apiResponse.getData();
                         
                         if (dataObj != null) {
-                            try {
-                                Gson gson = new Gson();
-                                String json = gson.toJson(dataObj);
-                                JsonElement jsonElement = JsonParser.parseString(json);
-                                
-                                if (jsonElement.isJsonArray()) {
-                                    JsonArray jsonArray = jsonElement.getAsJsonArray();
-                                    TypeToken<List<Feedback>> token = new TypeToken<List<Feedback>>() {};
-                                    List<Feedback> feedbacksList = gson.fromJson(jsonArray, token.getType());
-
-                                    if (feedbacksList != null && !feedbacksList.isEmpty()) {
-                                        feedbackList = feedbacksList;
-                                        adapter.setFeedbackList(feedbackList);
-                                        hideEmptyState();
-                                        isDataLoaded = true;
-                                        Log.d(TAG, "Loaded " + feedbackList.size() + " feedbacks");
-                                    } else {
-                                        showEmptyState();
-                                    }
+                            // Chuyển data sang List<Feedback> ngoài main thread
+                            AppExecutors.getInstance().runOnCompute(() -> parseFeedbacks(dataObj), feedbacksList -> {
+                                if (!isAdded()) return;
+                                if (feedbacksList != null && !feedbacksList.isEmpty()) {
+                                    feedbackList = feedbacksList;
+                                    adapter.setFeedbackList(feedbackList);
+                                    hideEmptyState();
+                                    viewModel.setItems(feedbackList);
+                                    isDataLoaded = true;
+                                    Log.d(TAG, "Loaded " + feedbackList.size() + " feedbacks");
                                 } else {
                                     showEmptyState();
                                 }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error parsing feedbacks: " + e.getMessage(), e);
-                                showEmptyState();
-                            }
+                            }, e -> {
+                                if (isAdded()) showEmptyState();
+                            });
                         } else {
                             showEmptyState();
                         }
@@ -188,6 +192,17 @@ public class FeedbackFragment extends Fragment {
         });
     }
 
+    private static List<Feedback> parseFeedbacks(Object dataObj) {
+        Gson gson = new Gson();
+        String json = gson.toJson(dataObj);
+        JsonElement jsonElement = JsonParser.parseString(json);
+        if (!jsonElement.isJsonArray()) return null;
+
+        JsonArray jsonArray = jsonElement.getAsJsonArray();
+        TypeToken<List<Feedback>> token = new TypeToken<List<Feedback>>() {};
+        return gson.fromJson(jsonArray, token.getType());
+    }
+
     private void showEmptyState() {
         if (layoutEmpty != null) {
             layoutEmpty.setVisibility(View.VISIBLE);
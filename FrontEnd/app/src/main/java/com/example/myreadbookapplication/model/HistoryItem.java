@@ -9,6 +9,8 @@ public class HistoryItem {
     private int bookId;
     private int page;
     private String chapterId;
+    // % đã đọc trên cả cuốn sách (null với bookmark cũ)
+    private Float progress;
     private long lastReadAt;
     private long createdAt;
     private long updatedAt;
@@ -24,6 +26,8 @@ public class HistoryItem {
     public void setPage(int page) { this.page = page; }
     public String getChapterId() { return chapterId; }
     public void setChapterId(String chapterId) { this.chapterId = chapterId; }
+    public Float getProgress() { return progress; }
+    public void setProgress(Float progress) { this.progress = progress; }
     public long getLastReadAt() { return lastReadAt; }
     public void setLastReadAt(long lastReadAt) { this.lastReadAt = lastReadAt; }
     public long getCreatedAt() { return createdAt; }
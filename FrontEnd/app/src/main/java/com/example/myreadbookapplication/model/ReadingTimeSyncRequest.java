@@ -0,0 +1,58 @@
+package com.example.myreadbookapplication.model;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class ReadingTimeSyncRequest {
+    @SerializedName("streamId")
+    private String streamId;
+
+    @SerializedName("seq")
+    private long seq;
+
+    @SerializedName("entries")
+    private List<Entry> entries;
+
+    public ReadingTimeSyncRequest() {}
+
+    public ReadingTimeSyncRequest(String streamId, long seq, List<Entry> entries) {
+        this.streamId = streamId;
+        this.seq = seq;
+        this.entries = entries;
+    }
+
+    public String getStreamId() { return streamId; }
+    public void setStreamId(String streamId) { this.streamId = streamId; }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+    public List<Entry> getEntries() { return entries; }
+    public void setEntries(List<Entry> entries) { this.entries = entries; }
+
+    public static class Entry {
+        @SerializedName("bookId")
+        private String bookId;
+
+        @SerializedName("day")
+        private String day; // yyyyMMdd
+
+        @SerializedName("seconds")
+        private long seconds;
+
+        public Entry() {}
+
+        public Entry(String bookId, String day, long seconds) {
+            this.bookId = bookId;
+            this.day = day;
+            this.seconds = seconds;
+        }
+
+        public String getBookId() { return bookId; }
+        public void setBookId(String bookId) { this.bookId = bookId; }
+        public String getDay() { return day; }
+        public void setDay(String day) { this.day = day; }
+        public long getSeconds() { return seconds; }
+        public void setSeconds(long seconds) { this.seconds = seconds; }
+    }
+}
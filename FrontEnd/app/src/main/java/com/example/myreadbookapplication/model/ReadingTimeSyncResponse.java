@@ -0,0 +1,11 @@
+package com.example.myreadbookapplication.model;
+
+public class ReadingTimeSyncResponse {
+    private long totalSeconds;
+    private long lastSeq;
+
+    public long getTotalSeconds() { return totalSeconds; }
+    public void setTotalSeconds(long totalSeconds) { this.totalSeconds = totalSeconds; }
+    public long getLastSeq() { return lastSeq; }
+    public void setLastSeq(long lastSeq) { this.lastSeq = lastSeq; }
+}
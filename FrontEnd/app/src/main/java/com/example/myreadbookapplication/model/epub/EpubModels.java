@@ -11,6 +11,19 @@ public class EpubModels {
         public EpubUrlRequest(String epubUrl) { this.epubUrl = epubUrl; }
     }
 
+    // Danh sách chương theo trang: limit null thì server trả hết từ offset
+    public static class EpubChaptersRequest {
+        @SerializedName("epub_url")
+        public String epubUrl;
+        public Integer offset;
+        public Integer limit;
+        public EpubChaptersRequest(String epubUrl, Integer offset, Integer limit) {
+            this.epubUrl = epubUrl;
+            this.offset = offset;
+            this.limit = limit;
+        }
+    }
+
     public static class EpubChapterContentRequest {
         @SerializedName("epub_url")
         public String epubUrl;
@@ -51,6 +64,9 @@ public class EpubModels {
     public static class EpubChaptersData {
         public List<ChapterItem> chapters;
         public Integer totalChapters;
+        public Integer offset;
+        // Còn trang sau (server cũ không trả field này: coi như đã đủ)
+        public Boolean hasMore;
     }
 
     public static class ChapterItem {
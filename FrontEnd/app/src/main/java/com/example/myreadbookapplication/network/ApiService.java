@@ -10,6 +10,8 @@ import com.example.myreadbookapplication.model.CategoriesResponse;
 import com.example.myreadbookapplication.model.Category;
 import com.example.myreadbookapplication.model.HistoryItem;
 import com.example.myreadbookapplication.model.ReadingHistoryResponse;
+import com.example.myreadbookapplication.model.ReadingTimeSyncRequest;
+import com.example.myreadbookapplication.model.ReadingTimeSyncResponse;
 import com.example.myreadbookapplication.model.SignInRequest;
 import com.example.myreadbookapplication.model.SignUpRequest;
 import com.example.myreadbookapplication.model.VerifyOtpRequest;
@@ -40,6 +42,7 @@ import okhttp3.ResponseBody;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubUrlRequest;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubMetadataData;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubChaptersData;
+import com.example.myreadbookapplication.model.epub.EpubModels.EpubChaptersRequest;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubChapterContentData;
 import com.example.myreadbookapplication.model.epub.EpubModels.EpubChapterContentRequest;
 import retrofit2.http.DELETE;
@@ -134,6 +137,15 @@ public interface ApiService {
             @Header("Authorization") String authorization
     );
 
+    // Chỉ lấy 1 trang ID yêu thích + tổng số (chi tiết sách lấy qua getBooksByIds)
+    @GET("api/users/{userId}/favorites/ids")
+    Call<ApiResponse<com.example.myreadbookapplication.model.FavoritesResponse>> getFavoriteIds(
+            @Path("userId") String userId,
+            @Query("page") Integer page,
+            @Query("limit") Integer limit,
+            @Header("Authorization") String authorization
+    );
+
     @POST("api/users/{userId}/favorites/{bookId}")
     Call<ApiResponse> addFavorite(
             @Path("userId") String userId,
@@ -159,6 +171,18 @@ public interface ApiService {
             @Query("sortOrder") String sortOrder
     );
 
+    // Đồng bộ tăng dần: chỉ lấy lịch sử có lastReadAt > since
+    @GET("api/history/{userId}")
+    Call<ApiResponse<ReadingHistoryResponse>> getReadingHistorySince(
+            @Path("userId") String userId,
+            @Header("Authorization") String authorization,
+            @Query("since") Long since,
+            @Query("page") Integer page,
+            @Query("limit") Integer limit,
+            @Query("sortBy") String sortBy,
+            @Query("sortOrder") String sortOrder
+    );
+
     @GET("api/history/{userId}/bookmark/{bookId}")
     Call<ApiResponse<HistoryItem>> getBookmark(
             @Path("userId") String userId,
@@ -179,6 +203,15 @@ public interface ApiService {
             @Field("userId") String userId,
             @Field("bookId") String bookId,
             @Field("chapterId") String chapterId,
+            @Field("progress") Float progress,
+            @Header("Authorization") String authorization
+    );
+
+    // Đồng bộ batch thời gian đọc (delta theo sách + ngày)
+    @POST("api/history/{userId}/reading-time")
+    Call<ApiResponse<ReadingTimeSyncResponse>> syncReadingTime(
+            @Path("userId") String userId,
+            @Body ReadingTimeSyncRequest request,
             @Header("Authorization") String authorization
     );
 
@@ -190,7 +223,7 @@ public interface ApiService {
     Call<ApiResponse<EpubMetadataData>> getEpubMetadata(@Body EpubUrlRequest request);
 
     @POST("api/epub/chapters")
-    Call<ApiResponse<EpubChaptersData>> getEpubChapters(@Body EpubUrlRequest request);
+    Call<ApiResponse<EpubChaptersData>> getEpubChapters(@Body EpubChaptersRequest request);
 
     @POST("api/epub/chapter-content")
     Call<ApiResponse<EpubChapterContentData>> getEpubChapterContent(@Body EpubChapterContentRequest request);
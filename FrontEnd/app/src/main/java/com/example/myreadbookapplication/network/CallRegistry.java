@@ -0,0 +1,351 @@
+package com.example.myreadbookapplication.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Invocation;
+import retrofit2.Response;
+
+/**
+ * Gắn các Retrofit Call với vòng đời màn hình (Activity hoặc view của Fragment).
+ * apiFor(owner) trả về ApiService mà mọi Call enqueue qua nó được ghi nhận theo owner;
+ * khi owner ON_DESTROY (Activity.onDestroy / Fragment.onDestroyView) các Call còn chạy bị hủy
+ * và callback của chúng không được gọi nữa (tránh đụng vào view đã chết).
+ * Chỉ các request chỉ-đọc bị hủy (GET và các POST api/epub/*); request ghi (lưu bookmark, favorite,
+ * tạo/sửa sách...) vẫn chạy tới cùng và gọi callback như cũ.
+ * Số byte tránh tải được ước lượng theo kích thước trung bình response của từng endpoint
+ * (đếm số byte thật sự đọc từ mạng, kể cả response chunked / gzip không có Content-Length).
+ */
+public class CallRegistry {
+    private static final String TAG = "CallRegistry";
+
+    private static final Map<LifecycleOwner, OwnerCalls> owners = new WeakHashMap<>();
+    // Tên method ApiService -> [tổng byte, số response] để ước lượng byte của call bị hủy
+    private static final Map<String, long[]> responseSizes = new HashMap<>();
+    private static int canceledCalls = 0;
+    private static long bytesAvoided = 0;
+
+    private CallRegistry() {}
+
+    /**
+     * ApiService gắn với owner. Fragment truyền getViewLifecycleOwner() (gọi từ onViewCreated trở đi).
+     */
+    public static ApiService apiFor(LifecycleOwner owner) {
+        ApiService base = RetrofitClient.getApiService();
+        OwnerCalls calls = callsFor(owner);
+        return (ApiService) Proxy.newProxyInstance(ApiService.class.getClassLoader(),
+                new Class<?>[]{ApiService.class}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals": return proxy == args[0];
+                            case "hashCode": return System.identityHashCode(proxy);
+                            default: return calls.toString();
+                        }
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(base, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Call && isCancelable(((Call<?>) result).request())) {
+                        return new TrackedCall<>((Call<?>) result, calls);
+                    }
+                    return result;
+                });
+    }
+
+    private static boolean isCancelable(Request request) {
+        // Các endpoint EPUB dùng POST để gửi URL nhưng không thay đổi dữ liệu
+        return "GET".equals(request.method()) || request.url().encodedPath().startsWith("/api/epub/");
+    }
+
+    /**
+     * Network interceptor ghi lại kích thước response theo endpoint (RetrofitClient thêm vào OkHttpClient).
+     * Đếm byte khi body được đọc (chưa giải nén gzip), ghi nhận khi đọc hết hoặc đóng body.
+     */
+    static Interceptor responseSizeInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            okhttp3.Response response = chain.proceed(request);
+            Invocation invocation = request.tag(Invocation.class);
+            ResponseBody body = response.body();
+            if (invocation == null || body == null) return response;
+            return response.newBuilder()
+                    .body(new CountingBody(body, invocation.method().getName()))
+                    .build();
+        };
+    }
+
+    private static void recordResponseSize(String method, long bytes) {
+        if (bytes <= 0) return;
+        synchronized (responseSizes) {
+            long[] stats = responseSizes.get(method);
+            if (stats == null) {
+                stats = new long[2];
+                responseSizes.put(method, stats);
+            }
+            stats[0] += bytes;
+            stats[1]++;
+        }
+    }
+
+    public static synchronized int getCanceledCalls() {
+        return canceledCalls;
+    }
+
+    /**
+     * Tổng byte (ước lượng) không phải tải nhờ hủy call của màn hình đã đóng
+     */
+    public static synchronized long getBytesAvoided() {
+        return bytesAvoided;
+    }
+
+    private static synchronized OwnerCalls callsFor(LifecycleOwner owner) {
+        OwnerCalls calls = owners.get(owner);
+        if (calls == null) {
+            calls = new OwnerCalls(owner.getClass().getSimpleName());
+            owners.put(owner, calls);
+            if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                calls.destroyed = true;
+            } else {
+                final OwnerCalls observed = calls;
+                owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+                    @Override
+                    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                        if (event != Lifecycle.Event.ON_DESTROY) return;
+                        source.getLifecycle().removeObserver(this);
+                        synchronized (CallRegistry.class) {
+                            owners.remove(source);
+                        }
+                        observed.cancelAll();
+                    }
+                });
+            }
+        }
+        return calls;
+    }
+
+    private static long estimateBytes(Call<?> call) {
+        Invocation invocation = call.request().tag(Invocation.class);
+        if (invocation == null) return 0;
+        synchronized (responseSizes) {
+            long[] stats = responseSizes.get(invocation.method().getName());
+            return stats != null && stats[1] > 0 ? stats[0] / stats[1] : 0;
+        }
+    }
+
+    private static synchronized void recordCanceled(String ownerName, int count, long bytes) {
+        canceledCalls += count;
+        bytesAvoided += bytes;
+        Log.d(TAG, ownerName + " destroyed: canceled " + count + " pending call(s), ~" + (bytes / 1024)
+                + " KB avoided (total " + canceledCalls + " calls, ~" + (bytesAvoided / 1024) + " KB)");
+    }
+
+    /**
+     * Các call đang chạy của một owner
+     */
+    private static class OwnerCalls {
+        final String name;
+        final Set<Call<?>> pending = new LinkedHashSet<>();
+        boolean destroyed = false;
+
+        OwnerCalls(String name) {
+            this.name = name;
+        }
+
+        synchronized boolean add(Call<?> call) {
+            if (destroyed) return false;
+            pending.add(call);
+            return true;
+        }
+
+        synchronized void remove(Call<?> call) {
+            pending.remove(call);
+        }
+
+        synchronized boolean isDestroyed() {
+            return destroyed;
+        }
+
+        void cancelAll() {
+            Set<Call<?>> toCancel;
+            synchronized (this) {
+                destroyed = true;
+                toCancel = new LinkedHashSet<>(pending);
+                pending.clear();
+            }
+            if (toCancel.isEmpty()) return;
+            long bytes = 0;
+            for (Call<?> call : toCancel) {
+                bytes += estimateBytes(call);
+                call.cancel();
+            }
+            recordCanceled(name, toCancel.size(), bytes);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "CallRegistry(" + name + ")";
+        }
+    }
+
+    /**
+     * Body bọc đếm số byte đọc được từ mạng
+     */
+    private static class CountingBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        CountingBody(ResponseBody delegate, String method) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                private long bytesRead = 0;
+                private boolean recorded = false;
+
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1) {
+                        record();
+                    } else {
+                        bytesRead += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // Body gzip: GzipSource dừng sau trailer, không đọc tới -1; Retrofit luôn đóng body sau khi parse
+                    record();
+                    super.close();
+                }
+
+                private void record() {
+                    if (recorded) return;
+                    recorded = true;
+                    recordResponseSize(method, bytesRead);
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    /**
+     * Call bọc: enqueue thì đăng ký với owner, xong thì gỡ; owner đã hủy thì bỏ callback
+     */
+    private static class TrackedCall<T> implements Call<T> {
+        private final Call<T> delegate;
+        private final OwnerCalls owner;
+
+        @SuppressWarnings("unchecked")
+        TrackedCall(Call<?> delegate, OwnerCalls owner) {
+            this.delegate = (Call<T>) delegate;
+            this.owner = owner;
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            if (!owner.add(delegate)) {
+                // Màn hình đã đóng: không gửi request nữa
+                delegate.cancel();
+                return;
+            }
+            delegate.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                    owner.remove(delegate);
+                    if (owner.isDestroyed() || delegate.isCanceled()) return;
+                    callback.onResponse(TrackedCall.this, response);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                    owner.remove(delegate);
+                    if (owner.isDestroyed()) return;
+                    callback.onFailure(TrackedCall.this, t);
+                }
+            });
+        }
+
+        @NonNull
+        @Override
+        public Response<T> execute() throws IOException {
+            return delegate.execute();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return delegate.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            owner.remove(delegate);
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return delegate.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Call<T> clone() {
+            return new TrackedCall<>(delegate.clone(), owner);
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
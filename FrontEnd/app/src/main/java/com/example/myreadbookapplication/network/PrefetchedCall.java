@@ -0,0 +1,110 @@
+package com.example.myreadbookapplication.network;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Request được gọi sớm (lúc khởi động) để màn hình sau nhận lại kết quả.
+ * Kết quả (Response hoặc lỗi) được giữ nguyên và phát lại cho đúng một consumer qua Callback
+ * như khi tự enqueue; nếu request còn đang chạy thì consumer được xếp hàng chờ, gắn với lifecycle của owner:
+ * owner bị destroy thì bỏ callback (không gọi vào Activity đã chết, không giữ nó lại).
+ * Dùng trên main thread (Retrofit trả callback trên main thread).
+ */
+public class PrefetchedCall<T> implements Callback<T> {
+    private final long maxAgeMs;
+    private final List<Waiter> waiters = new ArrayList<>();
+    private Call<T> call;
+    private Response<T> response;
+    private Throwable error;
+    private long completedAt;
+    private boolean consumed = false;
+
+    public PrefetchedCall(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    public void start(Call<T> call) {
+        call.enqueue(this);
+    }
+
+    /**
+     * Nhận kết quả prefetch. Trả về false nếu không dùng được (đã bị lấy, lỗi mạng, quá cũ)
+     * để caller tự gọi API như bình thường.
+     */
+    public boolean consume(LifecycleOwner owner, Callback<T> callback) {
+        if (consumed || owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) return false;
+        boolean done = response != null || error != null;
+        if (done && (error != null || SystemClock.elapsedRealtime() - completedAt > maxAgeMs)) {
+            return false;
+        }
+        consumed = true;
+        if (done) {
+            callback.onResponse(call, response);
+        } else {
+            Waiter waiter = new Waiter(owner, callback);
+            waiters.add(waiter);
+            owner.getLifecycle().addObserver(waiter);
+        }
+        return true;
+    }
+
+    @Override
+    public void onResponse(Call<T> call, Response<T> response) {
+        this.call = call;
+        this.response = response;
+        this.completedAt = SystemClock.elapsedRealtime();
+        for (Waiter waiter : takeWaiters()) {
+            waiter.callback.onResponse(call, response);
+        }
+    }
+
+    @Override
+    public void onFailure(Call<T> call, Throwable t) {
+        this.call = call;
+        this.error = t;
+        this.completedAt = SystemClock.elapsedRealtime();
+        for (Waiter waiter : takeWaiters()) {
+            waiter.callback.onFailure(call, t);
+        }
+    }
+
+    private List<Waiter> takeWaiters() {
+        List<Waiter> taken = new ArrayList<>(waiters);
+        waiters.clear();
+        for (Waiter waiter : taken) {
+            waiter.owner.getLifecycle().removeObserver(waiter);
+        }
+        return taken;
+    }
+
+    /**
+     * Consumer đang chờ kết quả; tự gỡ khi owner bị destroy
+     */
+    private final class Waiter implements LifecycleEventObserver {
+        final LifecycleOwner owner;
+        final Callback<T> callback;
+
+        Waiter(LifecycleOwner owner, Callback<T> callback) {
+            this.owner = owner;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            if (event != Lifecycle.Event.ON_DESTROY) return;
+            source.getLifecycle().removeObserver(this);
+            waiters.remove(this);
+        }
+    }
+}
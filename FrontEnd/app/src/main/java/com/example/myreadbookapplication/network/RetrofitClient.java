@@ -14,14 +14,18 @@ import retrofit2.converter.gson.GsonConverterFactory;
 public class RetrofitClient {
 
     private static Retrofit retrofit; //singleton instance
+    private static OkHttpClient okHttpClient;
     private static Context applicationContext;
 
     public static void init(Context context) {
         applicationContext = context.getApplicationContext();
     }
 
-    public static ApiService getApiService() {
-        if (retrofit == null) {
+    /**
+     * OkHttpClient dùng chung (connection pool) cho Retrofit và các request warm-up
+     */
+    public static synchronized OkHttpClient getOkHttpClient() {
+        if (okHttpClient == null) {
             // Tạo OkHttpClient với logging và timeout
             OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
             
@@ -58,6 +62,16 @@ public class RetrofitClient {
                 return chain.proceed(original);
             });
 
+            // Ghi kích thước response (byte thật trên mạng) để CallRegistry ước lượng byte tránh tải
+            httpClient.addNetworkInterceptor(CallRegistry.responseSizeInterceptor());
+
+            okHttpClient = httpClient.build();
+        }
+        return okHttpClient;
+    }
+
+    public static synchronized ApiService getApiService() {
+        if (retrofit == null) {
             // Tạo Gson với cấu hình
             Gson gson = new GsonBuilder()
                     .setLenient()
@@ -65,7 +79,7 @@ public class RetrofitClient {
 
             retrofit = new Retrofit.Builder()
                     .baseUrl(BuildConfig.BASE_URL)
-                    .client(httpClient.build())
+                    .client(getOkHttpClient())
                     .addConverterFactory(GsonConverterFactory.create(gson))
                     .build();
         }
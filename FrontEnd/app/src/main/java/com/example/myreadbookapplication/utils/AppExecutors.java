@@ -0,0 +1,270 @@
+package com.example.myreadbookapplication.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Các luồng chạy nền dùng chung của app, thay cho việc mỗi class tự tạo Executor riêng:
+ * - io: đọc/ghi file, đọc body của response
+ * - compute: parse JSON, xử lý chuỗi/HTML lấy từ response
+ * - main: trả kết quả về main thread để cập nhật UI
+ * Callback của Retrofit chạy trên main thread nên phần xử lý response được đẩy sang compute
+ * bằng runOnCompute(), chỉ bước cập nhật UI quay lại main.
+ * Hàng đợi có giới hạn; khi đầy thì task chạy luôn trên thread gọi nếu đó là thread nền, còn nếu thread gọi
+ * là main thì task được chuyển sang thread tràn của lane (hàng đợi không giới hạn) để không đẩy việc nặng ngược
+ * về main. Task không bao giờ bị bỏ: SerialExecutor và callback của runOnIo/runOnCompute dựa vào việc task luôn chạy.
+ * Cả hai trường hợp đều được đếm lại; số liệu được in ra qua logStats() (MainThreadWatchdog gọi khi app xuống
+ * background và khi main bị treo).
+ */
+public final class AppExecutors {
+    private static final String TAG = "AppExecutors";
+    private static final int IO_THREADS = 3;
+    private static final int IO_QUEUE_CAPACITY = 64;
+    private static final int COMPUTE_QUEUE_CAPACITY = 32;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final long SERIAL_RETRY_MS = 50;
+
+    /**
+     * Công việc chạy nền, trả về kết quả cho bước cập nhật UI
+     */
+    public interface Task<T> {
+        T run() throws Exception;
+    }
+
+    public interface ResultCallback<T> {
+        void onResult(T result);
+    }
+
+    public interface ErrorCallback {
+        void onError(Exception e);
+    }
+
+    private static volatile AppExecutors instance;
+
+    private final Lane io;
+    private final Lane compute;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Executor main = mainHandler::post;
+
+    private AppExecutors() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        io = new Lane("io", IO_THREADS, IO_QUEUE_CAPACITY);
+        compute = new Lane("compute", Math.max(1, Math.min(cores - 1, 4)), COMPUTE_QUEUE_CAPACITY);
+    }
+
+    public static AppExecutors getInstance() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public Executor io() {
+        return io.executor;
+    }
+
+    public Executor compute() {
+        return compute.executor;
+    }
+
+    public Executor main() {
+        return main;
+    }
+
+    /**
+     * Executor chạy lần lượt từng task trên lane io (thay cho newSingleThreadExecutor của các store
+     * ghi file: giữ thứ tự ghi nhưng không giữ riêng một thread)
+     */
+    public Executor newSerialIoExecutor() {
+        return new SerialExecutor(io.executor);
+    }
+
+    /**
+     * Như newSerialIoExecutor() nhưng trên lane compute (dựng index/trie không thread-safe)
+     */
+    public Executor newSerialComputeExecutor() {
+        return new SerialExecutor(compute.executor);
+    }
+
+    /**
+     * Chạy task trên lane compute rồi gọi onResult trên main thread
+     */
+    public <T> void runOnCompute(Task<T> task, ResultCallback<T> onResult) {
+        runOnCompute(task, onResult, null);
+    }
+
+    public <T> void runOnCompute(Task<T> task, ResultCallback<T> onResult, ErrorCallback onError) {
+        submit(compute.executor, task, onResult, onError);
+    }
+
+    /**
+     * Chạy task trên lane io rồi gọi onResult trên main thread
+     */
+    public <T> void runOnIo(Task<T> task, ResultCallback<T> onResult) {
+        runOnIo(task, onResult, null);
+    }
+
+    public <T> void runOnIo(Task<T> task, ResultCallback<T> onResult, ErrorCallback onError) {
+        submit(io.executor, task, onResult, onError);
+    }
+
+    private <T> void submit(Executor lane, Task<T> task, ResultCallback<T> onResult, ErrorCallback onError) {
+        lane.execute(() -> {
+            try {
+                T result = task.run();
+                if (onResult != null) main.execute(() -> onResult.onResult(result));
+            } catch (Exception e) {
+                Log.e(TAG, "Background task failed: " + e.getMessage(), e);
+                if (onError != null) main.execute(() -> onError.onError(e));
+            }
+        });
+    }
+
+    public int getIoQueueDepth() {
+        return io.executor.getQueue().size();
+    }
+
+    public int getComputeQueueDepth() {
+        return compute.executor.getQueue().size();
+    }
+
+    public void logStats() {
+        io.logStats();
+        compute.logStats();
+    }
+
+    /**
+     * Một lane: thread pool có tên, hàng đợi giới hạn và số liệu độ sâu hàng đợi.
+     * Task bị từ chối khi được gửi từ main chạy trên một thread tràn riêng (hàng đợi không giới hạn).
+     */
+    private static final class Lane {
+        final String name;
+        final ThreadPoolExecutor executor;
+        final AtomicInteger maxQueueDepth = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger overflowed = new AtomicInteger();
+        final ThreadPoolExecutor overflow;
+
+        Lane(String name, int threads, int queueCapacity) {
+            this.name = name;
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }, "app-" + name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            ThreadFactory overflowFactory = r -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }, "app-" + name + "-overflow");
+                thread.setDaemon(true);
+                return thread;
+            };
+            overflow = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), overflowFactory);
+            overflow.allowCoreThreadTimeOut(true);
+            RejectedExecutionHandler onFull = (r, pool) -> {
+                rejected.incrementAndGet();
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    // Không chạy trên main, cũng không bỏ: chuyển sang thread tràn
+                    overflowed.incrementAndGet();
+                    Log.w(TAG, "Lane " + name + " queue full (" + queueCapacity + "), moving task from main thread to overflow");
+                    overflow.execute(r);
+                    return;
+                }
+                Log.w(TAG, "Lane " + name + " queue full (" + queueCapacity + "), running on caller thread");
+                if (!pool.isShutdown()) r.run();
+            };
+            executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), factory, onFull) {
+                @Override
+                public void execute(@NonNull Runnable command) {
+                    super.execute(command);
+                    int depth = getQueue().size();
+                    int max = maxQueueDepth.get();
+                    while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+                        max = maxQueueDepth.get();
+                    }
+                }
+            };
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        void logStats() {
+            Log.d(TAG, "Lane " + name + ": queued=" + executor.getQueue().size()
+                    + ", maxQueued=" + maxQueueDepth.get()
+                    + ", active=" + executor.getActiveCount()
+                    + ", completed=" + executor.getCompletedTaskCount()
+                    + ", rejected=" + rejected.get()
+                    + ", overflowed=" + overflowed.get()
+                    + ", overflowQueued=" + overflow.getQueue().size());
+        }
+    }
+
+    private final class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private final Executor lane;
+        private Runnable active;
+
+        SerialExecutor(Executor lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull Runnable command) {
+            tasks.offer(() -> {
+                try {
+                    command.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                try {
+                    lane.execute(active);
+                } catch (RejectedExecutionException e) {
+                    // Trả task về đầu hàng đợi và thử lại sau; active giữ nguyên thì executor bị kẹt vĩnh viễn
+                    Log.w(TAG, "Serial task rejected, retrying in " + SERIAL_RETRY_MS + "ms");
+                    tasks.addFirst(active);
+                    active = null;
+                    mainHandler.postDelayed(this::retry, SERIAL_RETRY_MS);
+                }
+            }
+        }
+
+        private synchronized void retry() {
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+    }
+}
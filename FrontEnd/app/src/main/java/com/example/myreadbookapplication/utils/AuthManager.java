@@ -173,6 +173,8 @@ public class AuthManager {
         // Clear favorite_books trong app_prefs để tránh hiển thị sai icon yêu thích cho user mới
         SharedPreferences appPrefs = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE);
         appPrefs.edit().remove("favorite_books").apply();
+        // Trạng thái màn hình đọc (chương, vị trí) của user vừa đăng xuất
+        HotBookCache.getInstance(context).clear();
         
         Log.d("AuthManager", "User logged out, all data cleared including favorites");
     }
@@ -0,0 +1,294 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.myreadbookapplication.model.ApiResponse;
+import com.example.myreadbookapplication.model.Book;
+import com.example.myreadbookapplication.model.BooksResponse;
+import com.example.myreadbookapplication.network.RetrofitClient;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Cache sách cục bộ (bộ nhớ LRU + file JSON trong filesDir).
+ * Các màn hình đã tải sách thì ghi vào đây; khi cần chi tiết sách theo ID (favorites...)
+ * sẽ lấy từ cache trước, chỉ gọi getBooksByIds cho những ID còn thiếu, theo từng batch.
+ */
+public class BookCache {
+    private static final String TAG = "BookCache";
+    private static final String FILE_NAME = "book_cache.json";
+    private static final int MAX_ENTRIES = 500;
+    private static final long TTL_MS = 24 * 60 * 60 * 1000L;
+    public static final int HYDRATE_BATCH_SIZE = 50;
+
+    public interface HydrateCallback {
+        /**
+         * @param books    sách theo đúng thứ tự ID yêu cầu (bỏ qua ID không còn tồn tại)
+         * @param complete false nếu có batch bị lỗi mạng/server
+         */
+        void onHydrated(List<Book> books, boolean complete);
+    }
+
+    /**
+     * Báo khi có sách được thêm/cập nhật vào cache (vd. để cập nhật index tìm kiếm).
+     * Có thể được gọi từ thread đọc file, không phải main thread.
+     */
+    public interface OnBooksChangedListener {
+        void onBooksChanged(List<Book> books);
+    }
+
+    private static class Entry {
+        Book book;
+        long cachedAt;
+
+        Entry(Book book, long cachedAt) {
+            this.book = book;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+    private static BookCache instance;
+
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LinkedHashMap<String, Entry> entries =
+            new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+    private final List<OnBooksChangedListener> listeners = new CopyOnWriteArrayList<>();
+    private boolean persistScheduled = false;
+
+    private BookCache(Context context) {
+        this.file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        diskExecutor.execute(this::loadFromDisk);
+    }
+
+    public static synchronized BookCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new BookCache(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Lấy sách theo ID, null nếu chưa có hoặc đã quá hạn
+     */
+    public Book get(String id) {
+        if (id == null) return null;
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry == null) return null;
+            if (System.currentTimeMillis() - entry.cachedAt > TTL_MS) {
+                entries.remove(id);
+                return null;
+            }
+            return entry.book;
+        }
+    }
+
+    public void put(Book book) {
+        if (book == null || book.getId() == null) return;
+        synchronized (entries) {
+            entries.put(book.getId(), new Entry(book, System.currentTimeMillis()));
+        }
+        schedulePersist();
+        notifyChanged(Collections.singletonList(book));
+    }
+
+    public void putAll(List<Book> books) {
+        if (books == null || books.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            for (Book book : books) {
+                if (book != null && book.getId() != null) {
+                    entries.put(book.getId(), new Entry(book, now));
+                }
+            }
+        }
+        schedulePersist();
+        notifyChanged(books);
+    }
+
+    /**
+     * Tất cả sách còn hạn trong cache
+     */
+    public List<Book> getAll() {
+        List<Book> books = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                if (now - entry.cachedAt <= TTL_MS) books.add(entry.book);
+            }
+        }
+        return books;
+    }
+
+    public void addOnBooksChangedListener(OnBooksChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeOnBooksChangedListener(OnBooksChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyChanged(List<Book> books) {
+        for (OnBooksChangedListener listener : listeners) {
+            listener.onBooksChanged(books);
+        }
+    }
+
+    /**
+     * Lấy chi tiết sách cho danh sách ID: phục vụ từ cache, phần thiếu gọi getBooksByIds theo batch.
+     * Callback luôn chạy trên main thread.
+     */
+    public void hydrate(List<String> ids, HydrateCallback callback) {
+        if (ids == null || ids.isEmpty()) {
+            callback.onHydrated(new ArrayList<>(), true);
+            return;
+        }
+        Map<String, Book> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Book cached = get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else if (!missing.contains(id)) {
+                missing.add(id);
+            }
+        }
+        Log.d(TAG, "Hydrate " + ids.size() + " ids, cache hit " + found.size() + ", missing " + missing.size());
+        if (missing.isEmpty()) {
+            callback.onHydrated(ordered(ids, found), true);
+            return;
+        }
+
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i += HYDRATE_BATCH_SIZE) {
+            batches.add(missing.subList(i, Math.min(i + HYDRATE_BATCH_SIZE, missing.size())));
+        }
+        final int[] pending = {batches.size()};
+        final boolean[] complete = {true};
+        for (List<String> batch : batches) {
+            RetrofitClient.getApiService()
+                    .getBooksByIds(String.join(",", batch), "active", batch.size(), 1)
+                    .enqueue(new Callback<ApiResponse<BooksResponse>>() {
+                        @Override
+                        public void onResponse(Call<ApiResponse<BooksResponse>> call, Response<ApiResponse<BooksResponse>> response) {
+                            if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                                    && response.body().getData() != null) {
+                                List<Book> books = response.body().getData().getBooks();
+                                putAll(books);
+                                if (books != null) {
+                                    for (Book book : books) {
+                                        if (book != null && book.getId() != null) found.put(book.getId(), book);
+                                    }
+                                }
+                            } else {
+                                Log.w(TAG, "Hydrate batch failed: " + response.code());
+                                complete[0] = false;
+                            }
+                            if (--pending[0] == 0) callback.onHydrated(ordered(ids, found), complete[0]);
+                        }
+
+                        @Override
+                        public void onFailure(Call<ApiResponse<BooksResponse>> call, Throwable t) {
+                            Log.w(TAG, "Hydrate batch failure: " + t.getMessage());
+                            complete[0] = false;
+                            if (--pending[0] == 0) callback.onHydrated(ordered(ids, found), complete[0]);
+                        }
+                    });
+        }
+    }
+
+    private List<Book> ordered(List<String> ids, Map<String, Book> found) {
+        List<Book> result = new ArrayList<>();
+        for (String id : ids) {
+            Book book = found.get(id);
+            if (book != null) result.add(book);
+        }
+        return result;
+    }
+
+    private void schedulePersist() {
+        synchronized (entries) {
+            if (persistScheduled) return;
+            persistScheduled = true;
+        }
+        // Gộp nhiều lần put liên tiếp thành một lần ghi file
+        mainHandler.postDelayed(() -> diskExecutor.execute(this::writeToDisk), 2000);
+    }
+
+    private void loadFromDisk() {
+        if (!file.exists()) return;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            Type type = new TypeToken<List<Entry>>(){}.getType();
+            List<Entry> stored = gson.fromJson(reader, type);
+            if (stored == null) return;
+            long now = System.currentTimeMillis();
+            List<Book> loaded = new ArrayList<>();
+            synchronized (entries) {
+                for (Entry entry : stored) {
+                    if (entry == null || entry.book == null || entry.book.getId() == null) continue;
+                    if (now - entry.cachedAt > TTL_MS) continue;
+                    // Không ghi đè dữ liệu mới hơn đã put trong lúc đang đọc file
+                    if (!entries.containsKey(entry.book.getId())) {
+                        entries.put(entry.book.getId(), entry);
+                        loaded.add(entry.book);
+                    }
+                }
+            }
+            Log.d(TAG, "Loaded " + stored.size() + " books from disk");
+            if (!loaded.isEmpty()) notifyChanged(loaded);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to load book cache: " + e.getMessage());
+        }
+    }
+
+    private void writeToDisk() {
+        List<Entry> snapshot;
+        synchronized (entries) {
+            persistScheduled = false;
+            snapshot = new ArrayList<>(entries.values());
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            gson.toJson(snapshot, writer);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write book cache: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace book cache file");
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Độ dài (số từ) của từng chương theo sách, để tính tiến độ đọc trên cả cuốn sách ("đã đọc 43%")
+ * và thời gian đọc còn lại.
+ * Không tải trước toàn bộ chương: số từ được ghi lại dần khi chương được mở / render sẵn
+ * (ChapterHtmlProcessor đã đếm), chương chưa biết độ dài thì ước lượng bằng trung bình các chương đã biết.
+ * Tổng cộng dồn được tính lại một lần khi có số liệu mới, mỗi lần hỏi tiến độ là O(1).
+ * Chỉ dùng trên main thread (ghi file trên lane io).
+ */
+public class BookLengthIndex {
+    private static final String TAG = "BookLengthIndex";
+    private static final String FILE_NAME = "book_lengths.json";
+    private static final int MAX_BOOKS = 100;
+    // Chưa biết chương nào thì coi mỗi chương dài chừng này
+    private static final int DEFAULT_CHAPTER_WORDS = 3000;
+    private static final int WORDS_PER_MINUTE = 200;
+    private static final long SAVE_DELAY_MS = 3000;
+
+    /**
+     * Tiến độ trên cả cuốn sách tại một vị trí
+     */
+    public static class Progress {
+        public final float percent;
+        public final int wordsRemaining;
+        public final int minutesRemaining;
+        // Còn chương chưa biết độ dài (số liệu là ước lượng)
+        public final boolean estimated;
+
+        Progress(float percent, int wordsRemaining, int minutesRemaining, boolean estimated) {
+            this.percent = percent;
+            this.wordsRemaining = wordsRemaining;
+            this.minutesRemaining = minutesRemaining;
+            this.estimated = estimated;
+        }
+    }
+
+    /**
+     * Dữ liệu lưu của một cuốn sách: thứ tự chương và số từ đã biết
+     */
+    private static class BookLengths {
+        List<String> chapterIds = new ArrayList<>();
+        Map<String, Integer> words = new HashMap<>();
+        long updatedAt;
+
+        // Không lưu: chapterId -> vị trí, tổng cộng dồn trước mỗi chương, tổng cả sách
+        transient Map<String, Integer> positions;
+        transient long[] prefix;
+        transient long total;
+        transient boolean estimated;
+    }
+
+    private static BookLengthIndex instance;
+
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LinkedHashMap<String, BookLengths> books = new LinkedHashMap<String, BookLengths>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BookLengths> eldest) {
+            return size() > MAX_BOOKS;
+        }
+    };
+    private boolean loaded = false;
+    // Có thay đổi trước khi đọc xong file: ghi sau khi gộp
+    private boolean dirty = false;
+    private boolean saveScheduled = false;
+
+    private BookLengthIndex(Context context) {
+        this.file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        // Đọc file trên lane io; kết quả gộp vào books trên main
+        AppExecutors.getInstance().runOnIo(this::readFromDisk, this::onLoaded);
+    }
+
+    public static synchronized BookLengthIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new BookLengthIndex(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Thứ tự chương của sách (gọi khi danh sách chương tải xong); giữ lại số từ đã biết
+     */
+    public void setChapterOrder(String bookKey, List<String> chapterIds) {
+        if (bookKey == null || chapterIds == null || chapterIds.isEmpty()) return;
+        BookLengths book = getOrCreate(bookKey);
+        if (book.chapterIds.equals(chapterIds)) return;
+        book.chapterIds = new ArrayList<>(chapterIds);
+        book.prefix = null;
+        book.updatedAt = System.currentTimeMillis();
+        scheduleSave();
+    }
+
+    /**
+     * Ghi số từ của một chương (lấy từ ChapterHtmlProcessor khi chương được xử lý)
+     */
+    public void recordChapterLength(String bookKey, String chapterId, int wordCount) {
+        if (bookKey == null || chapterId == null || wordCount <= 0) return;
+        BookLengths book = getOrCreate(bookKey);
+        Integer old = book.words.put(chapterId, wordCount);
+        if (old != null && old == wordCount) return;
+        book.prefix = null;
+        book.updatedAt = System.currentTimeMillis();
+        scheduleSave();
+    }
+
+    /**
+     * Tiến độ khi đang ở chapterId, đã đọc fractionInChapter (0..1) của chương đó. Null nếu chưa biết thứ tự chương.
+     */
+    public Progress getProgress(String bookKey, String chapterId, float fractionInChapter) {
+        BookLengths book = bookKey != null ? books.get(bookKey) : null;
+        if (book == null || book.chapterIds.isEmpty() || chapterId == null) return null;
+        ensurePrefix(book);
+        Integer position = book.positions.get(chapterId);
+        if (position == null || book.total <= 0) return null;
+        float fraction = Math.max(0f, Math.min(1f, fractionInChapter));
+        long chapterWords = book.prefix[position + 1] - book.prefix[position];
+        long read = book.prefix[position] + Math.round(chapterWords * fraction);
+        long remaining = Math.max(0, book.total - read);
+        int minutes = (int) Math.ceil((double) remaining / WORDS_PER_MINUTE);
+        return new Progress(100f * read / book.total, (int) Math.min(Integer.MAX_VALUE, remaining), minutes, book.estimated);
+    }
+
+    private BookLengths getOrCreate(String bookKey) {
+        BookLengths book = books.get(bookKey);
+        if (book == null) {
+            book = new BookLengths();
+            books.put(bookKey, book);
+        }
+        return book;
+    }
+
+    /**
+     * Tính lại tổng cộng dồn (O(số chương)) khi thứ tự chương / số từ vừa thay đổi
+     */
+    private static void ensurePrefix(BookLengths book) {
+        if (book.prefix != null) return;
+        int n = book.chapterIds.size();
+        long knownSum = 0;
+        int knownCount = 0;
+        book.positions = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            String id = book.chapterIds.get(i);
+            if (!book.positions.containsKey(id)) book.positions.put(id, i);
+            Integer w = book.words.get(id);
+            if (w != null) {
+                knownSum += w;
+                knownCount++;
+            }
+        }
+        long estimate = knownCount > 0 ? knownSum / knownCount : DEFAULT_CHAPTER_WORDS;
+        book.prefix = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            Integer w = book.words.get(book.chapterIds.get(i));
+            book.prefix[i + 1] = book.prefix[i] + (w != null ? w : estimate);
+        }
+        book.total = book.prefix[n];
+        book.estimated = knownCount < n;
+    }
+
+    private void scheduleSave() {
+        dirty = true;
+        if (!loaded || saveScheduled) return;
+        saveScheduled = true;
+        // Gom nhiều lần ghi liên tiếp (mở chương + render sẵn chương sau) thành một
+        mainHandler.postDelayed(() -> {
+            saveScheduled = false;
+            dirty = false;
+            String json = gson.toJson(new LinkedHashMap<>(books));
+            diskExecutor.execute(() -> writeToDisk(json));
+        }, SAVE_DELAY_MS);
+    }
+
+    private void onLoaded(Map<String, BookLengths> saved) {
+        if (saved != null) {
+            for (Map.Entry<String, BookLengths> e : saved.entrySet()) {
+                BookLengths current = books.get(e.getKey());
+                BookLengths stored = e.getValue();
+                if (stored == null) continue;
+                if (stored.chapterIds == null) stored.chapterIds = new ArrayList<>();
+                if (stored.words == null) stored.words = new HashMap<>();
+                if (current == null) {
+                    books.put(e.getKey(), stored);
+                } else {
+                    // Số liệu ghi trong lúc đang đọc file được ưu tiên
+                    for (Map.Entry<String, Integer> w : stored.words.entrySet()) {
+                        if (!current.words.containsKey(w.getKey())) current.words.put(w.getKey(), w.getValue());
+                    }
+                    if (current.chapterIds.isEmpty()) current.chapterIds = stored.chapterIds;
+                    current.prefix = null;
+                }
+            }
+        }
+        loaded = true;
+        if (dirty) scheduleSave();
+    }
+
+    private Map<String, BookLengths> readFromDisk() {
+        if (!file.exists()) return null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, new TypeToken<LinkedHashMap<String, BookLengths>>() {}.getType());
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read book lengths: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String json) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write book lengths: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace book lengths file");
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.myreadbookapplication.model.ApiResponse;
+import com.example.myreadbookapplication.network.RetrofitClient;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Lưu bookmark theo kiểu "ghi máy trước, gửi server sau": màn hình đọc ghi bookmark vào file rồi đóng ngay,
+ * không chờ request saveBookmark.
+ * - Mỗi sách chỉ giữ bookmark mới nhất chưa gửi (ghi đè bản cũ), nhiều lần pause / thoát liên tiếp gộp thành một request
+ * - Gửi lần lượt từng sách; lỗi mạng / 5xx thì thử lại với thời gian chờ tăng dần, bị server từ chối (4xx) thì bỏ
+ * - Bookmark đang chờ vẫn còn sau khi process bị kill, được gửi ở lần mở app tiếp theo (StartupOrchestrator)
+ * Chỉ dùng trên main thread (ghi file trên lane io).
+ */
+public class BookmarkSyncManager {
+    private static final String TAG = "BookmarkSyncManager";
+    private static final String FILE_NAME = "pending_bookmarks.json";
+    // Chờ một chút trước khi gửi để gộp pause + thoát thành một request
+    private static final long SYNC_DELAY_MS = 2000;
+    private static final long RETRY_MIN_MS = 5000;
+    private static final long RETRY_MAX_MS = 5 * 60 * 1000L;
+    private static final int MAX_PENDING = 200;
+
+    /**
+     * Bookmark chưa gửi lên server của một sách
+     */
+    public static class Pending {
+        public String userId;
+        public String bookId;
+        public String chapterId;
+        public Float progress;
+        public long updatedAt;
+    }
+
+    private static class Store {
+        // userId|bookId -> bookmark mới nhất chưa gửi, cũ nhất trước
+        LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    }
+
+    private static BookmarkSyncManager instance;
+
+    private final Context context;
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // userId|bookId -> "chapterId|progress" đã được server xác nhận trong process này (bỏ qua lần lưu trùng)
+    private final Map<String, String> delivered = new HashMap<>();
+    private final Store store;
+    private boolean syncing = false;
+    private long retryDelayMs = RETRY_MIN_MS;
+    private final Runnable syncRunnable = this::syncPending;
+
+    private BookmarkSyncManager(Context context) {
+        this.context = context.getApplicationContext();
+        this.file = new File(this.context.getFilesDir(), FILE_NAME);
+        this.store = loadStore();
+    }
+
+    public static synchronized BookmarkSyncManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new BookmarkSyncManager(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Ghi bookmark của user hiện tại vào máy (và lịch sử cục bộ), lên lịch gửi server.
+     * Trả về ngay, không phụ thuộc mạng.
+     */
+    public void saveBookmark(String bookId, String chapterId, Float progress,
+                             String title, String author, String coverUrl) {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (userId == null || bookId == null || chapterId == null) return;
+        String key = userId + "|" + bookId;
+        String value = chapterId + "|" + progress;
+
+        Pending existing = store.pending.get(key);
+        if (existing == null && value.equals(delivered.get(key))) return;
+        if (existing != null && chapterId.equals(existing.chapterId)
+                && (progress == null ? existing.progress == null : progress.equals(existing.progress))) {
+            return;
+        }
+
+        Pending p = new Pending();
+        p.userId = userId;
+        p.bookId = bookId;
+        p.chapterId = chapterId;
+        p.progress = progress;
+        p.updatedAt = System.currentTimeMillis();
+        // Đưa xuống cuối (mới nhất), bản cũ của cùng sách bị thay thế
+        store.pending.remove(key);
+        store.pending.put(key, p);
+        while (store.pending.size() > MAX_PENDING) {
+            store.pending.remove(store.pending.keySet().iterator().next());
+        }
+        persistAsync();
+
+        // Cập nhật lịch sử cục bộ ngay, HistoryActivity không cần chờ server
+        HistoryStore.getInstance(context).onBookmarkSaved(bookId, chapterId, title, author, coverUrl);
+        scheduleSync(SYNC_DELAY_MS);
+    }
+
+    /**
+     * Bookmark chưa gửi của sách (user hiện tại), null nếu không có. Bản này mới hơn bản trên server.
+     */
+    public Pending getPending(String bookId) {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (userId == null || bookId == null) return null;
+        return store.pending.get(userId + "|" + bookId);
+    }
+
+    /**
+     * Gửi các bookmark đang chờ của user hiện tại, từng sách một
+     */
+    public void syncPending() {
+        mainHandler.removeCallbacks(syncRunnable);
+        AuthManager authManager = AuthManager.getInstance(context);
+        String userId = authManager.getUserId();
+        String token = authManager.getAccessToken();
+        if (syncing || userId == null || token == null || token.isEmpty()) return;
+
+        Pending next = null;
+        for (Pending p : store.pending.values()) {
+            if (userId.equals(p.userId)) {
+                next = p;
+                break;
+            }
+        }
+        if (next == null) return;
+
+        final Pending sent = next;
+        final String key = userId + "|" + sent.bookId;
+        syncing = true;
+        RetrofitClient.getApiService().saveBookmark(userId, sent.bookId, sent.chapterId, sent.progress, "Bearer " + token)
+                .enqueue(new Callback<ApiResponse>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse> call, Response<ApiResponse> response) {
+                        syncing = false;
+                        if (response.isSuccessful()) {
+                            UserStatsManager.getInstance(context).onBookmarkSaved(sent.bookId);
+                            delivered.put(key, sent.chapterId + "|" + sent.progress);
+                            onDelivered(key, sent);
+                        } else if (response.code() >= 400 && response.code() < 500 && response.code() != 401) {
+                            // Bị server từ chối: bỏ để không retry mãi
+                            Log.w(TAG, "Bookmark rejected: " + response.code());
+                            onDelivered(key, sent);
+                        } else {
+                            Log.w(TAG, "Bookmark sync failed: " + response.code());
+                            scheduleRetry();
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<ApiResponse> call, Throwable t) {
+                        syncing = false;
+                        Log.w(TAG, "Bookmark sync failure: " + t.getMessage());
+                        scheduleRetry();
+                    }
+                });
+    }
+
+    /**
+     * Bỏ bookmark đã gửi khỏi hàng chờ, trừ khi đã có bản mới hơn được ghi trong lúc gửi; gửi tiếp sách sau
+     */
+    private void onDelivered(String key, Pending sent) {
+        Pending current = store.pending.get(key);
+        if (current != null && current.updatedAt == sent.updatedAt) {
+            store.pending.remove(key);
+            persistAsync();
+        }
+        retryDelayMs = RETRY_MIN_MS;
+        if (!store.pending.isEmpty()) syncPending();
+    }
+
+    private void scheduleSync(long delayMs) {
+        if (syncing) return; // bản mới sẽ được gửi sau request đang chạy
+        mainHandler.removeCallbacks(syncRunnable);
+        mainHandler.postDelayed(syncRunnable, delayMs);
+    }
+
+    private void scheduleRetry() {
+        long delay = retryDelayMs;
+        retryDelayMs = Math.min(retryDelayMs * 2, RETRY_MAX_MS);
+        mainHandler.removeCallbacks(syncRunnable);
+        mainHandler.postDelayed(syncRunnable, delay);
+    }
+
+    private Store loadStore() {
+        if (file.exists()) {
+            // File nhỏ (giới hạn MAX_PENDING), chỉ đọc 1 lần khi khởi tạo
+            try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                Store loaded = gson.fromJson(reader, Store.class);
+                if (loaded != null && loaded.pending != null) return loaded;
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to load pending bookmarks: " + e.getMessage());
+            }
+        }
+        return new Store();
+    }
+
+    private void persistAsync() {
+        final String json = gson.toJson(store);
+        diskExecutor.execute(() -> {
+            File tmp = new File(file.getPath() + ".tmp");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+                writer.write(json);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to write pending bookmarks: " + e.getMessage());
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                Log.w(TAG, "Failed to replace pending bookmarks file");
+            }
+        });
+    }
+}
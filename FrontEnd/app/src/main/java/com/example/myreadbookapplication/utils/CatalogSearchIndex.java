@@ -0,0 +1,251 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+
+import com.example.myreadbookapplication.model.Book;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index trên thiết bị cho các sách trong BookCache (title, author, keywords, description).
+ * - Chuẩn hóa bỏ dấu tiếng Việt ("Đắc Nhân Tâm" -> "dac nhan tam") nên gõ có dấu hay không đều khớp
+ * - Mỗi từ trong query khớp theo tiền tố (typeahead), tất cả các từ đều phải khớp
+ * - Điểm xếp hạng theo trường khớp (title > author > keywords > description), khớp trọn từ cao hơn khớp tiền tố
+ * Index tự cập nhật khi BookCache có sách mới, SearchActivity chỉ gọi server khi index không có kết quả.
+ * Lần xây đầu tiên (toàn bộ BookCache) chạy trên lane compute rồi mới được dùng; trong lúc đó search() trả
+ * list rỗng (SearchActivity gọi server như khi không khớp) và sách mới được giữ lại để thêm sau khi xây xong.
+ */
+public class CatalogSearchIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+
+    private static final float WEIGHT_TITLE = 3f;
+    private static final float WEIGHT_AUTHOR = 2f;
+    private static final float WEIGHT_KEYWORD = 1.5f;
+    private static final float WEIGHT_DESCRIPTION = 0.5f;
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float TITLE_PREFIX_BONUS = 5f;
+    // Description có thể rất dài, chỉ index phần đầu
+    private static final int MAX_DESCRIPTION_TOKENS = 80;
+
+    private static CatalogSearchIndex instance;
+
+    // null cho tới khi lần xây đầu tiên trên lane compute xong
+    private Index index;
+    // Thay đổi nhận được trong lúc đang xây: áp dụng vào index mới trước khi dùng
+    private List<Book> pendingUpdates = new ArrayList<>();
+    private Set<String> pendingRemovals = new HashSet<>();
+
+    private CatalogSearchIndex(Context context) {
+        BookCache bookCache = BookCache.getInstance(context);
+        bookCache.addOnBooksChangedListener(this::addOrUpdate);
+        AppExecutors.getInstance().runOnCompute(() -> {
+            Index built = new Index();
+            built.addOrUpdate(bookCache.getAll());
+            return built;
+        }, this::swapIn);
+    }
+
+    public static synchronized CatalogSearchIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new CatalogSearchIndex(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt, về chữ thường ("Hà Nội" -> "ha noi"); đ/Đ không tách được bằng NFD nên đổi riêng
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(normalize(text))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Thêm hoặc cập nhật sách vào index (xóa term cũ của sách trước khi thêm lại)
+     */
+    public synchronized void addOrUpdate(List<Book> updated) {
+        if (updated == null) return;
+        if (index == null) {
+            for (Book book : updated) {
+                if (book != null) pendingRemovals.remove(book.getId());
+            }
+            pendingUpdates.addAll(updated);
+            return;
+        }
+        index.addOrUpdate(updated);
+    }
+
+    public synchronized void remove(String bookId) {
+        if (index == null) {
+            pendingRemovals.add(bookId);
+            return;
+        }
+        index.removeInternal(bookId);
+    }
+
+    public synchronized int size() {
+        return index != null ? index.books.size() : 0;
+    }
+
+    /**
+     * Index đã xây xong chưa (chưa xong thì search() luôn trả list rỗng)
+     */
+    public synchronized boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * Tìm sách khớp query, sắp xếp theo điểm giảm dần. Trả về list rỗng nếu không có kết quả.
+     */
+    public synchronized List<Book> search(String query, int limit) {
+        return index != null ? index.search(query, limit) : Collections.emptyList();
+    }
+
+    private synchronized void swapIn(Index built) {
+        built.addOrUpdate(pendingUpdates);
+        for (String bookId : pendingRemovals) built.removeInternal(bookId);
+        pendingUpdates = null;
+        pendingRemovals = null;
+        index = built;
+    }
+
+    /**
+     * Dữ liệu index; chỉ truy cập khi giữ lock của CatalogSearchIndex (hoặc khi chưa được công bố)
+     */
+    private static class Index {
+        // term -> (bookId -> trọng số cao nhất của term trong sách đó)
+        private final TreeMap<String, Map<String, Float>> postings = new TreeMap<>();
+        private final Map<String, Set<String>> termsByBook = new HashMap<>();
+        private final Map<String, Book> books = new HashMap<>();
+        private final Map<String, String> normalizedTitles = new HashMap<>();
+
+        void addOrUpdate(List<Book> updated) {
+            for (Book book : updated) {
+                if (book == null || book.getId() == null) continue;
+                removeInternal(book.getId());
+                if (book.getStatus() != null && !"active".equals(book.getStatus())) continue;
+
+                Map<String, Float> weights = new HashMap<>();
+                addTokens(weights, book.getTitle(), WEIGHT_TITLE, Integer.MAX_VALUE);
+                addTokens(weights, book.getAuthor(), WEIGHT_AUTHOR, Integer.MAX_VALUE);
+                if (book.getKeywords() != null) {
+                    for (String keyword : book.getKeywords()) {
+                        addTokens(weights, keyword, WEIGHT_KEYWORD, Integer.MAX_VALUE);
+                    }
+                }
+                addTokens(weights, book.getDescription(), WEIGHT_DESCRIPTION, MAX_DESCRIPTION_TOKENS);
+                if (weights.isEmpty()) continue;
+
+                String bookId = book.getId();
+                for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                    Map<String, Float> posting = postings.get(entry.getKey());
+                    if (posting == null) {
+                        posting = new HashMap<>();
+                        postings.put(entry.getKey(), posting);
+                    }
+                    posting.put(bookId, entry.getValue());
+                }
+                termsByBook.put(bookId, weights.keySet());
+                books.put(bookId, book);
+                normalizedTitles.put(bookId, String.join(" ", tokenize(book.getTitle())));
+            }
+        }
+
+        List<Book> search(String query, int limit) {
+            List<String> queryTokens = tokenize(query);
+            if (queryTokens.isEmpty() || books.isEmpty()) return Collections.emptyList();
+
+            Map<String, Float> scores = null;
+            for (String token : queryTokens) {
+                Map<String, Float> tokenScores = new HashMap<>();
+                // Tất cả term bắt đầu bằng token (kể cả chính token)
+                for (Map.Entry<String, Map<String, Float>> entry
+                        : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                    float factor = entry.getKey().length() == token.length() ? 1f : PREFIX_FACTOR;
+                    for (Map.Entry<String, Float> posting : entry.getValue().entrySet()) {
+                        float score = posting.getValue() * factor;
+                        Float best = tokenScores.get(posting.getKey());
+                        if (best == null || score > best) tokenScores.put(posting.getKey(), score);
+                    }
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // AND: chỉ giữ sách khớp mọi từ trong query
+                    Map<String, Float> merged = new HashMap<>();
+                    for (Map.Entry<String, Float> entry : scores.entrySet()) {
+                        Float tokenScore = tokenScores.get(entry.getKey());
+                        if (tokenScore != null) merged.put(entry.getKey(), entry.getValue() + tokenScore);
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) return Collections.emptyList();
+            }
+
+            String normalizedQuery = String.join(" ", queryTokens);
+            List<Map.Entry<String, Float>> ranked = new ArrayList<>();
+            for (Map.Entry<String, Float> entry : scores.entrySet()) {
+                String title = normalizedTitles.get(entry.getKey());
+                if (title != null && title.startsWith(normalizedQuery)) {
+                    entry.setValue(entry.getValue() + TITLE_PREFIX_BONUS);
+                }
+                ranked.add(entry);
+            }
+            Collections.sort(ranked, (a, b) -> {
+                int byScore = Float.compare(b.getValue(), a.getValue());
+                if (byScore != 0) return byScore;
+                return normalizedTitles.get(a.getKey()).compareTo(normalizedTitles.get(b.getKey()));
+            });
+
+            List<Book> result = new ArrayList<>();
+            for (int i = 0; i < ranked.size() && result.size() < limit; i++) {
+                result.add(books.get(ranked.get(i).getKey()));
+            }
+            return result;
+        }
+
+        private void addTokens(Map<String, Float> weights, String text, float weight, int maxTokens) {
+            if (text == null || text.isEmpty()) return;
+            List<String> tokens = tokenize(text);
+            for (int i = 0; i < tokens.size() && i < maxTokens; i++) {
+                Float current = weights.get(tokens.get(i));
+                if (current == null || weight > current) weights.put(tokens.get(i), weight);
+            }
+        }
+
+        private void removeInternal(String bookId) {
+            Set<String> terms = termsByBook.remove(bookId);
+            if (terms != null) {
+                for (String term : terms) {
+                    Map<String, Float> posting = postings.get(term);
+                    if (posting == null) continue;
+                    posting.remove(bookId);
+                    if (posting.isEmpty()) postings.remove(term);
+                }
+            }
+            books.remove(bookId);
+            normalizedTitles.remove(bookId);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.myreadbookapplication.utils;
+
+import android.util.Log;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Xử lý HTML của chương trước khi đưa vào WebView (gọi trên lane compute): bỏ script / thuộc tính on*,
+ * ghép sẵn style cỡ chữ + dark mode và lazy-load cho ảnh, đếm số từ và lấy danh sách id anchor.
+ * Nhờ vậy lần layout đầu tiên của WebView đã là layout cuối, không phải chờ onPageFinished rồi mới
+ * áp cỡ chữ / dark mode bằng evaluateJavascript.
+ * Kết quả được cache theo chương + style; đổi cỡ chữ / dark mode / chế độ đọc theo trang thì tạo document mới.
+ */
+public class ChapterHtmlProcessor {
+    private static final String TAG = "ChapterHtmlProcessor";
+    // Tổng số ký tự document giữ trong cache (~4 MB bộ nhớ Java)
+    private static final int CACHE_MAX_CHARS = 2_000_000;
+
+    private static final Pattern SCRIPT_BLOCK = Pattern.compile(
+            "<(script|iframe|object|embed)\\b[^>]*>.*?</\\1\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern SCRIPT_SINGLE = Pattern.compile(
+            "<(script|iframe|object|embed)\\b[^>]*/?>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern EVENT_ATTR = Pattern.compile(
+            "\\s+on[a-z]+\\s*=\\s*(\"[^\"]*\"|'[^']*'|[^\\s>]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JS_URL = Pattern.compile(
+            "(href|src)\\s*=\\s*([\"'])\\s*javascript:[^\"']*\\2", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IMG_TAG = Pattern.compile("<img\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ID_ATTR = Pattern.compile(
+            "\\s(?:id|name)\\s*=\\s*[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
+    private static final Pattern STYLE_OR_HEAD = Pattern.compile(
+            "<(style|head|title)\\b[^>]*>.*?</\\1\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern ENTITY = Pattern.compile("&[#a-zA-Z0-9]+;");
+
+    /**
+     * Document đã xử lý của một chương và các số liệu đi kèm
+     */
+    public static class ProcessedChapter {
+        public final String document;
+        public final int wordCount;
+        public final List<String> anchorIds;
+        public final int fontSize;
+        public final boolean nightMode;
+        // Layout theo cột (mỗi cột một trang) thay vì cuộn dọc
+        public final boolean paged;
+
+        ProcessedChapter(String document, int wordCount, List<String> anchorIds, int fontSize, boolean nightMode,
+                         boolean paged) {
+            this.document = document;
+            this.wordCount = wordCount;
+            this.anchorIds = anchorIds;
+            this.fontSize = fontSize;
+            this.nightMode = nightMode;
+            this.paged = paged;
+        }
+
+        /**
+         * Document này đã đúng cỡ chữ / dark mode đang dùng chưa
+         */
+        public boolean matchesStyle(int fontSize, boolean nightMode) {
+            return this.fontSize == fontSize && this.nightMode == nightMode;
+        }
+    }
+
+    private static ChapterHtmlProcessor instance;
+
+    private final LruCache<String, ProcessedChapter> cache = new LruCache<String, ProcessedChapter>(CACHE_MAX_CHARS) {
+        @Override
+        protected int sizeOf(String key, ProcessedChapter value) {
+            return Math.max(1, value.document.length());
+        }
+    };
+
+    private ChapterHtmlProcessor() {}
+
+    public static synchronized ChapterHtmlProcessor getInstance() {
+        if (instance == null) {
+            instance = new ChapterHtmlProcessor();
+        }
+        return instance;
+    }
+
+    /**
+     * Lấy document của chương (từ cache nếu đã xử lý với đúng style). Chạy trên lane compute.
+     * cacheKey null thì không cache (nội dung không gắn với chương cụ thể).
+     */
+    public ProcessedChapter process(String cacheKey, String html, int fontSize, boolean nightMode, boolean paged) {
+        String key = cacheKey != null
+                ? cacheKey + "|" + fontSize + "|" + (nightMode ? 1 : 0) + "|" + (paged ? 1 : 0) : null;
+        if (key != null) {
+            ProcessedChapter cached = cache.get(key);
+            if (cached != null) return cached;
+        }
+        long start = System.currentTimeMillis();
+        String body = sanitize(html != null ? html : "");
+        List<String> anchorIds = collectAnchorIds(body);
+        int wordCount = countWords(body);
+        body = addLazyLoading(body);
+        String document = "<html><head><meta charset=\"utf-8\">" + buildStyle(fontSize, nightMode, paged)
+                + "</head><body>" + body + "</body></html>";
+        ProcessedChapter processed = new ProcessedChapter(document, wordCount, anchorIds, fontSize, nightMode, paged);
+        if (key != null) cache.put(key, processed);
+        Log.d(TAG, "Processed " + cacheKey + ": " + wordCount + " words, " + anchorIds.size()
+                + " anchors in " + (System.currentTimeMillis() - start) + "ms");
+        return processed;
+    }
+
+    public void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * Style của màn hình đọc, khớp với applyNightMode / updateWebViewFontSize của ReadBookActivity
+     */
+    private static String buildStyle(int fontSize, boolean nightMode, boolean paged) {
+        String colors = nightMode
+                ? "background-color:#1E1E1E !important; color:#FFFFFF !important;"
+                : "background-color:#FFFFFF; color:#000000;";
+        String style = "body{padding:16px; line-height:1.6; font-size:" + fontSize + "px; " + colors + "}"
+                + " img{max-width:100%; height:auto;}";
+        if (paged) {
+            // Mỗi cột rộng đúng bằng màn hình trừ padding, gap = 2 lần padding: trang i nằm ở scrollX = i * innerWidth.
+            // html không cuộn bằng tay; lật trang bằng window.scrollTo nên không phải layout lại.
+            style += " html{height:100%; overflow:hidden;}"
+                    + " body{margin:0; box-sizing:border-box; height:100vh; column-width:calc(100vw - 32px);"
+                    + " column-gap:32px; column-fill:auto; overflow-wrap:break-word;}"
+                    + " img{max-height:calc(100vh - 48px); break-inside:avoid;}";
+        }
+        return "<style> " + style + " </style>";
+    }
+
+    private static String sanitize(String html) {
+        String result = SCRIPT_BLOCK.matcher(html).replaceAll("");
+        result = SCRIPT_SINGLE.matcher(result).replaceAll("");
+        result = EVENT_ATTR.matcher(result).replaceAll("");
+        return JS_URL.matcher(result).replaceAll("$1=\"#\"");
+    }
+
+    /**
+     * Thêm loading="lazy" / decoding="async" cho ảnh chưa có, để ảnh ngoài màn hình không chặn lần render đầu
+     */
+    private static String addLazyLoading(String html) {
+        Matcher m = IMG_TAG.matcher(html);
+        StringBuffer sb = new StringBuffer(html.length() + 64);
+        while (m.find()) {
+            String attrs = m.group(1);
+            String lower = attrs.toLowerCase();
+            StringBuilder tag = new StringBuilder("<img");
+            if (!lower.contains("loading=")) tag.append(" loading=\"lazy\"");
+            if (!lower.contains("decoding=")) tag.append(" decoding=\"async\"");
+            tag.append(attrs).append('>');
+            m.appendReplacement(sb, Matcher.quoteReplacement(tag.toString()));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static List<String> collectAnchorIds(String html) {
+        Set<String> ids = new LinkedHashSet<>();
+        Matcher m = ID_ATTR.matcher(html);
+        while (m.find()) {
+            ids.add(m.group(1).trim());
+        }
+        return ids.isEmpty() ? Collections.emptyList() : new ArrayList<>(ids);
+    }
+
+    /**
+     * Đếm từ trên phần chữ hiển thị (bỏ tag, style, entity)
+     */
+    static int countWords(String html) {
+        String text = STYLE_OR_HEAD.matcher(html).replaceAll(" ");
+        text = HTML_TAG.matcher(text).replaceAll(" ");
+        text = ENTITY.matcher(text).replaceAll(" ");
+        int count = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            // Dấu tiếng Việt dạng tổ hợp (NFD) vẫn thuộc cùng một từ
+            if (Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK) {
+                if (!inWord) {
+                    count++;
+                    inWord = true;
+                }
+            } else if (c != '\'' && c != '’') {
+                inWord = false;
+            }
+        }
+        return count;
+    }
+}
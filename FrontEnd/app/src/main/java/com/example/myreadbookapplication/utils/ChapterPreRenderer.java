@@ -0,0 +1,184 @@
+package com.example.myreadbookapplication.utils;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+import android.widget.FrameLayout;
+
+import com.example.myreadbookapplication.BuildConfig;
+
+/**
+ * WebView thứ hai nằm ẩn sau WebView đang đọc (double buffer) của ReadBookActivity: render sẵn chương
+ * kế tiếp (document từ ChapterHtmlProcessor, đã có cỡ chữ + dark mode) để khi bấm "chương sau" chỉ cần
+ * đổi chỗ 2 WebView, không phải chờ loadDataWithBaseURL parse + layout lại.
+ * Tốn thêm một renderer nên chỉ bật khi máy đủ RAM (isSupported), bỏ qua chương quá dài và tự tắt khi
+ * hệ thống báo thiếu bộ nhớ. Chỉ dùng trên main thread.
+ */
+public class ChapterPreRenderer {
+    private static final String TAG = "ChapterPreRenderer";
+    public static final String PREF_ENABLED = "reader_prerender";
+    // Máy dưới 3 GB RAM không giữ thêm WebView
+    private static final long MIN_TOTAL_MEM_BYTES = 3L * 1024 * 1024 * 1024;
+    // Document dài hơn thế này (ký tự) thì DOM quá lớn để giữ song song với chương đang đọc
+    private static final int MAX_DOCUMENT_CHARS = 400_000;
+
+    /**
+     * Activity cung cấp phần xử lý riêng của màn hình đọc cho WebView ẩn
+     */
+    public interface Host {
+        // Ảnh/CSS của chương (chạy trên thread của WebView)
+        WebResourceResponse interceptRequest(WebResourceRequest request);
+    }
+
+    private final Activity activity;
+    private final ViewGroup container;
+    private final Host host;
+    private WebView backView;
+    private String loadingChapterId;
+    private String readyChapterId;
+    private boolean disabled = false;
+    private int swaps = 0;
+
+    private final WebViewClient backClient = new WebViewClient() {
+        @Override
+        public boolean shouldOverrideUrlLoading(WebView view, WebResourceRequest request) {
+            // WebView ẩn không điều hướng; link chỉ xử lý khi chương đã được đổi ra trước
+            return true;
+        }
+
+        @Override
+        public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+            WebResourceResponse response = host.interceptRequest(request);
+            return response != null ? response : super.shouldInterceptRequest(view, request);
+        }
+
+        @Override
+        public void onPageFinished(WebView view, String url) {
+            super.onPageFinished(view, url);
+            if (view != backView || loadingChapterId == null) return;
+            // Sau khi đổi ra trước, nút Back không được quay về trang cũ của WebView này
+            view.clearHistory();
+            readyChapterId = loadingChapterId;
+            loadingChapterId = null;
+            Log.d(TAG, "Pre-rendered chapter " + readyChapterId);
+        }
+    };
+
+    public ChapterPreRenderer(Activity activity, ViewGroup container, Host host) {
+        this.activity = activity;
+        this.container = container;
+        this.host = host;
+    }
+
+    /**
+     * Có nên bật double buffer trên máy này không (cờ PREF_ENABLED, mặc định bật, và đủ RAM)
+     */
+    public static boolean isSupported(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(PREF_ENABLED, true)) return false;
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am == null || am.isLowRamDevice()) return false;
+        ActivityManager.MemoryInfo info = new ActivityManager.MemoryInfo();
+        am.getMemoryInfo(info);
+        return !info.lowMemory && info.totalMem >= MIN_TOTAL_MEM_BYTES;
+    }
+
+    /**
+     * Render sẵn document của chapterId vào WebView ẩn (bỏ qua nếu đã render / đang render chương đó)
+     */
+    public void prerender(String chapterId, String document) {
+        if (disabled || chapterId == null || document == null) return;
+        if (chapterId.equals(readyChapterId) || chapterId.equals(loadingChapterId)) return;
+        if (document.length() > MAX_DOCUMENT_CHARS) {
+            Log.d(TAG, "Skip pre-render of " + chapterId + ": " + document.length() + " chars");
+            return;
+        }
+        if (backView == null) {
+            backView = WebViewPool.getInstance().acquire(activity);
+            attachBehind(backView);
+        }
+        readyChapterId = null;
+        loadingChapterId = chapterId;
+        backView.setWebViewClient(backClient);
+        backView.loadDataWithBaseURL(BuildConfig.BASE_URL, document, "text/html", "utf-8", null);
+    }
+
+    /**
+     * Bỏ chương đã render sẵn (document cũ không còn đúng, vd đổi chế độ đọc); lần prerender sau render lại
+     */
+    public void invalidate() {
+        readyChapterId = null;
+        loadingChapterId = null;
+    }
+
+    public boolean isReady(String chapterId) {
+        return !disabled && backView != null && chapterId != null && chapterId.equals(readyChapterId);
+    }
+
+    /**
+     * Đưa WebView đã render chapterId ra trước, WebView đang đọc (front) lùi ra sau làm buffer cho lần sau.
+     * Trả về WebView mới đang hiển thị; Activity tự gắn lại WebViewClient/listener của mình cho nó.
+     */
+    public WebView swapIn(String chapterId, WebView front) {
+        if (!isReady(chapterId)) return front;
+        WebView shown = backView;
+        shown.scrollTo(0, 0);
+        shown.setVisibility(View.VISIBLE);
+        shown.bringToFront();
+
+        front.stopLoading();
+        front.setOnScrollChangeListener(null);
+        front.setWebViewClient(backClient);
+        front.setVisibility(View.INVISIBLE);
+        backView = front;
+        readyChapterId = null;
+        loadingChapterId = null;
+        swaps++;
+        Log.d(TAG, "Swapped in chapter " + chapterId + " (swaps=" + swaps + ")");
+        return shown;
+    }
+
+    /**
+     * Gọi từ onTrimMemory của Activity: thiếu bộ nhớ thì bỏ WebView ẩn và tắt cho tới khi thoát màn hình
+     */
+    public void onTrimMemory(int level) {
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) return;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && !disabled) {
+            Log.d(TAG, "Disabled under memory pressure (level " + level + ")");
+            disabled = true;
+            releaseBackView();
+        }
+    }
+
+    /**
+     * Trả WebView ẩn về WebViewPool (onDestroy)
+     */
+    public void release() {
+        releaseBackView();
+    }
+
+    private void releaseBackView() {
+        readyChapterId = null;
+        loadingChapterId = null;
+        if (backView != null) {
+            WebViewPool.getInstance().release(backView);
+            backView = null;
+        }
+    }
+
+    private void attachBehind(WebView view) {
+        // INVISIBLE (không phải GONE) để WebView vẫn được layout đúng kích thước màn hình đọc
+        view.setVisibility(View.INVISIBLE);
+        container.addView(view, 0, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    }
+}
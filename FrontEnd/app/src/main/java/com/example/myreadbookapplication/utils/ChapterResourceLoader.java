@@ -0,0 +1,311 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import com.example.myreadbookapplication.BuildConfig;
+import com.example.myreadbookapplication.network.RetrofitClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Tải ảnh/CSS/font của chương EPUB cho WebView qua OkHttp của app (WebViewClient.shouldInterceptRequest),
+ * thay vì để WebView tự tải bằng network stack riêng không dùng chung cache/kết nối.
+ * - Link ảnh "/images/{imageId}/..." do backend sinh trong HTML chương được đổi sang GET /api/epub/image/raw
+ * - Chỉ chặn resource cùng origin với BASE_URL; link tới host khác trong HTML của EPUB để WebView tự tải
+ * - Client riêng không có interceptor Authorization của Retrofit: access token không bao giờ đi kèm request resource
+ * - Response được lưu trong HTTP cache riêng trên đĩa nên chương đã đọc vẫn hiện ảnh khi offline
+ * - Ảnh rộng hơn màn hình được thu nhỏ về đúng chiều rộng viewport và lưu bản đã thu nhỏ
+ */
+public class ChapterResourceLoader {
+    private static final String TAG = "ChapterResourceLoader";
+    private static final String HTTP_CACHE_DIR = "chapter_resources";
+    private static final String IMAGE_CACHE_DIR = "chapter_images";
+    private static final long HTTP_CACHE_SIZE = 50L * 1024 * 1024;
+    private static final long IMAGE_CACHE_SIZE = 30L * 1024 * 1024;
+    // Resource của chương không đổi: cache lâu kể cả khi server không gửi Cache-Control
+    private static final int RESOURCE_MAX_AGE_DAYS = 30;
+    private static final int JPEG_QUALITY = 85;
+
+    private static ChapterResourceLoader instance;
+
+    private final OkHttpClient client;
+    private final File imageCacheDir;
+    private final String imagesPrefix = BuildConfig.BASE_URL + "images/";
+    private final HttpUrl baseUrl = HttpUrl.parse(BuildConfig.BASE_URL);
+    private volatile int viewportWidth;
+
+    private int diskHits = 0;
+    private int networkLoads = 0;
+    private int downscaled = 0;
+    private long bytesSavedByDownscale = 0;
+
+    private ChapterResourceLoader(Context context) {
+        Context appContext = context.getApplicationContext();
+        this.viewportWidth = appContext.getResources().getDisplayMetrics().widthPixels;
+        this.imageCacheDir = new File(appContext.getCacheDir(), IMAGE_CACHE_DIR);
+        // Dùng chung connection pool với Retrofit, thêm HTTP cache riêng.
+        // Bỏ các interceptor của Retrofit (Authorization, logging): resource của chương không cần token
+        OkHttpClient.Builder builder = RetrofitClient.getOkHttpClient().newBuilder();
+        builder.interceptors().clear();
+        this.client = builder
+                .cache(new Cache(new File(appContext.getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE))
+                .addNetworkInterceptor(chain -> {
+                    Response response = chain.proceed(chain.request());
+                    if (!response.isSuccessful() || response.header("Cache-Control") != null) return response;
+                    return response.newBuilder()
+                            .header("Cache-Control", "public, max-age=" + TimeUnit.DAYS.toSeconds(RESOURCE_MAX_AGE_DAYS))
+                            .build();
+                })
+                .build();
+    }
+
+    public static synchronized ChapterResourceLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChapterResourceLoader(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Chiều rộng thật của WebView (px) để thu nhỏ ảnh
+     */
+    public void setViewportWidth(int widthPx) {
+        if (widthPx > 0) this.viewportWidth = widthPx;
+    }
+
+    /**
+     * Gọi từ WebViewClient.shouldInterceptRequest (thread của WebView, được phép chặn).
+     * Trả về null để WebView tự xử lý các request không phải resource của chương.
+     */
+    public WebResourceResponse intercept(WebResourceRequest request, String epubUrl) {
+        if (request == null || request.isForMainFrame() || !"GET".equalsIgnoreCase(request.getMethod())) return null;
+        Uri uri = request.getUrl();
+        String scheme = uri.getScheme();
+        if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) return null;
+
+        String url = uri.toString();
+        String fetchUrl = url;
+        if (url.startsWith(imagesPrefix)) {
+            // "/images/{imageId}/{href}": ảnh trong file EPUB, lấy qua API của backend
+            if (epubUrl == null || epubUrl.isEmpty()) return null;
+            String imageId = uri.getPathSegments().size() > 1 ? uri.getPathSegments().get(1) : null;
+            if (imageId == null || imageId.isEmpty()) return null;
+            fetchUrl = buildImageUrl(epubUrl, imageId);
+            if (fetchUrl == null) return null;
+        } else if (!isSameOrigin(url) || resourceType(uri.getLastPathSegment()) == null) {
+            return null;
+        }
+
+        try {
+            return load(fetchUrl, resourceType(uri.getLastPathSegment()));
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to load " + url + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isSameOrigin(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        return parsed != null && baseUrl != null
+                && parsed.scheme().equals(baseUrl.scheme())
+                && parsed.host().equalsIgnoreCase(baseUrl.host())
+                && parsed.port() == baseUrl.port();
+    }
+
+    private String buildImageUrl(String epubUrl, String imageId) {
+        HttpUrl base = HttpUrl.parse(BuildConfig.BASE_URL);
+        if (base == null) return null;
+        return base.newBuilder()
+                .addPathSegments("api/epub/image/raw")
+                .addQueryParameter("epub_url", epubUrl)
+                .addQueryParameter("image_id", imageId)
+                .build()
+                .toString();
+    }
+
+    private WebResourceResponse load(String url, String guessedType) throws IOException {
+        int width = viewportWidth;
+        // Bản đã thu nhỏ cho đúng chiều rộng này (đuôi file cho biết định dạng)
+        String scaledName = hash(url + "@" + width);
+        for (String ext : new String[]{".jpg", ".png"}) {
+            File scaledFile = new File(imageCacheDir, scaledName + ext);
+            if (scaledFile.exists()) {
+                synchronized (this) {
+                    diskHits++;
+                }
+                String scaledMime = ".png".equals(ext) ? "image/png" : "image/jpeg";
+                return new WebResourceResponse(scaledMime, null, new FileInputStream(scaledFile));
+            }
+        }
+
+        Response response = fetch(url);
+        ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            response.close();
+            return null;
+        }
+        String mimeType = body.contentType() != null
+                ? body.contentType().type() + "/" + body.contentType().subtype()
+                : guessedType;
+        if (mimeType == null) mimeType = "application/octet-stream";
+        synchronized (this) {
+            if (response.networkResponse() != null) networkLoads++;
+            else diskHits++;
+        }
+
+        if (!mimeType.startsWith("image/") || mimeType.contains("svg") || mimeType.contains("gif")) {
+            String encoding = body.contentType() != null && body.contentType().charset() != null
+                    ? body.contentType().charset().name() : null;
+            return new WebResourceResponse(mimeType, encoding, body.byteStream());
+        }
+
+        byte[] bytes = body.bytes();
+        byte[] scaled = downscale(bytes, width, mimeType);
+        if (scaled == null) {
+            return new WebResourceResponse(mimeType, null, new ByteArrayInputStream(bytes));
+        }
+        boolean png = "image/png".equals(mimeType);
+        writeScaled(new File(imageCacheDir, scaledName + (png ? ".png" : ".jpg")), scaled);
+        return new WebResourceResponse(png ? "image/png" : "image/jpeg", null, new ByteArrayInputStream(scaled));
+    }
+
+    /**
+     * Lấy từ mạng (qua HTTP cache); mất mạng thì dùng bản trong cache dù đã hết hạn
+     */
+    private Response fetch(String url) throws IOException {
+        Request request = new Request.Builder().url(url).get().build();
+        try {
+            return client.newCall(request).execute();
+        } catch (IOException e) {
+            Response cached = client.newCall(request.newBuilder()
+                    .cacheControl(CacheControl.FORCE_CACHE)
+                    .build()).execute();
+            if (cached.isSuccessful()) return cached;
+            cached.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Thu nhỏ ảnh rộng hơn viewport; null nếu không cần (hoặc không decode được)
+     */
+    private byte[] downscale(byte[] bytes, int targetWidth, String mimeType) {
+        if (targetWidth <= 0) return null;
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, bounds);
+        if (bounds.outWidth <= targetWidth || bounds.outHeight <= 0) return null;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        int sampleSize = 1;
+        while (bounds.outWidth / (sampleSize * 2) >= targetWidth) sampleSize *= 2;
+        options.inSampleSize = sampleSize;
+        Bitmap decoded = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (decoded == null) return null;
+
+        Bitmap result = decoded;
+        if (decoded.getWidth() > targetWidth) {
+            int targetHeight = Math.max(1, Math.round(decoded.getHeight() * (targetWidth / (float) decoded.getWidth())));
+            result = Bitmap.createScaledBitmap(decoded, targetWidth, targetHeight, true);
+            if (result != decoded) decoded.recycle();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean png = "image/png".equals(mimeType);
+        result.compress(png ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        result.recycle();
+
+        byte[] scaled = out.toByteArray();
+        if (scaled.length >= bytes.length) return null;
+        synchronized (this) {
+            downscaled++;
+            bytesSavedByDownscale += bytes.length - scaled.length;
+        }
+        return scaled;
+    }
+
+    private void writeScaled(File file, byte[] data) {
+        if (!imageCacheDir.exists() && !imageCacheDir.mkdirs()) return;
+        File tmp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write scaled image: " + e.getMessage());
+            return;
+        }
+        if (tmp.renameTo(file)) trimImageCache();
+    }
+
+    /**
+     * Giữ thư mục ảnh đã thu nhỏ dưới IMAGE_CACHE_SIZE, bỏ các file cũ nhất
+     */
+    private synchronized void trimImageCache() {
+        File[] files = imageCacheDir.listFiles();
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= IMAGE_CACHE_SIZE) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File f : files) {
+            if (total <= IMAGE_CACHE_SIZE * 3 / 4) break;
+            total -= f.length();
+            //noinspection ResultOfMethodCallIgnored
+            f.delete();
+        }
+    }
+
+    private static String resourceType(String fileName) {
+        if (fileName == null) return null;
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) return "image/jpeg";
+        if (lower.endsWith(".png")) return "image/png";
+        if (lower.endsWith(".gif")) return "image/gif";
+        if (lower.endsWith(".webp")) return "image/webp";
+        if (lower.endsWith(".svg")) return "image/svg+xml";
+        if (lower.endsWith(".css")) return "text/css";
+        if (lower.endsWith(".woff") || lower.endsWith(".woff2") || lower.endsWith(".ttf") || lower.endsWith(".otf")) {
+            return "font/" + lower.substring(lower.lastIndexOf('.') + 1);
+        }
+        return null;
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(value.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            return String.format("%040x", new BigInteger(1, bytes));
+        } catch (Exception e) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+
+    public synchronized void logStats() {
+        Log.d(TAG, "Chapter resources: network=" + networkLoads + ", from disk=" + diskHits
+                + ", downscaled=" + downscaled + " (" + bytesSavedByDownscale / 1024 + " KB saved)");
+    }
+}
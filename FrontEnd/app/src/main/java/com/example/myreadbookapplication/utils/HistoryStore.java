@@ -0,0 +1,326 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.myreadbookapplication.model.ApiResponse;
+import com.example.myreadbookapplication.model.Book;
+import com.example.myreadbookapplication.model.HistoryItem;
+import com.example.myreadbookapplication.model.ReadingHistoryResponse;
+import com.example.myreadbookapplication.network.RetrofitClient;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Lịch sử đọc lưu cục bộ (filesDir/history_store.json), HistoryActivity render trang từ đây.
+ * Đồng bộ tăng dần với server theo cursor lastReadAt (chỉ lấy bản ghi mới hơn lần sync trước);
+ * định kỳ FULL_SYNC_INTERVAL_MS tải lại toàn bộ để loại các bookmark đã bị xóa.
+ * ReadBookActivity gọi onBookmarkSaved để cập nhật ngay mà không cần chờ sync.
+ * File được đọc trên lane io khi khởi tạo; trước khi đọc xong store rỗng (isLoaded() = false), bookmark mới và
+ * sync được hoãn lại, đọc xong thì báo listener để render.
+ */
+public class HistoryStore {
+    private static final String TAG = "HistoryStore";
+    private static final String FILE_NAME = "history_store.json";
+    private static final long FULL_SYNC_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+    private static final int SYNC_PAGE_SIZE = 100;
+
+    public interface OnHistoryChangedListener {
+        void onHistoryChanged();
+    }
+
+    public interface SyncCallback {
+        void onSyncFinished(boolean success);
+    }
+
+    private static class Store {
+        String userId;
+        long cursor; // lastReadAt lớn nhất đã nhận từ server
+        long lastFullSync;
+        List<HistoryItem> items = new ArrayList<>();
+    }
+
+    private static HistoryStore instance;
+
+    private final Context context;
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<OnHistoryChangedListener> listeners = new CopyOnWriteArrayList<>();
+    // Việc phải chờ đọc file xong (bookmark lưu sớm, sync)
+    private final List<Runnable> afterLoad = new ArrayList<>();
+    private Store store;
+    private boolean loaded = false;
+    private boolean syncing = false;
+
+    private HistoryStore(Context context) {
+        this.context = context.getApplicationContext();
+        this.file = new File(this.context.getFilesDir(), FILE_NAME);
+        // Đọc file trên lane io; kết quả dùng trên main
+        AppExecutors.getInstance().runOnIo(this::readFromDisk, this::onLoaded, e -> onLoaded(null));
+    }
+
+    public static synchronized HistoryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new HistoryStore(context);
+        }
+        return instance;
+    }
+
+    public void addListener(OnHistoryChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OnHistoryChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Đã từng đồng bộ với server cho user hiện tại chưa (chưa thì dữ liệu local chưa đáng tin là đầy đủ)
+     */
+    public synchronized boolean hasSynced() {
+        return loaded && ensureStore().lastFullSync > 0;
+    }
+
+    /**
+     * Đã đọc xong file lưu trên máy chưa (chưa thì getTotal/getPage trả về rỗng)
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized int getTotal() {
+        return loaded ? ensureStore().items.size() : 0;
+    }
+
+    /**
+     * Một trang lịch sử, mới đọc nhất trước
+     */
+    public synchronized List<HistoryItem> getPage(int page, int pageSize) {
+        if (!loaded) return Collections.emptyList();
+        List<HistoryItem> items = ensureStore().items;
+        int from = Math.max(0, (page - 1) * pageSize);
+        if (from >= items.size()) return Collections.emptyList();
+        return new ArrayList<>(items.subList(from, Math.min(from + pageSize, items.size())));
+    }
+
+    /**
+     * Reader vừa lưu bookmark: đưa sách lên đầu lịch sử ngay (server sẽ xác nhận ở lần sync sau)
+     */
+    public synchronized void onBookmarkSaved(String bookId, String chapterId, String title, String author, String coverUrl) {
+        if (bookId == null) return;
+        if (!loaded) {
+            afterLoad.add(() -> onBookmarkSaved(bookId, chapterId, title, author, coverUrl));
+            return;
+        }
+        Store current = ensureStore();
+        if (current.userId == null) return;
+        HistoryItem item = null;
+        for (int i = 0; i < current.items.size(); i++) {
+            if (bookId.equals(bookIdOf(current.items.get(i)))) {
+                item = current.items.remove(i);
+                break;
+            }
+        }
+        if (item == null) {
+            item = new HistoryItem();
+            Book book = new Book(title, coverUrl);
+            book.setId(bookId);
+            book.setAuthor(author);
+            item.setBook(book);
+            try {
+                item.setBookId(Integer.parseInt(bookId));
+            } catch (NumberFormatException ignored) {}
+        }
+        item.setChapterId(chapterId);
+        item.setLastReadAt(System.currentTimeMillis());
+        current.items.add(0, item);
+        persist();
+        notifyChanged();
+    }
+
+    /**
+     * Đồng bộ với server: tăng dần theo cursor, hoặc tải lại toàn bộ khi đến hạn
+     */
+    public void sync(SyncCallback callback) {
+        AuthManager authManager = AuthManager.getInstance(context);
+        String userId = authManager.getUserId();
+        String authHeader = authManager.getAuthorizationHeader();
+        if (userId == null || authHeader == null || syncing) {
+            if (callback != null) callback.onSyncFinished(false);
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                afterLoad.add(() -> sync(callback));
+                return;
+            }
+        }
+        boolean full;
+        long since;
+        synchronized (this) {
+            Store current = ensureStore();
+            full = current.lastFullSync == 0
+                    || System.currentTimeMillis() - current.lastFullSync > FULL_SYNC_INTERVAL_MS;
+            since = full ? 0 : current.cursor;
+        }
+        syncing = true;
+        Log.d(TAG, (full ? "Full" : "Incremental") + " history sync since " + since);
+        fetchPage(userId, authHeader, full, since, 1, new ArrayList<>(), callback);
+    }
+
+    private void fetchPage(String userId, String authHeader, boolean full, long since, int page,
+                           List<HistoryItem> received, SyncCallback callback) {
+        // Sync tăng dần đọc theo thứ tự cũ -> mới để cursor luôn tiến
+        RetrofitClient.getApiService()
+                .getReadingHistorySince(userId, authHeader, full ? null : since, page, SYNC_PAGE_SIZE,
+                        "lastReadAt", full ? "desc" : "asc")
+                .enqueue(new Callback<ApiResponse<ReadingHistoryResponse>>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse<ReadingHistoryResponse>> call,
+                                           Response<ApiResponse<ReadingHistoryResponse>> response) {
+                        if (!response.isSuccessful() || response.body() == null || !response.body().isSuccess()
+                                || response.body().getData() == null) {
+                            Log.w(TAG, "History sync failed: " + response.code());
+                            finishSync(callback, false);
+                            return;
+                        }
+                        ReadingHistoryResponse data = response.body().getData();
+                        if (data.getHistories() != null) received.addAll(data.getHistories());
+                        int totalPages = data.getPagination() != null ? data.getPagination().getTotalPages() : page;
+                        if (page < totalPages) {
+                            fetchPage(userId, authHeader, full, since, page + 1, received, callback);
+                            return;
+                        }
+                        boolean changed = apply(userId, full, received);
+                        finishSync(callback, true);
+                        if (changed) notifyChanged();
+                    }
+
+                    @Override
+                    public void onFailure(Call<ApiResponse<ReadingHistoryResponse>> call, Throwable t) {
+                        Log.w(TAG, "History sync failure: " + t.getMessage());
+                        finishSync(callback, false);
+                    }
+                });
+    }
+
+    private void finishSync(SyncCallback callback, boolean success) {
+        syncing = false;
+        if (callback != null) callback.onSyncFinished(success);
+    }
+
+    private synchronized boolean apply(String userId, boolean full, List<HistoryItem> received) {
+        Store current = ensureStore();
+        if (!userId.equals(current.userId)) return false; // user đã đổi trong lúc sync
+        Map<String, HistoryItem> byBook = new HashMap<>();
+        if (!full) {
+            for (HistoryItem item : current.items) byBook.put(bookIdOf(item), item);
+        }
+        long cursor = full ? 0 : current.cursor;
+        for (HistoryItem item : received) {
+            // Sách đã bị xóa trên server (book == null) thì bỏ khỏi lịch sử
+            if (item == null) continue;
+            cursor = Math.max(cursor, item.getLastReadAt());
+            if (item.getBook() == null) {
+                byBook.remove(String.valueOf(item.getBookId()));
+                continue;
+            }
+            byBook.put(bookIdOf(item), item);
+        }
+        if (!full && received.isEmpty()) return false;
+
+        List<HistoryItem> merged = new ArrayList<>(byBook.values());
+        Collections.sort(merged, (a, b) -> Long.compare(b.getLastReadAt(), a.getLastReadAt()));
+        current.items = merged;
+        current.cursor = cursor;
+        if (full) current.lastFullSync = System.currentTimeMillis();
+        persist();
+        return true;
+    }
+
+    private static String bookIdOf(HistoryItem item) {
+        if (item.getBook() != null && item.getBook().getId() != null) return item.getBook().getId();
+        return String.valueOf(item.getBookId());
+    }
+
+    private void notifyChanged() {
+        mainHandler.post(() -> {
+            for (OnHistoryChangedListener listener : listeners) listener.onHistoryChanged();
+        });
+    }
+
+    private void onLoaded(Store saved) {
+        List<Runnable> pending;
+        synchronized (this) {
+            store = saved;
+            loaded = true;
+            pending = new ArrayList<>(afterLoad);
+            afterLoad.clear();
+        }
+        for (Runnable task : pending) task.run();
+        notifyChanged();
+    }
+
+    /**
+     * Store của user hiện tại (chỉ gọi sau khi đọc file xong), đổi user thì bắt đầu lại từ đầu
+     */
+    private Store ensureStore() {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (store == null || userId == null || !userId.equals(store.userId)) {
+            store = new Store();
+            store.userId = userId;
+        }
+        return store;
+    }
+
+    private Store readFromDisk() {
+        if (!file.exists()) return null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            Store loaded = gson.fromJson(reader, Store.class);
+            if (loaded != null && loaded.items == null) loaded.items = new ArrayList<>();
+            return loaded;
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read history store: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void persist() {
+        String json = gson.toJson(store);
+        diskExecutor.execute(() -> {
+            File tmp = new File(file.getPath() + ".tmp");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+                writer.write(json);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to write history store: " + e.getMessage());
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                Log.w(TAG, "Failed to replace history store file");
+            }
+        });
+    }
+}
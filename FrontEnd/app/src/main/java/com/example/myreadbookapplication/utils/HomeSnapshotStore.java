@@ -0,0 +1,108 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.myreadbookapplication.model.Book;
+import com.example.myreadbookapplication.model.Category;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Snapshot màn hình Home lần render thành công gần nhất (categories + sách mới), lưu thành một file JSON nhỏ.
+ * HomeActivity render snapshot ngay trong onCreate rồi mới đối soát với dữ liệu từ server.
+ * Số liệu header đã được UserStatsManager/ReadingTimeTracker lưu cục bộ nên không lưu lại ở đây.
+ */
+public class HomeSnapshotStore {
+    private static final String TAG = "HomeSnapshotStore";
+    private static final String FILE_NAME = "home_snapshot.json";
+    // Snapshot quá cũ thì bỏ, tránh hiện dữ liệu đã lỗi thời quá lâu
+    private static final long MAX_AGE_MS = 7 * 24 * 60 * 60 * 1000L;
+
+    public static class Snapshot {
+        public String userId;
+        public List<Category> categories;
+        public List<Book> latestBooks;
+        public long savedAt;
+    }
+
+    private static HomeSnapshotStore instance;
+
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    private Snapshot memory;
+    private boolean loaded = false;
+
+    private HomeSnapshotStore(Context context) {
+        this.file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+    }
+
+    public static synchronized HomeSnapshotStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new HomeSnapshotStore(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Đọc snapshot của user (đồng bộ, file chỉ vài KB). Null nếu chưa có, khác user hoặc quá cũ.
+     */
+    public synchronized Snapshot load(String userId) {
+        if (!loaded) {
+            loaded = true;
+            memory = readFromDisk();
+        }
+        if (memory == null || userId == null || !userId.equals(memory.userId)) return null;
+        if (System.currentTimeMillis() - memory.savedAt > MAX_AGE_MS) return null;
+        if (memory.categories == null || memory.latestBooks == null) return null;
+        return memory;
+    }
+
+    public synchronized void save(String userId, List<Category> categories, List<Book> latestBooks) {
+        if (userId == null || categories == null || latestBooks == null) return;
+        Snapshot snapshot = new Snapshot();
+        snapshot.userId = userId;
+        snapshot.categories = new ArrayList<>(categories);
+        snapshot.latestBooks = new ArrayList<>(latestBooks);
+        snapshot.savedAt = System.currentTimeMillis();
+        memory = snapshot;
+        loaded = true;
+        String json = gson.toJson(snapshot);
+        diskExecutor.execute(() -> writeToDisk(json));
+    }
+
+    private Snapshot readFromDisk() {
+        if (!file.exists()) return null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Snapshot.class);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read home snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String json) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write home snapshot: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace home snapshot file");
+        }
+    }
+}
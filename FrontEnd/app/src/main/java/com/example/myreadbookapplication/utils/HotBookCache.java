@@ -0,0 +1,281 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem;
+import com.example.myreadbookapplication.model.epub.EpubModels.EpubChapterContentData;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * "Sách nóng": trạng thái màn hình đọc của vài cuốn sách mở gần nhất (danh sách chương đã xử lý, title hint,
+ * HTML chương đang đọc + chương liền kề, vị trí cuộn), để mở lại sách vừa đọc không phải chạy lại
+ * validate / metadata / chapters / chapter-content.
+ * Trong bộ nhớ giới hạn theo số byte ước lượng và bị cắt bớt khi hệ thống báo thiếu bộ nhớ (onTrimMemory);
+ * cuốn mới nhất được lưu thêm ra file (JSON nén gzip) nên cả khi process khởi động lại vẫn mở tiếp được
+ * mà không cần mạng. Mỗi bản ghi gắn với user đã lưu nó: user khác không dùng được, logout thì xóa hết.
+ * Chỉ dùng trên main thread (đọc/ghi file trên lane io).
+ */
+public class HotBookCache {
+    private static final String TAG = "HotBookCache";
+    private static final String FILE_NAME = "hot_book.json.gz";
+    private static final int MAX_BOOKS = 4;
+    // Tổng dung lượng ước lượng giữ trong bộ nhớ (~6 MB)
+    private static final long MAX_BYTES = 6L * 1024 * 1024;
+    // Bản trên file cũ hơn thế này thì tải lại từ server (sách có thể đã được cập nhật)
+    private static final long MAX_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+
+    /**
+     * Trạng thái đã lưu của một cuốn sách
+     */
+    public static class Entry {
+        public String epubUrl;
+        public String userId;
+        public String bookId;
+        public List<ChapterItem> chapters;
+        public Map<String, Integer> chapterIndex;
+        public Map<String, String> titleHints;
+        public Map<String, String> hrefToId;
+        public String defaultChapterKey;
+        public String currentChapterId;
+        public int scrollY;
+        // chapterId -> HTML: chương đang đọc và các chương liền kề đã có sẵn
+        public Map<String, EpubChapterContentData> contents;
+        public long savedAt;
+
+        transient long bytes;
+    }
+
+    public interface Callback {
+        void onResult(Entry entry);
+    }
+
+    private static HotBookCache instance;
+
+    private final Context context;
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    // epubUrl -> entry, LRU theo thứ tự truy cập
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(8, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            HotBookCache.this.onTrimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {}
+
+        @Override
+        public void onLowMemory() {
+            trimTo(0);
+        }
+    };
+
+    private HotBookCache(Context context) {
+        this.context = context.getApplicationContext();
+        this.file = new File(this.context.getFilesDir(), FILE_NAME);
+        this.context.registerComponentCallbacks(memoryCallbacks);
+    }
+
+    public static synchronized HotBookCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new HotBookCache(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Trạng thái đã lưu của epubUrl cho user hiện tại: có trong bộ nhớ thì trả về ngay, không thì đọc bản trên file
+     * (lane io). Callback luôn được gọi trên main (null nếu không có).
+     */
+    public void get(String epubUrl, Callback callback) {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (epubUrl == null || userId == null) {
+            callback.onResult(null);
+            return;
+        }
+        Entry cached = entries.get(epubUrl);
+        if (cached != null && userId.equals(cached.userId)) {
+            callback.onResult(cached);
+            return;
+        }
+        AppExecutors.getInstance().runOnIo(this::readFromDisk, saved -> {
+            boolean usable = saved != null && epubUrl.equals(saved.epubUrl) && userId.equals(saved.userId)
+                    && System.currentTimeMillis() - saved.savedAt < MAX_AGE_MS
+                    && saved.chapters != null && !saved.chapters.isEmpty();
+            if (!usable) {
+                callback.onResult(null);
+                return;
+            }
+            // Có thể đã được put trong lúc đọc file
+            Entry current = entries.get(epubUrl);
+            if (current == null || !userId.equals(current.userId)) {
+                add(saved);
+                current = saved;
+            }
+            callback.onResult(current);
+        }, e -> callback.onResult(null));
+    }
+
+    /**
+     * Lưu trạng thái mới nhất của một cuốn sách (khi rời màn hình đọc); bản này cũng được ghi ra file
+     */
+    public void put(Entry entry) {
+        if (entry == null || entry.epubUrl == null) return;
+        entry.userId = AuthManager.getInstance(context).getUserId();
+        if (entry.userId == null) return;
+        entry.savedAt = System.currentTimeMillis();
+        Entry old = entries.remove(entry.epubUrl);
+        if (old != null) totalBytes -= old.bytes;
+        add(entry);
+        // Serialize + nén trên lane io; entry là bản chụp, màn hình đọc không sửa nó nữa
+        diskExecutor.execute(() -> writeToDisk(entry));
+    }
+
+    public void remove(String epubUrl) {
+        Entry old = epubUrl != null ? entries.remove(epubUrl) : null;
+        if (old != null) totalBytes -= old.bytes;
+    }
+
+    /**
+     * Xóa toàn bộ (bộ nhớ + file), gọi khi logout để tài khoản sau không thấy trạng thái đọc của tài khoản trước
+     */
+    public void clear() {
+        entries.clear();
+        totalBytes = 0;
+        diskExecutor.execute(() -> {
+            if (file.exists() && !file.delete()) Log.w(TAG, "Failed to delete hot book file");
+        });
+    }
+
+    /**
+     * UI_HIDDEN: giữ nguyên (người dùng có thể quay lại ngay). Thiếu bộ nhớ: chỉ giữ cuốn mới nhất;
+     * nghiêm trọng: bỏ hết (cuốn mới nhất vẫn còn trên file).
+     */
+    public void onTrimMemory(int level) {
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) return;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimTo(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimTo(1);
+        }
+    }
+
+    private void add(Entry entry) {
+        entry.bytes = estimateBytes(entry);
+        entries.put(entry.epubUrl, entry);
+        totalBytes += entry.bytes;
+        // Bỏ sách cũ nhất cho tới khi vừa giới hạn (luôn giữ cuốn vừa thêm)
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > MAX_BOOKS || totalBytes > MAX_BYTES) && entries.size() > 1 && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            totalBytes -= eldest.bytes;
+            it.remove();
+        }
+    }
+
+    private void trimTo(int keep) {
+        if (entries.size() <= keep) return;
+        Log.d(TAG, "Trimming hot books " + entries.size() + " -> " + keep);
+        List<String> keys = new ArrayList<>(entries.keySet());
+        for (int i = 0; i < keys.size() - keep; i++) {
+            remove(keys.get(i));
+        }
+    }
+
+    /**
+     * Ước lượng bộ nhớ Java của một entry (2 byte mỗi ký tự + phần đệm của object)
+     */
+    private static long estimateBytes(Entry entry) {
+        long bytes = 256;
+        if (entry.chapters != null) {
+            for (ChapterItem c : entry.chapters) {
+                if (c == null) continue;
+                bytes += 64 + 2L * (length(c.id) + length(c.title) + length(c.href));
+            }
+        }
+        if (entry.titleHints != null) {
+            for (Map.Entry<String, String> e : entry.titleHints.entrySet()) {
+                bytes += 48 + 2L * (length(e.getKey()) + length(e.getValue()));
+            }
+        }
+        if (entry.hrefToId != null) {
+            for (Map.Entry<String, String> e : entry.hrefToId.entrySet()) {
+                bytes += 48 + 2L * (length(e.getKey()) + length(e.getValue()));
+            }
+        }
+        if (entry.chapterIndex != null) {
+            for (String key : entry.chapterIndex.keySet()) {
+                bytes += 64 + 2L * length(key);
+            }
+        }
+        if (entry.contents != null) {
+            for (EpubChapterContentData data : entry.contents.values()) {
+                if (data == null) continue;
+                bytes += 64 + 2L * (length(data.content) + length(data.title));
+            }
+        }
+        return bytes;
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
+
+    private Entry readFromDisk() {
+        if (!file.exists()) return null;
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8)) {
+            Entry entry = gson.fromJson(reader, Entry.class);
+            if (entry != null) {
+                if (entry.chapterIndex == null) entry.chapterIndex = new HashMap<>();
+                if (entry.titleHints == null) entry.titleHints = new HashMap<>();
+                if (entry.hrefToId == null) entry.hrefToId = new HashMap<>();
+                if (entry.contents == null) entry.contents = new HashMap<>();
+            }
+            return entry;
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read hot book: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(Entry entry) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmp)), StandardCharsets.UTF_8)) {
+            gson.toJson(entry, writer);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write hot book: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace hot book file");
+        }
+    }
+}
@@ -0,0 +1,703 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Index tìm kiếm toàn văn trong một cuốn sách (màn hình đọc), thay cho việc gọi getEpubChapterContent
+ * cho từng chương mỗi lần tìm.
+ * Index dựng dần trên máy: chương nào được mở / render sẵn thì được index luôn (indexChapter), phần còn lại
+ * chỉ tải từng chương một ở nền khi người dùng mở ô tìm kiếm (crawl). Chữ của chương được lưu lại
+ * (book_search/, giữ MAX_BOOKS_ON_DISK sách gần nhất) nên lần mở sau không phải tải lại.
+ * Tìm không phân biệt hoa thường / dấu tiếng Việt; kết quả xếp theo mức độ liên quan của chương,
+ * mỗi kết quả có chapterId + anchor gần nhất để màn hình đọc nhảy thẳng tới.
+ * Mọi thao tác trên index chạy lần lượt trên một executor compute riêng; callback trả về main thread.
+ */
+public class InBookSearchIndex {
+    private static final String TAG = "InBookSearchIndex";
+    private static final String DIR_NAME = "book_search";
+    private static final int MAX_BOOKS_IN_MEMORY = 2;
+    private static final int MAX_BOOKS_ON_DISK = 20;
+    private static final int MAX_HITS = 100;
+    private static final int MAX_HITS_PER_CHAPTER = 20;
+    private static final int SNIPPET_CONTEXT = 40;
+    private static final long SAVE_DELAY_MS = 5000;
+    // Tham số BM25 (chuẩn hoá theo độ dài chương)
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+
+    /**
+     * Một vị trí khớp trong sách
+     */
+    public static class Hit {
+        public final String chapterId;
+        public final String chapterTitle;
+        public final String snippet;
+        // Đoạn khớp nằm ở [snippetMatchStart, snippetMatchEnd) của snippet
+        public final int snippetMatchStart;
+        public final int snippetMatchEnd;
+        // Anchor gần nhất phía trước chỗ khớp (null nếu chương không có anchor)
+        public final String anchorId;
+        // Chữ gốc tại chỗ khớp và thứ tự của nó trong các lần xuất hiện (không phân biệt hoa thường) của chương
+        public final String matchText;
+        public final int occurrence;
+
+        Hit(String chapterId, String chapterTitle, String snippet, int snippetMatchStart, int snippetMatchEnd,
+            String anchorId, String matchText, int occurrence) {
+            this.chapterId = chapterId;
+            this.chapterTitle = chapterTitle;
+            this.snippet = snippet;
+            this.snippetMatchStart = snippetMatchStart;
+            this.snippetMatchEnd = snippetMatchEnd;
+            this.anchorId = anchorId;
+            this.matchText = matchText;
+            this.occurrence = occurrence;
+        }
+    }
+
+    public static class Result {
+        public final String query;
+        public final List<Hit> hits;
+        public final int indexedChapters;
+        public final int totalChapters;
+
+        Result(String query, List<Hit> hits, int indexedChapters, int totalChapters) {
+            this.query = query;
+            this.hits = hits;
+            this.indexedChapters = indexedChapters;
+            this.totalChapters = totalChapters;
+        }
+    }
+
+    public interface ResultCallback {
+        void onResult(Result result);
+    }
+
+    public interface ProgressListener {
+        void onProgress(int indexedChapters, int totalChapters);
+    }
+
+    /**
+     * Màn hình đọc cung cấp HTML của chương (từ cache hoặc API), gọi trên main thread
+     */
+    public interface Fetcher {
+        void fetch(String chapterId, FetchCallback callback);
+    }
+
+    public interface FetchCallback {
+        void onFetched(String title, String html);
+
+        void onFailed();
+    }
+
+    /**
+     * Chữ của một chương đã index
+     */
+    private static class ChapterDoc {
+        String title;
+        String text;
+        int[] anchorOffsets;
+        String[] anchorIds;
+
+        // Không lưu: bản không dấu / chữ thường của text (cùng độ dài), số token
+        transient String folded;
+        transient int tokenCount;
+    }
+
+    private static class BookIndex {
+        String bookKey;
+        List<String> chapterOrder = new ArrayList<>();
+        Map<String, ChapterDoc> chapters = new HashMap<>();
+
+        // token -> (chapterId -> số lần xuất hiện)
+        transient Map<String, Map<String, Integer>> postings = new HashMap<>();
+        transient long totalTokens;
+        transient boolean dirty;
+    }
+
+    /**
+     * Đang tải ở nền các chương chưa index của một sách; cancel() khi rời màn hình đọc
+     */
+    public class Crawl {
+        private final String bookKey;
+        private final Fetcher fetcher;
+        private final ProgressListener listener;
+        private final List<String> pending = new ArrayList<>();
+        private int total;
+        private boolean cancelled = false;
+        private boolean finished = false;
+
+        Crawl(String bookKey, Fetcher fetcher, ProgressListener listener) {
+            this.bookKey = bookKey;
+            this.fetcher = fetcher;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isActive() {
+            return !cancelled && !finished;
+        }
+
+        private void next() {
+            if (cancelled) return;
+            if (pending.isEmpty()) {
+                finished = true;
+                return;
+            }
+            String chapterId = pending.remove(0);
+            fetcher.fetch(chapterId, new FetchCallback() {
+                @Override
+                public void onFetched(String title, String html) {
+                    if (cancelled) return;
+                    worker.execute(() -> {
+                        BookIndex book = ensureBook(bookKey);
+                        addChapter(book, chapterId, title, html);
+                        int indexed = book.chapters.size();
+                        mainHandler.post(() -> {
+                            scheduleSave(bookKey);
+                            if (cancelled) return;
+                            listener.onProgress(Math.min(indexed, total), total);
+                            next();
+                        });
+                    });
+                }
+
+                @Override
+                public void onFailed() {
+                    // Chương lỗi bỏ qua, lần crawl sau thử lại
+                    next();
+                }
+            });
+        }
+    }
+
+    private static InBookSearchIndex instance;
+
+    private final File dir;
+    private final Gson gson = new Gson();
+    private final Executor worker = AppExecutors.getInstance().newSerialComputeExecutor();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Set<String> saveScheduled = new HashSet<>();
+    // Chỉ truy cập trên worker
+    private final LinkedHashMap<String, BookIndex> books = new LinkedHashMap<String, BookIndex>(4, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BookIndex> eldest) {
+            if (size() <= MAX_BOOKS_IN_MEMORY) return false;
+            if (eldest.getValue().dirty) save(eldest.getValue());
+            return true;
+        }
+    };
+
+    private InBookSearchIndex(Context context) {
+        this.dir = new File(context.getApplicationContext().getFilesDir(), DIR_NAME);
+    }
+
+    public static synchronized InBookSearchIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new InBookSearchIndex(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Index một chương vừa có HTML (chương đang đọc / render sẵn). Chương đã index thì bỏ qua.
+     */
+    public void indexChapter(String bookKey, String chapterId, String title, String html) {
+        if (bookKey == null || chapterId == null || html == null) return;
+        worker.execute(() -> {
+            BookIndex book = ensureBook(bookKey);
+            if (book.chapters.containsKey(chapterId)) return;
+            addChapter(book, chapterId, title, html);
+            mainHandler.post(() -> scheduleSave(bookKey));
+        });
+    }
+
+    /**
+     * Bắt đầu tải + index ở nền các chương (theo thứ tự chapterIds) chưa có trong index
+     */
+    public Crawl crawl(String bookKey, List<String> chapterIds, Fetcher fetcher, ProgressListener listener) {
+        Crawl crawl = new Crawl(bookKey, fetcher, listener);
+        List<String> order = new ArrayList<>(chapterIds);
+        worker.execute(() -> {
+            BookIndex book = ensureBook(bookKey);
+            if (!book.chapterOrder.equals(order)) {
+                book.chapterOrder = order;
+                book.dirty = true;
+            }
+            List<String> missing = new ArrayList<>();
+            for (String id : order) {
+                if (!book.chapters.containsKey(id) && !missing.contains(id)) missing.add(id);
+            }
+            int total = order.size();
+            int indexed = total - missing.size();
+            mainHandler.post(() -> {
+                crawl.total = total;
+                crawl.pending.addAll(missing);
+                listener.onProgress(indexed, total);
+                crawl.next();
+            });
+        });
+        return crawl;
+    }
+
+    /**
+     * Tìm query trong các chương đã index. Kết quả (tối đa MAX_HITS) trả về main thread.
+     */
+    public void search(String bookKey, String query, ResultCallback callback) {
+        worker.execute(() -> {
+            Result result = searchNow(ensureBook(bookKey), query != null ? query : "");
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    private Result searchNow(BookIndex book, String query) {
+        int total = Math.max(book.chapterOrder.size(), book.chapters.size());
+        String needle = collapseSpaces(fold(query.trim()));
+        List<String> tokens = tokenize(needle);
+        if (tokens.isEmpty()) return new Result(query, Collections.emptyList(), book.chapters.size(), total);
+
+        // Chương chứa đủ mọi token; token cuối cho phép khớp tiền tố (đang gõ dở)
+        Set<String> candidates = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            Set<String> chapters = new HashSet<>();
+            String token = tokens.get(i);
+            if (i == tokens.size() - 1 && !needle.endsWith(" ")) {
+                for (Map.Entry<String, Map<String, Integer>> e : book.postings.entrySet()) {
+                    if (e.getKey().startsWith(token)) chapters.addAll(e.getValue().keySet());
+                }
+            } else {
+                Map<String, Integer> posting = book.postings.get(token);
+                if (posting != null) chapters.addAll(posting.keySet());
+            }
+            if (candidates == null) {
+                candidates = chapters;
+            } else {
+                candidates.retainAll(chapters);
+            }
+            if (candidates.isEmpty()) break;
+        }
+
+        double avgLength = book.chapters.isEmpty() ? 1 : Math.max(1.0, (double) book.totalTokens / book.chapters.size());
+        List<ScoredChapter> scored = new ArrayList<>();
+        for (String chapterId : candidates) {
+            ChapterDoc doc = book.chapters.get(chapterId);
+            List<Integer> positions = findPhrase(doc.folded, needle);
+            if (positions.isEmpty()) continue;
+            int tf = positions.size();
+            double norm = BM25_K1 * (1 - BM25_B + BM25_B * doc.tokenCount / avgLength);
+            double score = tf * (BM25_K1 + 1) / (tf + norm);
+            scored.add(new ScoredChapter(chapterId, doc, positions, score, book.chapterOrder.indexOf(chapterId)));
+        }
+        // Chương liên quan hơn lên trước; bằng điểm thì theo thứ tự trong sách
+        Collections.sort(scored, (a, b) -> {
+            int c = Double.compare(b.score, a.score);
+            if (c != 0) return c;
+            return Integer.compare(a.order < 0 ? Integer.MAX_VALUE : a.order, b.order < 0 ? Integer.MAX_VALUE : b.order);
+        });
+
+        List<Hit> hits = new ArrayList<>();
+        for (ScoredChapter chapter : scored) {
+            int taken = 0;
+            String lowerText = chapter.doc.text.toLowerCase(Locale.ROOT);
+            for (int start : chapter.positions) {
+                if (hits.size() >= MAX_HITS || taken >= MAX_HITS_PER_CHAPTER) break;
+                hits.add(buildHit(chapter.chapterId, chapter.doc, lowerText, start, needle.length()));
+                taken++;
+            }
+            if (hits.size() >= MAX_HITS) break;
+        }
+        return new Result(query, hits, book.chapters.size(), total);
+    }
+
+    private static class ScoredChapter {
+        final String chapterId;
+        final ChapterDoc doc;
+        final List<Integer> positions;
+        final double score;
+        final int order;
+
+        ScoredChapter(String chapterId, ChapterDoc doc, List<Integer> positions, double score, int order) {
+            this.chapterId = chapterId;
+            this.doc = doc;
+            this.positions = positions;
+            this.score = score;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Vị trí các lần xuất hiện của needle bắt đầu ở đầu một từ
+     */
+    private static List<Integer> findPhrase(String folded, String needle) {
+        List<Integer> positions = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int idx = folded.indexOf(needle, from);
+            if (idx < 0) break;
+            if (idx == 0 || !Character.isLetterOrDigit(folded.charAt(idx - 1))) positions.add(idx);
+            from = idx + 1;
+        }
+        return positions;
+    }
+
+    private static Hit buildHit(String chapterId, ChapterDoc doc, String lowerText, int start, int length) {
+        String text = doc.text;
+        int end = Math.min(text.length(), start + length);
+        int from = Math.max(0, start - SNIPPET_CONTEXT);
+        int to = Math.min(text.length(), end + SNIPPET_CONTEXT);
+        String prefix = from > 0 ? "…" : "";
+        String snippet = prefix + text.substring(from, to) + (to < text.length() ? "…" : "");
+        int snippetStart = prefix.length() + (start - from);
+        String matchText = text.substring(start, end);
+
+        // Thứ tự của chỗ khớp theo cách WebView/trình duyệt đếm (không phân biệt hoa thường, có dấu)
+        String lowerMatch = matchText.toLowerCase(Locale.ROOT);
+        int occurrence = 0;
+        if (lowerText.length() == text.length()) {
+            int idx = lowerText.indexOf(lowerMatch);
+            while (idx >= 0 && idx < start) {
+                occurrence++;
+                idx = lowerText.indexOf(lowerMatch, idx + 1);
+            }
+        }
+
+        String anchorId = null;
+        if (doc.anchorOffsets != null && doc.anchorOffsets.length > 0) {
+            int pos = Arrays.binarySearch(doc.anchorOffsets, start);
+            if (pos < 0) pos = -pos - 2;
+            // Nhiều anchor cùng offset: lấy cái cuối cùng
+            while (pos >= 0 && pos + 1 < doc.anchorOffsets.length && doc.anchorOffsets[pos + 1] <= start) pos++;
+            if (pos >= 0) anchorId = doc.anchorIds[pos];
+        }
+        return new Hit(chapterId, doc.title, snippet, snippetStart, snippetStart + matchText.length(),
+                anchorId, matchText, occurrence);
+    }
+
+    // ---- Index (chỉ gọi trên worker) ----
+
+    private BookIndex ensureBook(String bookKey) {
+        BookIndex book = books.get(bookKey);
+        if (book != null) return book;
+        // File chữ của một sách (vài MB là cùng) đọc ngay trên worker: index phải có trước khi tìm / thêm chương
+        book = readFromDisk(bookKey);
+        if (book == null) {
+            book = new BookIndex();
+            book.bookKey = bookKey;
+        } else {
+            for (Map.Entry<String, ChapterDoc> e : book.chapters.entrySet()) {
+                addPostings(book, e.getKey(), e.getValue());
+            }
+        }
+        books.put(bookKey, book);
+        return book;
+    }
+
+    private void addChapter(BookIndex book, String chapterId, String title, String html) {
+        ChapterDoc old = book.chapters.get(chapterId);
+        if (old != null) removePostings(book, chapterId, old);
+        ChapterDoc doc = extract(html);
+        doc.title = title;
+        book.chapters.put(chapterId, doc);
+        addPostings(book, chapterId, doc);
+        book.dirty = true;
+    }
+
+    private static void addPostings(BookIndex book, String chapterId, ChapterDoc doc) {
+        if (doc.text == null) doc.text = "";
+        doc.folded = fold(doc.text);
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : tokenize(doc.folded)) {
+            Integer c = counts.get(token);
+            counts.put(token, c == null ? 1 : c + 1);
+        }
+        int tokens = 0;
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            Map<String, Integer> posting = book.postings.get(e.getKey());
+            if (posting == null) {
+                posting = new HashMap<>();
+                book.postings.put(e.getKey(), posting);
+            }
+            posting.put(chapterId, e.getValue());
+            tokens += e.getValue();
+        }
+        doc.tokenCount = tokens;
+        book.totalTokens += tokens;
+    }
+
+    private static void removePostings(BookIndex book, String chapterId, ChapterDoc doc) {
+        for (String token : new HashSet<>(tokenize(doc.folded != null ? doc.folded : fold(doc.text)))) {
+            Map<String, Integer> posting = book.postings.get(token);
+            if (posting == null) continue;
+            posting.remove(chapterId);
+            if (posting.isEmpty()) book.postings.remove(token);
+        }
+        book.totalTokens -= doc.tokenCount;
+    }
+
+    /**
+     * Lấy chữ hiển thị từ HTML của chương (bỏ tag, script/style, giải mã entity, gộp khoảng trắng)
+     * cùng vị trí của các anchor (id / name) trong chữ đó
+     */
+    static ChapterDoc extract(String html) {
+        StringBuilder text = new StringBuilder(html.length() / 2);
+        List<Integer> offsets = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        int n = html.length();
+        int i = 0;
+        while (i < n) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                int close = html.indexOf('>', i);
+                if (close < 0) break;
+                String tag = html.substring(i + 1, close);
+                String name = tagName(tag);
+                i = close + 1;
+                if (name.equals("script") || name.equals("style") || name.equals("head") || name.equals("title")) {
+                    i = indexOfClosingTag(html, name, i);
+                    continue;
+                }
+                String anchor = anchorOf(tag);
+                if (anchor != null) {
+                    offsets.add(text.length());
+                    ids.add(anchor);
+                }
+                appendSpace(text);
+            } else if (c == '&') {
+                int semi = html.indexOf(';', i);
+                if (semi > i && semi - i <= 10) {
+                    String decoded = decodeEntity(html.substring(i + 1, semi));
+                    if (decoded != null) {
+                        if (decoded.equals(" ")) {
+                            appendSpace(text);
+                        } else {
+                            text.append(decoded);
+                        }
+                        i = semi + 1;
+                        continue;
+                    }
+                }
+                text.append(c);
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(text);
+                i++;
+            } else {
+                text.append(c);
+                i++;
+            }
+        }
+        ChapterDoc doc = new ChapterDoc();
+        // appendSpace không thêm khoảng trắng ở đầu nên chỉ cần bỏ ở cuối, offset anchor giữ nguyên
+        doc.text = text.toString().trim();
+        doc.anchorOffsets = new int[offsets.size()];
+        doc.anchorIds = ids.toArray(new String[0]);
+        for (int k = 0; k < offsets.size(); k++) {
+            doc.anchorOffsets[k] = Math.min(offsets.get(k), doc.text.length());
+        }
+        return doc;
+    }
+
+    private static int indexOfClosingTag(String html, String name, int from) {
+        String closing = "</" + name;
+        for (int i = html.indexOf("</", from); i >= 0; i = html.indexOf("</", i + 2)) {
+            if (html.regionMatches(true, i, closing, 0, closing.length())) return i;
+        }
+        return html.length();
+    }
+
+    private static void appendSpace(StringBuilder text) {
+        if (text.length() > 0 && text.charAt(text.length() - 1) != ' ') text.append(' ');
+    }
+
+    private static String tagName(String tag) {
+        int start = tag.startsWith("/") ? 1 : 0;
+        int end = start;
+        while (end < tag.length() && Character.isLetterOrDigit(tag.charAt(end))) end++;
+        return tag.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static String anchorOf(String tag) {
+        String lower = tag.toLowerCase(Locale.ROOT);
+        for (String attr : new String[]{" id=", " name="}) {
+            int idx = lower.indexOf(attr);
+            if (idx < 0) continue;
+            int valueStart = idx + attr.length();
+            if (valueStart >= tag.length()) continue;
+            char quote = tag.charAt(valueStart);
+            if (quote != '"' && quote != '\'') continue;
+            int valueEnd = tag.indexOf(quote, valueStart + 1);
+            if (valueEnd > valueStart + 1) return tag.substring(valueStart + 1, valueEnd).trim();
+        }
+        return null;
+    }
+
+    private static String decodeEntity(String entity) {
+        switch (entity) {
+            case "amp": return "&";
+            case "lt": return "<";
+            case "gt": return ">";
+            case "quot": return "\"";
+            case "apos": return "'";
+            case "nbsp": return " ";
+            case "hellip": return "…";
+            case "mdash": return "—";
+            case "ndash": return "–";
+            case "lsquo": return "‘";
+            case "rsquo": return "’";
+            case "ldquo": return "“";
+            case "rdquo": return "”";
+            default:
+                break;
+        }
+        if (!entity.startsWith("#")) return null;
+        try {
+            int code = entity.startsWith("#x") || entity.startsWith("#X")
+                    ? Integer.parseInt(entity.substring(2), 16) : Integer.parseInt(entity.substring(1));
+            return Character.isWhitespace(code) || code == 0xA0 ? " " : new String(Character.toChars(code));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Chữ thường, bỏ dấu, từng ký tự một (giữ nguyên độ dài để vị trí khớp dùng được cho text gốc)
+     */
+    static String fold(String text) {
+        char[] out = new char[text.length()];
+        for (int i = 0; i < out.length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c == 'đ') {
+                c = 'd';
+            } else if (c >= 0xC0 && Character.isLetter(c)) {
+                c = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+            } else if (Character.isWhitespace(c)) {
+                c = ' ';
+            }
+            out[i] = c;
+        }
+        return new String(out);
+    }
+
+    private static String collapseSpaces(String text) {
+        return text.replaceAll(" {2,}", " ");
+    }
+
+    private static List<String> tokenize(String folded) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letter = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // ---- Lưu file ----
+
+    /**
+     * Gom các chương index liên tiếp (crawl / mở chương) thành một lần ghi file
+     */
+    private void scheduleSave(String bookKey) {
+        if (!saveScheduled.add(bookKey)) return;
+        mainHandler.postDelayed(() -> {
+            saveScheduled.remove(bookKey);
+            worker.execute(() -> {
+                BookIndex book = books.get(bookKey);
+                if (book != null && book.dirty) save(book);
+            });
+        }, SAVE_DELAY_MS);
+    }
+
+    // Gọi trên worker: serialize ở đây (index không đổi trong lúc này), ghi file trên lane io
+    private void save(BookIndex book) {
+        book.dirty = false;
+        String json = gson.toJson(book);
+        File file = fileFor(book.bookKey);
+        diskExecutor.execute(() -> {
+            writeToDisk(file, json);
+            trimDisk();
+        });
+    }
+
+    private File fileFor(String bookKey) {
+        return new File(dir, Integer.toHexString(bookKey.hashCode()) + "_" + bookKey.length() + ".json");
+    }
+
+    private BookIndex readFromDisk(String bookKey) {
+        File file = fileFor(bookKey);
+        if (!file.exists()) return null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            BookIndex book = gson.fromJson(reader, BookIndex.class);
+            // Trùng hash với sách khác thì coi như chưa có
+            if (book == null || !bookKey.equals(book.bookKey)) return null;
+            if (book.chapterOrder == null) book.chapterOrder = new ArrayList<>();
+            if (book.chapters == null) book.chapters = new HashMap<>();
+            book.postings = new HashMap<>();
+            file.setLastModified(System.currentTimeMillis());
+            return book;
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read search index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(File file, String json) {
+        if (!dir.exists() && !dir.mkdirs()) return;
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write search index: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace search index file");
+        }
+    }
+
+    /**
+     * Chỉ giữ MAX_BOOKS_ON_DISK sách dùng gần nhất
+     */
+    private void trimDisk() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null || files.length <= MAX_BOOKS_ON_DISK) return;
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        for (int i = MAX_BOOKS_ON_DISK; i < files.length; i++) {
+            if (!files[i].delete()) Log.w(TAG, "Failed to delete " + files[i].getName());
+        }
+    }
+}
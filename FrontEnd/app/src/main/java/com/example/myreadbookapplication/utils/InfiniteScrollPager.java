@@ -0,0 +1,330 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.myreadbookapplication.model.ApiResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Chế độ cuộn liên tục thay cho footer số trang của PaginationManager.
+ * Dùng cùng contract page/limit của ApiService; phần tử null trong list là placeholder.
+ * Chỉ giữ tối đa maxPages trang trong bộ nhớ, các trang ở xa bị thay lại bằng placeholder
+ * và được tải lại khi cuộn tới.
+ */
+public class InfiniteScrollPager<R, I> {
+    private static final String TAG = "InfiniteScrollPager";
+    public static final String PREF_CONTINUOUS_PAGING = "continuous_paging";
+    public static final int DEFAULT_PREFETCH_DISTANCE = 6;
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    /**
+     * Tách danh sách item và tổng số trang từ response
+     */
+    public interface PageParser<R, I> {
+        List<I> getItems(R response);
+        int getTotalPages(R response);
+    }
+
+    public interface Listener<R> {
+        void onPageLoaded(int page, R response);
+        void onPageFailed(int page, int code, String message);
+    }
+
+    /**
+     * Các item và trang đã tải, tách khỏi pager để ViewModel giữ lại khi Activity bị tạo lại
+     */
+    public static class State<I> {
+        final List<I> items;
+        final Set<Integer> loadedPages = new HashSet<>();
+        int totalPages = Integer.MAX_VALUE;
+        int appendedPages = 0;
+
+        public State() {
+            this(new ArrayList<>());
+        }
+
+        State(List<I> items) {
+            this.items = items;
+        }
+
+        /**
+         * List dùng chung với adapter
+         */
+        public List<I> getItems() {
+            return items;
+        }
+
+        public boolean hasPages() {
+            return appendedPages > 0;
+        }
+    }
+
+    private final RecyclerView recyclerView;
+    private final RecyclerView.Adapter<?> adapter;
+    private final State<I> state;
+    private final List<I> items;
+    private final int pageSize;
+    private final PagePrefetcher.PageLoader<R> loader;
+    private final PageParser<R, I> parser;
+    private Listener<R> listener;
+
+    private int prefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+    private int maxPages = DEFAULT_MAX_PAGES;
+    private int generation = 0;
+
+    private final Map<Integer, Call<ApiResponse<R>>> inFlight = new HashMap<>();
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+            // Không notify adapter trong lúc RecyclerView đang layout/scroll
+            rv.post(InfiniteScrollPager.this::ensureVisiblePagesLoaded);
+        }
+    };
+
+    /**
+     * @param items list dùng chung với adapter (adapter phải bind được phần tử null làm placeholder)
+     */
+    public InfiniteScrollPager(RecyclerView recyclerView, List<I> items, int pageSize,
+                               PagePrefetcher.PageLoader<R> loader, PageParser<R, I> parser) {
+        this(recyclerView, new State<>(items), pageSize, loader, parser);
+    }
+
+    /**
+     * @param state state giữ trong ViewModel; adapter phải được tạo với state.getItems()
+     */
+    public InfiniteScrollPager(RecyclerView recyclerView, State<I> state, int pageSize,
+                               PagePrefetcher.PageLoader<R> loader, PageParser<R, I> parser) {
+        this.recyclerView = recyclerView;
+        this.adapter = recyclerView.getAdapter();
+        this.state = state;
+        this.items = state.items;
+        this.pageSize = Math.max(1, pageSize);
+        this.loader = loader;
+        this.parser = parser;
+        recyclerView.addOnScrollListener(scrollListener);
+    }
+
+    /**
+     * Đọc cờ bật/tắt chế độ cuộn liên tục (mặc định bật cho các màn hình lưới sách của user)
+     */
+    public static boolean isEnabled(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE);
+        return prefs.getBoolean(PREF_CONTINUOUS_PAGING, true);
+    }
+
+    public void setListener(Listener<R> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Số item còn lại trước cuối danh sách thì bắt đầu tải trang kế tiếp
+     */
+    public void setPrefetchDistance(int prefetchDistance) {
+        this.prefetchDistance = Math.max(0, prefetchDistance);
+    }
+
+    /**
+     * Số trang tối đa giữ trong bộ nhớ (tối thiểu 2)
+     */
+    public void setMaxPages(int maxPages) {
+        this.maxPages = Math.max(2, maxPages);
+    }
+
+    public int getTotalPages() {
+        return state.totalPages;
+    }
+
+    /**
+     * Xóa toàn bộ và tải lại từ trang 1
+     */
+    public void reset() {
+        cancelAll();
+        int oldSize = items.size();
+        items.clear();
+        state.loadedPages.clear();
+        state.appendedPages = 0;
+        state.totalPages = Integer.MAX_VALUE;
+        if (adapter != null && oldSize > 0) adapter.notifyItemRangeRemoved(0, oldSize);
+        appendPage();
+    }
+
+    /**
+     * Tiếp tục từ state đã có (màn hình tạo lại sau khi xoay): không tải lại các trang đã có,
+     * chỉ tải các trang còn là placeholder trong vùng nhìn thấy. Chưa có trang nào thì như reset().
+     */
+    public void resume() {
+        if (!state.hasPages()) {
+            reset();
+            return;
+        }
+        recyclerView.post(this::ensureVisiblePagesLoaded);
+    }
+
+    public void release() {
+        cancelAll();
+        recyclerView.removeOnScrollListener(scrollListener);
+    }
+
+    private void cancelAll() {
+        generation++;
+        for (Call<ApiResponse<R>> call : inFlight.values()) {
+            call.cancel();
+        }
+        inFlight.clear();
+    }
+
+    private void ensureVisiblePagesLoaded() {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) return;
+        LinearLayoutManager lm = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = lm.findFirstVisibleItemPosition();
+        int last = lm.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) return;
+
+        // Tải lại các trang đã bị thả nằm trong vùng nhìn thấy (+ khoảng prefetch 2 phía)
+        int firstPage = pageOf(Math.max(0, first - prefetchDistance));
+        int lastPage = pageOf(Math.min(items.size() - 1, last + prefetchDistance));
+        for (int page = firstPage; page <= lastPage && page <= state.appendedPages; page++) {
+            if (!state.loadedPages.contains(page)) load(page);
+        }
+
+        // Gần cuối danh sách -> nối thêm trang mới
+        if (last + prefetchDistance >= items.size() - 1) {
+            appendPage();
+        }
+        trimWindow(firstPage, lastPage);
+    }
+
+    private void appendPage() {
+        int next = state.appendedPages + 1;
+        if (next > state.totalPages || inFlight.containsKey(next)) return;
+        // Chỉ nối 1 trang mỗi lần, chờ trang trước về
+        if (state.appendedPages > 0 && !state.loadedPages.contains(state.appendedPages)) return;
+        state.appendedPages = next;
+        int start = items.size();
+        for (int i = 0; i < pageSize; i++) items.add(null);
+        if (adapter != null) adapter.notifyItemRangeInserted(start, pageSize);
+        load(next);
+    }
+
+    private void load(int page) {
+        if (inFlight.containsKey(page)) return;
+        final int requestGeneration = generation;
+        Log.d(TAG, "Loading page " + page);
+        Call<ApiResponse<R>> call = loader.createCall(page);
+        inFlight.put(page, call);
+        call.enqueue(new Callback<ApiResponse<R>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<R>> call, Response<ApiResponse<R>> response) {
+                if (requestGeneration != generation) return;
+                inFlight.remove(page);
+                ApiResponse<R> body = response.body();
+                if (response.isSuccessful() && body != null && body.isSuccess() && body.getData() != null) {
+                    fillPage(page, body.getData());
+                    if (listener != null) listener.onPageLoaded(page, body.getData());
+                    // Trang vừa về có thể chưa lấp đầy màn hình
+                    recyclerView.post(InfiniteScrollPager.this::ensureVisiblePagesLoaded);
+                } else {
+                    onLoadFailed(page, response.code(), body != null ? body.getMessage() : response.message());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ApiResponse<R>> call, Throwable t) {
+                if (requestGeneration != generation || call.isCanceled()) return;
+                inFlight.remove(page);
+                onLoadFailed(page, -1, t.getMessage());
+            }
+        });
+    }
+
+    private void fillPage(int page, R response) {
+        int newTotal = parser.getTotalPages(response);
+        if (newTotal > 0) state.totalPages = newTotal;
+        List<I> pageItems = parser.getItems(response);
+        if (pageItems == null) pageItems = new ArrayList<>();
+
+        int start = (page - 1) * pageSize;
+        int count = Math.min(pageItems.size(), pageSize);
+        for (int i = 0; i < count && start + i < items.size(); i++) {
+            items.set(start + i, pageItems.get(i));
+        }
+        state.loadedPages.add(page);
+        if (adapter != null) adapter.notifyItemRangeChanged(start, count);
+
+        // Trang cuối (hoặc trang thiếu item): bỏ placeholder thừa
+        if (page == state.appendedPages && (count < pageSize || page >= state.totalPages)) {
+            int removeFrom = start + count;
+            int removeCount = items.size() - removeFrom;
+            if (removeCount > 0) {
+                items.subList(removeFrom, items.size()).clear();
+                if (adapter != null) adapter.notifyItemRangeRemoved(removeFrom, removeCount);
+            }
+            state.totalPages = page;
+        }
+    }
+
+    private void onLoadFailed(int page, int code, String message) {
+        Log.w(TAG, "Page " + page + " failed: " + code + " " + message);
+        // Trang cuối lỗi: gỡ placeholder để lần cuộn sau thử lại
+        if (page == state.appendedPages && !state.loadedPages.contains(page)) {
+            int start = (page - 1) * pageSize;
+            int removeCount = items.size() - start;
+            if (removeCount > 0) {
+                items.subList(start, items.size()).clear();
+                if (adapter != null) adapter.notifyItemRangeRemoved(start, removeCount);
+            }
+            state.appendedPages = page - 1;
+        }
+        if (listener != null) listener.onPageFailed(page, code, message);
+    }
+
+    /**
+     * Thả các trang xa vùng nhìn thấy nhất khi vượt quá maxPages
+     */
+    private void trimWindow(int firstVisiblePage, int lastVisiblePage) {
+        while (state.loadedPages.size() > maxPages) {
+            int farthest = -1;
+            int farthestDistance = -1;
+            for (int page : state.loadedPages) {
+                int distance = page < firstVisiblePage ? firstVisiblePage - page
+                        : page > lastVisiblePage ? page - lastVisiblePage : 0;
+                if (distance > farthestDistance) {
+                    farthestDistance = distance;
+                    farthest = page;
+                }
+            }
+            if (farthest < 0 || farthestDistance == 0) return;
+            dropPage(farthest);
+        }
+    }
+
+    private void dropPage(int page) {
+        int start = (page - 1) * pageSize;
+        int end = Math.min(start + pageSize, items.size());
+        for (int i = start; i < end; i++) items.set(i, null);
+        state.loadedPages.remove(page);
+        if (adapter != null && end > start) adapter.notifyItemRangeChanged(start, end - start);
+        Log.d(TAG, "Dropped page " + page + " from memory");
+    }
+
+    private int pageOf(int position) {
+        return position / pageSize + 1;
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.myreadbookapplication.utils;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Printer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.myreadbookapplication.BuildConfig;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Theo dõi main thread bị treo (jank / gần ANR) để biết chỗ nào trong code gây ra.
+ * Đo thời gian xử lý từng message của main Looper (qua Looper.setMessageLogging); khi một message
+ * chạy quá ngưỡng thì lấy stack của main thread + Activity đang hiển thị, gom theo call site
+ * (frame đầu tiên thuộc code của app) vào báo cáo lưu cục bộ, xếp hạng theo tổng thời gian treo.
+ * Gắn trong Application.onCreate, tức là giữa message bindApplication: message đó được tính từ lúc process start
+ * và bộ lấy mẫu chạy ngay từ lúc gắn, nên các lần treo lúc khởi động cũng có stack.
+ * Chỉ bật ở bản debug hoặc khi bật cờ PREF_ENABLED (setMessageLogging làm Looper tạo chuỗi log cho mọi message).
+ */
+public class MainThreadWatchdog {
+    private static final String TAG = "MainThreadWatchdog";
+    public static final String PREF_ENABLED = "stall_watchdog";
+    private static final String FILE_NAME = "stall_report.json";
+    private static final String APP_PACKAGE = "com.example.myreadbookapplication";
+    private static final long DEFAULT_THRESHOLD_MS = 200;
+    private static final long SAMPLE_INTERVAL_MS = 50;
+    private static final int MAX_SITES = 50;
+    // Call site lâu không gặp lại thì bỏ khỏi báo cáo
+    private static final long MAX_SITE_AGE_MS = 14 * 24 * 60 * 60 * 1000L;
+    private static final long SAVE_DELAY_MS = 5000;
+    // Process khởi động mà không mở Activity nào (vd: chạy nền) thì ngừng lấy mẫu sau khoảng này
+    private static final long STARTUP_SAMPLE_MS = 10_000;
+
+    /**
+     * Thống kê các lần treo của một call site
+     */
+    public static class StallSite {
+        public String site;
+        public int count;
+        public long totalMs;
+        public long maxMs;
+        public String lastActivity;
+        public String lastTopFrame;
+        public long lastSeenAt;
+    }
+
+    private static MainThreadWatchdog instance;
+
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    private final Thread mainThread = Looper.getMainLooper().getThread();
+    private final Handler watchdogHandler;
+    // Chỉ đọc/ghi trên watchdog thread
+    private final Map<String, StallSite> sites = new HashMap<>();
+
+    private volatile long thresholdMs = DEFAULT_THRESHOLD_MS;
+    // Thời điểm message hiện tại bắt đầu chạy (0 = main thread đang rảnh) và số thứ tự của nó
+    private volatile long dispatchStartMs = 0;
+    private volatile int dispatchSeq = 0;
+    private volatile String currentActivity;
+    private int startedActivities = 0;
+    // Mẫu stack lấy được cho message đang chạy (watchdog thread)
+    private int sampledSeq = -1;
+    private StackTraceElement[] sampledStack;
+    private boolean saveScheduled = false;
+
+    private final Printer looperPrinter = line -> {
+        if (line.startsWith(">>>>>")) {
+            dispatchSeq++;
+            dispatchStartMs = SystemClock.uptimeMillis();
+        } else if (line.startsWith("<<<<<")) {
+            long start = dispatchStartMs;
+            dispatchStartMs = 0;
+            if (start == 0) return;
+            long duration = SystemClock.uptimeMillis() - start;
+            if (duration >= thresholdMs) {
+                int seq = dispatchSeq;
+                String activity = currentActivity;
+                watchdogHandler.post(() -> onStall(seq, duration, activity));
+            }
+        }
+    };
+
+    private final Runnable sampler = new Runnable() {
+        @Override
+        public void run() {
+            long start = dispatchStartMs;
+            int seq = dispatchSeq;
+            if (start != 0 && seq != sampledSeq && SystemClock.uptimeMillis() - start >= thresholdMs) {
+                // Main thread vẫn đang kẹt trong message này: lấy stack ngay lúc đang treo
+                sampledSeq = seq;
+                sampledStack = mainThread.getStackTrace();
+            }
+            watchdogHandler.postDelayed(this, SAMPLE_INTERVAL_MS);
+        }
+    };
+
+    private MainThreadWatchdog(Context context) {
+        this.file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        HandlerThread thread = new HandlerThread("stall-watchdog");
+        thread.start();
+        watchdogHandler = new Handler(thread.getLooper());
+        watchdogHandler.post(this::loadFromDisk);
+    }
+
+    public static synchronized MainThreadWatchdog getInstance(Context context) {
+        if (instance == null) {
+            instance = new MainThreadWatchdog(context);
+        }
+        return instance;
+    }
+
+    public static boolean isEnabled(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE);
+        return prefs.getBoolean(PREF_ENABLED, BuildConfig.DEBUG);
+    }
+
+    /**
+     * Gắn watchdog vào main Looper (gọi một lần trong Application.onCreate, không làm gì nếu chưa bật)
+     */
+    public static void install(Application application) {
+        if (!isEnabled(application)) return;
+        getInstance(application).start(application);
+    }
+
+    private void start(Application application) {
+        // Đang ở giữa message bindApplication (">>>>>" đã qua): coi như message bắt đầu lúc process start
+        dispatchSeq++;
+        dispatchStartMs = Process.getStartUptimeMillis();
+        Looper.getMainLooper().setMessageLogging(looperPrinter);
+        // Lấy mẫu ngay từ bây giờ thay vì chờ Activity đầu tiên onStart
+        watchdogHandler.post(sampler);
+        new Handler(Looper.getMainLooper()).postDelayed(() -> {
+            if (startedActivities == 0) watchdogHandler.removeCallbacks(sampler);
+        }, STARTUP_SAMPLE_MS);
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+                // Treo trong onCreate được tính cho Activity đang tạo
+                currentActivity = activity.getClass().getSimpleName();
+            }
+
+            @Override
+            public void onActivityStarted(@NonNull Activity activity) {
+                // Chỉ lấy mẫu khi app đang ở foreground (kể cả lúc chuyển giữa 2 Activity)
+                if (startedActivities++ == 0) {
+                    watchdogHandler.removeCallbacks(sampler);
+                    watchdogHandler.post(sampler);
+                }
+            }
+
+            @Override
+            public void onActivityResumed(@NonNull Activity activity) {
+                currentActivity = activity.getClass().getSimpleName();
+            }
+
+            @Override
+            public void onActivityStopped(@NonNull Activity activity) {
+                if (startedActivities > 0 && --startedActivities == 0) {
+                    watchdogHandler.removeCallbacks(sampler);
+                    // App xuống background: in bảng xếp hạng + số liệu hàng đợi nền ra logcat
+                    if (BuildConfig.DEBUG) {
+                        logReport();
+                        AppExecutors.getInstance().logStats();
+                    }
+                }
+            }
+
+            @Override
+            public void onActivityPaused(@NonNull Activity activity) {}
+
+            @Override
+            public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {}
+
+            @Override
+            public void onActivityDestroyed(@NonNull Activity activity) {}
+        });
+        Log.d(TAG, "Installed, threshold=" + thresholdMs + "ms");
+    }
+
+    public void setThresholdMs(long thresholdMs) {
+        this.thresholdMs = Math.max(SAMPLE_INTERVAL_MS, thresholdMs);
+    }
+
+    /**
+     * Báo cáo hiện tại, call site treo lâu nhất (tổng thời gian) đứng đầu
+     */
+    public void getReport(AppExecutors.ResultCallback<List<StallSite>> callback) {
+        watchdogHandler.post(() -> {
+            List<StallSite> report = new ArrayList<>(sites.values());
+            Collections.sort(report, (a, b) -> Long.compare(b.totalMs, a.totalMs));
+            AppExecutors.getInstance().main().execute(() -> callback.onResult(report));
+        });
+    }
+
+    public void logReport() {
+        getReport(report -> {
+            Log.d(TAG, "Main-thread stalls by call site (" + report.size() + " sites):");
+            for (StallSite s : report) {
+                Log.d(TAG, s.totalMs + "ms total, " + s.count + "x, max " + s.maxMs + "ms @ " + s.site
+                        + " [" + s.lastActivity + ", top: " + s.lastTopFrame + "]");
+            }
+        });
+    }
+
+    public void clear() {
+        watchdogHandler.post(() -> {
+            sites.clear();
+            scheduleSave();
+        });
+    }
+
+    private void onStall(int seq, long durationMs, String activity) {
+        StackTraceElement[] stack = seq == sampledSeq ? sampledStack : null;
+        String site = stack != null ? findCallSite(stack) : "(not sampled)";
+        String topFrame = stack != null && stack.length > 0 ? formatFrame(stack[0]) : null;
+        AppExecutors executors = AppExecutors.getInstance();
+        Log.w(TAG, "Main thread blocked " + durationMs + "ms in " + activity + " at " + site
+                + " (queued io=" + executors.getIoQueueDepth() + ", compute=" + executors.getComputeQueueDepth() + ")");
+
+        StallSite entry = sites.get(site);
+        if (entry == null) {
+            if (sites.size() >= MAX_SITES) evictOne();
+            entry = new StallSite();
+            entry.site = site;
+            sites.put(site, entry);
+        }
+        entry.count++;
+        entry.totalMs += durationMs;
+        entry.maxMs = Math.max(entry.maxMs, durationMs);
+        entry.lastActivity = activity;
+        entry.lastTopFrame = topFrame;
+        entry.lastSeenAt = System.currentTimeMillis();
+        scheduleSave();
+    }
+
+    /**
+     * Frame đầu tiên thuộc code của app (bỏ qua chính watchdog); không có thì lấy frame trên cùng
+     */
+    private static String findCallSite(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith(APP_PACKAGE) && !className.startsWith(MainThreadWatchdog.class.getName())) {
+                return formatFrame(frame);
+            }
+        }
+        return stack.length > 0 ? formatFrame(stack[0]) : "(empty stack)";
+    }
+
+    private static String formatFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        return simpleName + "." + frame.getMethodName() + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")";
+    }
+
+    /**
+     * Bỏ call site ít quan trọng nhất (tổng thời gian treo nhỏ nhất) khi báo cáo đầy
+     */
+    private void evictOne() {
+        StallSite smallest = null;
+        for (StallSite s : sites.values()) {
+            if (smallest == null || s.totalMs < smallest.totalMs) smallest = s;
+        }
+        if (smallest != null) sites.remove(smallest.site);
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled) return;
+        saveScheduled = true;
+        watchdogHandler.postDelayed(() -> {
+            saveScheduled = false;
+            String json = gson.toJson(new ArrayList<>(sites.values()));
+            diskExecutor.execute(() -> writeToDisk(json));
+        }, SAVE_DELAY_MS);
+    }
+
+    private void loadFromDisk() {
+        if (!file.exists()) return;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            List<StallSite> saved = gson.fromJson(reader, new TypeToken<List<StallSite>>() {}.getType());
+            if (saved == null) return;
+            long now = System.currentTimeMillis();
+            for (StallSite s : saved) {
+                if (s == null || s.site == null || now - s.lastSeenAt > MAX_SITE_AGE_MS) continue;
+                sites.put(s.site, s);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read stall report: " + e.getMessage());
+        }
+    }
+
+    private void writeToDisk(String json) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write stall report: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace stall report file");
+        }
+    }
+}
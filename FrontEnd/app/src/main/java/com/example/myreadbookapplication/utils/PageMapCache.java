@@ -0,0 +1,133 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Page map của chế độ đọc theo trang (CSS columns) trong ReadBookActivity: số trang của một chương và
+ * trang chứa từng anchor, theo (sách, chương, cỡ chữ, kích thước WebView).
+ * Đo một lần sau khi chương layout xong rồi lưu lại (bộ nhớ + file JSON), lần mở sau hiển thị
+ * "trang X / Y" và nhảy trang ngay mà không phải đo lại.
+ */
+public class PageMapCache {
+    private static final String TAG = "PageMapCache";
+    private static final String FILE_NAME = "page_maps.json";
+    private static final int MAX_ENTRIES = 300;
+
+    public static class PageMap {
+        public int pageCount;
+        // anchor id -> trang (0-based)
+        public Map<String, Integer> anchorPages;
+        public long savedAt;
+    }
+
+    private static PageMapCache instance;
+
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    // LRU theo thứ tự truy cập
+    private final LinkedHashMap<String, PageMap> maps = new LinkedHashMap<String, PageMap>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PageMap> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private PageMapCache(Context context) {
+        this.file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        diskExecutor.execute(this::loadFromDisk);
+    }
+
+    public static synchronized PageMapCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new PageMapCache(context);
+        }
+        return instance;
+    }
+
+    public static String key(String epubUrl, String chapterId, int fontSize, int widthPx, int heightPx) {
+        return epubUrl + "|" + chapterId + "|" + fontSize + "|" + widthPx + "x" + heightPx;
+    }
+
+    /**
+     * Page map đã đo (null nếu chưa có hoặc file chưa đọc xong)
+     */
+    public synchronized PageMap get(String key) {
+        return key != null ? maps.get(key) : null;
+    }
+
+    public void put(String key, PageMap map) {
+        if (key == null || map == null || map.pageCount <= 0) return;
+        map.savedAt = System.currentTimeMillis();
+        synchronized (this) {
+            maps.put(key, map);
+        }
+        // Serialize cả cache trên thread io, không làm trên main
+        diskExecutor.execute(() -> {
+            String json;
+            synchronized (this) {
+                json = gson.toJson(new LinkedHashMap<>(maps));
+            }
+            writeToDisk(json);
+        });
+    }
+
+    /**
+     * Parse kết quả evaluateJavascript của script đo trang (gọi trên lane compute)
+     */
+    public PageMap parse(String json) {
+        if (json == null || "null".equals(json)) return null;
+        try {
+            PageMap map = gson.fromJson(json, PageMap.class);
+            return map != null && map.pageCount > 0 ? map : null;
+        } catch (Exception e) {
+            Log.w(TAG, "Invalid page map: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void loadFromDisk() {
+        if (!file.exists()) return;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            Map<String, PageMap> saved = gson.fromJson(reader, new TypeToken<LinkedHashMap<String, PageMap>>() {}.getType());
+            if (saved == null) return;
+            synchronized (this) {
+                for (Map.Entry<String, PageMap> e : saved.entrySet()) {
+                    // Page map đo trong phiên này mới hơn bản trên file
+                    if (e.getValue() != null && !maps.containsKey(e.getKey())) maps.put(e.getKey(), e.getValue());
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read page maps: " + e.getMessage());
+        }
+    }
+
+    private void writeToDisk(String json) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write page maps: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace page maps file");
+        }
+    }
+}
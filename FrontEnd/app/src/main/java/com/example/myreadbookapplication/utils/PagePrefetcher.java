@@ -0,0 +1,197 @@
+package com.example.myreadbookapplication.utils;
+
+import android.util.Log;
+
+import com.example.myreadbookapplication.model.ApiResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Cache LRU nhỏ cho các trang dữ liệu phân trang + prefetch trang kế tiếp.
+ * Gắn vào PaginationManager để chuyển trang được phục vụ từ bộ nhớ nếu đã có sẵn.
+ */
+public class PagePrefetcher<T> {
+    private static final String TAG = "PagePrefetcher";
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    /**
+     * Tạo Retrofit call cho một trang (cùng contract page/limit của ApiService)
+     */
+    public interface PageLoader<T> {
+        Call<ApiResponse<T>> createCall(int page);
+    }
+
+    public interface PageCallback<T> {
+        void onPageLoaded(int page, T data);
+        void onPageFailed(int page, int code, String message);
+    }
+
+    private final PageLoader<T> loader;
+    private final int maxPages;
+    private final long maxAgeMs;
+    private final LinkedHashMap<Integer, T> cache;
+    private final Map<Integer, Long> loadedAt = new HashMap<>();
+    private final Map<Integer, Call<ApiResponse<T>>> inFlight = new HashMap<>();
+    private final Map<Integer, List<PageCallback<T>>> waiting = new HashMap<>();
+    private int generation = 0;
+
+    public PagePrefetcher(PageLoader<T> loader) {
+        this(loader, DEFAULT_MAX_PAGES);
+    }
+
+    public PagePrefetcher(PageLoader<T> loader, int maxPages) {
+        this(loader, maxPages, 0);
+    }
+
+    /**
+     * @param maxAgeMs trang cache quá thời gian này sẽ tải lại (0 = không hết hạn)
+     */
+    public PagePrefetcher(PageLoader<T> loader, int maxPages, long maxAgeMs) {
+        this.loader = loader;
+        this.maxPages = Math.max(2, maxPages);
+        this.maxAgeMs = maxAgeMs;
+        // accessOrder = true -> LRU
+        this.cache = new LinkedHashMap<Integer, T>(this.maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                boolean remove = size() > PagePrefetcher.this.maxPages;
+                if (remove) loadedAt.remove(eldest.getKey());
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Lấy trang: trả về đồng bộ nếu đã cache, gộp với request đang chạy nếu có
+     */
+    public void loadPage(int page, PageCallback<T> callback) {
+        evictIfExpired(page);
+        T cached = cache.get(page);
+        if (cached != null) {
+            Log.d(TAG, "Page " + page + " served from memory");
+            if (callback != null) callback.onPageLoaded(page, cached);
+            return;
+        }
+        enqueue(page, callback);
+    }
+
+    public boolean isCached(int page) {
+        evictIfExpired(page);
+        return cache.containsKey(page);
+    }
+
+    private void evictIfExpired(int page) {
+        if (maxAgeMs <= 0) return;
+        Long time = loadedAt.get(page);
+        if (time != null && System.currentTimeMillis() - time > maxAgeMs) {
+            cache.remove(page);
+            loadedAt.remove(page);
+        }
+    }
+
+    /**
+     * Prefetch trang lân cận sau khi trang hiện tại đã render.
+     * direction >= 0: trang sau, direction < 0: trang trước
+     */
+    public void prefetchAround(int page, int totalPages, int direction) {
+        int target = direction < 0 ? page - 1 : page + 1;
+        if (target < 1 || target > totalPages) return;
+        if (isCached(target) || isInFlight(target)) return;
+        Log.d(TAG, "Prefetching page " + target);
+        enqueue(target, null);
+    }
+
+    /**
+     * Xóa cache và hủy các request đang chạy (khi query/bộ lọc thay đổi hoặc dữ liệu bị sửa)
+     */
+    public void invalidate() {
+        cancelInFlight();
+        cache.clear();
+        loadedAt.clear();
+    }
+
+    /**
+     * Chỉ hủy các request đang chạy, giữ lại các trang đã cache
+     */
+    public void cancelInFlight() {
+        generation++;
+        for (Call<ApiResponse<T>> call : inFlight.values()) {
+            call.cancel();
+        }
+        inFlight.clear();
+        waiting.clear();
+    }
+
+    /**
+     * Bỏ các callback đang chờ của màn hình cũ (Activity/Fragment bị tạo lại khi xoay màn hình);
+     * request vẫn chạy tiếp và kết quả vào cache cho màn hình mới
+     */
+    public void detachCallbacks() {
+        for (List<PageCallback<T>> callbacks : waiting.values()) {
+            callbacks.clear();
+        }
+    }
+
+    private boolean isInFlight(int page) {
+        Call<ApiResponse<T>> call = inFlight.get(page);
+        if (call == null) return false;
+        if (!call.isCanceled()) return true;
+        // Bị hủy từ bên ngoài (CallRegistry khi màn hình đóng): coi như chưa tải, bỏ callback của màn hình cũ
+        inFlight.remove(page);
+        waiting.remove(page);
+        return false;
+    }
+
+    private void enqueue(int page, PageCallback<T> callback) {
+        boolean loading = isInFlight(page);
+        List<PageCallback<T>> callbacks = waiting.get(page);
+        if (callbacks == null) {
+            callbacks = new ArrayList<>();
+            waiting.put(page, callbacks);
+        }
+        if (callback != null) callbacks.add(callback);
+        if (loading) return;
+
+        final int requestGeneration = generation;
+        Call<ApiResponse<T>> call = loader.createCall(page);
+        inFlight.put(page, call);
+        call.enqueue(new Callback<ApiResponse<T>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<T>> call, Response<ApiResponse<T>> response) {
+                if (requestGeneration != generation) return;
+                inFlight.remove(page);
+                List<PageCallback<T>> pending = waiting.remove(page);
+                ApiResponse<T> body = response.body();
+                if (response.isSuccessful() && body != null && body.isSuccess() && body.getData() != null) {
+                    cache.put(page, body.getData());
+                    loadedAt.put(page, System.currentTimeMillis());
+                    if (pending != null) {
+                        for (PageCallback<T> cb : pending) cb.onPageLoaded(page, body.getData());
+                    }
+                } else if (pending != null) {
+                    String message = body != null ? body.getMessage() : response.message();
+                    for (PageCallback<T> cb : pending) cb.onPageFailed(page, response.code(), message);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ApiResponse<T>> call, Throwable t) {
+                if (requestGeneration != generation || call.isCanceled()) return;
+                inFlight.remove(page);
+                List<PageCallback<T>> pending = waiting.remove(page);
+                Log.w(TAG, "Page " + page + " failed: " + t.getMessage());
+                if (pending != null) {
+                    for (PageCallback<T> cb : pending) cb.onPageFailed(page, -1, t.getMessage());
+                }
+            }
+        });
+    }
+}
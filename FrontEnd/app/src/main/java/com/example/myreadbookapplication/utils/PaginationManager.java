@@ -41,6 +41,10 @@ public class PaginationManager {
     // Callbacks
     private OnPageChangeListener pageChangeListener;
     private OnPageJumpListener pageJumpListener;
+
+    // Page cache / prefetch
+    private PagePrefetcher<?> pagePrefetcher;
+    private int lastDirection = 1;
     
     // Page number buttons
     private List<Button> pageButtons = new ArrayList<>();
@@ -87,6 +91,7 @@ public class PaginationManager {
         this.itemsPerPage = itemsPerPage;
         
         updateUI();
+        schedulePrefetch();
     }
     
     public void setOnPageChangeListener(OnPageChangeListener listener) {
@@ -96,6 +101,30 @@ public class PaginationManager {
     public void setOnPageJumpListener(OnPageJumpListener listener) {
         this.pageJumpListener = listener;
     }
+
+    /**
+     * Gắn cache trang: sau khi trang hiện tại render sẽ prefetch trang kế tiếp (hoặc trang trước khi lùi)
+     */
+    public void setPagePrefetcher(PagePrefetcher<?> prefetcher) {
+        this.pagePrefetcher = prefetcher;
+    }
+
+    public PagePrefetcher<?> getPagePrefetcher() {
+        return pagePrefetcher;
+    }
+
+    private void schedulePrefetch() {
+        if (pagePrefetcher == null || totalPages <= 1) return;
+        final int page = currentPage;
+        final int total = totalPages;
+        final int direction = lastDirection;
+        // post để chạy sau khi trang hiện tại đã layout xong
+        paginationView.post(() -> {
+            if (pagePrefetcher != null && page == currentPage) {
+                pagePrefetcher.prefetchAround(page, total, direction);
+            }
+        });
+    }
     
     private void updateUI() {
         updateNavigationButtons();
@@ -115,11 +144,10 @@ public class PaginationManager {
     }
     
     private void updatePageNumbers() {
-        // Clear existing page buttons
-        containerPageNumbers.removeAllViews();
-        pageButtons.clear();
-        
         if (totalPages <= 1) {
+            for (Button button : pageButtons) {
+                button.setVisibility(View.GONE);
+            }
             return;
         }
         
@@ -134,14 +162,24 @@ public class PaginationManager {
         }
         int endPage = Math.min(totalPages, startPage + maxVisiblePages - 1);
 
-        for (int i = startPage; i <= endPage; i++) {
-            addPageButton(i);
+        // Tái sử dụng Button đã tạo thay vì removeAllViews + tạo lại mỗi lần đổi trang
+        int needed = endPage - startPage + 1;
+        while (pageButtons.size() < needed) {
+            addPageButton();
+        }
+        for (int i = 0; i < pageButtons.size(); i++) {
+            Button button = pageButtons.get(i);
+            if (i < needed) {
+                bindPageButton(button, startPage + i);
+                button.setVisibility(View.VISIBLE);
+            } else {
+                button.setVisibility(View.GONE);
+            }
         }
     }
     
-    private void addPageButton(int pageNumber) {
+    private void addPageButton() {
         Button button = new Button(paginationView.getContext(), null, android.R.attr.buttonStyleSmall);
-        button.setText(String.valueOf(pageNumber));
         LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
                 ViewGroup.LayoutParams.WRAP_CONTENT,
                 ViewGroup.LayoutParams.WRAP_CONTENT);
@@ -152,6 +190,20 @@ public class PaginationManager {
         button.setMinWidth(dpToPx(32));
         button.setMinHeight(dpToPx(28));
         button.setPadding(dpToPx(10), dpToPx(4), dpToPx(10), dpToPx(4));
+        button.setAllCaps(false);
+        button.setOnClickListener(v -> {
+            Object tag = v.getTag();
+            if (tag instanceof Integer) {
+                goToPage((Integer) tag);
+            }
+        });
+        containerPageNumbers.addView(button);
+        pageButtons.add(button);
+    }
+
+    private void bindPageButton(Button button, int pageNumber) {
+        button.setTag(pageNumber);
+        button.setText(String.valueOf(pageNumber));
         if (pageNumber == currentPage) {
             button.setSelected(true);
             button.setTextColor(paginationView.getContext().getColor(R.color.pagination_active_text));
@@ -159,10 +211,6 @@ public class PaginationManager {
             button.setSelected(false);
             button.setTextColor(paginationView.getContext().getColor(R.color.secondary_text));
         }
-        button.setAllCaps(false);
-        button.setOnClickListener(v -> goToPage(pageNumber));
-        containerPageNumbers.addView(button);
-        pageButtons.add(button);
     }
     
     private void goToFirstPage() {
@@ -193,6 +241,18 @@ public class PaginationManager {
         if (page < 1 || page > totalPages || page == currentPage) {
             return;
         }
+        lastDirection = page < currentPage ? -1 : 1;
+
+        // Trang đã có trong cache: đổi ngay, animation chỉ còn để trang trí
+        if (pagePrefetcher != null && pagePrefetcher.isCached(page)) {
+            currentPage = page;
+            updateUI();
+            if (pageChangeListener != null) {
+                pageChangeListener.onPageChanged(page);
+            }
+            animatePageChange(() -> {});
+            return;
+        }
         
         // Animate page change
         animatePageChange(() -> {
@@ -214,6 +274,7 @@ public class PaginationManager {
             Log.w(TAG, "Invalid page number for jump: " + page);
             return;
         }
+        lastDirection = page < currentPage ? -1 : 1;
         
         animatePageChange(() -> {
             currentPage = page;
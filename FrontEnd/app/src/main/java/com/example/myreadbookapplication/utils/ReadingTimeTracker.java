@@ -0,0 +1,408 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.myreadbookapplication.model.ApiResponse;
+import com.example.myreadbookapplication.model.ReadingTimeSyncRequest;
+import com.example.myreadbookapplication.model.ReadingTimeSyncResponse;
+import com.example.myreadbookapplication.network.RetrofitClient;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Đo thời gian đọc thực tế theo phiên đọc của ReadBookActivity.
+ * - Chỉ tính thời gian "active": sau IDLE_TIMEOUT_MS không có tương tác (scroll, đổi chương) thì ngừng đếm
+ * - Sự kiện scroll chỉ ghi lại timestamp, việc cộng dồn làm ở các mốc (đổi chương, pause, hết idle)
+ * - Lưu theo ngày / sách / chương trong file JSON nhỏ, ngày cũ được gộp thành tháng để giới hạn dung lượng
+ * - Delta chưa đồng bộ được gửi lên server theo batch, retry dùng lại seq để server bỏ qua batch trùng;
+ *   seq tăng trong một streamId ngẫu nhiên riêng của mỗi store (cài lại app / thiết bị khác / đổi tài khoản
+ *   không đụng seq của nhau)
+ * - Đổi tài khoản: store của user cũ (kể cả delta chưa gửi) được giữ lại, gửi tiếp khi user đó đăng nhập lại
+ */
+public class ReadingTimeTracker {
+    private static final String TAG = "ReadingTimeTracker";
+    private static final String FILE_NAME = "reading_time.json";
+    private static final long IDLE_TIMEOUT_MS = 3 * 60 * 1000L;
+    private static final int DAYS_KEPT = 60;
+    private static final int MONTHS_KEPT = 36;
+    private static final int MAX_BOOKS = 300;
+    private static final int MAX_CHAPTERS = 1000;
+    private static final int SYNC_BATCH_SIZE = 100;
+    private static final int MAX_OTHER_USERS = 5;
+
+    /**
+     * Dữ liệu lưu trên máy (của một user)
+     */
+    private static class Store {
+        String userId;
+        String streamId;              // idempotency của seq phía server tính theo luồng này
+        long localTotalSeconds;
+        long serverTotalSeconds = -1; // -1: chưa từng đồng bộ
+        long nextSeq = 1;
+        Map<String, Long> days = new HashMap<>();     // yyyyMMdd -> giây
+        Map<String, Long> months = new HashMap<>();   // yyyyMM -> giây (rollup của ngày cũ)
+        Map<String, Long> books = new HashMap<>();    // bookId -> giây
+        Map<String, Long> chapters = new HashMap<>(); // bookId|chapterId -> giây
+        Map<String, Long> pending = new HashMap<>();  // bookId|yyyyMMdd -> giây chưa gửi
+        ReadingTimeSyncRequest inFlight;              // batch đã gán seq, chờ server xác nhận
+        Map<String, Store> otherUsers;                // userId -> store của tài khoản khác đã đăng nhập trên máy
+    }
+
+    private static ReadingTimeTracker instance;
+
+    private final Context context;
+    private final File file;
+    private final Gson gson = new Gson();
+    private final Executor diskExecutor = AppExecutors.getInstance().newSerialIoExecutor();
+    private Store store;
+    private boolean syncing = false;
+
+    // Phiên đọc hiện tại
+    private boolean sessionActive = false;
+    private String sessionBookId;
+    private String sessionChapterId;
+    private long lastTick;
+    private long lastActivity;
+    private long carryMs;
+
+    private ReadingTimeTracker(Context context) {
+        this.context = context.getApplicationContext();
+        this.file = new File(this.context.getFilesDir(), FILE_NAME);
+        this.store = loadStore();
+    }
+
+    public static synchronized ReadingTimeTracker getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReadingTimeTracker(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Bắt đầu phiên đọc (onResume của reader)
+     */
+    public void startSession(String bookId, String chapterId) {
+        if (bookId == null || bookId.isEmpty()) return;
+        if (sessionActive) pauseSession();
+        ensureStoreForCurrentUser();
+        long now = SystemClock.elapsedRealtime();
+        sessionActive = true;
+        sessionBookId = bookId;
+        sessionChapterId = chapterId;
+        lastTick = now;
+        lastActivity = now;
+        carryMs = 0;
+    }
+
+    /**
+     * Gọi từ scroll listener: chỉ so sánh/ghi timestamp, không đụng tới bộ nhớ lưu trữ
+     * trừ khi vừa quay lại sau một khoảng idle
+     */
+    public void onUserActivity() {
+        if (!sessionActive) return;
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastActivity > IDLE_TIMEOUT_MS) {
+            accumulate(now);
+        }
+        lastActivity = now;
+    }
+
+    public void onChapterChanged(String chapterId) {
+        if (!sessionActive) {
+            sessionChapterId = chapterId;
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        accumulate(now);
+        sessionChapterId = chapterId;
+        lastActivity = now;
+    }
+
+    /**
+     * Kết thúc phiên (onPause của reader): cộng dồn, ghi file và đồng bộ delta
+     */
+    public void pauseSession() {
+        if (!sessionActive) return;
+        accumulate(SystemClock.elapsedRealtime());
+        sessionActive = false;
+        persistAsync();
+        syncPending(null);
+    }
+
+    /**
+     * Tổng thời gian đọc (giây): số server (mọi thiết bị) + phần chưa đồng bộ,
+     * hoặc số đo cục bộ nếu chưa đồng bộ lần nào
+     */
+    public synchronized long getTotalReadingSeconds() {
+        ensureStoreForCurrentUser();
+        if (store.serverTotalSeconds < 0) return store.localTotalSeconds;
+        long unsynced = 0;
+        for (long seconds : store.pending.values()) unsynced += seconds;
+        if (store.inFlight != null && store.inFlight.getEntries() != null) {
+            for (ReadingTimeSyncRequest.Entry entry : store.inFlight.getEntries()) unsynced += entry.getSeconds();
+        }
+        return store.serverTotalSeconds + unsynced;
+    }
+
+    public synchronized long getTodaySeconds() {
+        Long seconds = store.days.get(dayKey(Calendar.getInstance()));
+        return seconds != null ? seconds : 0;
+    }
+
+    public synchronized long getBookSeconds(String bookId) {
+        Long seconds = store.books.get(bookId);
+        return seconds != null ? seconds : 0;
+    }
+
+    public synchronized long getChapterSeconds(String bookId, String chapterId) {
+        Long seconds = store.chapters.get(bookId + "|" + chapterId);
+        return seconds != null ? seconds : 0;
+    }
+
+    /**
+     * Gửi delta chưa đồng bộ theo batch. onDone (có thể null) chạy khi batch cuối xong.
+     */
+    public void syncPending(Runnable onDone) {
+        AuthManager authManager = AuthManager.getInstance(context);
+        String userId = authManager.getUserId();
+        String token = authManager.getAccessToken();
+        if (syncing || userId == null || token == null || token.isEmpty()) return;
+
+        ReadingTimeSyncRequest batch;
+        synchronized (this) {
+            ensureStoreForCurrentUser();
+            if (store.inFlight == null) {
+                if (store.pending.isEmpty()) {
+                    if (onDone != null) onDone.run();
+                    return;
+                }
+                List<ReadingTimeSyncRequest.Entry> entries = new ArrayList<>();
+                Iterator<Map.Entry<String, Long>> it = store.pending.entrySet().iterator();
+                while (it.hasNext() && entries.size() < SYNC_BATCH_SIZE) {
+                    Map.Entry<String, Long> e = it.next();
+                    String[] parts = e.getKey().split("\\|", 2);
+                    if (parts.length == 2 && e.getValue() > 0) {
+                        entries.add(new ReadingTimeSyncRequest.Entry(parts[0], parts[1], e.getValue()));
+                    }
+                    it.remove();
+                }
+                store.inFlight = new ReadingTimeSyncRequest(store.streamId, store.nextSeq++, entries);
+            }
+            batch = store.inFlight;
+        }
+        persistAsync();
+
+        syncing = true;
+        RetrofitClient.getApiService().syncReadingTime(userId, batch, "Bearer " + token)
+                .enqueue(new Callback<ApiResponse<ReadingTimeSyncResponse>>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse<ReadingTimeSyncResponse>> call,
+                                           Response<ApiResponse<ReadingTimeSyncResponse>> response) {
+                        syncing = false;
+                        boolean more;
+                        synchronized (ReadingTimeTracker.this) {
+                            if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                                if (response.body().getData() != null) {
+                                    store.serverTotalSeconds = response.body().getData().getTotalSeconds();
+                                }
+                                store.inFlight = null;
+                            } else if (response.code() >= 400 && response.code() < 500 && response.code() != 401) {
+                                // Batch bị server từ chối: bỏ để không retry mãi
+                                Log.w(TAG, "Reading time batch rejected: " + response.code());
+                                store.inFlight = null;
+                            } else {
+                                Log.w(TAG, "Reading time sync failed: " + response.code());
+                                persistAsync();
+                                return;
+                            }
+                            more = !store.pending.isEmpty();
+                        }
+                        persistAsync();
+                        if (more) {
+                            syncPending(onDone);
+                        } else if (onDone != null) {
+                            onDone.run();
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<ApiResponse<ReadingTimeSyncResponse>> call, Throwable t) {
+                        syncing = false;
+                        // Giữ nguyên inFlight (cùng seq) để lần sau gửi lại
+                        Log.w(TAG, "Reading time sync failure: " + t.getMessage());
+                    }
+                });
+    }
+
+    private synchronized void accumulate(long now) {
+        long end = Math.min(now, lastActivity + IDLE_TIMEOUT_MS);
+        if (end > lastTick) {
+            long ms = end - lastTick + carryMs;
+            long seconds = ms / 1000;
+            carryMs = ms % 1000;
+            if (seconds > 0) record(sessionBookId, sessionChapterId, seconds);
+        }
+        lastTick = now;
+    }
+
+    private void record(String bookId, String chapterId, long seconds) {
+        Calendar today = Calendar.getInstance();
+        String day = dayKey(today);
+        if (!store.days.containsKey(day)) rollupOldDays(today);
+
+        store.localTotalSeconds += seconds;
+        add(store.days, day, seconds);
+        add(store.books, bookId, seconds);
+        if (chapterId != null) add(store.chapters, bookId + "|" + chapterId, seconds);
+        add(store.pending, bookId + "|" + day, seconds);
+
+        trimSmallest(store.books, MAX_BOOKS);
+        trimSmallest(store.chapters, MAX_CHAPTERS);
+    }
+
+    /**
+     * Gộp các ngày cũ hơn DAYS_KEPT vào bucket tháng, bỏ các tháng quá MONTHS_KEPT
+     */
+    private void rollupOldDays(Calendar today) {
+        Calendar cutoff = (Calendar) today.clone();
+        cutoff.add(Calendar.DAY_OF_YEAR, -DAYS_KEPT);
+        String cutoffDay = dayKey(cutoff);
+        Iterator<Map.Entry<String, Long>> it = store.days.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            if (e.getKey().compareTo(cutoffDay) < 0) {
+                add(store.months, e.getKey().substring(0, 6), e.getValue());
+                it.remove();
+            }
+        }
+        if (store.months.size() > MONTHS_KEPT) {
+            List<String> keys = new ArrayList<>(store.months.keySet());
+            Collections.sort(keys);
+            for (int i = 0; i < keys.size() - MONTHS_KEPT; i++) {
+                store.months.remove(keys.get(i));
+            }
+        }
+    }
+
+    private static void add(Map<String, Long> map, String key, long seconds) {
+        Long old = map.get(key);
+        map.put(key, (old != null ? old : 0) + seconds);
+    }
+
+    private static void trimSmallest(Map<String, Long> map, int max) {
+        while (map.size() > max) {
+            String smallestKey = null;
+            long smallest = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> e : map.entrySet()) {
+                if (e.getValue() < smallest) {
+                    smallest = e.getValue();
+                    smallestKey = e.getKey();
+                }
+            }
+            map.remove(smallestKey);
+        }
+    }
+
+    private static String dayKey(Calendar calendar) {
+        return String.format(Locale.US, "%04d%02d%02d",
+                calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Đổi user (đăng nhập tài khoản khác): cất store hiện tại (delta chưa gửi vẫn giữ), lấy lại store cũ
+     * của user mới nếu có, không thì bắt đầu store mới
+     */
+    private synchronized void ensureStoreForCurrentUser() {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (userId == null || userId.equals(store.userId)) return;
+        Map<String, Store> others = store.otherUsers != null ? store.otherUsers : new LinkedHashMap<>();
+        store.otherUsers = null;
+        if (store.userId != null) {
+            Log.d(TAG, "User changed, parking reading time store");
+            others.remove(store.userId);
+            others.put(store.userId, store);
+        }
+        Store next = others.remove(userId);
+        if (next == null) next = newStore(userId);
+        // Giới hạn số tài khoản cất giữ, bỏ tài khoản đổi đi lâu nhất
+        Iterator<String> it = others.keySet().iterator();
+        while (others.size() > MAX_OTHER_USERS && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        next.otherUsers = others.isEmpty() ? null : others;
+        store = next;
+        persistAsync();
+    }
+
+    private static Store newStore(String userId) {
+        Store fresh = new Store();
+        fresh.userId = userId;
+        fresh.streamId = UUID.randomUUID().toString();
+        return fresh;
+    }
+
+    private Store loadStore() {
+        if (file.exists()) {
+            // File nhỏ và có giới hạn kích thước, chỉ đọc 1 lần khi khởi tạo
+            try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                Store loaded = gson.fromJson(reader, Store.class);
+                if (loaded != null) {
+                    // Store ghi trước khi có streamId: luồng mới, inFlight cũ (không streamId) vẫn gửi theo seq chung
+                    if (loaded.streamId == null) loaded.streamId = UUID.randomUUID().toString();
+                    if (loaded.otherUsers != null && !(loaded.otherUsers instanceof LinkedHashMap)) {
+                        loaded.otherUsers = new LinkedHashMap<>(loaded.otherUsers);
+                    }
+                    return loaded;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to load reading time store: " + e.getMessage());
+            }
+        }
+        return newStore(AuthManager.getInstance(context).getUserId());
+    }
+
+    private void persistAsync() {
+        final String json;
+        synchronized (this) {
+            json = gson.toJson(store);
+        }
+        diskExecutor.execute(() -> {
+            File tmp = new File(file.getPath() + ".tmp");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+                writer.write(json);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to write reading time store: " + e.getMessage());
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                Log.w(TAG, "Failed to replace reading time store");
+            }
+        });
+    }
+}
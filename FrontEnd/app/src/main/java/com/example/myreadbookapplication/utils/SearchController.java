@@ -0,0 +1,116 @@
+package com.example.myreadbookapplication.utils;
+
+import android.util.Log;
+
+import com.example.myreadbookapplication.model.BooksResponse;
+import com.example.myreadbookapplication.network.ApiService;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Điều phối tìm kiếm sách cho SearchActivity:
+ * - Mỗi query có một PagePrefetcher riêng, giữ trong LRU để gõ lại/xóa bớt ký tự không phải gọi lại server
+ * - Trang cache hết hạn sau CACHE_TTL_MS
+ * - Đổi query thì hủy request của query cũ; kết quả trả về muộn bị bỏ qua nhờ số thứ tự (sequence)
+ */
+public class SearchController {
+    private static final String TAG = "SearchController";
+    private static final int MAX_QUERIES = 10;
+    private static final int MAX_PAGES_PER_QUERY = 5;
+    private static final long CACHE_TTL_MS = 2 * 60 * 1000L;
+
+    private final ApiService apiService;
+    private final int pageSize;
+    private final LinkedHashMap<String, PagePrefetcher<BooksResponse>> queries =
+            new LinkedHashMap<String, PagePrefetcher<BooksResponse>>(MAX_QUERIES + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PagePrefetcher<BooksResponse>> eldest) {
+                    if (size() > MAX_QUERIES) {
+                        eldest.getValue().invalidate();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+    private PagePrefetcher<BooksResponse> active;
+    private int sequence = 0;
+    private int networkSearches = 0;
+    private int avoidedSearches = 0;
+
+    public SearchController(ApiService apiService, int pageSize) {
+        this.apiService = apiService;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Chuyển sang query mới (hủy request đang chạy của query trước) và trả về cache trang của query đó
+     */
+    public PagePrefetcher<BooksResponse> activate(String query) {
+        String key = normalize(query);
+        PagePrefetcher<BooksResponse> prefetcher = queries.get(key);
+        if (prefetcher == null) {
+            final String input = query.trim();
+            prefetcher = new PagePrefetcher<>(p -> apiService.searchBooks(input, p, pageSize),
+                    MAX_PAGES_PER_QUERY, CACHE_TTL_MS);
+            queries.put(key, prefetcher);
+        }
+        if (active != null && active != prefetcher) {
+            active.cancelInFlight();
+        }
+        active = prefetcher;
+        return prefetcher;
+    }
+
+    /**
+     * Tìm một trang; callback chỉ được gọi nếu đây vẫn là lần tìm kiếm mới nhất
+     */
+    public void search(String query, int page, PagePrefetcher.PageCallback<BooksResponse> callback) {
+        PagePrefetcher<BooksResponse> prefetcher = activate(query);
+        final int requestSequence = ++sequence;
+        if (prefetcher.isCached(page)) {
+            avoidedSearches++;
+            Log.d(TAG, "Cache hit for \"" + query + "\" page " + page + " (avoided " + avoidedSearches
+                    + "/" + (avoidedSearches + networkSearches) + " searches)");
+        } else {
+            networkSearches++;
+        }
+        prefetcher.loadPage(page, new PagePrefetcher.PageCallback<BooksResponse>() {
+            @Override
+            public void onPageLoaded(int loadedPage, BooksResponse data) {
+                if (requestSequence != sequence) return;
+                callback.onPageLoaded(loadedPage, data);
+            }
+
+            @Override
+            public void onPageFailed(int failedPage, int code, String message) {
+                if (requestSequence != sequence) return;
+                callback.onPageFailed(failedPage, code, message);
+            }
+        });
+    }
+
+    /**
+     * Hủy lần tìm kiếm hiện tại (user đang gõ tiếp hoặc xóa query); cache vẫn giữ
+     */
+    public void cancel() {
+        sequence++;
+        if (active != null) active.cancelInFlight();
+    }
+
+    public int getNetworkSearches() {
+        return networkSearches;
+    }
+
+    /**
+     * Số lần tìm kiếm được phục vụ từ cache thay vì gọi server
+     */
+    public int getAvoidedSearches() {
+        return avoidedSearches;
+    }
+
+    private static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
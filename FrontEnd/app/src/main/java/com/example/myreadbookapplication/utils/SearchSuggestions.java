@@ -0,0 +1,147 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.myreadbookapplication.model.Book;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gợi ý typeahead cho SearchActivity, xây từ:
+ * - Sách trong BookCache (title + author), sách user đã đọc được ưu tiên
+ * - Các query user đã tìm trước đó (lưu trong SharedPreferences)
+ * Trie được xây ở background thread. Khi BookCache thay đổi thì xây lại trie mới từ đầu rồi thay vào
+ * (gợi ý của sách đã đổi tên / ngừng hoạt động / hết hạn trong cache không còn sót lại); nhiều thay đổi
+ * liên tiếp được gộp thành một lần xây.
+ */
+public class SearchSuggestions {
+    private static final String PREFS_NAME = "search_prefs";
+    private static final String KEY_RECENT_QUERIES = "recent_queries";
+    private static final int MAX_RECENT_QUERIES = 30;
+    private static final int TOP_N = 8;
+
+    private static final float SCORE_QUERY = 3f;
+    private static final float SCORE_READ_BOOK = 2f;
+    private static final float SCORE_BOOK = 1f;
+    private static final float SCORE_AUTHOR = 0.8f;
+    // Khớp từ giữa tên sách ("nhan" -> "Đắc Nhân Tâm") thấp hơn khớp từ đầu
+    private static final float INNER_WORD_FACTOR = 0.7f;
+
+    private static SearchSuggestions instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+    private final BookCache bookCache;
+    private final Executor buildExecutor = AppExecutors.getInstance().newSerialComputeExecutor();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+    private volatile SuggestionTrie trie = new SuggestionTrie(TOP_N);
+
+    private SearchSuggestions(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.bookCache = BookCache.getInstance(this.context);
+        bookCache.addOnBooksChangedListener(books -> scheduleRebuild());
+        scheduleRebuild();
+    }
+
+    public static synchronized SearchSuggestions getInstance(Context context) {
+        if (instance == null) {
+            instance = new SearchSuggestions(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Gợi ý cho prefix đang gõ (gọi trực tiếp trên main thread)
+     */
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        return trie.suggest(prefix, limit);
+    }
+
+    /**
+     * Ghi nhận query user đã tìm (bấm search/Enter hoặc chọn gợi ý)
+     */
+    public void recordQuery(String query) {
+        if (query == null || query.trim().length() < 2) return;
+        String trimmed = query.trim();
+        List<String> queries = getRecentQueries();
+        String key = SuggestionTrie.normalizeKey(trimmed);
+        for (int i = queries.size() - 1; i >= 0; i--) {
+            if (SuggestionTrie.normalizeKey(queries.get(i)).equals(key)) queries.remove(i);
+        }
+        queries.add(0, trimmed);
+        while (queries.size() > MAX_RECENT_QUERIES) queries.remove(queries.size() - 1);
+        prefs.edit().putString(KEY_RECENT_QUERIES, gson.toJson(queries)).apply();
+        buildExecutor.execute(() -> addQuery(trie, trimmed, SCORE_QUERY + MAX_RECENT_QUERIES * 0.01f));
+    }
+
+    /**
+     * Xây lại trie trên lane compute (một lần cho cả loạt thay đổi đang chờ)
+     */
+    private void scheduleRebuild() {
+        if (!rebuildScheduled.compareAndSet(false, true)) return;
+        buildExecutor.execute(() -> {
+            rebuildScheduled.set(false);
+            SuggestionTrie next = new SuggestionTrie(TOP_N);
+            Set<String> readBookIds = UserStatsManager.getInstance(context).getReadBookIds();
+            List<String> queries = getRecentQueries();
+            for (int i = 0; i < queries.size(); i++) {
+                // Query càng gần đây điểm càng cao
+                addQuery(next, queries.get(i), SCORE_QUERY + (queries.size() - i) * 0.01f);
+            }
+            addBooks(next, bookCache.getAll(), readBookIds);
+            trie = next;
+        });
+    }
+
+    private List<String> getRecentQueries() {
+        Type type = new TypeToken<List<String>>(){}.getType();
+        List<String> queries = gson.fromJson(prefs.getString(KEY_RECENT_QUERIES, "[]"), type);
+        return queries != null ? queries : new ArrayList<>();
+    }
+
+    private static void addQuery(SuggestionTrie trie, String query, float score) {
+        trie.insert(query, new SuggestionTrie.Suggestion(SuggestionTrie.TYPE_QUERY, query, null, null, score));
+    }
+
+    private static void addBooks(SuggestionTrie trie, List<Book> books, Set<String> readBookIds) {
+        for (Book book : books) {
+            if (book == null || book.getId() == null || book.getTitle() == null) continue;
+            if (book.getStatus() != null && !"active".equals(book.getStatus())) continue;
+            float score = readBookIds.contains(book.getId()) ? SCORE_READ_BOOK : SCORE_BOOK;
+            SuggestionTrie.Suggestion bookSuggestion = new SuggestionTrie.Suggestion(
+                    SuggestionTrie.TYPE_BOOK, book.getTitle(), book.getAuthor(), book.getId(), score);
+            insertAtWordStarts(trie, book.getTitle(), bookSuggestion, score);
+
+            if (book.getAuthor() != null && !book.getAuthor().trim().isEmpty()) {
+                SuggestionTrie.Suggestion authorSuggestion = new SuggestionTrie.Suggestion(
+                        SuggestionTrie.TYPE_AUTHOR, book.getAuthor().trim(), null, null, SCORE_AUTHOR);
+                insertAtWordStarts(trie, book.getAuthor(), authorSuggestion, SCORE_AUTHOR);
+            }
+        }
+    }
+
+    /**
+     * Chèn dưới key đầy đủ và dưới từng hậu tố bắt đầu từ một từ, với điểm thấp hơn
+     */
+    private static void insertAtWordStarts(SuggestionTrie trie, String text, SuggestionTrie.Suggestion suggestion, float score) {
+        String key = SuggestionTrie.normalizeKey(text);
+        trie.insert(key, suggestion);
+        SuggestionTrie.Suggestion inner = new SuggestionTrie.Suggestion(
+                suggestion.type, suggestion.text, suggestion.subtitle, suggestion.bookId, score * INNER_WORD_FACTOR);
+        int index = key.indexOf(' ');
+        while (index >= 0 && index + 1 < key.length()) {
+            trie.insert(key.substring(index + 1), inner);
+            index = key.indexOf(' ', index + 1);
+        }
+    }
+}
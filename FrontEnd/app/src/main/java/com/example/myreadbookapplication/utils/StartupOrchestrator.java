@@ -0,0 +1,274 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.bumptech.glide.Glide;
+import com.example.myreadbookapplication.BuildConfig;
+import com.example.myreadbookapplication.model.ApiResponse;
+import com.example.myreadbookapplication.model.Book;
+import com.example.myreadbookapplication.model.BooksResponse;
+import com.example.myreadbookapplication.model.CategoriesResponse;
+import com.example.myreadbookapplication.model.User;
+import com.example.myreadbookapplication.network.ApiService;
+import com.example.myreadbookapplication.network.PrefetchedCall;
+import com.example.myreadbookapplication.network.RetrofitClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Điều phối công việc lúc khởi động, chạy song song ngay khi process start (Application.onCreate):
+ * - Warm-up kết nối OkHttp (DNS/TCP/TLS) tới BASE_URL
+ * - Validate token bằng getUserProfile
+ * - Prefetch dữ liệu Home (categories, sách mới + ảnh bìa) nếu user thường đã đăng nhập
+ * IntroActivity chỉ chờ kết quả token (có deadline); HomeActivity lấy dữ liệu prefetch qua takeCategories/takeLatestBooks.
+ * Kết quả validate gắn với access token đã kiểm tra: token đổi (đăng nhập lại, logout) thì kết quả cũ không dùng nữa.
+ * Kết quả đến sau deadline của IntroActivity được chuyển cho lateTokenListener (Application) để vẫn logout khi INVALID.
+ */
+public class StartupOrchestrator {
+    private static final String TAG = "StartupOrchestrator";
+    // Dữ liệu prefetch chỉ dùng nếu Home mở trong khoảng thời gian này
+    private static final long PREFETCH_MAX_AGE_MS = 60 * 1000L;
+    public static final int LATEST_BOOKS_LIMIT = 10;
+
+    public enum TokenState {
+        NOT_LOGGED_IN,
+        VALID,
+        INVALID,
+        // Lỗi mạng hoặc quá deadline: vẫn cho phép auto-login với token local
+        UNKNOWN
+    }
+
+    public interface TokenListener {
+        void onTokenState(TokenState state);
+    }
+
+    private static StartupOrchestrator instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<TokenListener> tokenListeners = new ArrayList<>();
+    private boolean started = false;
+    private Context appContext;
+    private TokenState tokenState;
+    // Access token ứng với tokenState / đang được validate (null: chưa đăng nhập)
+    private String tokenStateFor;
+    // Đã có listener nhận UNKNOWN vì quá deadline trong khi token tokenStateFor chưa có kết quả
+    private boolean deadlineMissed = false;
+    private TokenListener lateTokenListener;
+    private PrefetchedCall<ApiResponse<CategoriesResponse>> categoriesPrefetch;
+    private PrefetchedCall<ApiResponse<BooksResponse>> latestBooksPrefetch;
+
+    private StartupOrchestrator() {
+    }
+
+    public static synchronized StartupOrchestrator getInstance() {
+        if (instance == null) {
+            instance = new StartupOrchestrator();
+        }
+        return instance;
+    }
+
+    /**
+     * Bắt đầu toàn bộ công việc khởi động, chỉ chạy một lần cho mỗi process
+     */
+    public void start(Context context) {
+        if (started) return;
+        started = true;
+        appContext = context.getApplicationContext();
+        RetrofitClient.init(appContext);
+        AuthManager authManager = AuthManager.getInstance(appContext);
+
+        warmUpConnection();
+
+        String userId = authManager.getUserId();
+        String accessToken = authManager.getAccessToken();
+        if (!authManager.isLoggedIn() || userId == null || userId.isEmpty()
+                || accessToken == null || accessToken.isEmpty()) {
+            tokenState = TokenState.NOT_LOGGED_IN;
+            tokenStateFor = null;
+            return;
+        }
+
+        ApiService apiService = RetrofitClient.getApiService();
+        tokenStateFor = accessToken;
+        validateToken(apiService, userId, accessToken);
+        // Bookmark còn chờ từ lần mở trước (thoát reader khi mất mạng / process bị kill)
+        BookmarkSyncManager.getInstance(appContext).syncPending();
+        if (!authManager.isAdmin()) {
+            prefetchHome(appContext, apiService);
+        }
+    }
+
+    private void warmUpConnection() {
+        Request request = new Request.Builder().url(BuildConfig.BASE_URL).head().build();
+        RetrofitClient.getOkHttpClient().newCall(request).enqueue(new okhttp3.Callback() {
+            @Override
+            public void onResponse(@NonNull okhttp3.Call call, @NonNull okhttp3.Response response) {
+                // Chỉ cần kết nối được mở sẵn trong pool, bỏ qua nội dung
+                response.close();
+            }
+
+            @Override
+            public void onFailure(@NonNull okhttp3.Call call, @NonNull IOException e) {
+                Log.w(TAG, "Connection warm-up failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void validateToken(ApiService apiService, String userId, String accessToken) {
+        apiService.getUserProfile(userId, "Bearer " + accessToken).enqueue(new Callback<ApiResponse<User>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<User>> call, Response<ApiResponse<User>> response) {
+                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                        && response.body().getData() != null) {
+                    deliverTokenState(accessToken, TokenState.VALID);
+                } else if (response.code() >= 500) {
+                    // Lỗi server không có nghĩa là token sai
+                    deliverTokenState(accessToken, TokenState.UNKNOWN);
+                } else {
+                    deliverTokenState(accessToken, TokenState.INVALID);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ApiResponse<User>> call, Throwable t) {
+                Log.w(TAG, "Token validation network error: " + t.getMessage());
+                deliverTokenState(accessToken, TokenState.UNKNOWN);
+            }
+        });
+    }
+
+    private void prefetchHome(Context appContext, ApiService apiService) {
+        categoriesPrefetch = new PrefetchedCall<>(PREFETCH_MAX_AGE_MS);
+        categoriesPrefetch.start(apiService.getCategories("active"));
+
+        latestBooksPrefetch = new PrefetchedCall<ApiResponse<BooksResponse>>(PREFETCH_MAX_AGE_MS) {
+            @Override
+            public void onResponse(Call<ApiResponse<BooksResponse>> call, Response<ApiResponse<BooksResponse>> response) {
+                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                        && response.body().getData() != null) {
+                    preloadCovers(appContext, response.body().getData().getBooks());
+                }
+                super.onResponse(call, response);
+            }
+        };
+        latestBooksPrefetch.start(apiService.getBooks(null, "active", LATEST_BOOKS_LIMIT, 1));
+    }
+
+    /**
+     * Banner Home dùng ảnh drawable có sẵn nên không cần tải; chỉ preload ảnh bìa sách mới vào cache Glide
+     */
+    private void preloadCovers(Context appContext, List<Book> books) {
+        if (books == null) return;
+        BookCache.getInstance(appContext).putAll(books);
+        for (Book book : books) {
+            if (book != null && book.getCoverUrl() != null && !book.getCoverUrl().isEmpty()) {
+                Glide.with(appContext).load(book.getCoverUrl()).preload();
+            }
+        }
+    }
+
+    private void deliverTokenState(String accessToken, TokenState state) {
+        // Kết quả của token cũ (user đã đăng nhập lại trong lúc chờ): bỏ qua
+        if (tokenState != null || !accessToken.equals(tokenStateFor)) return;
+        tokenState = state;
+        Log.d(TAG, "Token state: " + state);
+        List<TokenListener> listeners = new ArrayList<>(tokenListeners);
+        tokenListeners.clear();
+        for (TokenListener listener : listeners) {
+            listener.onTokenState(state);
+        }
+        // Màn hình chờ đã đi tiếp với UNKNOWN: báo kết quả thật nếu token vẫn là token đang dùng
+        if (deadlineMissed && lateTokenListener != null && appContext != null
+                && accessToken.equals(AuthManager.getInstance(appContext).getAccessToken())) {
+            lateTokenListener.onTokenState(state);
+        }
+        deadlineMissed = false;
+    }
+
+    /**
+     * Listener cấp process nhận kết quả validate đến sau deadline của awaitTokenState (gọi trên main thread)
+     */
+    public void setLateTokenListener(TokenListener listener) {
+        lateTokenListener = listener;
+    }
+
+    /**
+     * Chờ kết quả validate token tối đa deadlineMs; quá hạn thì trả về UNKNOWN.
+     * Listener được gọi đúng một lần trên main thread.
+     */
+    public void awaitTokenState(long deadlineMs, TokenListener listener) {
+        revalidateIfTokenChanged();
+        if (tokenState != null) {
+            listener.onTokenState(tokenState);
+            return;
+        }
+        final boolean[] delivered = {false};
+        Runnable timeout = () -> {
+            if (delivered[0]) return;
+            delivered[0] = true;
+            deadlineMissed = true;
+            Log.w(TAG, "Token validation exceeded " + deadlineMs + "ms, continuing with local token");
+            listener.onTokenState(TokenState.UNKNOWN);
+        };
+        tokenListeners.add(state -> {
+            if (delivered[0]) return;
+            delivered[0] = true;
+            mainHandler.removeCallbacks(timeout);
+            listener.onTokenState(state);
+        });
+        mainHandler.postDelayed(timeout, deadlineMs);
+    }
+
+    /**
+     * Token hiện tại khác token đã validate (đăng nhập mới / logout sau khi process start): validate lại
+     */
+    private void revalidateIfTokenChanged() {
+        if (appContext == null) return;
+        AuthManager authManager = AuthManager.getInstance(appContext);
+        String userId = authManager.getUserId();
+        String accessToken = authManager.getAccessToken();
+        if (!authManager.isLoggedIn() || userId == null || userId.isEmpty()
+                || accessToken == null || accessToken.isEmpty()) {
+            accessToken = null;
+        }
+        if (accessToken == null ? tokenStateFor == null : accessToken.equals(tokenStateFor)) return;
+
+        Log.d(TAG, "Access token changed since last validation");
+        tokenStateFor = accessToken;
+        deadlineMissed = false;
+        if (accessToken == null) {
+            tokenState = TokenState.NOT_LOGGED_IN;
+            return;
+        }
+        tokenState = null;
+        validateToken(RetrofitClient.getApiService(), userId, accessToken);
+    }
+
+    /**
+     * Nhận categories đã prefetch; false nếu không có (Home tự gọi API).
+     * Callback bị bỏ nếu owner bị destroy trước khi có kết quả.
+     */
+    public boolean takeCategories(LifecycleOwner owner, Callback<ApiResponse<CategoriesResponse>> callback) {
+        return categoriesPrefetch != null && categoriesPrefetch.consume(owner, callback);
+    }
+
+    /**
+     * Nhận danh sách sách mới (getBooks(null, "active", LATEST_BOOKS_LIMIT, 1)) đã prefetch
+     */
+    public boolean takeLatestBooks(LifecycleOwner owner, Callback<ApiResponse<BooksResponse>> callback) {
+        return latestBooksPrefetch != null && latestBooksPrefetch.consume(owner, callback);
+    }
+}
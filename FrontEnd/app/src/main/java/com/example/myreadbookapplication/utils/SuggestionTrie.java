@@ -0,0 +1,107 @@
+package com.example.myreadbookapplication.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie tiền tố, mỗi node giữ sẵn top-N gợi ý tốt nhất của nhánh đó.
+ * suggest() chỉ đi theo các ký tự của prefix rồi trả về list có sẵn: O(độ dài prefix),
+ * đủ nhanh để gọi trên main thread ở mỗi lần gõ phím.
+ * Key được chuẩn hóa bằng CatalogSearchIndex.normalize (bỏ dấu tiếng Việt, chữ thường).
+ */
+public class SuggestionTrie {
+    public static final int TYPE_BOOK = 0;
+    public static final int TYPE_AUTHOR = 1;
+    public static final int TYPE_QUERY = 2;
+
+    public static class Suggestion {
+        public final int type;
+        public final String text;
+        public final String subtitle;
+        public final String bookId; // chỉ có với TYPE_BOOK
+        final float score;
+        final String key;
+
+        public Suggestion(int type, String text, String subtitle, String bookId, float score) {
+            this.type = type;
+            this.text = text;
+            this.subtitle = subtitle;
+            this.bookId = bookId;
+            this.score = score;
+            this.key = type + ":" + (bookId != null ? bookId : normalizeKey(text));
+        }
+    }
+
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<>(4);
+        final List<Suggestion> top = new ArrayList<>(2);
+    }
+
+    private final int topN;
+    private final Node root = new Node();
+
+    public SuggestionTrie(int topN) {
+        this.topN = topN;
+    }
+
+    public static String normalizeKey(String text) {
+        return CatalogSearchIndex.normalize(text).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Thêm gợi ý dưới key (đã hoặc chưa chuẩn hóa). Gợi ý trùng (cùng loại + id/text) giữ điểm cao hơn.
+     */
+    public synchronized void insert(String keyText, Suggestion suggestion) {
+        String key = normalizeKey(keyText);
+        if (key.isEmpty()) return;
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node();
+                node.children.put(c, child);
+            }
+            node = child;
+            offer(node.top, suggestion);
+        }
+    }
+
+    /**
+     * Top gợi ý cho prefix, sắp theo điểm giảm dần
+     */
+    public synchronized List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalizeKey(prefix);
+        if (key.isEmpty()) return Collections.emptyList();
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) return Collections.emptyList();
+        return new ArrayList<>(node.top.subList(0, Math.min(limit, node.top.size())));
+    }
+
+    public synchronized void clear() {
+        root.children.clear();
+        root.top.clear();
+    }
+
+    private void offer(List<Suggestion> top, Suggestion suggestion) {
+        for (int i = 0; i < top.size(); i++) {
+            if (top.get(i).key.equals(suggestion.key)) {
+                if (top.get(i).score >= suggestion.score) return;
+                top.remove(i);
+                break;
+            }
+        }
+        if (top.size() >= topN && top.get(top.size() - 1).score >= suggestion.score) return;
+        // Chèn giữ thứ tự giảm dần theo điểm
+        int index = 0;
+        while (index < top.size() && top.get(index).score >= suggestion.score) index++;
+        top.add(index, suggestion);
+        if (top.size() > topN) top.remove(top.size() - 1);
+    }
+}
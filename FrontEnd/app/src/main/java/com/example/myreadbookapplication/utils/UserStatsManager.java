@@ -0,0 +1,226 @@
+package com.example.myreadbookapplication.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.myreadbookapplication.model.ApiResponse;
+import com.example.myreadbookapplication.model.FavoritesResponse;
+import com.example.myreadbookapplication.model.ReadingHistoryResponse;
+import com.example.myreadbookapplication.network.RetrofitClient;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Thống kê của user cho header Home (số sách đã đọc, yêu thích, thời gian đọc).
+ * Thời gian đọc lấy từ ReadingTimeTracker (đo thực tế), không còn ước tính theo số sách.
+ * Giá trị được lưu trong SharedPreferences để hiển thị ngay không cần mạng:
+ * - Yêu thích: tổng từ server (getFavoriteIds limit=1) + chênh lệch của danh sách "favorite_books" cục bộ
+ *   kể từ lần đối soát (các adapter cập nhật danh sách này khi toggle)
+ * - Sách đã đọc: số từ server + cộng dồn khi lưu bookmark sách mới, đối soát lại bằng
+ *   một request getReadingHistory(limit=1) khi dữ liệu cũ hoặc có thay đổi
+ * Màn hình nhận thay đổi qua addListener/removeListener (onStart/onStop), không truyền callback vào request.
+ */
+public class UserStatsManager {
+    private static final String TAG = "UserStatsManager";
+    private static final String PREFS_NAME = "user_stats";
+    private static final String KEY_BOOKS_READ = "books_read_";
+    private static final String KEY_READ_BOOK_IDS = "read_book_ids_";
+    private static final String KEY_LAST_REFRESH = "last_refresh_";
+    private static final String KEY_HISTORY_DIRTY = "history_dirty_";
+    private static final String KEY_FAVORITES_TOTAL = "favorites_total_";
+    // Số phần tử favorite_books cục bộ tại lúc nhận tổng từ server
+    private static final String KEY_FAVORITES_LOCAL_BASE = "favorites_local_base_";
+    private static final long REFRESH_INTERVAL_MS = 15 * 60 * 1000L;
+    private static final int MAX_TRACKED_IDS = 1000;
+
+    public interface OnStatsChangedListener {
+        void onStatsChanged(UserStatsManager stats);
+    }
+
+    private static UserStatsManager instance;
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+    private final List<OnStatsChangedListener> listeners = new CopyOnWriteArrayList<>();
+    private int refreshing = 0;
+
+    private UserStatsManager(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized UserStatsManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new UserStatsManager(context);
+        }
+        return instance;
+    }
+
+    public void addListener(OnStatsChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OnStatsChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyChanged() {
+        for (OnStatsChangedListener listener : listeners) listener.onStatsChanged(this);
+    }
+
+    public int getBooksReadCount() {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (userId == null) return 0;
+        return prefs.getInt(KEY_BOOKS_READ + userId, 0);
+    }
+
+    public int getFavoritesCount() {
+        int local = getLocalFavoritesSize();
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (userId == null || !prefs.contains(KEY_FAVORITES_TOTAL + userId)) return local;
+        // Toggle sau lần đối soát chỉ sửa danh sách cục bộ: cộng phần chênh lệch vào tổng của server
+        int total = prefs.getInt(KEY_FAVORITES_TOTAL + userId, 0)
+                + local - prefs.getInt(KEY_FAVORITES_LOCAL_BASE + userId, local);
+        return Math.max(0, total);
+    }
+
+    /**
+     * Tổng số yêu thích vừa nhận từ server (FavoriteActivity / refreshIfNeeded)
+     */
+    public void onFavoritesTotal(int total) {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (userId == null) return;
+        prefs.edit()
+                .putInt(KEY_FAVORITES_TOTAL + userId, total)
+                .putInt(KEY_FAVORITES_LOCAL_BASE + userId, getLocalFavoritesSize())
+                .apply();
+    }
+
+    private int getLocalFavoritesSize() {
+        SharedPreferences appPrefs = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE);
+        Type type = new TypeToken<List<String>>(){}.getType();
+        List<String> favorites = gson.fromJson(appPrefs.getString("favorite_books", "[]"), type);
+        return favorites != null ? favorites.size() : 0;
+    }
+
+    /**
+     * ID các sách user đã mở đọc (ghi nhận khi lưu bookmark)
+     */
+    public Set<String> getReadBookIds() {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (userId == null) return new HashSet<>();
+        return new HashSet<>(prefs.getStringSet(KEY_READ_BOOK_IDS + userId, new HashSet<>()));
+    }
+
+    public long getReadingSeconds() {
+        return ReadingTimeTracker.getInstance(context).getTotalReadingSeconds();
+    }
+
+    /**
+     * Đẩy thời gian đọc chưa đồng bộ (nếu có), báo listener khi có tổng mới từ server
+     */
+    public void syncReadingTime() {
+        ReadingTimeTracker.getInstance(context).syncPending(this::notifyChanged);
+    }
+
+    /**
+     * Gọi khi lưu bookmark thành công: sách mới thì tăng ngay số đã đọc,
+     * đồng thời đánh dấu cần đối soát với server ở lần refresh sau
+     */
+    public void onBookmarkSaved(String bookId) {
+        String userId = AuthManager.getInstance(context).getUserId();
+        if (userId == null || bookId == null) return;
+        SharedPreferences.Editor editor = prefs.edit();
+        Set<String> readIds = new HashSet<>(prefs.getStringSet(KEY_READ_BOOK_IDS + userId, new HashSet<>()));
+        if (readIds.size() < MAX_TRACKED_IDS && readIds.add(bookId)) {
+            editor.putStringSet(KEY_READ_BOOK_IDS + userId, readIds);
+            editor.putInt(KEY_BOOKS_READ + userId, prefs.getInt(KEY_BOOKS_READ + userId, 0) + 1);
+        }
+        editor.putBoolean(KEY_HISTORY_DIRTY + userId, true);
+        editor.apply();
+    }
+
+    /**
+     * Refresh lười: chỉ gọi server khi quá REFRESH_INTERVAL_MS hoặc lịch sử vừa thay đổi
+     */
+    public void refreshIfNeeded() {
+        AuthManager authManager = AuthManager.getInstance(context);
+        String userId = authManager.getUserId();
+        String token = authManager.getAccessToken();
+        if (userId == null || userId.isEmpty() || token == null || token.isEmpty()) return;
+
+        long lastRefresh = prefs.getLong(KEY_LAST_REFRESH + userId, 0);
+        boolean dirty = prefs.getBoolean(KEY_HISTORY_DIRTY + userId, false);
+        boolean stale = System.currentTimeMillis() - lastRefresh > REFRESH_INTERVAL_MS;
+        if ((!dirty && !stale) || refreshing > 0) return;
+
+        refreshing = stale ? 2 : 1;
+        if (stale) refreshFavoritesTotal(userId, token);
+        // Chỉ cần pagination.total nên limit = 1
+        RetrofitClient.getApiService()
+                .getReadingHistory(userId, "Bearer " + token, 1, 1, "lastReadAt", "desc")
+                .enqueue(new Callback<ApiResponse<ReadingHistoryResponse>>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse<ReadingHistoryResponse>> call,
+                                           Response<ApiResponse<ReadingHistoryResponse>> response) {
+                        refreshing--;
+                        if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                            ReadingHistoryResponse data = response.body().getData();
+                            if (data != null && data.getPagination() != null) {
+                                prefs.edit()
+                                        .putInt(KEY_BOOKS_READ + userId, data.getPagination().getTotal())
+                                        .putLong(KEY_LAST_REFRESH + userId, System.currentTimeMillis())
+                                        .putBoolean(KEY_HISTORY_DIRTY + userId, false)
+                                        .apply();
+                                notifyChanged();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<ApiResponse<ReadingHistoryResponse>> call, Throwable t) {
+                        refreshing--;
+                        Log.w(TAG, "Failed to refresh user stats: " + t.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Đối soát số yêu thích với server (limit = 1, chỉ lấy pagination.total)
+     */
+    private void refreshFavoritesTotal(String userId, String token) {
+        RetrofitClient.getApiService()
+                .getFavoriteIds(userId, 1, 1, "Bearer " + token)
+                .enqueue(new Callback<ApiResponse<FavoritesResponse>>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse<FavoritesResponse>> call,
+                                           Response<ApiResponse<FavoritesResponse>> response) {
+                        refreshing--;
+                        if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                            FavoritesResponse data = response.body().getData();
+                            if (data != null && data.getPagination() != null) {
+                                onFavoritesTotal(data.getPagination().getTotal());
+                                notifyChanged();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<ApiResponse<FavoritesResponse>> call, Throwable t) {
+                        refreshing--;
+                        Log.w(TAG, "Failed to refresh favorites total: " + t.getMessage());
+                    }
+                });
+    }
+}
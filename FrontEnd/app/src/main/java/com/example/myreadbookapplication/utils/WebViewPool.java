@@ -0,0 +1,192 @@
+package com.example.myreadbookapplication.utils;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Giữ sẵn một WebView đã tạo + cấu hình cho màn hình đọc sách (ReadBookActivity).
+ * Tạo WebView lần đầu (khởi động Chromium) là bước chậm nhất khi mở sách trên máy yếu, nên việc này
+ * được làm lúc main thread rảnh sau khi app khởi động. Activity lấy WebView bằng acquire() và trả lại
+ * bằng release() khi thoát; khi hệ thống báo thiếu bộ nhớ thì WebView đang giữ bị hủy.
+ * Chỉ dùng trên main thread.
+ */
+public class WebViewPool {
+    private static final String TAG = "WebViewPool";
+    // Chờ màn hình đầu tiên render xong rồi mới tạo WebView
+    private static final long PREWARM_DELAY_MS = 1500;
+
+    private static WebViewPool instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Context appContext;
+    private WebView pooled;
+    // pooled đã về about:blank và xóa lịch sử xong (prewarm thì chưa có lịch sử nào)
+    private boolean pooledClean = false;
+    private boolean callbacksRegistered = false;
+    private int hits = 0;
+    private int misses = 0;
+
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            // UI_HIDDEN chỉ là app xuống background, vẫn giữ WebView cho lần mở sách tiếp theo
+            if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) return;
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                clear();
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {}
+
+        @Override
+        public void onLowMemory() {
+            clear();
+        }
+    };
+
+    private WebViewPool() {}
+
+    public static synchronized WebViewPool getInstance() {
+        if (instance == null) {
+            instance = new WebViewPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Tạo sẵn WebView khi main thread rảnh (gọi từ Application.onCreate)
+     */
+    public void prewarmWhenIdle(Context context) {
+        init(context);
+        mainHandler.postDelayed(() -> Looper.myQueue().addIdleHandler(() -> {
+            if (pooled == null) {
+                long start = SystemClock.uptimeMillis();
+                try {
+                    pooled = create(new MutableContextWrapper(appContext));
+                    pooledClean = true;
+                    Log.d(TAG, "Pre-warmed WebView in " + (SystemClock.uptimeMillis() - start) + "ms");
+                } catch (RuntimeException e) {
+                    // WebView provider đang cập nhật / bị tắt: để Activity tự tạo khi cần
+                    Log.w(TAG, "Failed to pre-warm WebView: " + e.getMessage());
+                }
+            }
+            return false;
+        }), PREWARM_DELAY_MS);
+    }
+
+    /**
+     * Lấy WebView cho Activity: dùng WebView đã tạo sẵn nếu có, không thì tạo mới
+     */
+    public WebView acquire(Activity activity) {
+        init(activity);
+        WebView webView = pooled;
+        pooled = null;
+        if (webView != null && !pooledClean) {
+            // about:blank chưa load xong nên lịch sử của sách trước còn: canGoBack() sẽ sai, tạo WebView mới
+            Log.d(TAG, "Pooled WebView not reset yet, discarding");
+            webView.destroy();
+            webView = null;
+        }
+        if (webView != null) {
+            hits++;
+            ((MutableContextWrapper) webView.getContext()).setBaseContext(activity);
+        } else {
+            misses++;
+            long start = SystemClock.uptimeMillis();
+            webView = create(new MutableContextWrapper(activity));
+            Log.d(TAG, "Created WebView on demand in " + (SystemClock.uptimeMillis() - start) + "ms");
+        }
+        Log.d(TAG, "acquire: hits=" + hits + ", misses=" + misses);
+        return webView;
+    }
+
+    /**
+     * Trả WebView về pool khi Activity thoát: xóa nội dung/lịch sử và bỏ mọi tham chiếu tới Activity.
+     * Lịch sử chỉ xóa được sau khi about:blank đã load xong (clearHistory giữ lại trang hiện tại).
+     */
+    public void release(WebView webView) {
+        if (webView == null) return;
+        if (webView.getParent() instanceof ViewGroup) {
+            ((ViewGroup) webView.getParent()).removeView(webView);
+        }
+        webView.stopLoading();
+        webView.setWebViewClient(new WebViewClient() {
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                if (view != pooled || !"about:blank".equals(url)) return;
+                view.clearHistory();
+                pooledClean = true;
+            }
+        });
+        webView.setWebChromeClient(null);
+        webView.setOnScrollChangeListener(null);
+        webView.setOnTouchListener(null);
+        if (!(webView.getContext() instanceof MutableContextWrapper) || pooled != null) {
+            webView.destroy();
+            return;
+        }
+        ((MutableContextWrapper) webView.getContext()).setBaseContext(appContext);
+        pooledClean = false;
+        webView.loadUrl("about:blank");
+        webView.scrollTo(0, 0);
+        webView.getSettings().setTextZoom(100);
+        // Dark mode của ReadBookActivity đổi màu nền WebView
+        webView.setBackgroundColor(Color.TRANSPARENT);
+        webView.setVisibility(View.VISIBLE);
+        pooled = webView;
+    }
+
+    /**
+     * Hủy WebView đang giữ (thiếu bộ nhớ)
+     */
+    public void clear() {
+        if (pooled != null) {
+            Log.d(TAG, "Releasing pooled WebView under memory pressure");
+            pooled.destroy();
+            pooled = null;
+            pooledClean = false;
+        }
+    }
+
+    private void init(Context context) {
+        if (appContext == null) appContext = context.getApplicationContext();
+        if (!callbacksRegistered) {
+            appContext.registerComponentCallbacks(memoryCallbacks);
+            callbacksRegistered = true;
+        }
+    }
+
+    /**
+     * Cấu hình chung cho WebView đọc sách
+     */
+    private static WebView create(Context context) {
+        WebView webView = new WebView(context);
+        WebSettings settings = webView.getSettings();
+        settings.setJavaScriptEnabled(true);
+        settings.setDomStorageEnabled(true);
+        settings.setBuiltInZoomControls(false);
+        settings.setDisplayZoomControls(false);
+        settings.setSupportZoom(true);
+        settings.setLoadWithOverviewMode(true);
+        settings.setUseWideViewPort(true);
+        webView.setBackgroundColor(Color.TRANSPARENT);
+        webView.setScrollBarStyle(View.SCROLLBARS_OUTSIDE_OVERLAY);
+        return webView;
+    }
+}
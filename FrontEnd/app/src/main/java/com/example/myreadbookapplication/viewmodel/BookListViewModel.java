@@ -0,0 +1,113 @@
+package com.example.myreadbookapplication.viewmodel;
+
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.ViewModel;
+
+import com.example.myreadbookapplication.model.Book;
+import com.example.myreadbookapplication.model.BooksResponse;
+import com.example.myreadbookapplication.model.Category;
+import com.example.myreadbookapplication.utils.InfiniteScrollPager;
+import com.example.myreadbookapplication.utils.PagePrefetcher;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * State của các màn hình danh sách sách (BookActivity, CategoryActivity, BookFragment admin),
+ * giữ lại khi Activity/Fragment bị tạo lại do xoay màn hình hoặc đổi dark mode:
+ * - Các trang đã tải (PagePrefetcher) và state cuộn liên tục (InfiniteScrollPager.State)
+ * - Map category id -> tên và danh sách category
+ * Trang hiện tại và query nằm trong SavedStateHandle nên còn cả sau khi process bị kill.
+ */
+public class BookListViewModel extends ViewModel {
+    private static final String KEY_CURRENT_PAGE = "current_page";
+    private static final String KEY_QUERY = "query";
+
+    private final SavedStateHandle savedState;
+    private final Map<Integer, String> categoryNames = new HashMap<>();
+    private final InfiniteScrollPager.State<Book> scrollState = new InfiniteScrollPager.State<>();
+    private boolean categoriesLoaded = false;
+    private List<Category> categories;
+    private PagePrefetcher<BooksResponse> pagePrefetcher;
+    private String pagePrefetcherKey;
+
+    public BookListViewModel(SavedStateHandle savedState) {
+        this.savedState = savedState;
+    }
+
+    /**
+     * PagePrefetcher cho key (category id, query...); key đổi thì bỏ cache cũ và tạo mới.
+     * Loader không được giữ tham chiếu tới Activity/Fragment (dùng RetrofitClient.getApiService()).
+     */
+    public PagePrefetcher<BooksResponse> getPagePrefetcher(String key, PagePrefetcher.PageLoader<BooksResponse> loader) {
+        if (pagePrefetcher == null || !Objects.equals(pagePrefetcherKey, key)) {
+            if (pagePrefetcher != null) pagePrefetcher.invalidate();
+            pagePrefetcher = new PagePrefetcher<>(loader);
+            pagePrefetcherKey = key;
+        }
+        return pagePrefetcher;
+    }
+
+    /**
+     * Bỏ cache trang (dữ liệu bị sửa hoặc user chủ động tải lại)
+     */
+    public void invalidatePages() {
+        if (pagePrefetcher != null) {
+            pagePrefetcher.invalidate();
+            pagePrefetcher = null;
+        }
+    }
+
+    public InfiniteScrollPager.State<Book> getScrollState() {
+        return scrollState;
+    }
+
+    public Map<Integer, String> getCategoryNames() {
+        return categoryNames;
+    }
+
+    public boolean isCategoriesLoaded() {
+        return categoriesLoaded;
+    }
+
+    public void setCategoriesLoaded(boolean categoriesLoaded) {
+        this.categoriesLoaded = categoriesLoaded;
+    }
+
+    /**
+     * Danh sách category đã tải (null nếu chưa tải)
+     */
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<Category> categories) {
+        this.categories = categories;
+    }
+
+    public int getCurrentPage() {
+        Integer page = savedState.get(KEY_CURRENT_PAGE);
+        return page != null ? page : 1;
+    }
+
+    public void setCurrentPage(int page) {
+        savedState.set(KEY_CURRENT_PAGE, page);
+    }
+
+    public String getQuery() {
+        String query = savedState.get(KEY_QUERY);
+        return query != null ? query : "";
+    }
+
+    public void setQuery(String query) {
+        savedState.set(KEY_QUERY, query);
+    }
+
+    @Override
+    protected void onCleared() {
+        // Màn hình đóng hẳn (không phải xoay màn hình): hủy request còn chạy
+        invalidatePages();
+    }
+}
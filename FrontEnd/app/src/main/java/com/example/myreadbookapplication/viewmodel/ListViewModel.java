@@ -0,0 +1,24 @@
+package com.example.myreadbookapplication.viewmodel;
+
+import androidx.lifecycle.ViewModel;
+
+import java.util.List;
+
+/**
+ * Giữ lại một danh sách đã tải (category, feedback của màn hình admin) khi Fragment bị tạo lại,
+ * để xoay màn hình không phải gọi lại API.
+ */
+public class ListViewModel<T> extends ViewModel {
+    private List<T> items;
+
+    /**
+     * Danh sách đã tải, null nếu chưa tải
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+}
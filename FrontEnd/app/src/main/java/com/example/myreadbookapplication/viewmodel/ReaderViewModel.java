@@ -0,0 +1,108 @@
+package com.example.myreadbookapplication.viewmodel;
+
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.ViewModel;
+
+import com.example.myreadbookapplication.model.epub.EpubModels.ChapterItem;
+import com.example.myreadbookapplication.model.epub.EpubModels.EpubChapterContentData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State của ReadBookActivity giữ lại qua xoay màn hình / đổi dark mode: danh sách chương đã xử lý,
+ * các map tra cứu chương và HTML của vài chương gần nhất, để tạo lại Activity không phải gọi lại
+ * validate/metadata/chapters/chapter-content.
+ * Chương đang đọc và vị trí cuộn nằm trong SavedStateHandle nên còn sau khi process bị kill.
+ */
+public class ReaderViewModel extends ViewModel {
+    private static final String KEY_CHAPTER_ID = "chapter_id";
+    private static final String KEY_SCROLL_CHAPTER_ID = "scroll_chapter_id";
+    private static final String KEY_SCROLL_Y = "scroll_y";
+    private static final int MAX_CACHED_CHAPTERS = 3;
+
+    private final SavedStateHandle savedState;
+    private final List<ChapterItem> chapterItems = new ArrayList<>();
+    private final Map<String, Integer> chapterIndexMap = new HashMap<>();
+    private final Map<String, String> chapterTitleHints = new HashMap<>();
+    private final Map<String, String> hrefToId = new HashMap<>();
+    // chapterId -> nội dung, LRU
+    private final LinkedHashMap<String, EpubChapterContentData> chapterContents =
+            new LinkedHashMap<String, EpubChapterContentData>(MAX_CACHED_CHAPTERS + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, EpubChapterContentData> eldest) {
+                    return size() > MAX_CACHED_CHAPTERS;
+                }
+            };
+    private String loadedEpubUrl;
+
+    public ReaderViewModel(SavedStateHandle savedState) {
+        this.savedState = savedState;
+    }
+
+    public List<ChapterItem> getChapterItems() {
+        return chapterItems;
+    }
+
+    public Map<String, Integer> getChapterIndexMap() {
+        return chapterIndexMap;
+    }
+
+    public Map<String, String> getChapterTitleHints() {
+        return chapterTitleHints;
+    }
+
+    public Map<String, String> getHrefToId() {
+        return hrefToId;
+    }
+
+    /**
+     * Danh sách chương của epubUrl đã tải xong chưa
+     */
+    public boolean isChaptersLoaded(String epubUrl) {
+        return epubUrl != null && epubUrl.equals(loadedEpubUrl);
+    }
+
+    public void setChaptersLoaded(String epubUrl) {
+        this.loadedEpubUrl = epubUrl;
+    }
+
+    public EpubChapterContentData getChapterContent(String chapterId) {
+        return chapterId != null ? chapterContents.get(chapterId) : null;
+    }
+
+    public void putChapterContent(String chapterId, EpubChapterContentData content) {
+        if (chapterId != null && content != null) chapterContents.put(chapterId, content);
+    }
+
+    /**
+     * Chương đang đọc lần cuối (null nếu chưa mở chương nào)
+     */
+    public String getCurrentChapterId() {
+        return savedState.get(KEY_CHAPTER_ID);
+    }
+
+    public void setCurrentChapterId(String chapterId) {
+        savedState.set(KEY_CHAPTER_ID, chapterId);
+    }
+
+    public void saveScrollY(String chapterId, int scrollY) {
+        savedState.set(KEY_SCROLL_CHAPTER_ID, chapterId);
+        savedState.set(KEY_SCROLL_Y, scrollY);
+    }
+
+    /**
+     * Vị trí cuộn đã lưu khi Activity bị hủy, chỉ dùng một lần cho đúng chương đó (-1 nếu không có)
+     */
+    public int consumeScrollY(String chapterId) {
+        String savedChapterId = savedState.get(KEY_SCROLL_CHAPTER_ID);
+        Integer scrollY = savedState.get(KEY_SCROLL_Y);
+        if (chapterId == null || !chapterId.equals(savedChapterId) || scrollY == null) return -1;
+        savedState.remove(KEY_SCROLL_CHAPTER_ID);
+        savedState.remove(KEY_SCROLL_Y);
+        return scrollY;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.myreadbookapplication.viewmodel;
+
+import android.util.Log;
+
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.ViewModel;
+
+import com.example.myreadbookapplication.model.Book;
+import com.example.myreadbookapplication.model.BooksResponse;
+import com.example.myreadbookapplication.network.RetrofitClient;
+import com.example.myreadbookapplication.utils.SearchController;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State của SearchActivity giữ lại qua xoay màn hình: SearchController (cache trang theo query),
+ * kết quả đang hiển thị và map category. Query + trang hiện tại nằm trong SavedStateHandle
+ * để sau khi process bị kill vẫn tìm lại đúng chỗ.
+ */
+public class SearchViewModel extends ViewModel {
+    private static final String TAG = "SearchViewModel";
+    private static final String KEY_QUERY = "query";
+    private static final String KEY_PAGE = "page";
+
+    private final SavedStateHandle savedState;
+    private final Map<Integer, String> categoryNames = new HashMap<>();
+    private final List<Book> results = new ArrayList<>();
+    private SearchController searchController;
+    private boolean categoriesLoaded = false;
+    private String displayedQuery = "";
+    private boolean showingLocalResults = false;
+    private BooksResponse lastResponse;
+
+    public SearchViewModel(SavedStateHandle savedState) {
+        this.savedState = savedState;
+    }
+
+    public SearchController getSearchController(int pageSize) {
+        if (searchController == null) {
+            // Không dùng ApiService gắn với Activity: controller sống lâu hơn Activity
+            searchController = new SearchController(RetrofitClient.getApiService(), pageSize);
+        }
+        return searchController;
+    }
+
+    /**
+     * List kết quả dùng chung với adapter
+     */
+    public List<Book> getResults() {
+        return results;
+    }
+
+    public Map<Integer, String> getCategoryNames() {
+        return categoryNames;
+    }
+
+    public boolean isCategoriesLoaded() {
+        return categoriesLoaded;
+    }
+
+    public void setCategoriesLoaded(boolean categoriesLoaded) {
+        this.categoriesLoaded = categoriesLoaded;
+    }
+
+    /**
+     * Lưu state hiện tại của Activity (gọi từ onSaveInstanceState)
+     */
+    public void saveState(String query, int page, String displayedQuery, boolean showingLocalResults,
+                          BooksResponse lastResponse) {
+        savedState.set(KEY_QUERY, query);
+        savedState.set(KEY_PAGE, page);
+        this.displayedQuery = displayedQuery;
+        this.showingLocalResults = showingLocalResults;
+        this.lastResponse = lastResponse;
+    }
+
+    public String getQuery() {
+        String query = savedState.get(KEY_QUERY);
+        return query != null ? query : "";
+    }
+
+    public int getPage() {
+        Integer page = savedState.get(KEY_PAGE);
+        return page != null ? page : 1;
+    }
+
+    /**
+     * Query của kết quả đang giữ trong getResults() (rỗng sau khi process bị kill)
+     */
+    public String getDisplayedQuery() {
+        return displayedQuery;
+    }
+
+    public boolean isShowingLocalResults() {
+        return showingLocalResults;
+    }
+
+    public BooksResponse getLastResponse() {
+        return lastResponse;
+    }
+
+    @Override
+    protected void onCleared() {
+        if (searchController == null) return;
+        searchController.cancel();
+        Log.d(TAG, "Searches: network=" + searchController.getNetworkSearches()
+                + ", served from cache=" + searchController.getAvoidedSearches());
+    }
+}